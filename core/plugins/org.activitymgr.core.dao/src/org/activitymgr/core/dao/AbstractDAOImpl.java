@@ -50,10 +50,21 @@ public class AbstractDAOImpl {
 	private Provider<Connection> tx;
 	
 	/**
-	 * @return the active connection.
+	 * @return the active connection (which caches the statements it
+	 *         prepares, if the transaction has opened a statement cache).
+	 * @see PreparedStatementCache
 	 */
 	protected Connection tx() {
-		return tx.get();
+		return PreparedStatementCache.wrap(tx.get());
+	}
+
+	/**
+	 * @return the identity map of the active transaction, or <code>null</code>
+	 *         if the transaction has not opened any.
+	 * @see IdentityMap
+	 */
+	protected IdentityMap identityMap() {
+		return IdentityMap.current(tx.get());
 	}
 
 	/**
@@ -33,12 +33,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
+import org.activitymgr.core.orm.CompiledQuery;
 import org.activitymgr.core.orm.IDAO;
+import org.activitymgr.core.orm.IProjection;
+import org.activitymgr.core.orm.ResultSetStreams;
 import org.apache.log4j.Logger;
 
 import com.google.inject.Inject;
@@ -53,10 +58,23 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 
 	private Map<String, String> columnNamesRequestFragmentByTableAlias = new HashMap<String, String>();
 	
+	@SuppressWarnings("unchecked")
 	@Override
 	public TYPE selectByPK(Object... pkValues) throws DAOException {
+		IdentityMap identityMap = identityMap();
+		if (identityMap != null) {
+			Object cached = identityMap.get(this, pkValues);
+			if (cached != IdentityMap.UNKNOWN) {
+				return cached != null ? wrapped.copy((TYPE) cached) : null;
+			}
+		}
 		try {
-			return wrapped.selectByPK(tx(), pkValues);
+			TYPE result = wrapped.selectByPK(tx(), pkValues);
+			if (identityMap != null) {
+				identityMap.put(this, pkValues,
+						result != null ? wrapped.copy(result) : null);
+			}
+			return result;
 		} catch (SQLException e) {
 			throw new DAOException(null, e);
 		}
@@ -64,6 +82,7 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 
 	@Override
 	public boolean deleteByPK(Object... pkValues) throws DAOException {
+		beforeWrite(null);
 		try {
 			return wrapped.deleteByPK(tx(), pkValues);
 		} catch (SQLException e) {
@@ -73,6 +92,7 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 
 	@Override
 	public boolean delete(TYPE instance) throws DAOException {
+		beforeWrite(instance);
 		try {
 			return wrapped.delete(tx(), instance);
 		} catch (SQLException e) {
@@ -83,6 +103,7 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 	@Override
 	public int delete(String[] whereClauseAttributeNames,
 			Object[] whereClauseAttributeValues) throws DAOException {
+		beforeWrite(null);
 		try {
 			return wrapped.delete(tx(),
 					whereClauseAttributeNames, whereClauseAttributeValues);
@@ -127,8 +148,73 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		}
 	}
 
+	@Override
+	public Stream<TYPE> stream(String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException {
+		try {
+			return wrapped.stream(tx(),
+					whereClauseAttributeNames, whereClauseAttributeValues,
+					orderByClauseItems, maxRows);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
+	@Override
+	public CompiledQuery<TYPE> compile(String[] whereClauseAttributeNames,
+			Object[] whereClauseShapes, Object[] orderByClauseItems,
+			int maxRows) {
+		return wrapped.compile(whereClauseAttributeNames, whereClauseShapes,
+				orderByClauseItems, maxRows);
+	}
+
+	@Override
+	public TYPE[] select(CompiledQuery<TYPE> query, Object... parameters)
+			throws DAOException {
+		try {
+			return wrapped.select(tx(), query, parameters);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
+	@Override
+	public IProjection<TYPE> getProjection(String... attributeNames) {
+		return wrapped.getProjection(attributeNames);
+	}
+
+	@Override
+	public TYPE[] select(IProjection<TYPE> projection,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException {
+		try {
+			return wrapped.select(tx(), projection,
+					whereClauseAttributeNames, whereClauseAttributeValues,
+					orderByClauseItems, maxRows);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
+	@Override
+	public long[] selectLongs(String attributeName,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException {
+		try {
+			return wrapped.selectLongs(tx(), attributeName,
+					whereClauseAttributeNames, whereClauseAttributeValues,
+					orderByClauseItems, maxRows);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
 	@Override
 	public TYPE update(TYPE value) throws DAOException {
+		beforeWrite(value);
 		try {
 			return wrapped.update(tx(), value);
 		} catch (SQLException e) {
@@ -136,8 +222,20 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		}
 	}
 
+	@Override
+	public TYPE update(TYPE value, String... changedAttributes)
+			throws DAOException {
+		beforeWrite(value);
+		try {
+			return wrapped.update(tx(), value, changedAttributes);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
 	@Override
 	public TYPE insert(TYPE value) throws DAOException {
+		beforeWrite(value);
 		try {
 			return wrapped.insert(tx(), value);
 		} catch (SQLException e) {
@@ -145,6 +243,42 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		}
 	}
 
+	@Override
+	public int insertAll(Collection<TYPE> values) throws DAOException {
+		for (TYPE value : values) {
+			beforeWrite(value);
+		}
+		try {
+			return wrapped.insertAll(tx(), values);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
+	@Override
+	public int updateAll(Collection<TYPE> values) throws DAOException {
+		for (TYPE value : values) {
+			beforeWrite(value);
+		}
+		try {
+			return wrapped.updateAll(tx(), values);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
+	@Override
+	public int deleteAll(Collection<TYPE> values) throws DAOException {
+		for (TYPE value : values) {
+			beforeWrite(value);
+		}
+		try {
+			return wrapped.deleteAll(tx(), values);
+		} catch (SQLException e) {
+			throw new DAOException(null, e);
+		}
+	}
+
 	@Override
 	public long countAll() throws DAOException {
 		try {
@@ -189,7 +323,39 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 	public TYPE newInstance() {
 		return wrapped.newInstance();
 	}
+
+	@Override
+	public TYPE copy(TYPE instance) {
+		return wrapped.copy(instance);
+	}
 	
+	/**
+	 * Called before any write, to invalidate what may be cached about the
+	 * written instance. The default implementation invalidates the identity
+	 * map.
+	 * 
+	 * @param instance
+	 *            the written instance, or <code>null</code> if the written
+	 *            rows are not known (deletion by primary key or by where
+	 *            clause).
+	 */
+	protected void beforeWrite(TYPE instance) {
+		invalidateIdentityMap();
+	}
+
+	/**
+	 * Invalidates the entries of this DAO in the identity map of the active
+	 * transaction (to be called before any write).
+	 * 
+	 * @see IdentityMap
+	 */
+	protected void invalidateIdentityMap() {
+		IdentityMap identityMap = identityMap();
+		if (identityMap != null) {
+			identityMap.invalidate(this);
+		}
+	}
+
 	/**
 	 * @return the active connection.
 	 */
@@ -197,6 +363,39 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		return super.tx();
 	}
 
+	/**
+	 * Prepares a statement suited for streaming.
+	 * 
+	 * @param request
+	 *            the SQL request.
+	 * @return the statement.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 * @see ResultSetStreams#prepareStatement(Connection, String)
+	 */
+	protected PreparedStatement prepareStreamingStatement(String request)
+			throws SQLException {
+		return ResultSetStreams.prepareStatement(tx(), request);
+	}
+
+	/**
+	 * Executes a statement and streams the instances read from its rows. The
+	 * statement is closed with the stream.
+	 * 
+	 * @param pStmt
+	 *            the statement to execute.
+	 * @param fromIndex
+	 *            the index of the first column of the instance in the rows.
+	 * @return the stream.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	protected Stream<TYPE> stream(PreparedStatement pStmt, int fromIndex)
+			throws SQLException {
+		return ResultSetStreams.stream(pStmt, rs -> read(rs, fromIndex),
+				e -> new DAOException(null, e));
+	}
+
 	/**
 	 * Builds a interval request (a request that handles a date interval).
 	 * 
@@ -225,6 +424,42 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 			boolean insertWhereClause, 
 			String orderByClause)
 			throws SQLException {
+		return buildIntervalRequest(request, contributor, task, fromDate,
+				toDate, insertWhereClause, orderByClause, false);
+	}
+
+	/**
+	 * Builds a interval request (a request that handles a date interval).
+	 * 
+	 * @param request
+	 *            the request buffer.
+	 * @param contributor
+	 *            the contributor to consider (optionnal).
+	 * @param task
+	 *            the task to consider (optionnal).
+	 * @param fromDate
+	 *            the start date of the interval to consider (optionnal).
+	 * @param toDate
+	 *            the end date of the interval to consider (optionnal).
+	 * @param insertWhereClause
+	 *            <code>true</code> if a <code>where</code> keyword must be
+	 *            inserted.
+	 * @param orderByClause
+	 *            the order by clause.
+	 * @param streaming
+	 *            <code>true</code> if the statement is meant to be streamed.
+	 * @return the request.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 * @see #stream(PreparedStatement, int)
+	 */
+	protected PreparedStatement buildIntervalRequest(StringBuilder request,
+			Collaborator contributor, Task task, Calendar fromDate,
+			Calendar toDate, 
+			boolean insertWhereClause, 
+			String orderByClause,
+			boolean streaming)
+			throws SQLException {
 		
 		PreparedStatement pStmt;
 		if (contributor != null) {
@@ -235,7 +470,7 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		if (task != null) {
 			request.append(insertWhereClause ? " where " : " and ");
 			insertWhereClause = false;
-			request.append("ctb_task=tsk_id and (tsk_id=? or tsk_path like ?)");
+			request.append("ctb_task=tsk_id and tsk_id in (select ttr_descendant from TASK_TREE where ttr_ancestor=?)");
 		}
 		IntervalRequestHelper interval = new IntervalRequestHelper(fromDate, toDate);
 		if (interval.hasIntervalCriteria()) {
@@ -250,14 +485,15 @@ public abstract class AbstractORMDAOImpl<TYPE> extends AbstractDAOImpl implement
 		}
 		// Execute request
 		log.debug("request : " + request);
-		pStmt = tx().prepareStatement(request.toString()); //$NON-NLS-1$
+		pStmt = streaming
+				? prepareStreamingStatement(request.toString())
+				: tx().prepareStatement(request.toString()); //$NON-NLS-1$
 		int paramIdx = 1;
 		if (contributor != null) {
 			pStmt.setLong(paramIdx++, contributor.getId());
 		}
 		if (task != null) {
 			pStmt.setLong(paramIdx++, task.getId());
-			pStmt.setString(paramIdx++, task.getFullPath() + '%');
 		}
 		// Bind interval parameters
 		paramIdx = interval.bindParameters(paramIdx, pStmt);
@@ -0,0 +1,777 @@
+package org.activitymgr.core.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import org.activitymgr.core.dto.Contribution;
+import org.activitymgr.core.dto.report.ReportIntervalType;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * In memory copy of the contributions, used to compute the reports sums
+ * without querying the database.
+ *
+ * <p>
+ * The contributions are kept in primitive arrays (one per column : epoch day,
+ * contributor, task and duration), sorted by day except for the rows added
+ * since the last load. The tasks are kept in depth first order, so that a
+ * task and its sub tasks are contiguous.
+ * </p>
+ *
+ * <p>
+ * The cube is loaded on first use. The DAOs notify it of the contribution
+ * and task writes : when the writing transaction ends, the contributions of
+ * the written contributors and days are marked dirty, and they are read
+ * again on the next use (the tasks are read again after any task write).
+ * Meanwhile, the writing thread does not use the cube. The whole cube is
+ * reloaded when the written rows are not known, when the incremental updates
+ * have accumulated, and periodically to reconcile it against the database.
+ * </p>
+ *
+ * <p>
+ * The cube is read on a connection of the bound {@link DataSource}, in auto
+ * commit mode, so that each query sees the data committed before it starts
+ * (the snapshot of the calling thread transaction may predate the writes that
+ * marked the contributions dirty). If no {@link DataSource} is bound, the
+ * cube is read on the calling thread connection, provided that its isolation
+ * level is not above READ COMMITTED (the database is queried otherwise). The
+ * keys that could not be read again are marked dirty again.
+ * </p>
+ *
+ * <p>
+ * The cube is enabled by the <code>activitymgr.cube.enabled</code> system
+ * property, and the reconciliation interval (in seconds) is given by the
+ * <code>activitymgr.cube.reconcileInterval</code> system property.
+ * </p>
+ */
+@Singleton
+public class ContributionCube extends AbstractDAOImpl {
+
+	/** Tells whether the cube is enabled by default */
+	public static final boolean DEFAULT_ENABLED = Boolean
+			.getBoolean("activitymgr.cube.enabled"); //$NON-NLS-1$
+
+	/** Default reconciliation interval (in seconds) */
+	public static final int DEFAULT_RECONCILE_INTERVAL = Integer.getInteger(
+			"activitymgr.cube.reconcileInterval", 3600); //$NON-NLS-1$
+
+	/** Dirty keys count above which the whole cube is reloaded */
+	private static final int MAX_DIRTY_KEYS = 1000;
+
+	/** Marker of the deleted rows (in the contributors column) */
+	private static final int DELETED = -1;
+
+	/** Reports cache (tells whether the transaction reads stale data) */
+	@Inject
+	private ReportCache reportCache;
+
+	/** Connections of the cube loads */
+	@Inject(optional = true)
+	private DataSource dataSource;
+
+	private final boolean enabled;
+
+	/** Reconciliation interval (in milliseconds) */
+	private final long reconcileInterval;
+
+	/** Lock shared by the reads and held exclusively by the updates */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Load time (<code>0</code> if the cube must be loaded) */
+	private volatile long loadTime;
+
+	/** Tells whether the tasks must be read again */
+	private volatile boolean tasksStale;
+
+	/** Written contributions (see {@link #dirtyKey(long, int)}) */
+	private final Set<Long> dirtyKeys = ConcurrentHashMap.newKeySet();
+
+	/** Writes of the current transaction, by thread */
+	private final ThreadLocal<Writes> pendingWrites = new ThreadLocal<Writes>();
+
+	/*
+	 * Tasks, in depth first order
+	 */
+	private long[] taskIds = new long[0];
+	private int[] taskFullPathLengths = new int[0];
+	private int[] taskParents = new int[0];
+	private int[] taskSubTreeEnds = new int[0];
+	private Map<Long, Integer> taskPositions = new HashMap<Long, Integer>();
+
+	/*
+	 * Dictionaries (the contributions refer to the tasks and contributors
+	 * by key)
+	 */
+	private final Map<Long, Integer> taskKeys = new HashMap<Long, Integer>();
+	private long[] taskKeyIds = new long[16];
+	/** Task position, by task key (<code>-1</code> for the unknown tasks) */
+	private int[] taskKeyPositions = new int[16];
+	private final Map<Long, Integer> contributorKeys = new HashMap<Long, Integer>();
+	private long[] contributorKeyIds = new long[16];
+
+	/*
+	 * Contributions
+	 */
+	private int[] days = new int[0];
+	private int[] contributors = new int[0];
+	private int[] tasks = new int[0];
+	private long[] durations = new long[0];
+	private int size;
+	/** Count of leading rows that are sorted by day */
+	private int sortedSize;
+	private int deletedCount;
+
+	private final AtomicLong loads = new AtomicLong();
+	private final AtomicLong reads = new AtomicLong();
+
+	public ContributionCube() {
+		this(DEFAULT_ENABLED, DEFAULT_RECONCILE_INTERVAL);
+	}
+
+	/**
+	 * Builds a cube.
+	 *
+	 * @param enabled
+	 *            tells whether the cube is used.
+	 * @param reconcileInterval
+	 *            the interval (in seconds) between two full loads.
+	 */
+	public ContributionCube(boolean enabled, int reconcileInterval) {
+		if (reconcileInterval <= 0) {
+			throw new IllegalArgumentException("Invalid reconciliation interval " + reconcileInterval);
+		}
+		this.enabled = enabled;
+		this.reconcileInterval = reconcileInterval * 1000l;
+	}
+
+	/**
+	 * @return <code>true</code> if the cube is enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Notifies that a contribution is about to be written.
+	 *
+	 * @param contribution
+	 *            the written contribution, or <code>null</code> if the written
+	 *            contributions are not known.
+	 */
+	public void contributionChanged(Contribution contribution) {
+		Writes writes = getPendingWrites();
+		if (contribution == null) {
+			writes.all = true;
+		} else if (!writes.all) {
+			writes.keys.add(dirtyKey(contribution.getContributorId(),
+					contribution.getYearMonthDay()));
+		}
+	}
+
+	/**
+	 * Notifies that tasks are about to be written.
+	 */
+	public void tasksChanged() {
+		getPendingWrites().tasks = true;
+	}
+
+	/**
+	 * Notifies that any table may be written.
+	 */
+	public void invalidateAll() {
+		Writes writes = getPendingWrites();
+		writes.all = true;
+		writes.tasks = true;
+	}
+
+	/**
+	 * Notifies the end (commit or rollback) of the calling thread
+	 * transaction.
+	 */
+	public void transactionEnded() {
+		Writes writes = pendingWrites.get();
+		if (writes != null) {
+			pendingWrites.remove();
+			if (writes.tasks) {
+				tasksStale = true;
+			}
+			if (writes.all) {
+				loadTime = 0;
+			} else {
+				dirtyKeys.addAll(writes.keys);
+			}
+		}
+	}
+
+	/**
+	 * Computes the contributions sums of a report.
+	 *
+	 * @param start
+	 *            the report start.
+	 * @param intervalType
+	 *            the interval type.
+	 * @param intervalCount
+	 *            the interval count.
+	 * @param rootTaskId
+	 *            the root task identifier (<code>null</code> for the whole
+	 *            database).
+	 * @param activityFullPathLength
+	 *            the full path length of the report tasks (<code>0</code> if
+	 *            the sums are not computed by task).
+	 * @param byContributor
+	 *            tells whether the sums are computed by contributor.
+	 * @param contributorIds
+	 *            the contributors to consider (<code>null</code> for all).
+	 * @param visitor
+	 *            the sums visitor (the sums of a task and a contributor are
+	 *            visited in chronological order).
+	 * @return <code>false</code> if the sums cannot be computed by the cube
+	 *         (the database must then be queried).
+	 */
+	public boolean visitSums(Calendar start, ReportIntervalType intervalType,
+			int intervalCount, Long rootTaskId, int activityFullPathLength,
+			boolean byContributor, long[] contributorIds, SumsVisitor visitor) {
+		// The cube holds neither the uncommitted data of the calling thread
+		// nor a stale copy of the database
+		if (!enabled || pendingWrites.get() != null
+				|| reportCache.hasStaleReads()) {
+			return false;
+		}
+		if (!refresh()) {
+			return false;
+		}
+
+		// Interval
+		Calendar end = (Calendar) start.clone();
+		end.add(intervalType.getIntType(), intervalCount);
+		end.add(Calendar.DATE, -1);
+		int startDay = epochDay(start);
+		int endDay = epochDay(end);
+		int[] intervalIndexes = getIntervalIndexes(start, intervalType,
+				startDay, endDay);
+
+		List<Sums> sums;
+		lock.readLock().lock();
+		try {
+			// Tasks scope
+			int rootStart = 0;
+			int rootEnd = taskIds.length;
+			if (rootTaskId != null) {
+				Integer rootPosition = taskPositions.get(rootTaskId);
+				if (rootPosition == null) {
+					return false;
+				}
+				rootStart = rootPosition;
+				rootEnd = taskSubTreeEnds[rootPosition];
+			}
+			int[] activities = null;
+			if (activityFullPathLength > 0) {
+				// The report task of a task is the task itself or its
+				// ancestor at the report depth
+				activities = new int[rootEnd - rootStart];
+				for (int pos = rootStart; pos < rootEnd; pos++) {
+					activities[pos - rootStart] = taskFullPathLengths[pos] <= activityFullPathLength
+							|| pos == rootStart ? pos
+							: activities[taskParents[pos] - rootStart];
+				}
+			}
+
+			// Contributors scope
+			boolean[] selectedContributors = null;
+			if (contributorIds != null && contributorIds.length > 0) {
+				selectedContributors = new boolean[contributorKeys.size()];
+				for (long contributorId : contributorIds) {
+					Integer contributorKey = contributorKeys.get(contributorId);
+					if (contributorKey != null) {
+						selectedContributors[contributorKey] = true;
+					}
+				}
+			}
+
+			// Sums computation (the sorted rows are only scanned within the
+			// interval, the other ones are all scanned)
+			Map<Long, Sums> sumsByKey = new HashMap<Long, Sums>();
+			int from = lowerBound(startDay);
+			int to = lowerBound(endDay + 1);
+			for (int range = 0; range < 2; range++) {
+				for (int i = from; i < to; i++) {
+					int day = days[i];
+					int contributor = contributors[i];
+					if (day < startDay || day > endDay || contributor == DELETED
+							|| (selectedContributors != null && !selectedContributors[contributor])) {
+						continue;
+					}
+					int pos = taskKeyPositions[tasks[i]];
+					if (pos < rootStart || pos >= rootEnd) {
+						continue;
+					}
+					int activity = activities != null ? activities[pos - rootStart] : -1;
+					long key = ((long) activity << 32) | (byContributor ? contributor + 1 : 0);
+					Sums itemSums = sumsByKey.get(key);
+					if (itemSums == null) {
+						itemSums = new Sums(
+								activity >= 0 ? taskIds[activity] : -1,
+								byContributor ? contributorKeyIds[contributor] : -1,
+								intervalCount);
+						sumsByKey.put(key, itemSums);
+					}
+					int intervalIdx = intervalIndexes[day - startDay];
+					itemSums.sums[intervalIdx] += durations[i];
+					itemSums.counts[intervalIdx]++;
+				}
+				from = Math.max(sortedSize, to);
+				to = size;
+			}
+			sums = new ArrayList<Sums>(sumsByKey.values());
+		} finally {
+			lock.readLock().unlock();
+		}
+		reads.incrementAndGet();
+
+		// Sums visit
+		for (Sums itemSums : sums) {
+			for (int i = 0; i < intervalCount; i++) {
+				if (itemSums.counts[i] > 0) {
+					visitor.visit(itemSums.taskId, itemSums.contributorId, i,
+							itemSums.sums[i]);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the count of full loads.
+	 */
+	public long getLoads() {
+		return loads.get();
+	}
+
+	/**
+	 * @return the count of reports sums computed by the cube.
+	 */
+	public long getReads() {
+		return reads.get();
+	}
+
+	/**
+	 * @return the count of contributions held by the cube.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Writes getPendingWrites() {
+		Writes writes = pendingWrites.get();
+		if (writes == null) {
+			writes = new Writes();
+			pendingWrites.set(writes);
+		}
+		return writes;
+	}
+
+	/**
+	 * Brings the cube up to date, if needed.
+	 *
+	 * @return <code>false</code> if the cube could not be read (it is then
+	 *         reloaded on next use).
+	 */
+	private boolean refresh() {
+		if (loadTime != 0
+				&& System.currentTimeMillis() - loadTime < reconcileInterval
+				&& !tasksStale && dirtyKeys.isEmpty()) {
+			return true;
+		}
+		Connection con = null;
+		boolean autoCommit = false;
+		lock.writeLock().lock();
+		try {
+			if (dataSource != null) {
+				con = dataSource.getConnection();
+				autoCommit = con.getAutoCommit();
+				con.setAutoCommit(true);
+			} else {
+				con = tx();
+				// The calling thread snapshot may miss the latest writes
+				if (con.getTransactionIsolation() > Connection.TRANSACTION_READ_COMMITTED) {
+					return false;
+				}
+			}
+			if (loadTime == 0
+					|| System.currentTimeMillis() - loadTime >= reconcileInterval
+					|| dirtyKeys.size() > MAX_DIRTY_KEYS
+					|| (deletedCount + size - sortedSize) * 4 > size) {
+				load(con);
+			} else {
+				if (tasksStale) {
+					tasksStale = false;
+					loadTasks(con);
+				}
+				if (!dirtyKeys.isEmpty()) {
+					reloadDirtyKeys(con);
+				}
+			}
+			return true;
+		} catch (SQLException e) {
+			loadTime = 0;
+			log.error("Contributions cube load failure", e); //$NON-NLS-1$
+			return false;
+		} finally {
+			lock.writeLock().unlock();
+			if (dataSource != null && con != null) {
+				try {
+					con.setAutoCommit(autoCommit);
+					con.close();
+				} catch (SQLException e) {
+					log.debug("Contributions cube connection close failure", e); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the whole cube (the write lock must be held).
+	 */
+	private void load(Connection con) throws SQLException {
+		long time = System.currentTimeMillis();
+		// The writes notified from now on will be read again
+		tasksStale = false;
+		dirtyKeys.clear();
+		loadTime = time;
+		loadTasks(con);
+
+		// Dictionaries reset
+		taskKeys.clear();
+		contributorKeys.clear();
+		Arrays.fill(taskKeyPositions, -1);
+
+		// Contributions load
+		size = 0;
+		sortedSize = 0;
+		deletedCount = 0;
+		try (PreparedStatement pStmt = con.prepareStatement(
+				"select ctb_date, ctb_contributor, ctb_task, ctb_duration from " //$NON-NLS-1$
+						+ IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW
+						+ " order by ctb_date")) { //$NON-NLS-1$
+			ResultSet rs = pStmt.executeQuery();
+			int lastDate = 0;
+			int lastDay = 0;
+			while (rs.next()) {
+				int date = rs.getInt(1);
+				if (date != lastDate) {
+					lastDate = date;
+					lastDay = epochDay(date);
+				}
+				append(lastDay, rs.getLong(2), rs.getLong(3), rs.getLong(4));
+			}
+		}
+		sortedSize = size;
+		loads.incrementAndGet();
+		log.info("Contributions cube loaded : " + size + " contributions in " //$NON-NLS-1$ //$NON-NLS-2$
+				+ (System.currentTimeMillis() - time) + " ms"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Loads the tasks (the write lock must be held).
+	 */
+	private void loadTasks(Connection con) throws SQLException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		try (PreparedStatement pStmt = con.prepareStatement(
+				"select tsk_id, tsk_path, tsk_number from TASK")) { //$NON-NLS-1$
+			ResultSet rs = pStmt.executeQuery();
+			while (rs.next()) {
+				rows.add(new Object[] { rs.getLong(1),
+						rs.getString(2) + rs.getString(3) });
+			}
+		}
+		// The full paths order is the depth first order
+		Collections.sort(rows, Comparator.comparing(row -> (String) row[1]));
+		int count = rows.size();
+		long[] ids = new long[count];
+		int[] fullPathLengths = new int[count];
+		int[] parents = new int[count];
+		int[] subTreeEnds = new int[count];
+		Map<Long, Integer> positions = new HashMap<Long, Integer>(count * 2);
+		List<Integer> ancestors = new ArrayList<Integer>();
+		List<String> ancestorPaths = new ArrayList<String>();
+		for (int pos = 0; pos < count; pos++) {
+			String fullPath = (String) rows.get(pos)[1];
+			ids[pos] = (Long) rows.get(pos)[0];
+			fullPathLengths[pos] = fullPath.length();
+			positions.put(ids[pos], pos);
+			// The tasks that are not ancestors of this one end here
+			while (!ancestors.isEmpty()
+					&& !fullPath.startsWith(ancestorPaths.get(ancestors.size() - 1))) {
+				subTreeEnds[ancestors.remove(ancestors.size() - 1)] = pos;
+				ancestorPaths.remove(ancestorPaths.size() - 1);
+			}
+			parents[pos] = ancestors.isEmpty() ? -1 : ancestors.get(ancestors.size() - 1);
+			ancestors.add(pos);
+			ancestorPaths.add(fullPath);
+		}
+		for (int pos : ancestors) {
+			subTreeEnds[pos] = count;
+		}
+		taskIds = ids;
+		taskFullPathLengths = fullPathLengths;
+		taskParents = parents;
+		taskSubTreeEnds = subTreeEnds;
+		taskPositions = positions;
+		for (Map.Entry<Long, Integer> entry : taskKeys.entrySet()) {
+			Integer pos = positions.get(entry.getKey());
+			taskKeyPositions[entry.getValue()] = pos != null ? pos : -1;
+		}
+	}
+
+	/**
+	 * Reads again the dirty contributions (the write lock must be held).
+	 */
+	private void reloadDirtyKeys(Connection con) throws SQLException {
+		// The keys marked by the transactions that end from now on stay
+		// dirty, and the keys that are not read are marked dirty again
+		Set<Long> keys = new HashSet<Long>(dirtyKeys);
+		dirtyKeys.removeAll(keys);
+		boolean reloaded = false;
+		try (PreparedStatement pStmt = con.prepareStatement(
+				"select ctb_task, ctb_duration from " //$NON-NLS-1$
+						+ IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW
+						+ " where ctb_year=? and ctb_date=? and ctb_contributor=?")) { //$NON-NLS-1$
+			Iterator<Long> it = keys.iterator();
+			while (it.hasNext()) {
+				long key = it.next();
+				int date = (int) (key % 100000000l);
+				long contributorId = key / 100000000l;
+				int day = epochDay(date);
+				// Former rows removal
+				Integer contributorKey = contributorKeys.get(contributorId);
+				if (contributorKey != null) {
+					int from = lowerBound(day);
+					int to = lowerBound(day + 1);
+					for (int range = 0; range < 2; range++) {
+						for (int i = from; i < to; i++) {
+							if (days[i] == day && contributors[i] == contributorKey) {
+								contributors[i] = DELETED;
+								deletedCount++;
+							}
+						}
+						from = Math.max(sortedSize, to);
+						to = size;
+					}
+				}
+				// Current rows
+				pStmt.setInt(1, date / 10000);
+				pStmt.setInt(2, date);
+				pStmt.setLong(3, contributorId);
+				ResultSet rs = pStmt.executeQuery();
+				while (rs.next()) {
+					append(day, contributorId, rs.getLong(1), rs.getLong(2));
+				}
+				rs.close();
+			}
+			reloaded = true;
+		} finally {
+			if (!reloaded) {
+				dirtyKeys.addAll(keys);
+			}
+		}
+	}
+
+	/**
+	 * Appends a contribution (the write lock must be held).
+	 */
+	private void append(int day, long contributorId, long taskId, long duration) {
+		if (size == days.length) {
+			int capacity = Math.max(1024, size * 2);
+			days = Arrays.copyOf(days, capacity);
+			contributors = Arrays.copyOf(contributors, capacity);
+			tasks = Arrays.copyOf(tasks, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+		}
+		days[size] = day;
+		contributors[size] = getContributorKey(contributorId);
+		tasks[size] = getTaskKey(taskId);
+		durations[size] = duration;
+		size++;
+	}
+
+	private int getContributorKey(long contributorId) {
+		Integer key = contributorKeys.get(contributorId);
+		if (key == null) {
+			key = contributorKeys.size();
+			if (key == contributorKeyIds.length) {
+				contributorKeyIds = Arrays.copyOf(contributorKeyIds, key * 2);
+			}
+			contributorKeyIds[key] = contributorId;
+			contributorKeys.put(contributorId, key);
+		}
+		return key;
+	}
+
+	private int getTaskKey(long taskId) {
+		Integer key = taskKeys.get(taskId);
+		if (key == null) {
+			key = taskKeys.size();
+			if (key == taskKeyIds.length) {
+				taskKeyIds = Arrays.copyOf(taskKeyIds, key * 2);
+				taskKeyPositions = Arrays.copyOf(taskKeyPositions, key * 2);
+			}
+			taskKeyIds[key] = taskId;
+			Integer pos = taskPositions.get(taskId);
+			taskKeyPositions[key] = pos != null ? pos : -1;
+			taskKeys.put(taskId, key);
+		}
+		return key;
+	}
+
+	/**
+	 * @return the index of the first sorted row whose day is greater than or
+	 *         equal to a given day.
+	 */
+	private int lowerBound(int day) {
+		int low = 0;
+		int high = sortedSize;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (days[middle] < day) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the interval index of each day of the report.
+	 */
+	private static int[] getIntervalIndexes(Calendar start,
+			ReportIntervalType intervalType, int startDay, int endDay) {
+		int[] indexes = new int[Math.max(0, endDay - startDay + 1)];
+		int startYear = start.get(Calendar.YEAR);
+		int startMonth = start.get(Calendar.MONTH) + 1;
+		for (int day = startDay; day <= endDay; day++) {
+			LocalDate date = LocalDate.ofEpochDay(day);
+			int index = 0;
+			switch (intervalType) {
+			case DAY:
+				index = day - startDay;
+				break;
+			case WEEK:
+				index = (day - startDay) / 7;
+				break;
+			case MONTH:
+				index = (date.getYear() - startYear) * 12
+						+ date.getMonthValue() - startMonth;
+				break;
+			case YEAR:
+				index = date.getYear() - startYear;
+			}
+			indexes[day - startDay] = index;
+		}
+		return indexes;
+	}
+
+	private static int epochDay(Calendar date) {
+		return (int) LocalDate.of(date.get(Calendar.YEAR),
+				date.get(Calendar.MONTH) + 1, date.get(Calendar.DATE))
+				.toEpochDay();
+	}
+
+	private static int epochDay(int yearMonthDay) {
+		return (int) LocalDate.of(yearMonthDay / 10000,
+				yearMonthDay / 100 % 100, yearMonthDay % 100).toEpochDay();
+	}
+
+	/**
+	 * @return the dirty key of a contributor and a day (yyyymmdd).
+	 */
+	private static long dirtyKey(long contributorId, int yearMonthDay) {
+		return contributorId * 100000000l + yearMonthDay;
+	}
+
+	/**
+	 * Visitor of the contributions sums of a report.
+	 */
+	public interface SumsVisitor {
+
+		/**
+		 * Visits a contributions sum.
+		 *
+		 * @param taskId
+		 *            the report task identifier (<code>-1</code> if the sums
+		 *            are not computed by task).
+		 * @param contributorId
+		 *            the contributor identifier (<code>-1</code> if the sums
+		 *            are not computed by contributor).
+		 * @param intervalIdx
+		 *            the interval index.
+		 * @param sum
+		 *            the contributions sum.
+		 */
+		void visit(long taskId, long contributorId, int intervalIdx, long sum);
+
+	}
+
+	/**
+	 * Contributions sums of a task and a contributor.
+	 */
+	private static final class Sums {
+
+		private final long taskId;
+
+		private final long contributorId;
+
+		private final long[] sums;
+
+		private final int[] counts;
+
+		Sums(long taskId, long contributorId, int intervalCount) {
+			this.taskId = taskId;
+			this.contributorId = contributorId;
+			this.sums = new long[intervalCount];
+			this.counts = new int[intervalCount];
+		}
+
+	}
+
+	/**
+	 * Writes of a transaction.
+	 */
+	private static final class Writes {
+
+		private final Set<Long> keys = new HashSet<Long>();
+
+		private boolean all;
+
+		private boolean tasks;
+
+	}
+
+}
@@ -135,6 +135,26 @@ public class CoreDAOModule implements Module {
 	    binder.bind(IReportDAO.class)
 	    	.to(ReportDAOImpl.class)
 	    	.in(Singleton.class);
+
+	    // Tasks cache shared by the transactions
+	    binder.bind(TaskDAOCache.class)
+	    	.in(Singleton.class);
+
+	    // Reports cache shared by the transactions
+	    binder.bind(ReportCache.class)
+	    	.in(Singleton.class);
+
+	    // Reports slices threads
+	    binder.bind(ReportPlanner.class)
+	    	.in(Singleton.class);
+
+	    // In memory contributions (optional)
+	    binder.bind(ContributionCube.class)
+	    	.in(Singleton.class);
+
+	    // All the shared caches
+	    binder.bind(DAOCaches.class)
+	    	.in(Singleton.class);
 	}
 	
 	
@@ -0,0 +1,63 @@
+package org.activitymgr.core.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Caches shared by all the transactions (tasks, reports and contributions
+ * cube).
+ *
+ * <p>
+ * The caches are singletons that outlive the database : a client that
+ * switches from one database to another must call {@link #invalidateAll()}
+ * when it opens or closes a database, otherwise the data of the former
+ * database would still be served.
+ * </p>
+ */
+@Singleton
+public class DAOCaches {
+
+	private final TaskDAOCache taskCache;
+
+	private final ReportCache reportCache;
+
+	private final ContributionCube cube;
+
+	@Inject
+	public DAOCaches(TaskDAOCache taskCache, ReportCache reportCache,
+			ContributionCube cube) {
+		this.taskCache = taskCache;
+		this.reportCache = reportCache;
+		this.cube = cube;
+	}
+
+	/**
+	 * Notifies the start of the calling thread transaction, before its first
+	 * read, to all the caches.
+	 */
+	public void transactionStarted() {
+		reportCache.transactionStarted();
+	}
+
+	/**
+	 * Notifies the end (commit or rollback) of the calling thread transaction
+	 * to all the caches.
+	 */
+	public void transactionEnded() {
+		taskCache.transactionEnded();
+		reportCache.transactionEnded();
+		cube.transactionEnded();
+	}
+
+	/**
+	 * Drops the content of all the caches, to be called when the database is
+	 * switched (the calling thread must not be inside a transaction).
+	 */
+	public void invalidateAll() {
+		taskCache.reset();
+		reportCache.invalidateAll();
+		cube.invalidateAll();
+		transactionEnded();
+	}
+
+}
@@ -3,6 +3,7 @@ package org.activitymgr.core.dao;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
@@ -27,6 +28,27 @@ public interface IContributionDAO extends IDAO<Contribution> {
 	Contribution[] getContributions(Collaborator contributor, Task task,
 			Calendar fromDate, Calendar toDate) throws DAOException;
 
+	/**
+	 * Streams the contributions instead of loading them all in memory (the
+	 * stream must be closed unless it is fully consumed).
+	 * 
+	 * @param contributor
+	 *            le collaborateur associé aux contributions.
+	 * @param task
+	 *            la tache associée aux contributions, toutes si 'null'.
+	 * @param fromDate
+	 *            la date de départ.
+	 * @param toDate
+	 *            la date de fin. (incluse)
+	 * @return the contributions, in the same order as
+	 *         {@link #getContributions(Collaborator, Task, Calendar, Calendar)}
+	 *         .
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	Stream<Contribution> streamContributions(Collaborator contributor,
+			Task task, Calendar fromDate, Calendar toDate) throws DAOException;
+
 	/**
 	 * @param contributor
 	 *            le collaborateur associé aux contributions.
@@ -72,12 +94,72 @@ public interface IContributionDAO extends IDAO<Contribution> {
 	 *            start of the date interval to consider
 	 * @param toDate
 	 *            end of the date interval to consider
-	 * @return the sub tasks sums (consumed, ...)
+	 * @return the sub tasks sums (consumed within, before and after the
+	 *         interval, ...), computed in a single pass.
 	 * @throws DAOException
 	 *             levé en cas d'incident technique d'accès à la base.
 	 */
 	Map<Long, TaskContributionsSums> getTasksSums(Long taskId, String tasksPath, Calendar fromDate, Calendar toDate)
 			throws DAOException;
+
+	/**
+	 * Updates the contributions rollups (sums per task and month, and per
+	 * task) after some contributions have been created, updated or removed.
+	 * 
+	 * <p>
+	 * Only the rollups of the months and tasks of the given contributions are
+	 * recomputed.
+	 * </p>
+	 * 
+	 * @param contributions
+	 *            the contributions that have been written.
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	void updateRollups(Collection<Contribution> contributions)
+			throws DAOException;
+
+	/**
+	 * Rebuilds all the contributions rollups from the contributions.
+	 * 
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	void rebuildRollups() throws DAOException;
+
+	/**
+	 * Archives the contributions of a closed year.
+	 * 
+	 * <p>
+	 * The contributions are moved into a dedicated table, that is only read
+	 * by the requests that go back before the current year. The archived
+	 * contributions may no longer be written.
+	 * </p>
+	 * 
+	 * <p>
+	 * Each step may be run again : the archive table and its indexes are
+	 * only created if they are missing, the contributions that are not
+	 * copied yet are copied, and the contributions are only deleted once
+	 * they are all copied. Calling this method again for an interrupted year
+	 * thus completes it.
+	 * </p>
+	 * 
+	 * @param year
+	 *            the year to archive.
+	 * @return the archived contributions count.
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	int archiveContributions(int year) throws DAOException;
+
+	/**
+	 * Return the archived contribution years.
+	 * 
+	 * @return the archived contribution years.
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	Collection<Integer> getArchivedContributionYears() throws DAOException;
 	
 	/**
 	 * Return the contribution years list.
@@ -62,6 +62,24 @@ public interface ICoreDAO {
 	 */
 	void createTables() throws DAOException;
 
+	/**
+	 * @return the version of the database schema, or <code>null</code> if the
+	 *         database has been created by a version that did not record it.
+	 * @throws DAOException
+	 *             thrown if a database error occurs.
+	 */
+	String getSchemaVersion() throws DAOException;
+
+	/**
+	 * Records the version of the database schema.
+	 * 
+	 * @param version
+	 *            the version.
+	 * @throws DAOException
+	 *             thrown if a database error occurs.
+	 */
+	void setSchemaVersion(String version) throws DAOException;
+
 	/**
 	 * Executes a SQL script.
 	 * 
@@ -2,6 +2,11 @@ package org.activitymgr.core.dao;
 
 import java.io.OutputStream;
 import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.activitymgr.core.orm.CompiledQuery;
+import org.activitymgr.core.orm.IProjection;
 
 public interface IDAO<TYPE> {
 
@@ -25,10 +30,172 @@ public interface IDAO<TYPE> {
 			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
 			int maxRows) throws DAOException;
 
+	/**
+	 * Streams the rows matching a where clause. The stream must be closed
+	 * unless it is fully consumed.
+	 * 
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the stream.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 * @see org.activitymgr.core.orm.IDAO#stream(java.sql.Connection,
+	 *      String[], Object[], Object[], int)
+	 */
+	public Stream<TYPE> stream(String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException;
+
+	/**
+	 * Compiles a select request once so that it can be executed many times.
+	 * 
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseShapes
+	 *            the shape of the where clause criteria.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the compiled query.
+	 * @see CompiledQuery
+	 */
+	public CompiledQuery<TYPE> compile(String[] whereClauseAttributeNames,
+			Object[] whereClauseShapes, Object[] orderByClauseItems,
+			int maxRows);
+
+	/**
+	 * Executes a compiled select request.
+	 * 
+	 * @param query
+	 *            the query (compiled by this DAO).
+	 * @param parameters
+	 *            the parameter values, in statement order.
+	 * @return the selected instances.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	public TYPE[] select(CompiledQuery<TYPE> query, Object... parameters)
+			throws DAOException;
+
+	/**
+	 * Returns the projection built from a subset of the attributes.
+	 * 
+	 * @param attributeNames
+	 *            the attribute names.
+	 * @return the projection.
+	 * @see IProjection
+	 */
+	public IProjection<TYPE> getProjection(String... attributeNames);
+
+	/**
+	 * Selects partially hydrated instances (only the projection columns are
+	 * read).
+	 * 
+	 * @param projection
+	 *            the projection (built by this DAO).
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the selected instances.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	public TYPE[] select(IProjection<TYPE> projection,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException;
+
+	/**
+	 * Selects the values of a single numeric attribute (typically the
+	 * identifiers).
+	 * 
+	 * @param attributeName
+	 *            the selected attribute.
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the selected values.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	public long[] selectLongs(String attributeName,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws DAOException;
+
 	public TYPE update(TYPE value) throws DAOException;
 
+	/**
+	 * Updates only the columns of the changed attributes.
+	 * 
+	 * @param value
+	 *            the instance to update.
+	 * @param changedAttributes
+	 *            the names of the changed attributes.
+	 * @return the instance.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 * @see org.activitymgr.core.orm.IDAO#update(java.sql.Connection, Object,
+	 *      String...)
+	 */
+	public TYPE update(TYPE value, String... changedAttributes)
+			throws DAOException;
+
 	public TYPE insert(TYPE value) throws DAOException;
 
+	/**
+	 * Inserts several instances in JDBC batches (recommended write path when
+	 * many rows must be written).
+	 * 
+	 * @param values
+	 *            the instances to insert.
+	 * @return the count of inserted rows.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 * @see org.activitymgr.core.orm.IDAO#insertAll(java.sql.Connection,
+	 *      Collection)
+	 */
+	public int insertAll(Collection<TYPE> values) throws DAOException;
+
+	/**
+	 * Updates several instances in JDBC batches.
+	 * 
+	 * @param values
+	 *            the instances to update.
+	 * @return the count of updated rows.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	public int updateAll(Collection<TYPE> values) throws DAOException;
+
+	/**
+	 * Deletes several instances in JDBC batches.
+	 * 
+	 * @param values
+	 *            the instances to delete.
+	 * @return the count of deleted rows.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	public int deleteAll(Collection<TYPE> values) throws DAOException;
+
 	public long countAll() throws DAOException;
 
 	public long count(String[] whereClauseAttributeNames,
@@ -41,4 +208,13 @@ public interface IDAO<TYPE> {
 	public TYPE read(ResultSet rs, int fromIndex);
 
 	public TYPE newInstance();
+
+	/**
+	 * Copies an instance (all the mapped attributes).
+	 * 
+	 * @param instance
+	 *            the instance to copy.
+	 * @return the copy.
+	 */
+	public TYPE copy(TYPE instance);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
@@ -37,6 +38,33 @@ public interface ITaskDAO extends IDAO<Task> {
 	 */
 	Task[] getSubTasks(String taskPath, String filter);
 
+	/**
+	 * Returns the identifiers of the sub tasks of a given task path filtered
+	 * by a given string (only the identifiers are read).
+	 * 
+	 * @param taskPath
+	 *            the task path.
+	 * @param filter
+	 *            a string that filters sub tasks.
+	 * @return the sub task identifiers.
+	 * @see #getSubTasks(String, String)
+	 */
+	long[] getSubTaskIds(String taskPath, String filter);
+
+	/**
+	 * Streams the tasks whose path starts with a given prefix, sorted by full
+	 * path (so that a parent task always comes before its sub tasks). The
+	 * stream must be closed unless it is fully consumed.
+	 * 
+	 * @param pathPrefix
+	 *            the path prefix (all the tasks are returned if
+	 *            <code>null</code>).
+	 * @return the tasks.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	Stream<Task> streamTasks(String pathPrefix) throws DAOException;
+
 	/**
 	 * Returns the first task matching the given filter.
 	 * @param filter
@@ -83,7 +111,61 @@ public interface ITaskDAO extends IDAO<Task> {
 	 * @throws DAOException
 	 *             levé en cas d'incident technique d'accès à la base.
 	 */
-	byte newTaskNumber(String path) throws DAOException;
+	int newTaskNumber(String path) throws DAOException;
+
+	/**
+	 * Locks the sub tasks list of a task until the end of the transaction, so
+	 * that the sub tasks numbers may be computed or rebuilt safely. The parent
+	 * task row is locked (the root tasks rows at the root level).
+	 * 
+	 * @param parentTaskPath
+	 *            the parent task full path (empty for the root).
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	void lockSubTasks(String parentTaskPath) throws DAOException;
+
+	/**
+	 * Changes the path of all the sub tasks of a task (at any depth) with a
+	 * single request, to be called after the task path or number has been
+	 * updated.
+	 * 
+	 * @param oldParentTaskPath
+	 *            the former full path of the parent task.
+	 * @param newParentTaskPath
+	 *            the new full path of the parent task.
+	 * @return the count of updated tasks.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	int changeSubTasksPath(String oldParentTaskPath, String newParentTaskPath)
+			throws DAOException;
+
+	/**
+	 * Returns the task identified by its path and its number.
+	 * 
+	 * @param path
+	 *            the task path.
+	 * @param number
+	 *            the task number.
+	 * @return the task or <code>null</code> if it does not exist.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	Task getTask(String path, int number) throws DAOException;
+
+	/**
+	 * Returns the task identified by its path and its code.
+	 * 
+	 * @param path
+	 *            the task path.
+	 * @param code
+	 *            the task code.
+	 * @return the task or <code>null</code> if it does not exist.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	Task getTask(String path, String code) throws DAOException;
 
 	/**
  	 * Compute the task sums for a given task (when
@@ -121,4 +203,81 @@ public interface ITaskDAO extends IDAO<Task> {
 	 * @throws DAOException
 	 */
 	Map<String, Task> getAllParents(Collection<Task> tasks) throws DAOException;
+
+	/**
+	 * Registers a new task in the task hierarchy (the closure table that
+	 * links every task to all its ancestors and to itself).
+	 * 
+	 * @param parentTaskId
+	 *            the parent task identifier (<code>null</code> for a root
+	 *            task).
+	 * @param taskId
+	 *            the new task identifier.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	void insertIntoHierarchy(Long parentTaskId, long taskId) throws DAOException;
+
+	/**
+	 * Moves a task and its sub tasks in the task hierarchy. This method must
+	 * be called before the task path is updated.
+	 * 
+	 * @param task
+	 *            the task to move.
+	 * @param destParentTask
+	 *            the destination parent task (<code>null</code> for the
+	 *            root).
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	void moveInHierarchy(Task task, Task destParentTask) throws DAOException;
+
+	/**
+	 * Removes a task and its sub tasks from the task hierarchy. This method
+	 * must be called before the tasks are deleted.
+	 * 
+	 * @param task
+	 *            the task to remove.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	void removeFromHierarchy(Task task) throws DAOException;
+
+	/**
+	 * Rebuilds the whole task hierarchy from the task paths.
+	 * 
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	void rebuildHierarchy() throws DAOException;
+
+	/**
+	 * Converts the task numbers and paths written by the former versions
+	 * (numbers encoded in hexadecimal, up to 255 sub tasks per task) to the
+	 * base 32 encoding (up to 1023 sub tasks per task). Both encodings are 2
+	 * characters long, so the path lengths do not change.
+	 * 
+	 * <p>
+	 * The encodings cannot be told apart from the values ('10' is valid in
+	 * both) : the caller must only convert a database whose schema version
+	 * tells that it has not been converted yet.
+	 * </p>
+	 * 
+	 * @return the count of converted tasks.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	int convertHexNumbersToBase32() throws DAOException;
+
+	/**
+	 * Returns the tasks version, which is incremented by each tasks write
+	 * (including the writes of the other application instances sharing the
+	 * database).
+	 * 
+	 * @return the tasks version.
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	long getTasksVersion() throws DAOException;
+
 }
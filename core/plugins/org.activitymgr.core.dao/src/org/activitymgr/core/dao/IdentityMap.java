@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2004-2017, Jean-Francois Brazeau. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ * 
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ * 
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIEDWARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.activitymgr.core.dao;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Transaction scoped identity map.
+ *
+ * <p>
+ * Once a transaction has opened an identity map, the instances loaded by
+ * primary key through the DAOs are kept in memory until the end of the
+ * transaction, so that loading the same row again does not issue any SQL
+ * request (unknown primary keys are remembered too). Each caller receives its
+ * own copy of the cached instance, which may be freely modified.
+ * </p>
+ *
+ * <p>
+ * Any write through a DAO invalidates the entries of that DAO. The transaction
+ * owner must clear the map when the transaction is rolled back (even partially)
+ * and close it when the transaction ends.
+ * </p>
+ *
+ * <p>
+ * The map is bound to the calling thread and to the connection it has been
+ * opened with : it is ignored by the DAOs if the thread works with another
+ * connection. When no map is opened, the DAOs always query the database.
+ * </p>
+ */
+public final class IdentityMap {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(IdentityMap.class);
+
+	/** Value returned by the lookups for the primary keys unknown by the map */
+	static final Object UNKNOWN = new Object();
+
+	/** Marker of a primary key that does not exist in database */
+	private static final Object NOT_FOUND = new Object();
+
+	/** Identity map of the calling thread */
+	private static final ThreadLocal<IdentityMap> CURRENT = new ThreadLocal<IdentityMap>();
+
+	/** Count of statements saved by all the identity maps */
+	private static final AtomicLong SAVED = new AtomicLong();
+
+	/** Connection of the transaction */
+	private final Connection connection;
+
+	/** Cached instances, by DAO and primary key */
+	private final Map<Object, Map<List<Object>, Object>> entries = new HashMap<Object, Map<List<Object>, Object>>();
+
+	/** Count of statements saved in this transaction */
+	private long saved;
+
+	/** Count of statements issued in this transaction */
+	private long loaded;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param connection
+	 *            the connection of the transaction.
+	 */
+	private IdentityMap(Connection connection) {
+		this.connection = connection;
+	}
+
+	/**
+	 * Opens an identity map for the transaction of the calling thread. The
+	 * previous map of the thread, if any, is discarded.
+	 *
+	 * @param con
+	 *            the connection of the transaction.
+	 * @return the identity map.
+	 */
+	public static IdentityMap open(Connection con) {
+		IdentityMap map = new IdentityMap(con);
+		CURRENT.set(map);
+		return map;
+	}
+
+	/**
+	 * Closes the identity map of the calling thread.
+	 *
+	 * @return the closed identity map, or <code>null</code> if no map was
+	 *         opened.
+	 */
+	public static IdentityMap close() {
+		IdentityMap map = CURRENT.get();
+		CURRENT.remove();
+		if (map != null && log.isDebugEnabled()) {
+			log.debug("Transaction identity map closed : " + map.saved
+					+ " statement(s) saved, " + map.loaded
+					+ " statement(s) issued");
+		}
+		return map;
+	}
+
+	/**
+	 * Clears the identity map of the calling thread, if any (to be called when
+	 * the transaction is rolled back).
+	 */
+	public static void clearCurrent() {
+		IdentityMap map = CURRENT.get();
+		if (map != null) {
+			map.clear();
+		}
+	}
+
+	/**
+	 * @param con
+	 *            the connection used by the calling thread.
+	 * @return the identity map of the calling thread if it has been opened with
+	 *         the given connection, <code>null</code> otherwise.
+	 */
+	public static IdentityMap current(Connection con) {
+		IdentityMap map = CURRENT.get();
+		return map != null && map.connection == con ? map : null;
+	}
+
+	/**
+	 * @return the count of statements saved by all the identity maps.
+	 */
+	public static long getSavedStatementsCount() {
+		return SAVED.get();
+	}
+
+	/**
+	 * Resets the global counter.
+	 */
+	public static void resetCounters() {
+		SAVED.set(0);
+	}
+
+	/**
+	 * @return the count of statements saved in this transaction.
+	 */
+	public long getSavedStatements() {
+		return saved;
+	}
+
+	/**
+	 * @return the count of statements issued in this transaction by the
+	 *         primary key loads.
+	 */
+	public long getIssuedStatements() {
+		return loaded;
+	}
+
+	/**
+	 * Looks up an instance.
+	 *
+	 * @param dao
+	 *            the DAO.
+	 * @param pkValues
+	 *            the primary key values.
+	 * @return the cached instance, <code>null</code> if the primary key is
+	 *         known not to exist in database, or {@link #UNKNOWN} if the
+	 *         primary key is unknown by the map.
+	 */
+	Object get(Object dao, Object[] pkValues) {
+		Map<List<Object>, Object> daoEntries = entries.get(dao);
+		Object value = daoEntries != null ? daoEntries.get(Arrays
+				.asList(pkValues)) : null;
+		if (value == null) {
+			loaded++;
+			return UNKNOWN;
+		}
+		saved++;
+		SAVED.incrementAndGet();
+		return value == NOT_FOUND ? null : value;
+	}
+
+	/**
+	 * Registers an instance loaded from the database.
+	 *
+	 * @param dao
+	 *            the DAO.
+	 * @param pkValues
+	 *            the primary key values.
+	 * @param value
+	 *            the instance (<code>null</code> if the primary key does not
+	 *            exist in database).
+	 */
+	void put(Object dao, Object[] pkValues, Object value) {
+		Map<List<Object>, Object> daoEntries = entries.get(dao);
+		if (daoEntries == null) {
+			daoEntries = new HashMap<List<Object>, Object>();
+			entries.put(dao, daoEntries);
+		}
+		daoEntries.put(Arrays.asList(pkValues.clone()),
+				value != null ? value : NOT_FOUND);
+	}
+
+	/**
+	 * Invalidates the entries of a DAO.
+	 *
+	 * @param dao
+	 *            the DAO.
+	 */
+	void invalidate(Object dao) {
+		entries.remove(dao);
+	}
+
+	/**
+	 * Invalidates all the entries.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+}
@@ -2,28 +2,56 @@ package org.activitymgr.core.dao;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 
+import org.activitymgr.core.dto.Contribution;
+
 public class IntervalRequestHelper {
-	
-	/** Formatteur de date */
-	private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd"); //$NON-NLS-1$
 
+	/** Table of the contributions of the years that are not archived */
+	public static final String CONTRIBUTION_TABLE = "CONTRIBUTION";
+
+	/** View of all the contributions (archived years included) */
+	public static final String ALL_CONTRIBUTIONS_VIEW = "CONTRIBUTION_ALL";
+	
 	private Calendar fromDate;
 
 	private Calendar toDate;
 
-	private String fromDateStr;
+	/** Date de début au format <code>yyyymmdd</code> */
+	private int fromYearMonthDay;
 
-	private String toDateStr;
+	/** Date de fin au format <code>yyyymmdd</code> */
+	private int toYearMonthDay;
 
 	public IntervalRequestHelper(Calendar fromDate, Calendar toDate) {
 		this.fromDate = fromDate;
 		this.toDate = toDate;
-		this.fromDateStr = fromDate != null ? sdf.format(fromDate.getTime())
-				: null;
-		this.toDateStr = toDate != null ? sdf.format(toDate.getTime()) : null;
+		this.fromYearMonthDay = fromDate != null ? Contribution
+				.toYearMonthDay(fromDate) : 0;
+		this.toYearMonthDay = toDate != null ? Contribution
+				.toYearMonthDay(toDate) : 0;
+	}
+
+	/**
+	 * Returns the table from which the contributions of an interval must be
+	 * read.
+	 * 
+	 * <p>
+	 * Only the years before the current one may be archived : an interval
+	 * that starts in the current year (or later) only needs the table of the
+	 * contributions that are not archived.
+	 * </p>
+	 * 
+	 * @param fromDate
+	 *            the start date of the interval (optionnal).
+	 * @return the table (or view) name.
+	 */
+	public static String getContributionsTable(Calendar fromDate) {
+		return fromDate != null
+				&& fromDate.get(Calendar.YEAR) >= Calendar.getInstance().get(
+						Calendar.YEAR) ? CONTRIBUTION_TABLE
+				: ALL_CONTRIBUTIONS_VIEW;
 	}
 
 	public boolean hasIntervalCriteria() {
@@ -32,22 +60,23 @@ public class IntervalRequestHelper {
 	
 	public void appendIntervalCriteria(StringBuilder request) {
 		if (hasIntervalCriteria()) {
-			request.append("(ctb_year*10000 + ( ctb_month*100 + ctb_day ))");
+			// The year criteria is redundant, but it lets the database only
+			// read the partitions of the interval years
 			// If both dates are specified
 			if (fromDate != null && toDate != null) {
-				if (!fromDateStr.equals(toDateStr)) {
-					request.append(" between ? and ?");
+				if (fromYearMonthDay != toYearMonthDay) {
+					request.append("ctb_year between ? and ? and ctb_date between ? and ?");
 				} else {
-					request.append(" = ?");
+					request.append("ctb_year = ? and ctb_date = ?");
 				}
 			}
 			// Else if only 'from' specified (toDate == null)
 			else if (fromDate != null) {
-				request.append(" >= ?");
+				request.append("ctb_year >= ? and ctb_date >= ?");
 			}
 			// Else if only 'to' specified (fromDate == null)
 			else {
-				request.append(" <= ?");
+				request.append("ctb_year <= ? and ctb_date <= ?");
 			}
 		}
 	}
@@ -57,20 +86,25 @@ public class IntervalRequestHelper {
 		if (hasIntervalCriteria()) {
 			// If both dates are specified
 			if (fromDate != null && toDate != null) {
-				if (!fromDateStr.equals(toDateStr)) {
-					pStmt.setString(index++, fromDateStr);
-					pStmt.setString(index++, toDateStr);
+				if (fromYearMonthDay != toYearMonthDay) {
+					pStmt.setInt(index++, fromYearMonthDay / 10000);
+					pStmt.setInt(index++, toYearMonthDay / 10000);
+					pStmt.setInt(index++, fromYearMonthDay);
+					pStmt.setInt(index++, toYearMonthDay);
 				} else {
-					pStmt.setString(index++, fromDateStr);
+					pStmt.setInt(index++, fromYearMonthDay / 10000);
+					pStmt.setInt(index++, fromYearMonthDay);
 				}
 			}
 			// Else if only 'from' specified (toDate == null)
 			else if (fromDate != null) {
-				pStmt.setString(index++, fromDateStr);
+				pStmt.setInt(index++, fromYearMonthDay / 10000);
+				pStmt.setInt(index++, fromYearMonthDay);
 			}
 			// Else if only 'to' specified (fromDate == null)
 			else {
-				pStmt.setString(index++, toDateStr);
+				pStmt.setInt(index++, toYearMonthDay / 10000);
+				pStmt.setInt(index++, toYearMonthDay);
 			}
 		}
 		return index;
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2004-2017, Jean-Francois Brazeau. All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ * 
+ *  2. Redistributions in binary form must reproduce the above copyright
+ *     notice, this list of conditions and the following disclaimer in the
+ *     documentation and/or other materials provided with the distribution.
+ * 
+ *  3. The name of the author may not be used to endorse or promote products
+ *     derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIEDWARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR
+ * TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.activitymgr.core.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Per transaction prepared statement cache.
+ * 
+ * <p>
+ * The transaction provider opens the cache with the connection of the
+ * transaction ({@link #open(Connection)}), and closes it before the
+ * connection is released ({@link #close()}) : the cache never outlives the
+ * connection, which may be handed out to another thread afterwards. The
+ * statements prepared through the wrapper returned by
+ * {@link #wrap(Connection)} are kept open, keyed by their SQL text, and are
+ * reused the next time the same SQL is prepared in the transaction. Closing a
+ * cached statement only releases it (its parameters are cleared, its pending
+ * batch is dropped and its result sets are closed). The least recently used
+ * statements are really closed when the cache size is exceeded, and all of
+ * them are closed with the cache.
+ * </p>
+ * 
+ * <p>
+ * Reusing the statements across the transactions is the job of the
+ * connection pool (see the DBCP <code>poolPreparedStatements</code> option),
+ * which keeps them with the physical connection.
+ * </p>
+ * 
+ * <p>
+ * A statement that is still in use when the same SQL is prepared again is not
+ * shared : a new (non cached) statement is returned instead.
+ * </p>
+ * 
+ * <p>
+ * The cache size may be set with the
+ * <code>activitymgr.jdbc.statementCacheSize</code> system property (
+ * <code>0</code> disables the cache).
+ * </p>
+ */
+public class PreparedStatementCache {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(PreparedStatementCache.class);
+
+	/** Maximum count of statements kept open per connection */
+	private static final int MAX_SIZE = Integer.getInteger(
+			"activitymgr.jdbc.statementCacheSize", 64); //$NON-NLS-1$
+
+	/** Global hit counter */
+	private static final AtomicLong HITS = new AtomicLong();
+
+	/** Global miss counter */
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	/** Cache of the transaction of the calling thread */
+	private static final ThreadLocal<PreparedStatementCache> CURRENT = new ThreadLocal<PreparedStatementCache>();
+
+	/** Wrapped connection */
+	private final Connection connection;
+
+	/** Connection proxy */
+	private final Connection proxy;
+
+	/** Cached statements (in access order) */
+	private final Map<String, CachedStatement> statements = new LinkedHashMap<String, CachedStatement>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, CachedStatement> eldest) {
+			if (size() > MAX_SIZE) {
+				eldest.getValue().evict();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/** Hit counter */
+	private long hits;
+
+	/** Miss counter */
+	private long misses;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param connection
+	 *            the connection to wrap.
+	 */
+	private PreparedStatementCache(Connection connection) {
+		this.connection = connection;
+		this.proxy = (Connection) Proxy.newProxyInstance(
+				PreparedStatementCache.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						return invokeOnConnection(method, args);
+					}
+				});
+	}
+
+	/**
+	 * Opens a statement cache for the transaction of the calling thread. The
+	 * previous cache of the thread, if any, is closed.
+	 * 
+	 * @param con
+	 *            the connection of the transaction.
+	 * @return the statement cache, or <code>null</code> if the cache is
+	 *         disabled.
+	 */
+	public static PreparedStatementCache open(Connection con) {
+		close();
+		if (MAX_SIZE <= 0) {
+			return null;
+		}
+		PreparedStatementCache cache = new PreparedStatementCache(con);
+		CURRENT.set(cache);
+		return cache;
+	}
+
+	/**
+	 * Closes the statement cache of the calling thread (and its statements).
+	 * Must be called before the connection of the transaction is released.
+	 * 
+	 * @return the closed cache, or <code>null</code> if no cache was opened.
+	 */
+	public static PreparedStatementCache close() {
+		PreparedStatementCache cache = CURRENT.get();
+		CURRENT.remove();
+		if (cache != null) {
+			cache.clear();
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns a connection that caches the statements it prepares.
+	 * 
+	 * @param con
+	 *            the connection to wrap.
+	 * @return the connection wrapper, or the connection itself if the calling
+	 *         thread has not opened a cache with this connection.
+	 */
+	public static Connection wrap(Connection con) {
+		PreparedStatementCache cache = CURRENT.get();
+		return cache != null && cache.connection == con ? cache.proxy : con;
+	}
+
+	/**
+	 * @return the number of statements that have been reused (all
+	 *         connections).
+	 */
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	/**
+	 * @return the number of statements that have been prepared (all
+	 *         connections).
+	 */
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/**
+	 * Resets the global counters.
+	 */
+	public static void resetCounters() {
+		HITS.set(0);
+		MISSES.set(0);
+	}
+
+	/**
+	 * @return the cache of the transaction of the calling thread, or
+	 *         <code>null</code>.
+	 */
+	public static PreparedStatementCache current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @return the number of statements that have been reused on this
+	 *         connection.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of statements that have been prepared on this
+	 *         connection.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of statements currently cached.
+	 */
+	public int size() {
+		return statements.size();
+	}
+
+	/**
+	 * Closes all the cached statements.
+	 */
+	public void clear() {
+		for (Iterator<CachedStatement> it = statements.values().iterator(); it
+				.hasNext();) {
+			it.next().evict();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Handles a call on the connection proxy.
+	 * 
+	 * @param method
+	 *            the called method.
+	 * @param args
+	 *            the arguments.
+	 * @return the call result.
+	 * @throws Throwable
+	 *             thrown if the call fails.
+	 */
+	private Object invokeOnConnection(Method method, Object[] args)
+			throws Throwable {
+		String name = method.getName();
+		if ("prepareStatement".equals(name) && args.length <= 2 //$NON-NLS-1$
+				&& (args.length == 1 || args[1] instanceof Integer)) {
+			return prepareStatement((String) args[0],
+					args.length == 1 ? null : (Integer) args[1]);
+		} else if ("close".equals(name)) { //$NON-NLS-1$
+			clear();
+		} else if ("equals".equals(name)) { //$NON-NLS-1$
+			return args[0] == proxy;
+		} else if ("hashCode".equals(name)) { //$NON-NLS-1$
+			return System.identityHashCode(proxy);
+		}
+		return invoke(connection, method, args);
+	}
+
+	/**
+	 * Prepares a statement, reusing a cached one if possible.
+	 * 
+	 * @param sql
+	 *            the SQL text.
+	 * @param autoGeneratedKeys
+	 *            the auto generated keys flag (may be <code>null</code>).
+	 * @return the statement.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	private PreparedStatement prepareStatement(String sql,
+			Integer autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys
+				+ ":" + sql; //$NON-NLS-1$
+		CachedStatement cached = statements.get(key);
+		if (cached != null && !cached.inUse && !cached.stmt.isClosed()) {
+			hits++;
+			HITS.incrementAndGet();
+			cached.inUse = true;
+			return cached.proxy;
+		}
+		misses++;
+		MISSES.incrementAndGet();
+		PreparedStatement stmt = autoGeneratedKeys == null ? connection
+				.prepareStatement(sql) : connection.prepareStatement(sql,
+				autoGeneratedKeys);
+		if (cached != null && cached.inUse) {
+			// The cached statement is busy, the new one is not shared
+			return stmt;
+		}
+		cached = new CachedStatement(stmt);
+		statements.put(key, cached);
+		return cached.proxy;
+	}
+
+	/**
+	 * Invokes a method on a JDBC object.
+	 * 
+	 * @param target
+	 *            the JDBC object.
+	 * @param method
+	 *            the method.
+	 * @param args
+	 *            the arguments.
+	 * @return the call result.
+	 * @throws Throwable
+	 *             the exception thrown by the called method.
+	 */
+	private static Object invoke(Object target, Method method, Object[] args)
+			throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Cached statement.
+	 */
+	private class CachedStatement implements InvocationHandler {
+
+		/** Real statement */
+		private final PreparedStatement stmt;
+
+		/** Statement proxy */
+		private final PreparedStatement proxy;
+
+		/** Result sets opened since the statement has been acquired */
+		private final List<ResultSet> resultSets = new ArrayList<ResultSet>();
+
+		/** <code>true</code> while the statement is used */
+		private boolean inUse = true;
+
+		/** <code>true</code> once the statement has left the cache */
+		private boolean evicted;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param stmt
+		 *            the real statement.
+		 */
+		CachedStatement(PreparedStatement stmt) {
+			this.stmt = stmt;
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatementCache.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, this);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object p, Method method, Object[] args)
+				throws Throwable {
+			String name = method.getName();
+			if ("close".equals(name)) { //$NON-NLS-1$
+				release();
+				return null;
+			} else if ("isClosed".equals(name)) { //$NON-NLS-1$
+				return !inUse || stmt.isClosed();
+			} else if ("getConnection".equals(name)) { //$NON-NLS-1$
+				return PreparedStatementCache.this.proxy;
+			} else if ("equals".equals(name)) { //$NON-NLS-1$
+				return args[0] == proxy;
+			} else if ("hashCode".equals(name)) { //$NON-NLS-1$
+				return System.identityHashCode(proxy);
+			}
+			Object result = PreparedStatementCache.invoke(stmt, method, args);
+			if (result instanceof ResultSet) {
+				resultSets.add((ResultSet) result);
+			}
+			return result;
+		}
+
+		/**
+		 * Releases the statement (which goes back to the cache with an empty
+		 * batch and no parameter).
+		 * 
+		 * @throws SQLException
+		 *             thrown if a SQL exception occurs.
+		 */
+		private void release() throws SQLException {
+			if (!inUse) {
+				return;
+			}
+			inUse = false;
+			for (ResultSet rs : resultSets) {
+				rs.close();
+			}
+			resultSets.clear();
+			if (evicted) {
+				stmt.close();
+			} else {
+				stmt.clearBatch();
+				stmt.clearParameters();
+			}
+		}
+
+		/**
+		 * Removes the statement from the cache (it is closed as soon as it is
+		 * released).
+		 */
+		private void evict() {
+			evicted = true;
+			if (!inUse) {
+				try {
+					stmt.close();
+				} catch (SQLException e) {
+					log.debug("Statement close failure", e); //$NON-NLS-1$
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,528 @@
+package org.activitymgr.core.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activitymgr.core.dto.report.Report;
+import org.apache.log4j.Logger;
+
+import com.google.inject.Singleton;
+
+/**
+ * Reports cache shared by all the transactions.
+ *
+ * <p>
+ * Reports are cached by their normalized parameters (see
+ * {@link #key(Object...)}), along with the data version they were built
+ * from. The DAOs call {@link #dataChanged()} before any contribution, task
+ * or collaborator write, which bumps the data version : the reports built
+ * before are not served anymore. As for the {@link TaskDAOCache}, the
+ * calling thread then bypasses the cache until the transaction owner calls
+ * {@link #transactionEnded()}, which bumps the version again (another thread
+ * may have built a report from the former data in the meantime).
+ * </p>
+ *
+ * <p>
+ * The transaction owner calls {@link #transactionStarted()} before the first
+ * read of the transaction : the reports it builds are cached with the data
+ * version of that time, as a REPEATABLE READ snapshot may miss the writes
+ * committed afterwards, even if the version they bumped is read before the
+ * report is built.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded by a weight (the count of report cells, that is
+ * to say items by intervals), given by the
+ * <code>activitymgr.reportCache.capacity</code> system property. When it is
+ * full, the least recently used reports are evicted. If the
+ * <code>activitymgr.reportCache.spillDir</code> system property is set, the
+ * evicted reports are serialized into this directory, and loaded from it on
+ * the next lookups (as long as the data version has not changed). This
+ * directory must not be shared, as it is cleared when the cache is built.
+ * </p>
+ *
+ * <p>
+ * The cached reports are shared, and must thus not be modified.
+ * </p>
+ */
+@Singleton
+public class ReportCache {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(ReportCache.class);
+
+	/** Default maximum weight (count of report cells) of the cached reports */
+	public static final int DEFAULT_CAPACITY = Integer.getInteger(
+			"activitymgr.reportCache.capacity", 500000); //$NON-NLS-1$
+
+	/** Default spill directory (<code>null</code> if reports are not spilled) */
+	private static final String DEFAULT_SPILL_DIR = System
+			.getProperty("activitymgr.reportCache.spillDir"); //$NON-NLS-1$
+
+	/** Spilled reports files extension */
+	private static final String SPILL_FILE_EXTENSION = ".report"; //$NON-NLS-1$
+
+	/** Maximum weight of the cached reports */
+	private final long capacity;
+
+	/** Spill directory (<code>null</code> if reports are not spilled) */
+	private final File spillDir;
+
+	/** Cached reports, in access order (guarded by the cache itself) */
+	private final LinkedHashMap<List<Object>, CachedReport> reports = new LinkedHashMap<List<Object>, CachedReport>(
+			16, 0.75f, true);
+
+	/** Weight of the cached reports (guarded by the cache itself) */
+	private long weight;
+
+	/** Spilled reports files (guarded by the cache itself) */
+	private final Set<File> spillFiles = new HashSet<File>();
+
+	/** Data version */
+	private final AtomicLong version = new AtomicLong();
+
+	/** Data version when the current transaction started, by thread */
+	private final ThreadLocal<Long> transactionVersion = new ThreadLocal<Long>();
+
+	/** Threads whose transaction has written data */
+	private final ThreadLocal<Boolean> dataChanged = new ThreadLocal<Boolean>();
+
+	/** Count of transactions that have written data and are not ended yet */
+	private final AtomicInteger writers = new AtomicInteger();
+
+	/** Threads whose transaction reads a possibly stale copy of the database */
+	private final ThreadLocal<Boolean> staleReads = new ThreadLocal<Boolean>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong spills = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+
+	public ReportCache() {
+		this(DEFAULT_CAPACITY, DEFAULT_SPILL_DIR != null ? new File(
+				DEFAULT_SPILL_DIR) : null);
+	}
+
+	/**
+	 * Builds a cache.
+	 *
+	 * @param capacity
+	 *            the maximum weight (count of report cells) of the reports
+	 *            kept in memory.
+	 * @param spillDir
+	 *            the directory where the evicted reports are serialized
+	 *            (<code>null</code> if they are dropped).
+	 */
+	public ReportCache(long capacity, File spillDir) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity);
+		}
+		this.capacity = capacity;
+		this.spillDir = spillDir;
+		// Reports spilled by a former instance may be stale
+		File[] files = spillDir != null ? spillDir.listFiles() : null;
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(SPILL_FILE_EXTENSION)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds a cache key.
+	 *
+	 * @param parameters
+	 *            the normalized report parameters (the arrays are compared by
+	 *            content).
+	 * @return the key.
+	 */
+	public static List<Object> key(Object... parameters) {
+		List<Object> key = new ArrayList<Object>(parameters.length);
+		for (Object parameter : parameters) {
+			if (parameter instanceof long[]) {
+				long[] values = (long[]) parameter;
+				List<Long> list = new ArrayList<Long>(values.length);
+				for (long value : values) {
+					list.add(value);
+				}
+				parameter = list;
+			} else if (parameter instanceof Object[]) {
+				parameter = Arrays.asList((Object[]) parameter);
+			}
+			key.add(parameter);
+		}
+		return Collections.unmodifiableList(key);
+	}
+
+	/**
+	 * @return the data version when the calling thread transaction started
+	 *         (the current one if {@link #transactionStarted()} has not been
+	 *         called), to be retrieved before a report is built and given to
+	 *         {@link #put(List, long, Report)}.
+	 */
+	public long getVersion() {
+		Long startVersion = transactionVersion.get();
+		return startVersion != null ? startVersion : version.get();
+	}
+
+	/**
+	 * Returns the data version that all the transactions read, to be compared
+	 * with the one returned once a report has been read on several
+	 * connections : if they are equal, no write has been committed in
+	 * between (by the threads of this process), and the connections have read
+	 * the same data.
+	 *
+	 * @return the current data version, or <code>-1</code> if a transaction
+	 *         is writing data, or if data has changed since the calling
+	 *         thread transaction started.
+	 */
+	public long getSharedVersion() {
+		long currentVersion = version.get();
+		// The writers bump the version before they are counted out
+		if (writers.get() != 0 || currentVersion != getVersion()) {
+			return -1;
+		}
+		return currentVersion;
+	}
+
+	/**
+	 * Returns a cached report.
+	 *
+	 * @param key
+	 *            the report key.
+	 * @return the report, or <code>null</code> if it is not cached or if the
+	 *         data has changed since it has been built.
+	 */
+	public Report get(List<Object> key) {
+		if (bypass()) {
+			return null;
+		}
+		long currentVersion = version.get();
+		synchronized (this) {
+			CachedReport cached = reports.get(key);
+			if (cached != null && cached.version == currentVersion) {
+				hits.incrementAndGet();
+				return cached.report;
+			}
+		}
+		Report report = spillDir != null ? unspill(key, currentVersion) : null;
+		if (report != null) {
+			hits.incrementAndGet();
+			diskHits.incrementAndGet();
+			put(key, currentVersion, report);
+		} else {
+			misses.incrementAndGet();
+		}
+		return report;
+	}
+
+	/**
+	 * Caches a report.
+	 *
+	 * @param key
+	 *            the report key.
+	 * @param reportVersion
+	 *            the data version retrieved before the report was built (the
+	 *            report is not cached if the data has changed since).
+	 * @param report
+	 *            the report.
+	 */
+	public void put(List<Object> key, long reportVersion, Report report) {
+		// A thread that bypasses the cache may read uncommitted data
+		if (bypass() || staleReads.get() != null) {
+			return;
+		}
+		CachedReport cached = new CachedReport(key, reportVersion, report);
+		List<CachedReport> evicted = new ArrayList<CachedReport>();
+		synchronized (this) {
+			if (version.get() != reportVersion) {
+				return;
+			}
+			CachedReport previous = reports.put(key, cached);
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+			weight += cached.weight;
+			Iterator<CachedReport> it = reports.values().iterator();
+			while (weight > capacity && it.hasNext()) {
+				CachedReport eldest = it.next();
+				it.remove();
+				weight -= eldest.weight;
+				evicted.add(eldest);
+			}
+		}
+		if (!evicted.isEmpty()) {
+			evictions.addAndGet(evicted.size());
+			log.debug("Report cache full, " + evicted.size()
+					+ " report(s) evicted");
+			if (spillDir != null) {
+				for (CachedReport eldest : evicted) {
+					spill(eldest);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Notifies that the calling thread writes data that the reports depend
+	 * on : the cached reports are not served anymore, and the calling thread
+	 * bypasses the cache until {@link #transactionEnded()} is called.
+	 */
+	public void dataChanged() {
+		if (dataChanged.get() == null) {
+			dataChanged.set(Boolean.TRUE);
+			writers.incrementAndGet();
+		}
+		newVersion();
+	}
+
+	/**
+	 * Drops all the cached reports (from memory and from the spill
+	 * directory), to be called when the database is switched.
+	 */
+	public void invalidateAll() {
+		newVersion();
+	}
+
+	/**
+	 * Notifies the start of the calling thread transaction, before its first
+	 * read.
+	 */
+	public void transactionStarted() {
+		transactionVersion.set(version.get());
+	}
+
+	/**
+	 * Notifies that the calling thread transaction reads a possibly stale copy
+	 * of the database : the reports it builds are not cached until
+	 * {@link #transactionEnded()} is called.
+	 */
+	public void staleReadsStarted() {
+		staleReads.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Notifies the end (commit or rollback) of the calling thread
+	 * transaction.
+	 */
+	public void transactionEnded() {
+		transactionVersion.remove();
+		staleReads.remove();
+		if (dataChanged.get() != null) {
+			dataChanged.remove();
+			newVersion();
+			writers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread transaction has written
+	 *         data that the reports depend on (this data is not visible to
+	 *         the other connections until it is committed).
+	 */
+	public boolean hasDataChanged() {
+		return bypass();
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread transaction reads a
+	 *         possibly stale copy of the database.
+	 */
+	public boolean hasStaleReads() {
+		return staleReads.get() != null;
+	}
+
+	/**
+	 * @return the count of lookups served by the cache (from memory or from
+	 *         the spill directory).
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the count of lookups that required a report to be built (the
+	 *         lookups of a thread that bypasses the cache are not counted).
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the hit rate (between <code>0</code> and <code>1</code>).
+	 */
+	public double getHitRate() {
+		long theHits = hits.get();
+		long lookups = theHits + misses.get();
+		return lookups != 0 ? (double) theHits / lookups : 0;
+	}
+
+	/**
+	 * @return the count of reports evicted from memory because the cache was
+	 *         full.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return the count of evicted reports written into the spill directory.
+	 */
+	public long getSpills() {
+		return spills.get();
+	}
+
+	/**
+	 * @return the count of lookups served by the spill directory.
+	 */
+	public long getDiskHits() {
+		return diskHits.get();
+	}
+
+	/**
+	 * @return the count of reports kept in memory.
+	 */
+	public synchronized int size() {
+		return reports.size();
+	}
+
+	/**
+	 * @return the weight (count of report cells) of the reports kept in
+	 *         memory.
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Resets the hits, misses, evictions and spills counters.
+	 */
+	public void resetCounters() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+		spills.set(0);
+		diskHits.set(0);
+	}
+
+	private boolean bypass() {
+		return dataChanged.get() != null;
+	}
+
+	/**
+	 * Bumps the data version and drops the reports built from the former
+	 * data.
+	 */
+	private void newVersion() {
+		List<File> staleFiles;
+		synchronized (this) {
+			version.incrementAndGet();
+			reports.clear();
+			weight = 0;
+			if (spillFiles.isEmpty()) {
+				return;
+			}
+			staleFiles = new ArrayList<File>(spillFiles);
+			spillFiles.clear();
+		}
+		for (File file : staleFiles) {
+			file.delete();
+		}
+	}
+
+	private File getSpillFile(List<Object> key) {
+		return new File(spillDir, Integer.toHexString(key.toString()
+				.hashCode()) + SPILL_FILE_EXTENSION);
+	}
+
+	/**
+	 * Writes an evicted report into the spill directory (the key is written
+	 * too, as several keys may share the same file).
+	 */
+	private void spill(CachedReport cached) {
+		File file = getSpillFile(cached.key);
+		spillDir.mkdirs();
+		try (ObjectOutputStream out = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeObject(cached.key.toString());
+			out.writeLong(cached.version);
+			out.writeObject(cached.report);
+		} catch (IOException e) {
+			log.warn("Report spill failure (" + file + ")", e);
+			file.delete();
+			return;
+		}
+		spills.incrementAndGet();
+		synchronized (this) {
+			spillFiles.add(file);
+		}
+	}
+
+	/**
+	 * Reads a report from the spill directory.
+	 *
+	 * @return the report, or <code>null</code> if it has not been spilled
+	 *         for the current data version.
+	 */
+	private Report unspill(List<Object> key, long currentVersion) {
+		File file = getSpillFile(key);
+		if (!file.exists()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (!key.toString().equals(in.readObject())
+					|| in.readLong() != currentVersion) {
+				return null;
+			}
+			return (Report) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			log.warn("Spilled report read failure (" + file + ")", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Cached report.
+	 */
+	private static final class CachedReport {
+
+		private final List<Object> key;
+
+		private final long version;
+
+		private final Report report;
+
+		/** Count of report cells */
+		private final long weight;
+
+		CachedReport(List<Object> key, long version, Report report) {
+			this.key = key;
+			this.version = version;
+			this.report = report;
+			this.weight = (long) (report.getItems().size() + 1)
+					* (report.getIntervalCount() + 1);
+		}
+
+	}
+
+}
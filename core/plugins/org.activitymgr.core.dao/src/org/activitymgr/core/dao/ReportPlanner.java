@@ -0,0 +1,327 @@
+package org.activitymgr.core.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.activitymgr.core.dto.report.ReportIntervalType;
+import org.activitymgr.core.util.DateHelper;
+import org.apache.log4j.Logger;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Plans the report builds.
+ *
+ * <p>
+ * A report covering a long period may be split into time slices (made of
+ * whole report intervals), whose contributions are read concurrently. The
+ * calling thread reads the first slice on its own connection, and the other
+ * ones are read by a bounded pool of threads, each one on a connection of the
+ * bound {@link DataSource}. The slices are only used if a {@link DataSource}
+ * is bound, if the report covers at least two minimal slices, and if the
+ * calling thread transaction neither has written (the slices would not see
+ * its uncommitted data) nor reads a stale copy of the database. Otherwise,
+ * the report is built in a single slice, by the calling thread.
+ * </p>
+ *
+ * <p>
+ * The calling thread keeps its connection while the slices are read : the
+ * {@link DataSource} should not be the pool that the calling threads get
+ * their connections from, otherwise concurrent reports may wait for each
+ * other's connections. Besides, all the reports together never use more slice
+ * connections than the threads count minus one : a slice that cannot get a
+ * connection (none left, or the {@link DataSource} fails to open one) is read
+ * by the calling thread, after its first slice.
+ * </p>
+ *
+ * <p>
+ * The slices connections start their own snapshots, which may differ from
+ * the calling thread one. The report is thus only merged from slices read
+ * concurrently if the data version of the {@link ReportCache} has not moved
+ * since the calling thread transaction started, and until all the slices are
+ * read, no transaction writing in the meantime : every slice has then read
+ * the same committed data. Otherwise, the slices read on other connections
+ * are read again by the calling thread, so that the report is consistent
+ * with its transaction. This only covers the writes made through the DAOs of
+ * this process : if other processes write into the database, the slices
+ * should be disabled (one thread).
+ * </p>
+ *
+ * <p>
+ * The threads count and the minimal slice length (in days) are given by the
+ * <code>activitymgr.report.threads</code> and
+ * <code>activitymgr.report.minSliceDays</code> system properties.
+ * </p>
+ */
+@Singleton
+public class ReportPlanner {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(ReportPlanner.class);
+
+	/** Default count of threads reading the slices */
+	public static final int DEFAULT_THREADS = Integer.getInteger(
+			"activitymgr.report.threads", //$NON-NLS-1$
+			Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/** Default minimal slice length (in days) */
+	public static final int DEFAULT_MIN_SLICE_DAYS = Integer.getInteger(
+			"activitymgr.report.minSliceDays", 366); //$NON-NLS-1$
+
+	/** Idle threads keep alive delay (in seconds) */
+	private static final long KEEP_ALIVE = 60;
+
+	/** Result of a slice left to the calling thread */
+	private static final Object NOT_READ = new Object();
+
+	/** Connections of the slices */
+	@Inject(optional = true)
+	private DataSource dataSource;
+
+	/** Reports cache (tells whether the transaction may be left aside) */
+	@Inject
+	private ReportCache reportCache;
+
+	/** Count of threads reading the slices of a report (calling one included) */
+	private final int threads;
+
+	/** Minimal slice length (in days) */
+	private final int minSliceDays;
+
+	/** Slices connections that may be opened (shared by all the reports) */
+	private final Semaphore connections;
+
+	/** Slices threads (created on first use) */
+	private ThreadPoolExecutor executor;
+
+	public ReportPlanner() {
+		this(DEFAULT_THREADS, DEFAULT_MIN_SLICE_DAYS);
+	}
+
+	/**
+	 * Builds a planner.
+	 *
+	 * @param threads
+	 *            the count of threads reading the slices of a report,
+	 *            the calling one included (<code>1</code>
+	 *            disables the slices).
+	 * @param minSliceDays
+	 *            the minimal slice length (in days).
+	 */
+	public ReportPlanner(int threads, int minSliceDays) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Invalid threads count " + threads);
+		}
+		if (minSliceDays <= 0) {
+			throw new IllegalArgumentException("Invalid slice length " + minSliceDays);
+		}
+		this.threads = threads;
+		this.minSliceDays = minSliceDays;
+		this.connections = new Semaphore(threads - 1);
+	}
+
+	/**
+	 * Splits a report period into slices.
+	 *
+	 * @param start
+	 *            the report start.
+	 * @param intervalType
+	 *            the interval type.
+	 * @param intervalCount
+	 *            the interval count.
+	 * @return the slices, in chronological order, as intervals index ranges
+	 *         (first index included, last one excluded).
+	 */
+	public List<int[]> plan(Calendar start, ReportIntervalType intervalType,
+			int intervalCount) {
+		int sliceCount = 1;
+		if (dataSource != null && threads > 1 && intervalCount > 1
+				&& !reportCache.hasDataChanged()
+				&& !reportCache.hasStaleReads()) {
+			Calendar end = (Calendar) start.clone();
+			end.add(intervalType.getIntType(), intervalCount);
+			int days = DateHelper.countDaysBetween(start, end);
+			sliceCount = Math.min(threads,
+					Math.min(intervalCount, days / minSliceDays));
+		}
+		if (sliceCount <= 1) {
+			return Collections.singletonList(new int[] { 0, intervalCount });
+		}
+		List<int[]> slices = new ArrayList<int[]>(sliceCount);
+		for (int i = 0; i < sliceCount; i++) {
+			slices.add(new int[] { i * intervalCount / sliceCount,
+					(i + 1) * intervalCount / sliceCount });
+		}
+		return slices;
+	}
+
+	/**
+	 * Runs the slices queries concurrently.
+	 *
+	 * @param queries
+	 *            the queries.
+	 * @param con
+	 *            the connection of the calling thread.
+	 * @return the queries results, in the queries order, all read from the
+	 *         same data.
+	 * @throws SQLException
+	 *             thrown if a query fails (the other ones are then
+	 *             cancelled).
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> run(List<? extends SliceQuery<T>> queries,
+			Connection con) throws SQLException {
+		ThreadPoolExecutor theExecutor = getExecutor();
+		// The slices queries are cancelled along with the calling thread ones
+		StatementCanceller canceller = StatementCanceller.current();
+		// The first slice is left to the calling thread, along with those
+		// for which there is no connection left
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(queries.size());
+		// If data is being written, the slices would not read the same data
+		long version = reportCache.getSharedVersion();
+		try {
+			futures.add(null);
+			for (final SliceQuery<T> query : queries.subList(1, queries.size())) {
+				if (version >= 0 && connections.tryAcquire()) {
+					futures.add(theExecutor.submit(() -> {
+						try {
+							return read(query, canceller);
+						} finally {
+							connections.release();
+						}
+					}));
+				} else {
+					futures.add(null);
+				}
+			}
+			List<T> results = new ArrayList<T>(futures.size());
+			for (int i = 0; i < futures.size(); i++) {
+				Future<Object> future = futures.get(i);
+				Object result = future != null ? future.get() : NOT_READ;
+				if (result == NOT_READ) {
+					result = queries.get(i).run(con);
+					futures.set(i, null);
+				}
+				results.add((T) result);
+			}
+			// If a write has been committed while the slices were read, the
+			// other connections may have read data that the calling thread
+			// does not see (or the other way round)
+			if (version >= 0 && reportCache.getSharedVersion() != version) {
+				for (int i = 0; i < futures.size(); i++) {
+					if (futures.get(i) != null) {
+						log.debug("Report slice " + i + " read again"); //$NON-NLS-1$ //$NON-NLS-2$
+						results.set(i, queries.get(i).run(con));
+					}
+				}
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Report slice interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new SQLException("Report slice failure", cause);
+		} finally {
+			for (Future<Object> future : futures) {
+				if (future != null) {
+					future.cancel(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a slice on a connection of its own.
+	 *
+	 * @param query
+	 *            the slice query.
+	 * @param canceller
+	 *            the canceller of the calling thread, if any.
+	 * @return the query result, or {@link #NOT_READ} if no connection could
+	 *         be opened.
+	 * @throws SQLException
+	 *             thrown if the query fails.
+	 */
+	private Object read(SliceQuery<?> query, StatementCanceller canceller)
+			throws SQLException {
+		Connection con;
+		try {
+			con = dataSource.getConnection();
+		} catch (SQLException e) {
+			log.debug("No report slice connection", e); //$NON-NLS-1$
+			return NOT_READ;
+		}
+		StatementCanceller.setCurrent(canceller);
+		try {
+			try {
+				return query.run(con);
+			} finally {
+				// The slices only read
+				con.rollback();
+			}
+		} finally {
+			StatementCanceller.setCurrent(null);
+			con.close();
+		}
+	}
+
+	private synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			final AtomicInteger threadsCount = new AtomicInteger();
+			// There are never more tasks than slice connections
+			int poolSize = Math.max(1, threads - 1);
+			executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+						Thread thread = new Thread(r, "Report slice " //$NON-NLS-1$
+								+ threadsCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			log.debug("Report slices threads : " + poolSize);
+		}
+		return executor;
+	}
+
+	/**
+	 * Query of a report slice.
+	 *
+	 * @param <T>
+	 *            the result type.
+	 */
+	public interface SliceQuery<T> {
+
+		/**
+		 * Runs the query.
+		 *
+		 * @param con
+		 *            the slice connection.
+		 * @return the result.
+		 * @throws SQLException
+		 *             thrown if a SQL error occurs.
+		 */
+		T run(Connection con) throws SQLException;
+
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.activitymgr.core.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Cancellation of the long queries run on behalf of a job.
+ *
+ * <p>
+ * The job binds the canceller to the threads that work for it (see
+ * {@link #setCurrent(StatementCanceller)}). The long queries are executed
+ * through {@link #executeQuery(PreparedStatement)}, so that
+ * {@link #cancel()}, called by another thread, cancels the running
+ * statements (through {@link Statement#cancel()}), and prevents new ones from
+ * being executed.
+ * </p>
+ */
+public class StatementCanceller {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(StatementCanceller.class);
+
+	/** Canceller of the calling thread */
+	private static final ThreadLocal<StatementCanceller> CURRENT = new ThreadLocal<StatementCanceller>();
+
+	/** Running statements */
+	private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+	/** Tells whether the job has been cancelled */
+	private volatile boolean cancelled;
+
+	/**
+	 * @return the canceller bound to the calling thread, or <code>null</code>.
+	 */
+	public static StatementCanceller current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds a canceller to the calling thread.
+	 *
+	 * @param canceller
+	 *            the canceller (<code>null</code> to unbind the current one).
+	 */
+	public static void setCurrent(StatementCanceller canceller) {
+		if (canceller != null) {
+			CURRENT.set(canceller);
+		} else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * Executes a query, which may be cancelled through the canceller bound to
+	 * the calling thread, if any.
+	 *
+	 * @param stmt
+	 *            the statement to execute.
+	 * @return the result set.
+	 * @throws SQLException
+	 *             thrown if a SQL error occurs, or if the query has been
+	 *             cancelled.
+	 */
+	public static ResultSet executeQuery(PreparedStatement stmt)
+			throws SQLException {
+		StatementCanceller canceller = CURRENT.get();
+		if (canceller == null) {
+			return stmt.executeQuery();
+		}
+		canceller.checkNotCancelled();
+		canceller.statements.add(stmt);
+		try {
+			// The cancellation may have occurred before the registration
+			canceller.checkNotCancelled();
+			return stmt.executeQuery();
+		} finally {
+			canceller.statements.remove(stmt);
+		}
+	}
+
+	/**
+	 * Cancels the job queries.
+	 */
+	public void cancel() {
+		cancelled = true;
+		for (Statement stmt : statements) {
+			try {
+				stmt.cancel();
+			} catch (SQLException e) {
+				log.debug("Statement cancel failure", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the job has been cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @throws SQLException
+	 *             thrown if the job has been cancelled.
+	 */
+	public void checkNotCancelled() throws SQLException {
+		if (cancelled) {
+			throw new SQLException("Query cancelled"); //$NON-NLS-1$
+		}
+	}
+
+}
@@ -1,114 +1,576 @@
 package org.activitymgr.core.dao;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.util.StringHelper;
+import org.apache.log4j.Logger;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
+/**
+ * Tasks cache shared by all the transactions.
+ *
+ * <p>
+ * Tasks are cached by identifier, full path and code path (unknown paths are
+ * remembered too). The cache is bounded : when it is full, the least recently
+ * used tasks are evicted. Each caller receives its own copy of the cached
+ * task, which may be freely modified.
+ * </p>
+ *
+ * <p>
+ * The task DAO calls {@link #invalidate(Task)} before any task write : the
+ * task and its sub tasks are evicted. The calling thread then bypasses the
+ * cache (it must see its own uncommitted modifications, that other threads
+ * must not see) until the transaction owner calls {@link #transactionEnded()},
+ * which evicts the same tasks again, as another thread may have loaded their
+ * former state in the meantime.
+ * </p>
+ *
+ * <p>
+ * The other application instances sharing the database (RCP clients, web
+ * nodes) do not call {@link #invalidate(Task)} : every tasks write increments
+ * the tasks version stored in the database (see
+ * {@link ITaskDAO#getTasksVersion()}), which is read once per transaction,
+ * before its first lookup. All the tasks are evicted when it has moved, and
+ * a transaction that has read an outdated version does not populate the
+ * cache.
+ * </p>
+ *
+ * <p>
+ * A transaction that reads a possibly stale copy of the database (a read
+ * replica) must call {@link #staleReadsStarted()} : the cached tasks are still
+ * served to it, but the tasks it loads are not cached.
+ * </p>
+ */
+@Singleton
 public class TaskDAOCache {
-	
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(TaskDAOCache.class);
+
+	/** Default maximum count of cached tasks */
+	public static final int DEFAULT_CAPACITY = 2000;
+
+	/** Identifier of the paths that are known not to exist */
+	private static final long NOT_FOUND = -1;
+
 	private ITaskDAO taskDAO;
-	
-	private Map<Long, Task> taskByIdCache = new HashMap<Long, Task>();
-	private Map<Long, String> taskCodePathByIdCache = new HashMap<Long, String>();
-	private Map<String, Long> taskIdByCodePathCache = new HashMap<String, Long>();
-	private Map<String, Task> taskByPathCache = new HashMap<String, Task>();
-	
+
+	/** Maximum count of cached tasks */
+	private final int capacity;
+
+	private final ConcurrentMap<Long, CachedTask> taskByIdCache = new ConcurrentHashMap<Long, CachedTask>();
+	private final ConcurrentMap<String, Long> taskIdByFullPathCache = new ConcurrentHashMap<String, Long>();
+	private final ConcurrentMap<String, Long> taskIdByCodePathCache = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * Lock shared by the loads and held exclusively by the invalidations and
+	 * the evictions
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Invalidations count (a task loaded before an invalidation is not
+	 * cached)
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Latest tasks version read from the database (the cached tasks are not
+	 * older)
+	 */
+	private volatile long knownVersion = NOT_FOUND;
+
+	/** Tasks version read by the current transaction, by thread */
+	private final ThreadLocal<Long> transactionVersion = new ThreadLocal<Long>();
+
+	/** Access clock (LRU) */
+	private final AtomicLong clock = new AtomicLong();
+
+	/** Invalidations of the current transaction, by thread */
+	private final ThreadLocal<List<Invalidation>> pendingInvalidations = new ThreadLocal<List<Invalidation>>();
+
+	/** Threads whose transaction reads a possibly stale copy of the database */
+	private final ThreadLocal<Boolean> staleReads = new ThreadLocal<Boolean>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
 	@Inject
 	public TaskDAOCache(ITaskDAO dao) {
+		this(dao, DEFAULT_CAPACITY);
+	}
+
+	public TaskDAOCache(ITaskDAO dao, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity);
+		}
 		this.taskDAO = dao;
+		this.capacity = capacity;
 	}
-	
+
 	public Task getById(long taskId) {
-		if (!taskByIdCache.containsKey(taskId)) {
-			Task task = taskDAO.selectByPK(taskId);
-			addToCache(task);
+		if (bypass()) {
+			return taskDAO.selectByPK(taskId);
+		}
+		checkVersion();
+		CachedTask cached = taskByIdCache.get(taskId);
+		if (cached != null) {
+			return hit(cached);
 		}
-		return taskByIdCache.get(taskId);
+		misses.incrementAndGet();
+		long gen = generation.get();
+		Task task = taskDAO.selectByPK(taskId);
+		if (task != null) {
+			addToCache(task, gen);
+		}
+		return task;
 	}
-	
+
 	public Task getByFullPath(String fullpath) {
 		if (fullpath == null || fullpath.length()==0) {
 			return null;
 		}
-		else if (!taskByPathCache.containsKey(fullpath)) {
-			int pathLength = fullpath.length() - 2;
-			String path = fullpath.substring(0, pathLength);
-			byte number = StringHelper.toByte(fullpath
-					.substring(pathLength));
-
-			Task[] selectedTasks = taskDAO.select(new String[] {"path", "number"}, new Object[] { path, number }, null, -1);
-			if (selectedTasks.length > 1) {
-				throw new IllegalStateException("More than one task returned");
-			}
-			else if (selectedTasks.length > 0) {
-				addToCache(selectedTasks[0]);
-			}
-			else {
-				// Else remember that this task doesn't exist
-				taskByPathCache.put(fullpath, null);
+		if (!bypass()) {
+			checkVersion();
+			Long taskId = taskIdByFullPathCache.get(fullpath);
+			if (taskId != null) {
+				if (taskId == NOT_FOUND) {
+					hits.incrementAndGet();
+					return null;
+				}
+				CachedTask cached = taskByIdCache.get(taskId);
+				if (cached != null && fullpath.equals(cached.task.getFullPath())) {
+					return hit(cached);
+				}
 			}
+			misses.incrementAndGet();
 		}
-		return taskByPathCache.get(fullpath);
+		long gen = generation.get();
+		int pathLength = fullpath.length() - 2;
+		String path = fullpath.substring(0, pathLength);
+		int number = StringHelper.fromBase32(fullpath
+				.substring(pathLength));
+
+		Task selectedTask = taskDAO.getTask(path, number);
+		if (selectedTask != null) {
+			addToCache(selectedTask, gen);
+		}
+		else {
+			// Else remember that this task doesn't exist
+			addToCache(taskIdByFullPathCache, fullpath, NOT_FOUND, gen);
+		}
+		return selectedTask;
 	}
-	
+
 	public Task getParent(Task task) {
 		return getByFullPath(task.getPath());
 	}
 
 	public String getCodePath(long taskId) {
-		if (!taskCodePathByIdCache.containsKey(taskId)) {
-			Task task = getById(taskId);
-			Task parent = getParent(task);
-			String taskCodePath = (parent != null ? getCodePath(parent.getId()) : "") + "/" + task.getCode();
-			linkTaskAndPathInCache(taskCodePath, taskId);
+		if (!bypass()) {
+			checkVersion();
+			CachedTask cached = taskByIdCache.get(taskId);
+			if (cached != null && cached.codePath != null) {
+				hits.incrementAndGet();
+				cached.lastAccess = clock.incrementAndGet();
+				return cached.codePath;
+			}
 		}
-		return taskCodePathByIdCache.get(taskId);
+		long gen = generation.get();
+		Task task = getById(taskId);
+		Task parent = getParent(task);
+		String taskCodePath = (parent != null ? getCodePath(parent.getId()) : "") + "/" + task.getCode();
+		linkTaskAndPathInCache(taskCodePath, taskId, gen);
+		return taskCodePath;
 	}
 
 	public Task getByCodePath(String codePath) {
-		if (!taskIdByCodePathCache.containsKey(codePath)) {
-			int idx = codePath.lastIndexOf('/');
-			String taskCode = codePath.substring(idx + 1);
-			Task parentTask = null;
-			if (idx > 1) {
-				String parentTaskCodePath = codePath.substring(0, idx);
-				parentTask = getByCodePath(parentTaskCodePath);
-			}
-			Task[] selectedTasks = taskDAO.select(new String[] { "path", "code" }, new Object[] { parentTask != null ? parentTask.getFullPath() : "", taskCode }, null, -1);
-			if (selectedTasks.length > 1) {
-				throw new IllegalStateException("More than one task returned");
+		if (!bypass()) {
+			checkVersion();
+			Long taskId = taskIdByCodePathCache.get(codePath);
+			if (taskId != null) {
+				if (taskId == NOT_FOUND) {
+					hits.incrementAndGet();
+					return null;
+				}
+				CachedTask cached = taskByIdCache.get(taskId);
+				if (cached != null) {
+					return hit(cached);
+				}
 			}
-			else if (selectedTasks.length > 0) {
-				Task task = selectedTasks[0];
-				if (!taskByIdCache.containsKey(task.getId())) {
-					addToCache(task);
+			misses.incrementAndGet();
+		}
+		long gen = generation.get();
+		int idx = codePath.lastIndexOf('/');
+		String taskCode = codePath.substring(idx + 1);
+		Task parentTask = null;
+		if (idx > 1) {
+			String parentTaskCodePath = codePath.substring(0, idx);
+			parentTask = getByCodePath(parentTaskCodePath);
+		}
+		Task task = taskDAO.getTask(parentTask != null ? parentTask.getFullPath() : "", taskCode);
+		if (task != null) {
+			addToCache(task, gen);
+			linkTaskAndPathInCache(codePath, task.getId(), gen);
+		}
+		else {
+			// Else remember that this task doesn't exist
+			addToCache(taskIdByCodePathCache, codePath, NOT_FOUND, gen);
+		}
+		return task;
+	}
+
+	/**
+	 * Evicts a task and its sub tasks, to be called before the task is
+	 * written.
+	 *
+	 * @param task
+	 *            the written task.
+	 */
+	public void invalidate(Task task) {
+		invalidate(new Invalidation(task.getId(), task.getFullPath()));
+	}
+
+	/**
+	 * Evicts the tasks whose full path starts with a given path, to be called
+	 * before the tasks of a sub tree are written together.
+	 *
+	 * @param fullPath
+	 *            the full path of the sub tree root task.
+	 */
+	public void invalidateSubTree(String fullPath) {
+		invalidate(new Invalidation(NOT_FOUND, fullPath));
+	}
+
+	/**
+	 * Evicts all the tasks, to be called when the written tasks are not
+	 * known.
+	 */
+	public void invalidateAll() {
+		invalidate(new Invalidation(NOT_FOUND, ""));
+	}
+
+	/**
+	 * Evicts all the tasks and forgets the tasks version, to be called when
+	 * the database is switched or recreated (its tasks version may be lower
+	 * than the known one).
+	 */
+	public void reset() {
+		lock.writeLock().lock();
+		try {
+			generation.incrementAndGet();
+			evict(new Invalidation(NOT_FOUND, "")); //$NON-NLS-1$
+			knownVersion = NOT_FOUND;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Notifies that the calling thread transaction reads a possibly stale copy
+	 * of the database : the tasks it loads are not cached until
+	 * {@link #transactionEnded()} is called.
+	 */
+	public void staleReadsStarted() {
+		staleReads.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Notifies the end (commit or rollback) of the calling thread
+	 * transaction.
+	 */
+	public void transactionEnded() {
+		staleReads.remove();
+		transactionVersion.remove();
+		List<Invalidation> invalidations = pendingInvalidations.get();
+		if (invalidations != null) {
+			pendingInvalidations.remove();
+			lock.writeLock().lock();
+			try {
+				generation.incrementAndGet();
+				for (Invalidation invalidation : invalidations) {
+					evict(invalidation);
 				}
-				else {
-					task = taskByIdCache.get(task.getId());
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return the count of lookups served by the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the count of lookups that required a database access (the
+	 *         lookups of a thread that bypasses the cache are not counted).
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the hit rate (between <code>0</code> and <code>1</code>).
+	 */
+	public double getHitRate() {
+		long theHits = hits.get();
+		long lookups = theHits + misses.get();
+		return lookups != 0 ? (double) theHits / lookups : 0;
+	}
+
+	/**
+	 * @return the count of tasks evicted because the cache was full.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return the count of cached tasks.
+	 */
+	public int size() {
+		return taskByIdCache.size();
+	}
+
+	/**
+	 * Resets the hits, misses and evictions counters.
+	 */
+	public void resetCounters() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+
+	private boolean bypass() {
+		return pendingInvalidations.get() != null;
+	}
+
+	private boolean mayPopulate() {
+		return !bypass() && staleReads.get() == null;
+	}
+
+	/**
+	 * Reads the tasks version if the calling thread transaction has not read
+	 * it yet, and evicts all the tasks if it has moved.
+	 */
+	private void checkVersion() {
+		if (transactionVersion.get() != null) {
+			return;
+		}
+		long version = taskDAO.getTasksVersion();
+		transactionVersion.set(version);
+		if (version > knownVersion) {
+			lock.writeLock().lock();
+			try {
+				if (version > knownVersion) {
+					generation.incrementAndGet();
+					evict(new Invalidation(NOT_FOUND, "")); //$NON-NLS-1$
+					knownVersion = version;
 				}
-				linkTaskAndPathInCache(codePath, task.getId());
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread transaction has read
+	 *         the latest known tasks version (the read lock must be held).
+	 */
+	private boolean isVersionUpToDate() {
+		Long version = transactionVersion.get();
+		return version != null && version == knownVersion;
+	}
+
+	private Task hit(CachedTask cached) {
+		hits.incrementAndGet();
+		cached.lastAccess = clock.incrementAndGet();
+		return taskDAO.copy(cached.task);
+	}
+
+	private void invalidate(Invalidation invalidation) {
+		lock.writeLock().lock();
+		try {
+			generation.incrementAndGet();
+			evict(invalidation);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		List<Invalidation> invalidations = pendingInvalidations.get();
+		if (invalidations == null) {
+			invalidations = new ArrayList<Invalidation>();
+			pendingInvalidations.set(invalidations);
+		}
+		invalidations.add(invalidation);
+	}
+
+	/**
+	 * Evicts the tasks matching an invalidation, along with the unknown paths
+	 * (the write lock must be held).
+	 */
+	private void evict(Invalidation invalidation) {
+		Set<Long> evictedIds = new HashSet<Long>();
+		Iterator<CachedTask> it = taskByIdCache.values().iterator();
+		while (it.hasNext()) {
+			Task task = it.next().task;
+			if (task.getId() == invalidation.taskId
+					|| task.getFullPath().startsWith(invalidation.fullPath)) {
+				evictedIds.add(task.getId());
+				it.remove();
+			}
+		}
+		removeLinks(taskIdByFullPathCache, evictedIds);
+		removeLinks(taskIdByCodePathCache, evictedIds);
+	}
+
+	private static void removeLinks(ConcurrentMap<String, Long> cache,
+			Set<Long> evictedIds) {
+		Iterator<Long> it = cache.values().iterator();
+		while (it.hasNext()) {
+			Long taskId = it.next();
+			if (taskId == NOT_FOUND || evictedIds.contains(taskId)) {
+				it.remove();
+			}
+		}
+	}
+
+	private void addToCache(Task task, long gen) {
+		// A thread that bypasses the cache may load uncommitted tasks
+		if (!mayPopulate()) {
+			return;
+		}
+		lock.readLock().lock();
+		try {
+			// Tasks loaded before an invalidation, or by a transaction that
+			// has read an outdated tasks version, may be stale
+			if (generation.get() != gen || !isVersionUpToDate()) {
+				return;
 			}
-			else {
-				// Else remember that this task doesn't exist
-				taskIdByCodePathCache.put(codePath, null);
+			CachedTask cached = new CachedTask(taskDAO.copy(task));
+			cached.lastAccess = clock.incrementAndGet();
+			CachedTask previous = taskByIdCache.put(task.getId(), cached);
+			if (previous != null) {
+				cached.codePath = previous.codePath;
 			}
+			taskIdByFullPathCache.put(task.getFullPath(), task.getId());
+		} finally {
+			lock.readLock().unlock();
 		}
+		evictIfFull();
+	}
 
-		Long taskId = taskIdByCodePathCache.get(codePath);
-		return taskId != null ? getById(taskId) : null;
+	private void addToCache(ConcurrentMap<String, Long> cache, String path,
+			long taskId, long gen) {
+		if (!mayPopulate()) {
+			return;
+		}
+		lock.readLock().lock();
+		try {
+			if (generation.get() == gen && isVersionUpToDate()) {
+				cache.put(path, taskId);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void linkTaskAndPathInCache(String taskCodePath, long taskId, long gen) {
+		if (!mayPopulate()) {
+			return;
+		}
+		lock.readLock().lock();
+		try {
+			CachedTask cached = taskByIdCache.get(taskId);
+			if (generation.get() == gen && isVersionUpToDate() && cached != null) {
+				cached.codePath = taskCodePath;
+				taskIdByCodePathCache.put(taskCodePath, taskId);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Evicts the least recently used tasks if the cache is full (the cache is
+	 * shrunk to three quarters of its capacity so that the eviction cost is
+	 * amortized).
+	 */
+	private void evictIfFull() {
+		if (taskByIdCache.size() <= capacity || !lock.writeLock().tryLock()) {
+			return;
+		}
+		try {
+			List<CachedTask> cachedTasks = new ArrayList<CachedTask>(taskByIdCache.values());
+			int toEvict = cachedTasks.size() - capacity * 3 / 4;
+			if (toEvict <= 0) {
+				return;
+			}
+			Collections.sort(cachedTasks, (t1, t2) -> Long.compare(t1.lastAccess, t2.lastAccess));
+			Set<Long> evictedIds = new HashSet<Long>();
+			for (CachedTask cached : cachedTasks.subList(0, toEvict)) {
+				taskByIdCache.remove(cached.task.getId());
+				evictedIds.add(cached.task.getId());
+			}
+			removeLinks(taskIdByFullPathCache, evictedIds);
+			removeLinks(taskIdByCodePathCache, evictedIds);
+			evictions.addAndGet(toEvict);
+			log.debug("Task cache full, " + toEvict + " task(s) evicted");
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
-	private void addToCache(Task task) {
-		taskByPathCache.put(task.getFullPath(), task);
-		taskByIdCache.put(task.getId(), task);
+	/**
+	 * Cached task.
+	 */
+	private static final class CachedTask {
+
+		/** The task (never handed out) */
+		private final Task task;
+
+		/** The task code path, if known */
+		private volatile String codePath;
+
+		/** Last access time (LRU) */
+		private volatile long lastAccess;
+
+		CachedTask(Task task) {
+			this.task = task;
+		}
+
 	}
 
-	private void linkTaskAndPathInCache(String taskCodePath, long taskId) {
-		taskCodePathByIdCache.put(taskId, taskCodePath);
-		taskIdByCodePathCache.put(taskCodePath, taskId);
+	/**
+	 * Invalidated task and sub tasks.
+	 */
+	private static final class Invalidation {
+
+		private final long taskId;
+
+		private final String fullPath;
+
+		Invalidation(long taskId, String fullPath) {
+			this.taskId = taskId;
+			this.fullPath = fullPath;
+		}
+
 	}
+
 }
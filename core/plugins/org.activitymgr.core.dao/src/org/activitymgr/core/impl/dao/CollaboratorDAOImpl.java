@@ -10,20 +10,36 @@ import java.util.List;
 import org.activitymgr.core.dao.AbstractORMDAOImpl;
 import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.ICollaboratorDAO;
+import org.activitymgr.core.dao.IntervalRequestHelper;
+import org.activitymgr.core.dao.ReportCache;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
 import org.apache.log4j.Logger;
 
+import com.google.inject.Inject;
+
 public class CollaboratorDAOImpl extends AbstractORMDAOImpl<Collaborator> implements
 		ICollaboratorDAO {
 
+	/** Reports cache */
+	@Inject
+	private ReportCache reportCache;
+
+	@Override
+	protected void beforeWrite(Collaborator collaborator) {
+		super.beforeWrite(collaborator);
+		reportCache.dataChanged();
+	}
+
 	@Override
 	public Collaborator[] getContributors(Task task, Calendar fromDate,
 			Calendar toDate) throws DAOException {
 		// Préparation de la requête
 		StringBuilder request = new StringBuilder("select distinct (ctb_contributor), ");
 		request.append(getColumnNamesRequestFragment(null));
-		request.append(" from CONTRIBUTION, COLLABORATOR");
+		request.append(" from ")
+				.append(IntervalRequestHelper.getContributionsTable(fromDate))
+				.append(", COLLABORATOR");
 		if (task != null) {
 			request.append(", TASK");
 		}
@@ -1,10 +1,10 @@
 package org.activitymgr.core.impl.dao;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -12,31 +12,79 @@ import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.activitymgr.core.dao.AbstractORMDAOImpl;
+import org.activitymgr.core.dao.ContributionCube;
 import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.IContributionDAO;
 import org.activitymgr.core.dao.IntervalRequestHelper;
+import org.activitymgr.core.dao.ReportCache;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskContributionsSums;
+import org.activitymgr.core.util.DbHelper;
+import org.activitymgr.core.util.Strings;
+
+import com.google.inject.Inject;
 
 public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implements
 		IContributionDAO {
 
+	/** Per task rollup (no date) */
+	private static final SumsSource TOTAL_ROLLUP = new SumsSource(
+			"CONTRIBUTION_TOTAL on (ctt_task=ttr_descendant", //$NON-NLS-1$
+			"ctt_sum", "ctt_count", null); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Per month rollup (the first day of the month stands for the month, as
+	 * the partial months are never read in this table)
+	 */
+	private static final SumsSource MONTH_ROLLUP = new SumsSource(
+			"CONTRIBUTION_MONTH on (ctm_task=ttr_descendant", //$NON-NLS-1$
+			"ctm_sum", "ctm_count", "ctm_year_month*100+1"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/** Raw contributions of the years that are not archived */
+	private static final SumsSource CONTRIBUTIONS = new SumsSource(
+			IntervalRequestHelper.CONTRIBUTION_TABLE
+					+ " on (ctb_task=ttr_descendant", //$NON-NLS-1$
+			"ctb_duration", "1", "ctb_date"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/** All the raw contributions */
+	private static final SumsSource ALL_CONTRIBUTIONS = new SumsSource(
+			IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW
+					+ " on (ctb_task=ttr_descendant", //$NON-NLS-1$
+			"ctb_duration", "1", "ctb_date"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/** Name of the tables holding the archived years */
+	private static final Pattern ARCHIVE_TABLE_PATTERN = Pattern.compile(
+			IntervalRequestHelper.CONTRIBUTION_TABLE + "_(\\d{4})", //$NON-NLS-1$
+			Pattern.CASE_INSENSITIVE);
+
+	/** Upper bound used when the interval has no end (yyyymmdd) */
+	private static final int NO_END_DATE = 99999999;
+
+	/** Reports cache */
+	@Inject
+	private ReportCache reportCache;
+
+	/** Contributions cube */
+	@Inject
+	private ContributionCube cube;
+
 	@Override
 	public Contribution[] getContributions(Collaborator contributor, Task task,
 			Calendar fromDate, Calendar toDate) throws DAOException {
-		// Build the request
-		String orderBy = "ctb_year, ctb_month, ctb_day, ctb_contributor";
-		if (task != null) {
-			orderBy += ", tsk_path, tsk_number";
-		}
-		
 		try(PreparedStatement pStmt = buildContributionsRequest(task, contributor, 
 					fromDate, toDate,
-					getColumnNamesRequestFragment(null), orderBy)) {
+					getColumnNamesRequestFragment(null), getContributionsOrderBy(task))) {
 
 			// Exécution de la requête
 			ResultSet rs = pStmt.executeQuery();
@@ -53,6 +101,31 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 		}
 	}
 
+	@Override
+	public Stream<Contribution> streamContributions(Collaborator contributor,
+			Task task, Calendar fromDate, Calendar toDate) throws DAOException {
+		try {
+			return stream(buildContributionsRequest(task, contributor,
+					fromDate, toDate, getColumnNamesRequestFragment(null),
+					getContributionsOrderBy(task), true), 1);
+		} catch (SQLException e) {
+			return critical(e, "CONTRIBUTIONS_SELECTION_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @param task
+	 *            the task criteria (optionnal).
+	 * @return the order by clause of the contributions selection.
+	 */
+	private static String getContributionsOrderBy(Task task) {
+		String orderBy = "ctb_date, ctb_contributor";
+		if (task != null) {
+			orderBy += ", tsk_path, tsk_number";
+		}
+		return orderBy;
+	}
+
 
 	@Override
 	public long getContributionsSum(Collaborator contributor, Task task,
@@ -90,30 +163,138 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 		}
 
 		Map<Long, TaskContributionsSums> result = new HashMap<Long, TaskContributionsSums>();
-		IntervalRequestHelper interval = new IntervalRequestHelper(fromDate, toDate);
-		
+		try {
+			// Without interval, the per task rollup is enough
+			if (fromDate == null && toDate == null) {
+				addTasksSums(result, taskId, tasksPath, TOTAL_ROLLUP, 0,
+						NO_END_DATE, null);
+			}
+			else {
+				int from = fromDate != null ? Contribution.toYearMonthDay(fromDate) : 0;
+				int to = toDate != null ? Contribution.toYearMonthDay(toDate) : NO_END_DATE;
+				// Months that are only partially covered by the interval
+				// (yyyymm), whose sums have to be computed from the raw
+				// contributions
+				List<Integer> partialMonths = new ArrayList<Integer>();
+				if (fromDate != null && fromDate.get(Calendar.DAY_OF_MONTH) != 1) {
+					partialMonths.add(from / 100);
+				}
+				if (toDate != null && toDate.get(Calendar.DAY_OF_MONTH) != toDate.getActualMaximum(Calendar.DAY_OF_MONTH)
+						&& !partialMonths.contains(to / 100)) {
+					partialMonths.add(to / 100);
+				}
+				// Every other month lies entirely before, within or after
+				// the interval
+				StringBuilder monthsFilter = new StringBuilder();
+				StringBuilder partialMonthsFilter = new StringBuilder();
+				for (int i = 0; i < partialMonths.size(); i++) {
+					monthsFilter.append(" and ctm_year_month<>?"); //$NON-NLS-1$
+					partialMonthsFilter.append(i == 0 ? " and (" : " or "); //$NON-NLS-1$ //$NON-NLS-2$
+					partialMonthsFilter.append("ctb_year=? and ctb_date between ? and ?"); //$NON-NLS-1$
+				}
+				addTasksSums(result, taskId, tasksPath, MONTH_ROLLUP, from, to,
+						monthsFilter.toString(), partialMonths.toArray());
+				if (!partialMonths.isEmpty()) {
+					partialMonthsFilter.append(")");
+					List<Integer> partialMonthsBounds = new ArrayList<Integer>();
+					for (int month : partialMonths) {
+						partialMonthsBounds.add(month / 100);
+						partialMonthsBounds.add(month * 100 + 1);
+						partialMonthsBounds.add(month * 100 + 31);
+					}
+					SumsSource source = IntervalRequestHelper.CONTRIBUTION_TABLE
+							.equals(IntervalRequestHelper
+									.getContributionsTable(fromDate)) ? CONTRIBUTIONS
+							: ALL_CONTRIBUTIONS;
+					addTasksSums(result, taskId, tasksPath, source, from,
+							to, partialMonthsFilter.toString(),
+							partialMonthsBounds.toArray());
+				}
+			}
+			
+			// Return the result
+			return result;
+		} catch (SQLException e) {
+			return critical(e, "TASK_SUMS_COMPUTATION_FAILURE",  //$NON-NLS-1$
+					taskId != null ? taskId : tasksPath);
+		}
+	}
+
+	/**
+	 * Adds the contributions sums read in a given source to the sums of a
+	 * task (when <code>taskId</code> is specified) or a set of tasks specified
+	 * by their path.
+	 * 
+	 * <p>
+	 * The sums before, within and after the interval are computed in a
+	 * single pass (conditional aggregation).
+	 * </p>
+	 * 
+	 * @param result
+	 *            the sums to complete.
+	 * @param taskId
+	 *            the task identifier for which we want to know the sums.
+	 * @param tasksPath
+	 *            the tasks path for which we want to know the sums.
+	 * @param source
+	 *            the sums source.
+	 * @param from
+	 *            start of the interval (<code>yyyymmdd</code>).
+	 * @param to
+	 *            end of the interval (<code>yyyymmdd</code>).
+	 * @param filter
+	 *            an additional join condition on the source (may be
+	 *            <code>null</code>).
+	 * @param filterParameters
+	 *            the additional join condition parameters.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	private void addTasksSums(Map<Long, TaskContributionsSums> result,
+			Long taskId, String tasksPath, SumsSource source, int from,
+			int to, String filter, Object... filterParameters)
+			throws SQLException {
 		// Prepare the request
-		StringBuilder request = new StringBuilder(
-				"select pt.tsk_id, pt.tsk_number, sum(ctb_duration), count(ctb_duration) ");
-		request.append("from TASK pt");
-		request.append(" left join (TASK lt left join CONTRIBUTION on (ctb_task=lt.tsk_id");
-		if (interval.hasIntervalCriteria()) {
-			request.append(" and ");
-			interval.appendIntervalCriteria(request);
+		StringBuilder request = new StringBuilder("select pt.tsk_id");
+		if (source.dateExpression == null) {
+			request.append(", sum(").append(source.sumColumn).append("), sum(")
+					.append(source.countColumn).append("), 0, 0");
+		}
+		else {
+			String inInterval = source.dateExpression + " between ? and ?";
+			request.append(", sum(case when ").append(inInterval).append(" then ")
+					.append(source.sumColumn).append(" else 0 end)");
+			request.append(", sum(case when ").append(inInterval).append(" then ")
+					.append(source.countColumn).append(" else 0 end)");
+			request.append(", sum(case when ").append(source.dateExpression)
+					.append("<? then ").append(source.sumColumn).append(" else 0 end)");
+			request.append(", sum(case when ").append(source.dateExpression)
+					.append(">? then ").append(source.sumColumn).append(" else 0 end)");
+		}
+		request.append(" from TASK pt");
+		request.append(" join TASK_TREE on ttr_ancestor=pt.tsk_id");
+		request.append(" left join ");
+		request.append(source.joinFragment);
+		if (filter != null) {
+			request.append(filter);
 		}
 		request.append(")");
-		
-		request.append(") on (pt.tsk_id=lt.tsk_id or lt.tsk_path like concat(pt.tsk_path, pt.tsk_number, '%'))");
 		request.append(" where ");
 		request.append(taskId != null ? "pt.tsk_id" : "pt.tsk_path");
-		request.append(" = ? group by pt.tsk_id order by pt.tsk_number");
-
-
-		try(PreparedStatement pStmt = tx().prepareStatement(request.toString())) {
+		request.append(" = ? group by pt.tsk_id");
 
+		try (PreparedStatement pStmt = tx().prepareStatement(request.toString())) {
 			int paramIdx = 1;
-			if (interval.hasIntervalCriteria()) {
-				paramIdx = interval.bindParameters(paramIdx, pStmt);
+			if (source.dateExpression != null) {
+				pStmt.setInt(paramIdx++, from);
+				pStmt.setInt(paramIdx++, to);
+				pStmt.setInt(paramIdx++, from);
+				pStmt.setInt(paramIdx++, to);
+				pStmt.setInt(paramIdx++, from);
+				pStmt.setInt(paramIdx++, to);
+			}
+			for (Object parameter : filterParameters) {
+				pStmt.setInt(paramIdx++, (Integer) parameter);
 			}
 			if (taskId != null) {
 				pStmt.setLong(paramIdx++, taskId);
@@ -124,21 +305,330 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 
 			// Retrieve the result
 			while (rs.next()) {
-				TaskContributionsSums sums = new TaskContributionsSums();
-				sums.setTaskId(rs.getLong(1));
-				sums.setConsumedSum(rs.getLong(3));
-				sums.setContributionsNb(rs.getLong(4));
-				result.put(sums.getTaskId(), sums);
+				long theTaskId = rs.getLong(1);
+				TaskContributionsSums sums = result.get(theTaskId);
+				if (sums == null) {
+					sums = new TaskContributionsSums();
+					sums.setTaskId(theTaskId);
+					result.put(theTaskId, sums);
+				}
+				sums.setConsumedSum(sums.getConsumedSum() + rs.getLong(2));
+				sums.setContributionsNb(sums.getContributionsNb() + rs.getLong(3));
+				sums.setConsumedBeforeSum(sums.getConsumedBeforeSum() + rs.getLong(4));
+				sums.setConsumedAfterSum(sums.getConsumedAfterSum() + rs.getLong(5));
 			}
+		}
+	}
 
-			
-			// Return the result
-			return result;
+	@Override
+	public void updateRollups(Collection<Contribution> contributions)
+			throws DAOException {
+		// Months to recompute, by task
+		Map<Long, Set<Integer>> months = new HashMap<Long, Set<Integer>>();
+		for (Contribution contribution : contributions) {
+			Set<Integer> taskMonths = months.get(contribution.getTaskId());
+			if (taskMonths == null) {
+				taskMonths = new TreeSet<Integer>();
+				months.put(contribution.getTaskId(), taskMonths);
+			}
+			taskMonths.add(contribution.getYear() * 100 + contribution.getMonth());
+		}
+		if (months.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement deleteMonth = tx().prepareStatement(
+				"delete from CONTRIBUTION_MONTH where ctm_task=? and ctm_year_month=?"); //$NON-NLS-1$
+				PreparedStatement insertMonth = tx().prepareStatement(
+				"insert into CONTRIBUTION_MONTH (ctm_task, ctm_year_month, ctm_sum, ctm_count)" //$NON-NLS-1$
+				+ " select ctb_task, ctb_year*100+ctb_month, sum(ctb_duration), count(ctb_duration)" //$NON-NLS-1$
+				+ " from " + IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW //$NON-NLS-1$
+				+ " where ctb_task=? and ctb_year=? and ctb_date between ? and ?" //$NON-NLS-1$
+				+ " group by ctb_task, ctb_year, ctb_month"); //$NON-NLS-1$
+				PreparedStatement deleteTotal = tx().prepareStatement(
+				"delete from CONTRIBUTION_TOTAL where ctt_task=?"); //$NON-NLS-1$
+				PreparedStatement insertTotal = tx().prepareStatement(
+				"insert into CONTRIBUTION_TOTAL (ctt_task, ctt_sum, ctt_count)" //$NON-NLS-1$
+				+ " select ctm_task, sum(ctm_sum), sum(ctm_count)" //$NON-NLS-1$
+				+ " from CONTRIBUTION_MONTH where ctm_task=? group by ctm_task")) { //$NON-NLS-1$
+			for (Map.Entry<Long, Set<Integer>> entry : months.entrySet()) {
+				long taskId = entry.getKey();
+				// Recompute the months from the (task, date) index
+				for (int yearMonth : entry.getValue()) {
+					deleteMonth.setLong(1, taskId);
+					deleteMonth.setInt(2, yearMonth);
+					deleteMonth.executeUpdate();
+					insertMonth.setLong(1, taskId);
+					insertMonth.setInt(2, yearMonth / 100);
+					insertMonth.setInt(3, yearMonth * 100 + 1);
+					insertMonth.setInt(4, yearMonth * 100 + 31);
+					insertMonth.executeUpdate();
+				}
+				// Then the task total from the months
+				deleteTotal.setLong(1, taskId);
+				deleteTotal.executeUpdate();
+				insertTotal.setLong(1, taskId);
+				insertTotal.executeUpdate();
+			}
 		} catch (SQLException e) {
-			return critical(e, "TASK_SUMS_COMPUTATION_FAILURE",  //$NON-NLS-1$
-					taskId != null ? taskId : tasksPath);
+			critical(e, "CONTRIBUTION_ROLLUPS_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void rebuildRollups() throws DAOException {
+		try (Statement stmt = tx().createStatement()) {
+			stmt.executeUpdate("delete from CONTRIBUTION_TOTAL"); //$NON-NLS-1$
+			stmt.executeUpdate("delete from CONTRIBUTION_MONTH"); //$NON-NLS-1$
+			stmt.executeUpdate("insert into CONTRIBUTION_MONTH (ctm_task, ctm_year_month, ctm_sum, ctm_count)" //$NON-NLS-1$
+					+ " select ctb_task, ctb_year*100+ctb_month, sum(ctb_duration), count(ctb_duration)" //$NON-NLS-1$
+					+ " from " + IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW //$NON-NLS-1$
+					+ " group by ctb_task, ctb_year, ctb_month"); //$NON-NLS-1$
+			stmt.executeUpdate("insert into CONTRIBUTION_TOTAL (ctt_task, ctt_sum, ctt_count)" //$NON-NLS-1$
+					+ " select ctm_task, sum(ctm_sum), sum(ctm_count)" //$NON-NLS-1$
+					+ " from CONTRIBUTION_MONTH group by ctm_task"); //$NON-NLS-1$
+		} catch (SQLException e) {
+			critical(e, "CONTRIBUTION_ROLLUPS_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void beforeWrite(Contribution contribution) {
+		super.beforeWrite(contribution);
+		// The archived years are read only
+		if (contribution != null
+				&& contribution.getYear() < Calendar.getInstance().get(
+						Calendar.YEAR)
+				&& getArchivedContributionYears().contains(
+						contribution.getYear())) {
+			throw new DAOException(Strings.getString(
+					"DbMgr.errors.CONTRIBUTION_YEAR_ARCHIVED", //$NON-NLS-1$
+					String.valueOf(contribution.getYear())), null);
+		}
+		reportCache.dataChanged();
+		cube.contributionChanged(contribution);
+	}
+
+	@Override
+	public Collection<Integer> getArchivedContributionYears()
+			throws DAOException {
+		try {
+			return getArchiveTables(tx()).keySet();
+		} catch (SQLException e) {
+			return critical(e);
+		}
+	}
+
+	@Override
+	public int archiveContributions(int year) throws DAOException {
+		invalidateIdentityMap();
+		String archiveTable = IntervalRequestHelper.CONTRIBUTION_TABLE + '_'
+				+ year;
+		String prefix = "CTB_" + year; //$NON-NLS-1$
+		// The DDL statements commit implicitly on MySQL : each step may be
+		// run again, so that a year whose archiving has been interrupted is
+		// repaired by the next call
+		try (Statement stmt = tx().createStatement()) {
+			// Archive table (same structure as the contributions table)
+			stmt.executeUpdate("create table if not exists " + archiveTable + " (" //$NON-NLS-1$ //$NON-NLS-2$
+					+ "CTB_YEAR integer not null, " //$NON-NLS-1$
+					+ "CTB_MONTH integer not null, " //$NON-NLS-1$
+					+ "CTB_DAY integer not null, " //$NON-NLS-1$
+					+ "CTB_CONTRIBUTOR integer not null, " //$NON-NLS-1$
+					+ "CTB_TASK integer not null, " //$NON-NLS-1$
+					+ "CTB_DURATION integer not null, " //$NON-NLS-1$
+					+ "CTB_DATE integer not null, " //$NON-NLS-1$
+					+ "constraint " + prefix + "_PK primary key (CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK), " //$NON-NLS-1$ //$NON-NLS-2$
+					+ "constraint " + prefix + "_CONTRIBUTOR_FK foreign key (CTB_CONTRIBUTOR) references COLLABORATOR (CLB_ID), " //$NON-NLS-1$ //$NON-NLS-2$
+					+ "constraint " + prefix + "_TASK_FK foreign key (CTB_TASK) references TASK (TSK_ID), " //$NON-NLS-1$ //$NON-NLS-2$
+					+ "constraint " + prefix + "_DURATION_FK foreign key (CTB_DURATION) references DURATION (DUR_ID))" //$NON-NLS-1$ //$NON-NLS-2$
+					// Closed years are seldom read : compress them
+					+ (DbHelper.isHsqlOrH2(tx()) ? "" //$NON-NLS-1$
+							: " engine=innodb row_format=compressed")); //$NON-NLS-1$
+			createIndexIfMissing(stmt, archiveTable, prefix
+					+ "_CONTRIBUTOR_DATE_IDX", "CTB_CONTRIBUTOR, CTB_DATE"); //$NON-NLS-1$ //$NON-NLS-2$
+			createIndexIfMissing(stmt, archiveTable, prefix
+					+ "_TASK_DATE_IDX", "CTB_TASK, CTB_DATE"); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// Nothing left to move (the view is rebuilt before the
+			// contributions are deleted)
+			if (!hasUnarchivedContributions(stmt, year)) {
+				return 0;
+			}
+
+			// Copy the contributions of the year that are not copied yet
+			String columns = getColumnNamesRequestFragment(null);
+			stmt.executeUpdate("insert into " + archiveTable + " (" + columns //$NON-NLS-1$ //$NON-NLS-2$
+					+ ") select " + getColumnNamesRequestFragment("c") //$NON-NLS-1$ //$NON-NLS-2$
+					+ " from " + IntervalRequestHelper.CONTRIBUTION_TABLE //$NON-NLS-1$
+					+ " c where c.ctb_year=" + year //$NON-NLS-1$
+					+ " and not exists (select 1 from " + archiveTable //$NON-NLS-1$
+					+ " a where " + samePrimaryKey("a", "c") + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+			// Rebuild the view of all the contributions (the year is then
+			// read from the archive table only)
+			rebuildAllContributionsView(stmt);
+
+			// Only delete the contributions once they are all archived
+			if (getArchivedContributionsCount(stmt, year, archiveTable) != getContributionsCount(
+					stmt, year)) {
+				critical(null, "CONTRIBUTIONS_ARCHIVE_FAILURE", String.valueOf(year)); //$NON-NLS-1$
+			}
+			return stmt.executeUpdate("delete from " //$NON-NLS-1$
+					+ IntervalRequestHelper.CONTRIBUTION_TABLE
+					+ " where ctb_year=" + year); //$NON-NLS-1$
+		} catch (SQLException e) {
+			critical(e, "CONTRIBUTIONS_ARCHIVE_FAILURE", String.valueOf(year)); //$NON-NLS-1$
+			return 0;
+		}
+	}
+
+	/**
+	 * Rebuilds the view of all the contributions.
+	 * 
+	 * <p>
+	 * The archive tables that do not hold all the contributions of their
+	 * year yet are left aside (the year is read from the contributions
+	 * table), and the contributions of the other archived years that are
+	 * still in the contributions table are ignored (they are about to be
+	 * deleted).
+	 * </p>
+	 * 
+	 * @param stmt
+	 *            the statement to use.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	private void rebuildAllContributionsView(Statement stmt)
+			throws SQLException {
+		String columns = getColumnNamesRequestFragment(null);
+		StringBuilder archivedYears = new StringBuilder();
+		StringBuilder archives = new StringBuilder();
+		for (Map.Entry<Integer, String> entry : getArchiveTables(tx())
+				.entrySet()) {
+			int year = entry.getKey();
+			if (getArchivedContributionsCount(stmt, year, entry.getValue()) == getContributionsCount(
+					stmt, year)) {
+				archivedYears.append(archivedYears.length() > 0 ? ", " : "") //$NON-NLS-1$ //$NON-NLS-2$
+						.append(year);
+				archives.append(" union all select ").append(columns) //$NON-NLS-1$
+						.append(" from ").append(entry.getValue()); //$NON-NLS-1$
+			}
+		}
+		StringBuilder view = new StringBuilder("create view ") //$NON-NLS-1$
+				.append(IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW)
+				.append(" as select ").append(columns).append(" from ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(IntervalRequestHelper.CONTRIBUTION_TABLE);
+		if (archivedYears.length() > 0) {
+			view.append(" where ctb_year not in (").append(archivedYears) //$NON-NLS-1$
+					.append(')');
+		}
+		view.append(archives);
+		stmt.executeUpdate("drop view if exists " //$NON-NLS-1$
+				+ IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW);
+		stmt.executeUpdate(view.toString());
+	}
+
+	/**
+	 * @return <code>true</code> if the contributions table holds
+	 *         contributions of a given year.
+	 */
+	private static boolean hasUnarchivedContributions(Statement stmt, int year)
+			throws SQLException {
+		try (ResultSet rs = stmt.executeQuery("select 1 from " //$NON-NLS-1$
+				+ IntervalRequestHelper.CONTRIBUTION_TABLE
+				+ " where ctb_year=" + year)) { //$NON-NLS-1$
+			return rs.next();
+		}
+	}
+
+	/**
+	 * @return the count of contributions of a given year in the contributions
+	 *         table.
+	 */
+	private static long getContributionsCount(Statement stmt, int year)
+			throws SQLException {
+		try (ResultSet rs = stmt.executeQuery("select count(*) from " //$NON-NLS-1$
+				+ IntervalRequestHelper.CONTRIBUTION_TABLE
+				+ " where ctb_year=" + year)) { //$NON-NLS-1$
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * @return the count of contributions of a given year in the contributions
+	 *         table that are copied into the archive table.
+	 */
+	private static long getArchivedContributionsCount(Statement stmt,
+			int year, String archiveTable) throws SQLException {
+		try (ResultSet rs = stmt.executeQuery("select count(*) from " //$NON-NLS-1$
+				+ IntervalRequestHelper.CONTRIBUTION_TABLE + " c join " //$NON-NLS-1$
+				+ archiveTable + " a on (" + samePrimaryKey("a", "c") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ " and a.ctb_duration=c.ctb_duration) where c.ctb_year=" + year)) { //$NON-NLS-1$
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * @return the condition telling that two contributions have the same
+	 *         primary key.
+	 */
+	private static String samePrimaryKey(String alias1, String alias2) {
+		StringBuilder condition = new StringBuilder();
+		for (String column : new String[] { "ctb_year", "ctb_month", //$NON-NLS-1$ //$NON-NLS-2$
+				"ctb_day", "ctb_contributor", "ctb_task" }) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			condition.append(condition.length() > 0 ? " and " : "") //$NON-NLS-1$ //$NON-NLS-2$
+					.append(alias1).append('.').append(column).append('=')
+					.append(alias2).append('.').append(column);
+		}
+		return condition.toString();
+	}
+
+	/**
+	 * Creates an index unless it exists.
+	 */
+	private void createIndexIfMissing(Statement stmt, String table,
+			String index, String columns) throws SQLException {
+		Connection con = tx();
+		try (ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(),
+				null, table, false, true)) {
+			while (rs.next()) {
+				if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) { //$NON-NLS-1$
+					return;
+				}
+			}
 		}
+		stmt.executeUpdate("create index " + index + " on " + table //$NON-NLS-1$ //$NON-NLS-2$
+				+ " (" + columns + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	/**
+	 * Returns the tables holding the archived contributions.
+	 * 
+	 * @param con
+	 *            the connection to use.
+	 * @return the table names, by year.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	static SortedMap<Integer, String> getArchiveTables(Connection con)
+			throws SQLException {
+		SortedMap<Integer, String> tables = new TreeMap<Integer, String>();
+		try (ResultSet rs = con.getMetaData().getTables(con.getCatalog(), null,
+				IntervalRequestHelper.CONTRIBUTION_TABLE + "_%", //$NON-NLS-1$
+				new String[] { "TABLE" })) { //$NON-NLS-1$
+			while (rs.next()) {
+				String table = rs.getString("TABLE_NAME"); //$NON-NLS-1$
+				Matcher matcher = ARCHIVE_TABLE_PATTERN.matcher(table);
+				if (matcher.matches()) {
+					tables.put(Integer.parseInt(matcher.group(1)), table);
+				}
+			}
+		}
+		return tables;
+	}
+
 	/**
 	 * Builds a request that selects contributions using a given task,
 	 * contributor and date interval.
@@ -163,21 +653,52 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 	private PreparedStatement buildContributionsRequest(Task task,
 			Collaborator contributor, Calendar fromDate, Calendar toDate,
 			String fieldsToSelect, String orderBy) throws SQLException {
+		return buildContributionsRequest(task, contributor, fromDate, toDate,
+				fieldsToSelect, orderBy, false);
+	}
+
+	/**
+	 * Builds a request that selects contributions using a given task,
+	 * contributor and date interval.
+	 * 
+	 * @param task
+	 *            a parent task of the contributions tasks.
+	 * @param contributor
+	 *            the contributor.
+	 * @param fromDate
+	 *            start date of the interval.
+	 * @param toDate
+	 *            end date of the interval.
+	 * @param fieldsToSelect
+	 *            fields to select.
+	 * @param orderBy
+	 *            the order by clause.
+	 * @param streaming
+	 *            <code>true</code> if the statement is meant to be streamed.
+	 * @return the statement.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	private PreparedStatement buildContributionsRequest(Task task,
+			Collaborator contributor, Calendar fromDate, Calendar toDate,
+			String fieldsToSelect, String orderBy, boolean streaming) throws SQLException {
 		// Préparation de la requête
 		StringBuilder request = new StringBuilder("select ")
 				.append(fieldsToSelect)
-				.append(" from CONTRIBUTION");
+				.append(" from ")
+				.append(IntervalRequestHelper.getContributionsTable(fromDate));
 		if (task != null) {
 			request.append(", TASK");
 		}
 		return buildIntervalRequest(request, contributor, task, fromDate,
-				toDate, true, orderBy);
+				toDate, true, orderBy, streaming);
 	}
 
 
 	@Override
 	public Collection<Integer> getContributionYears() {
-		String query = "select distinct(ctb_year) as year from CONTRIBUTION order by year";
+		String query = "select distinct(ctb_year) as year from "
+				+ IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW + " order by year";
 		try(PreparedStatement pStmt = tx().prepareStatement(query)) {
 
 			// Exécution de le requête et extraction du résultat
@@ -200,17 +721,15 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 		boolean filterByTaskPath = taskPath != null && !"".equals(taskPath);
 		// Build the SQL request
 		String query = "select count(*), " //$NON-NLS-1$
-				+ " min(ctb_year*10000+ctb_month*100+ctb_day)," //$NON-NLS-1$
-				+ " max(ctb_year*10000+ctb_month*100+ctb_day)" //$NON-NLS-1$
-				+ " from CONTRIBUTION"; //$NON-NLS-1$
+				+ " min(ctb_date)," //$NON-NLS-1$
+				+ " max(ctb_date)" //$NON-NLS-1$
+				+ " from " + IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW; //$NON-NLS-1$
 		if (filterByTaskPath) {
 			query += " join TASK on ctb_task=tsk_id where tsk_path like ? or concat(tsk_path, tsk_number)=?";
 		}
 		
 
 		try(PreparedStatement pStmt = tx().prepareStatement(query)) {
-			SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
-			
 			if (filterByTaskPath) {
 				pStmt.setString(1, taskPath + '%');
 				pStmt.setString(2, taskPath);
@@ -227,20 +746,59 @@ public class ContributionDAOImpl extends AbstractORMDAOImpl<Contribution> implem
 					result = new Calendar[2];
 					
 					
-					result[0] = new GregorianCalendar();
-					result[0].setTime(sdf.parse(rs.getString(2)));
-	
-					result[1] = new GregorianCalendar();
-					result[1].setTime(sdf.parse(rs.getString(3)));
+					result[0] = toCalendar(rs.getInt(2));
+					result[1] = toCalendar(rs.getInt(3));
 				}
 			}
 
 
 			// Retour du résultat
 			return result;
-		} catch (SQLException | ParseException e) {
+		} catch (SQLException e) {
 			return critical(e);
 		}
 	}
 
+	/**
+	 * Converts a <code>yyyymmdd</code> date to a calendar.
+	 * 
+	 * @param yearMonthDay
+	 *            the date.
+	 * @return the calendar.
+	 */
+	private static Calendar toCalendar(int yearMonthDay) {
+		return new GregorianCalendar(yearMonthDay / 10000,
+				(yearMonthDay / 100) % 100 - 1, yearMonthDay % 100);
+	}
+
+	/**
+	 * Table from which the contributions sums may be read.
+	 */
+	private static final class SumsSource {
+
+		/** Join fragment (without the closing parenthesis) */
+		private final String joinFragment;
+
+		/** Consumed column */
+		private final String sumColumn;
+
+		/** Contributions count column */
+		private final String countColumn;
+
+		/**
+		 * Date expression (<code>yyyymmdd</code>), <code>null</code> if the
+		 * source is not dated
+		 */
+		private final String dateExpression;
+
+		SumsSource(String joinFragment, String sumColumn, String countColumn,
+				String dateExpression) {
+			this.joinFragment = joinFragment;
+			this.sumColumn = sumColumn;
+			this.countColumn = countColumn;
+			this.dateExpression = dateExpression;
+		}
+
+	}
+
 }
\ No newline at end of file
@@ -32,18 +32,26 @@ import java.io.InputStream;
 import java.io.LineNumberReader;
 import java.io.StringReader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 import org.activitymgr.core.dao.AbstractDAOImpl;
+import org.activitymgr.core.dao.ContributionCube;
 import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.ICoreDAO;
+import org.activitymgr.core.dao.IdentityMap;
+import org.activitymgr.core.dao.IntervalRequestHelper;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.TaskDAOCache;
 import org.activitymgr.core.util.DbHelper;
 import org.activitymgr.core.util.StringHelper;
 import org.activitymgr.core.util.Strings;
 import org.apache.log4j.Logger;
 
+import com.google.inject.Inject;
+
 /**
  * Classe offrant les services de base de persistence de l'application.
  * TODO 2236 -> 1865 -> 1558 -> 1125
@@ -53,6 +61,18 @@ public class CoreDAOImpl extends AbstractDAOImpl implements ICoreDAO {
 	/** Logger */
 	private static Logger log = Logger.getLogger(CoreDAOImpl.class);
 
+	/** Tasks cache */
+	@Inject
+	private TaskDAOCache taskCache;
+
+	/** Reports cache */
+	@Inject
+	private ReportCache reportCache;
+
+	/** Contributions cube */
+	@Inject
+	private ContributionCube cube;
+
 	@Override
 	public boolean tablesExist() throws DAOException {
 		boolean tablesExist = true;
@@ -82,6 +102,7 @@ public class CoreDAOImpl extends AbstractDAOImpl implements ICoreDAO {
 		// Lecture du fichier SQL de création de la BDD
 		String batchName = isHsqlOrH2() ? "hsqldb.sql" : "mysqldb.sql"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		InputStream in = CoreDAOImpl.class.getResourceAsStream(batchName);
+		dropContributionArchives();
 		executeScript(in);
 
 		// Test de l'existence des tables
@@ -90,6 +111,52 @@ public class CoreDAOImpl extends AbstractDAOImpl implements ICoreDAO {
 		}
 	}
 
+	@Override
+	public String getSchemaVersion() throws DAOException {
+		if (!tableExists("SCHEMA_VERSION")) { //$NON-NLS-1$
+			return null;
+		}
+		try (Statement stmt = tx().createStatement();
+				ResultSet rs = stmt.executeQuery("select scv_version from SCHEMA_VERSION")) { //$NON-NLS-1$
+			return rs.next() ? rs.getString(1) : null;
+		} catch (SQLException e) {
+			return critical(e, "SCHEMA_VERSION_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void setSchemaVersion(String version) throws DAOException {
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"update SCHEMA_VERSION set scv_version=?")) { //$NON-NLS-1$
+			pStmt.setString(1, version);
+			if (pStmt.executeUpdate() == 0) {
+				critical(null, "SCHEMA_VERSION_FAILURE"); //$NON-NLS-1$
+			}
+		} catch (SQLException e) {
+			critical(e, "SCHEMA_VERSION_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Drops the archived contributions tables (they are not known by the
+	 * creation script, and they reference the tables it drops).
+	 * 
+	 * @throws DAOException
+	 *             levé en cas d'incident technique d'accès à la base.
+	 */
+	private void dropContributionArchives() throws DAOException {
+		try (Statement stmt = tx().createStatement()) {
+			stmt.executeUpdate("drop view if exists " //$NON-NLS-1$
+					+ IntervalRequestHelper.ALL_CONTRIBUTIONS_VIEW);
+			for (String table : ContributionDAOImpl.getArchiveTables(tx())
+					.values()) {
+				stmt.executeUpdate("drop table " + table); //$NON-NLS-1$
+			}
+		} catch (SQLException e) {
+			critical(e, "SQL_TABLE_CREATION_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
 	@Override
 	public boolean isHsqlOrH2() {
 		try {
@@ -114,6 +181,12 @@ public class CoreDAOImpl extends AbstractDAOImpl implements ICoreDAO {
 
 	@Override
 	public void executeScript(String scriptContent) throws DAOException {
+		// Scripts may update any table (and recreate the tasks version)
+		IdentityMap.clearCurrent();
+		taskCache.reset();
+		taskCache.invalidateAll();
+		reportCache.dataChanged();
+		cube.invalidateAll();
 
 		try(Statement stmt = tx().createStatement()) {
 			// Découpage et exécution du batch
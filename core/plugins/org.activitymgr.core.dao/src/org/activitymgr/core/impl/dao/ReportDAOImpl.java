@@ -1,20 +1,26 @@
 package org.activitymgr.core.impl.dao;
 
 import java.io.StringWriter;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.activitymgr.core.dao.AbstractDAOImpl;
+import org.activitymgr.core.dao.ContributionCube;
 import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.ICollaboratorDAO;
 import org.activitymgr.core.dao.IReportDAO;
 import org.activitymgr.core.dao.ITaskDAO;
+import org.activitymgr.core.dao.IntervalRequestHelper;
+import org.activitymgr.core.dao.ReportPlanner;
+import org.activitymgr.core.dao.StatementCanceller;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSums;
@@ -37,6 +43,12 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 	
 	@Inject
 	private ICollaboratorDAO collaboratorDAO;
+
+	@Inject
+	private ReportPlanner planner;
+
+	@Inject
+	private ContributionCube cube;
 	
 
 	@Override
@@ -66,9 +78,10 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 					.append("select ")
 					.append("sum(leaftask.tsk_budget), sum(leaftask.tsk_initial_cons), sum(leaftask.tsk_todo), (count(leaftask.tsk_id)-1), ")
 					.append(taskDAO.getColumnNamesRequestFragment("activitytask"))
-					.append(" from TASK activitytask, TASK leaftask ")
-					.append("where ")
-					.append("(leaftask.tsk_id=activitytask.tsk_id or leaftask.tsk_path like concat(activitytask.tsk_path, activitytask.tsk_number, '%')) ");
+					.append(" from TASK activitytask")
+					.append(" join TASK_TREE on ttr_ancestor=activitytask.tsk_id")
+					.append(" join TASK leaftask on leaftask.tsk_id=ttr_descendant ")
+					.append("where true ");
 				if (rootPath != null) {
 					request.append("and concat(activitytask.tsk_path, activitytask.tsk_number) like ? ");
 				}
@@ -84,7 +97,7 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 				}
 				
 				pStmt.setInt(paramIdx++, activityPathLength-2);
-				rs = pStmt.executeQuery();
+				rs = StatementCanceller.executeQuery(pStmt);
 				
 				while (rs.next()) {
 					TaskSums sums = new TaskSums();
@@ -107,26 +120,239 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 				pStmt = null;
 			}
 	
+			/*
+			 * Retrieve contributions
+			 */
+			boolean byActivity = (taskDepth > 0);
+			ContributionsRequest request = new ContributionsRequest(start,
+					intervalType, rootTask, taskDepth, activityPathLength,
+					byContributor, contributorCentricMode, contributorIds,
+					orderContributorsBy, tasksByIdCache);
+			// The contributions cube, if enabled, computes the sums in memory
+			List<ContributionRow> rows = request.readCube(intervalCount, orderedTasks);
+			if (rows == null) {
+				List<int[]> slices = planner.plan(start, intervalType, intervalCount);
+				if (slices.size() == 1) {
+					rows = request.read(tx(), 0, intervalCount);
+				}
+				else {
+					// The slices are read concurrently, and their rows are then
+					// merged in the request order
+					List<ReportPlanner.SliceQuery<List<ContributionRow>>> queries = new ArrayList<ReportPlanner.SliceQuery<List<ContributionRow>>>();
+					for (int[] slice : slices) {
+						queries.add(con -> request.read(con, slice[0], slice[1]));
+					}
+					rows = new ArrayList<ContributionRow>();
+					for (List<ContributionRow> sliceRows : planner.run(queries, tx())) {
+						rows.addAll(sliceRows);
+					}
+					request.sort(rows, orderedTasks);
+				}
+			}
+
+			// Build the report items
+			int orderedTaskIndex = 0;
+			Report report = new Report(start, intervalType, intervalCount, rootTask, taskDepth, byContributor, contributorCentricMode);
+			ReportItem reportItem = null;
+			for (ContributionRow row : rows) {
+				Collaborator contributor = row.contributor;
+				TaskSums contributedTask = row.contributedTask;
+				// See whether a new item must be created
+				boolean newItem = false;
+				if (reportItem == null) {
+					newItem = true;
+				} else {
+					if (byActivity && !contributedTask.equals(reportItem.getContributedTask())) {
+						newItem = true;
+					}
+					if (byContributor && !reportItem.getContributor().equals(contributor)) {
+						newItem = true;
+					}
+				}
+				if (newItem) {
+					// If no task is present, simply create a report item
+					if (!byActivity) {
+						reportItem = new ReportItem(report, contributor, null);
+					}
+					else {
+						// If in task centric mode (or without contributors which is equivalent), may have to insert rows without contributions
+						// before adding new report line
+						if (!onlyKeepTasksWithContributions
+								&& orderedTasks.size() > 0
+								&& (!contributorCentricMode || !byContributor)) {
+							if (!contributedTask.equals(orderedTasks.get(orderedTaskIndex))) {
+								// If the last report item was about the same task, we must skeep the corresponding value
+								// in the ordered task list
+								if (reportItem != null && reportItem.getContributedTask().equals(orderedTasks.get(orderedTaskIndex))) {
+									orderedTaskIndex++;
+								}
+								// Add empty rows (empty means without contributions, but these rows may be associated
+								// to budgets for example).
+								TaskSums cursor = null;
+								while (!(cursor = orderedTasks.get(orderedTaskIndex)).equals(contributedTask)) {
+									if (cursor.isLeaf()) {
+										Task[] tasks = buildTasksList(rootPath,
+												tasksByFullPathCache, cursor.getTask().getFullPath());
+										new ReportItem(report, null, cursor,
+												tasks);
+									}
+									orderedTaskIndex++;
+								}
+							}
+						}
+						// Add report item
+						Task[] tasks = buildTasksList(rootPath,
+								tasksByFullPathCache, contributedTask.getTask()
+										.getFullPath());
+						reportItem = new ReportItem(report, contributor,
+								contributedTask, tasks);
+					}
+				}
+				
+				// Register contribution
+				reportItem.addToContributionSum(row.intervalIdx, row.duration);
+			}
+
+			// Empty rows may have to be added at the end of the report (only in task centric mode or equivalent) 
+			if (!onlyKeepTasksWithContributions && byActivity
+					&& (!contributorCentricMode || !byContributor)) {
+				while (++orderedTaskIndex < orderedTasks.size()) {
+					TaskSums cursor = orderedTasks.get(orderedTaskIndex);
+					if (cursor.isLeaf()) {
+						Task[] tasks = buildTasksList(rootPath,
+								tasksByFullPathCache, cursor.getTask().getFullPath());
+						new ReportItem(report, null, cursor, tasks);
+					}
+				}
+			}
+
+			return report;
+
+		} catch (SQLException e) {
+			log.info("Unexpected SQL error", e); //$NON-NLS-1$
+			throw new DAOException(
+					Strings.getString("Unexpected SQL error"), e); //$NON-NLS-1$
+		} finally {
+			lastAttemptToClose(pStmt);
+		}
+	}
+
+	private void appendOrderByTaskPathFragment(StringWriter request,
+			String alias, int taskDepth) {
+		request.append("concat(").append(alias).append(".tsk_path, ").append(alias).append(".tsk_number, '");
+		for (int i=0; i<taskDepth; i++) {
+			request.append("00");
+		}
+		request.append("')");
+	}
+
+	private Task[] buildTasksList(String rootPath,
+			Map<String, TaskSums> tasksByFullPathCache, String fullpath) {
+		int depth = (fullpath.length() - rootPath.length()) / 2;
+		Task[] tasks = null;
+		if (depth > 0) {
+			tasks = new Task[depth - 1];
+			for (int i = 0; i < depth - 1; i++) {
+				tasks[i] = tasksByFullPathCache.get(
+						fullpath.substring(0, (i + 1) * 2 + rootPath.length()))
+						.getTask();
+			}
+		} else {
+			tasks = new Task[0];
+		}
+		return tasks;
+	}
+
+
+	/**
+	 * Contributions request of a report.
+	 */
+	private final class ContributionsRequest {
+
+		private final Calendar start;
+
+		private final ReportIntervalType intervalType;
+
+		private final Task rootTask;
+
+		private final int taskDepth;
+
+		private final int activityPathLength;
+
+		private final boolean byActivity;
+
+		private final boolean byContributor;
+
+		private final boolean contributorCentricMode;
+
+		private final long[] contributorIds;
+
+		/** Contributors order by clause (the identifier breaks the ties) */
+		private final String clbOrderBy;
+
+		private final Map<Long, TaskSums> tasksByIdCache;
+
+		ContributionsRequest(Calendar start, ReportIntervalType intervalType,
+				Task rootTask, int taskDepth, int activityPathLength,
+				boolean byContributor, boolean contributorCentricMode,
+				long[] contributorIds, String[] orderContributorsBy,
+				Map<Long, TaskSums> tasksByIdCache) {
+			this.start = start;
+			this.intervalType = intervalType;
+			this.rootTask = rootTask;
+			this.taskDepth = taskDepth;
+			this.activityPathLength = activityPathLength;
+			this.byActivity = (taskDepth > 0);
+			this.byContributor = byContributor;
+			this.contributorCentricMode = contributorCentricMode;
+			this.contributorIds = contributorIds;
+			this.tasksByIdCache = tasksByIdCache;
+			// By default order collaborators by id
+			String clbFragment = "";
+			// But if possible order by given fields
+			if (orderContributorsBy != null) {
+				for (String orderContributorsByItem : orderContributorsBy) {
+					clbFragment += collaboratorDAO.getColumnName(orderContributorsByItem) + ", ";
+				}
+			}
+			this.clbOrderBy = clbFragment + "clb_id";
+		}
+
+		/**
+		 * Reads the contributions of a slice.
+		 *
+		 * @param con
+		 *            the connection to use.
+		 * @param fromIntervalIdx
+		 *            the first interval of the slice.
+		 * @param toIntervalIdx
+		 *            the interval following the slice.
+		 * @return the contributions sums, in the request order.
+		 * @throws SQLException
+		 *             thrown if a SQL error occurs.
+		 */
+		List<ContributionRow> read(Connection con, int fromIntervalIdx,
+				int toIntervalIdx) throws SQLException {
 			/*
 			 * Interval computation
 			 */
 			int startYear = start.get(Calendar.YEAR);
 			int startMonth = start.get(Calendar.MONTH) + 1;
-			int startDay = start.get(Calendar.DATE);
-			int startDate = startYear*10000+startMonth*100+startDay;
+			Calendar sliceStart = (Calendar) start.clone();
+			sliceStart.add(intervalType.getIntType(), fromIntervalIdx);
+			int sliceStartYear = sliceStart.get(Calendar.YEAR);
+			int sliceStartDate = sliceStartYear * 10000
+					+ (sliceStart.get(Calendar.MONTH) + 1) * 100
+					+ sliceStart.get(Calendar.DATE);
 			
 			Calendar end = (Calendar) start.clone();
-			end.add(intervalType.getIntType(), intervalCount);
+			end.add(intervalType.getIntType(), toIntervalIdx);
 			end.add(Calendar.DATE, -1);
 			int endYear = end.get(Calendar.YEAR);
 			int endMonth = end.get(Calendar.MONTH) + 1;
 			int endDay = end.get(Calendar.DATE);
 			int endDate = endYear*10000+endMonth*100+endDay;
 		
-			/*
-			 * Retrieve contributions
-			 */
-			boolean byActivity = (taskDepth > 0);
 			// Prepare the request
 			StringWriter sw = new StringWriter();
 			sw.append("select ");
@@ -161,19 +387,24 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 			}
 			
 			sw.append("\nfrom TASK as ctbtask ");
-			sw.append("\n\tleft join CONTRIBUTION on ctbtask.tsk_id = ctb_task ");
+			sw.append("\n\tleft join ")
+					.append(IntervalRequestHelper.getContributionsTable(sliceStart))
+					.append(" on ctbtask.tsk_id = ctb_task ");
 			if (byContributor) {
 				sw.append("\n\tleft join COLLABORATOR on clb_id = ctb_contributor ");
 			}
 			if (byActivity) {
-				sw.append("\n\tleft join TASK as activity on (ctbtask.tsk_id=activity.tsk_id or left(ctbtask.tsk_path, ?) = concat(activity.tsk_path, activity.tsk_number)) ");
+				// The activity is the contribution task or one of its ancestors
+				// (selected by its depth in the where clause)
+				sw.append("\n\tleft join TASK_TREE on ttr_descendant=ctbtask.tsk_id ");
+				sw.append("\n\tleft join TASK as activity on activity.tsk_id=ttr_ancestor ");
 			}
 
 			// WHERE
 			sw.append("\nwhere true ");
 			// Filter 
 			if (rootTask != null) {
-				sw.append("and (ctbtask.tsk_id=? or left(ctbtask.tsk_path, ?) = ?) ");
+				sw.append("and ctbtask.tsk_id in (select rootlink.ttr_descendant from TASK_TREE rootlink where rootlink.ttr_ancestor=?) ");
 			}
 			if (contributorIds != null && contributorIds.length > 0) {
 				sw.append("and ctb_contributor in (");
@@ -200,7 +431,9 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 				}
 				sw.append(") ");
 			}
-			sw.append("and (ctb_year*10000+ctb_month*100+ctb_day) between ? and ?");
+			// (the year criteria lets the database only read the partitions
+			// of the interval years)
+			sw.append("and ctb_year between ? and ? and ctb_date between ? and ?");
 			// GROUP BY
 			sw.append("\ngroup by ctb_year");
 			if (byContributor) {
@@ -218,15 +451,7 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 			
 			// ORDER BY
 			sw.append("\norder by ");
-			// By default order collaborators by id
-			String clbFragment = "clb_id, ";
-			// But if possible order by given fields
-			if (orderContributorsBy != null && orderContributorsBy.length > 0) {
-				clbFragment = "";
-				for (String orderContributorsByItem : orderContributorsBy) {
-					clbFragment += collaboratorDAO.getColumnName(orderContributorsByItem) + ", ";
-				}
-			}
+			String clbFragment = clbOrderBy + ", ";
 			if (byContributor) {
 				if (byActivity){
 					if (contributorCentricMode) {
@@ -261,193 +486,202 @@ public class ReportDAOImpl extends AbstractDAOImpl implements IReportDAO {
 			//System.out.println(sql);
 			
 			// Build the request
-			pStmt = tx().prepareStatement(sql);
-			int idx = 1;
-			if (byActivity) {
-				pStmt.setInt(idx++, activityPathLength);
-			}
-			if (rootTask != null) {
-				pStmt.setLong(idx++, rootTask.getId());
-				pStmt.setInt(idx++, rootPath.length());
-				pStmt.setString(idx++, rootPath);
-			}
-			if (contributorIds != null && contributorIds.length > 0) {
-				for (Long contributorId : contributorIds) {
-					pStmt.setLong(idx++, contributorId);
+			try (PreparedStatement pStmt = con.prepareStatement(sql)) {
+				int idx = 1;
+				if (rootTask != null) {
+					pStmt.setLong(idx++, rootTask.getId());
 				}
-			}
-			if (byActivity) {
-				pStmt.setInt(idx++, activityPathLength-2);
-				pStmt.setInt(idx++, activityPathLength-2);
-			}
-			pStmt.setLong(idx++, startDate);
-			pStmt.setLong(idx++, endDate);
-
-			// Exécution de la requête
-			int orderedTaskIndex = 0;
-			rs = pStmt.executeQuery();
-			Report report = new Report(start, intervalType, intervalCount, rootTask, taskDepth, byContributor, contributorCentricMode);
-			ReportItem reportItem = null;
-			Map<Long, Collaborator> collaboratorsMap = new HashMap<Long, Collaborator>();
-			while (rs.next()) {
-				Collaborator contributor = null;
-				TaskSums contributedTask = null;
-				idx = 1;
-				if (byActivity) {
-					long id = rs.getLong(idx++);
-					contributedTask = tasksByIdCache.get(id);
-				}
-				if (byContributor) {
-					long id = rs.getLong(collaboratorFieldsIndex);
-					contributor = collaboratorsMap.get(id);
-					if (contributor == null) {
-						contributor = collaboratorDAO.read(rs, collaboratorFieldsIndex);
-						collaboratorsMap.put(id, contributor);
+				if (contributorIds != null && contributorIds.length > 0) {
+					for (Long contributorId : contributorIds) {
+						pStmt.setLong(idx++, contributorId);
 					}
 				}
-				// See whether a new item must be created
-				boolean newItem = false;
-				if (reportItem == null) {
-					newItem = true;
-				} else {
-					if (byActivity && !contributedTask.equals(reportItem.getContributedTask())) {
-						newItem = true;
+				if (byActivity) {
+					pStmt.setInt(idx++, activityPathLength-2);
+					pStmt.setInt(idx++, activityPathLength-2);
+				}
+				pStmt.setInt(idx++, sliceStartYear);
+				pStmt.setInt(idx++, endYear);
+				pStmt.setInt(idx++, sliceStartDate);
+				pStmt.setInt(idx++, endDate);
+
+				// Exécution de la requête
+				List<ContributionRow> rows = new ArrayList<ContributionRow>();
+				Map<Long, Collaborator> collaboratorsMap = new HashMap<Long, Collaborator>();
+				ResultSet rs = StatementCanceller.executeQuery(pStmt);
+				while (rs.next()) {
+					ContributionRow row = new ContributionRow();
+					idx = 1;
+					if (byActivity) {
+						long id = rs.getLong(idx++);
+						row.contributedTask = tasksByIdCache.get(id);
 					}
-					if (byContributor && !reportItem.getContributor().equals(contributor)) {
-						newItem = true;
+					if (byContributor) {
+						long id = rs.getLong(collaboratorFieldsIndex);
+						row.contributor = collaboratorsMap.get(id);
+						if (row.contributor == null) {
+							row.contributor = collaboratorDAO.read(rs, collaboratorFieldsIndex);
+							collaboratorsMap.put(id, row.contributor);
+						}
 					}
-				}
-				if (newItem) {
-					// If no task is present, simply create a report item
-					if (!byActivity) {
-						reportItem = new ReportItem(report, contributor, null);
+					
+					// Read date
+					int year = 0;
+					int month = 1;
+					int day = 1;
+					switch (intervalType) {
+					case WEEK:
+					case DAY:
+						day = rs.getInt(idx++);
+					case MONTH:
+						month = rs.getInt(idx++);
+					case YEAR :
+						year = rs.getInt(idx++);
 					}
-					else {
-						// If in task centric mode (or without contributors which is equivalent), may have to insert rows without contributions
-						// before adding new report line
-						if (!onlyKeepTasksWithContributions
-								&& orderedTasks.size() > 0
-								&& (!contributorCentricMode || !byContributor)) {
-							if (!contributedTask.equals(orderedTasks.get(orderedTaskIndex))) {
-								// If the last report item was about the same task, we must skeep the corresponding value
-								// in the ordered task list
-								if (reportItem != null && reportItem.getContributedTask().equals(orderedTasks.get(orderedTaskIndex))) {
-									orderedTaskIndex++;
-								}
-								// Add empty rows (empty means without contributions, but these rows may be associated
-								// to budgets for example).
-								TaskSums cursor = null;
-								while (!(cursor = orderedTasks.get(orderedTaskIndex)).equals(contributedTask)) {
-									if (cursor.isLeaf()) {
-										Task[] tasks = buildTasksList(rootPath,
-												tasksByFullPathCache, cursor.getTask().getFullPath());
-										new ReportItem(report, null, cursor,
-												tasks);
-									}
-									orderedTaskIndex++;
-								}
-							}
+					
+					// Compute index
+					switch (intervalType) {
+					case WEEK:
+					case DAY:
+						Calendar date = Calendar.getInstance(start.getTimeZone());
+						date.set(Calendar.DATE, day);
+						date.set(Calendar.MONTH, month-1);
+						date.set(Calendar.YEAR, year);
+						row.intervalIdx = DateHelper.countDaysBetween(start, date);
+						if (intervalType == ReportIntervalType.WEEK) {
+							row.intervalIdx = row.intervalIdx/7;
 						}
-						// Add report item
-						Task[] tasks = buildTasksList(rootPath,
-								tasksByFullPathCache, contributedTask.getTask()
-										.getFullPath());
-						reportItem = new ReportItem(report, contributor,
-								contributedTask, tasks);
+						break;
+					case MONTH:
+						row.intervalIdx = (year-startYear)*12 + month - startMonth;
+						break;
+					case YEAR :
+						row.intervalIdx = year-startYear;
 					}
+					row.duration = rs.getLong(idx++);
+					rows.add(row);
 				}
-				
-				// Read date
-				int year = 0;
-				int month = 1;
-				int day = 1;
-				switch (intervalType) {
-				case WEEK:
-				case DAY:
-					day = rs.getInt(idx++);
-				case MONTH:
-					month = rs.getInt(idx++);
-				case YEAR :
-					year = rs.getInt(idx++);
-				}
-				
-				// Compute index
-				int intervalIdx = 0;
-				switch (intervalType) {
-				case WEEK:
-				case DAY:
-					Calendar date = Calendar.getInstance(start.getTimeZone());
-					date.set(Calendar.DATE, day);
-					date.set(Calendar.MONTH, month-1);
-					date.set(Calendar.YEAR, year);
-					intervalIdx = DateHelper.countDaysBetween(start, date);
-					if (intervalType == ReportIntervalType.WEEK) {
-						intervalIdx = intervalIdx/7;
+				return rows;
+			}
+		}
+
+		/**
+		 * Computes the contributions sums with the contributions cube.
+		 *
+		 * @param intervalCount
+		 *            the interval count.
+		 * @param orderedTasks
+		 *            the tasks, in the request order.
+		 * @return the contributions sums, in the request order, or
+		 *         <code>null</code> if the cube cannot compute them.
+		 * @throws SQLException
+		 *             thrown if a SQL error occurs.
+		 */
+		List<ContributionRow> readCube(int intervalCount,
+				List<TaskSums> orderedTasks) throws SQLException {
+			if (!cube.isEnabled()) {
+				return null;
+			}
+			List<ContributionRow> rows = new ArrayList<ContributionRow>();
+			List<Long> rowContributorIds = new ArrayList<Long>();
+			boolean computed = cube.visitSums(start, intervalType,
+					intervalCount, rootTask != null ? rootTask.getId() : null,
+					byActivity ? activityPathLength : 0, byContributor,
+					contributorIds, (taskId, contributorId, intervalIdx, sum) -> {
+						ContributionRow row = new ContributionRow();
+						if (byActivity) {
+							row.contributedTask = tasksByIdCache.get(taskId);
+						}
+						rowContributorIds.add(contributorId);
+						row.intervalIdx = intervalIdx;
+						row.duration = sum;
+						rows.add(row);
+					});
+			if (!computed) {
+				return null;
+			}
+			if (byContributor) {
+				Map<Long, Collaborator> collaboratorsMap = new HashMap<Long, Collaborator>();
+				for (int i = 0; i < rows.size(); i++) {
+					long id = rowContributorIds.get(i);
+					Collaborator contributor = collaboratorsMap.get(id);
+					if (contributor == null) {
+						contributor = collaboratorDAO.selectByPK(id);
+						collaboratorsMap.put(id, contributor);
 					}
-					break;
-				case MONTH:
-					intervalIdx = (year-startYear)*12 + month - startMonth;
-					break;
-				case YEAR :
-					intervalIdx = year-startYear;
+					rows.get(i).contributor = contributor;
 				}
-
-				// Register contribution
-				reportItem.addToContributionSum(intervalIdx, rs.getLong(idx++));
 			}
+			sort(rows, orderedTasks);
+			return rows;
+		}
 
-			// Empty rows may have to be added at the end of the report (only in task centric mode or equivalent) 
-			if (!onlyKeepTasksWithContributions && byActivity
-					&& (!contributorCentricMode || !byContributor)) {
-				while (++orderedTaskIndex < orderedTasks.size()) {
-					TaskSums cursor = orderedTasks.get(orderedTaskIndex);
-					if (cursor.isLeaf()) {
-						Task[] tasks = buildTasksList(rootPath,
-								tasksByFullPathCache, cursor.getTask().getFullPath());
-						new ReportItem(report, null, cursor, tasks);
+		/**
+		 * Sorts the rows of several slices in the request order (the rows of
+		 * the same item are kept in chronological order as the sort is
+		 * stable).
+		 *
+		 * @param rows
+		 *            the rows, slice after slice.
+		 * @param orderedTasks
+		 *            the tasks, in the request order.
+		 * @throws SQLException
+		 *             thrown if a SQL error occurs.
+		 */
+		void sort(List<ContributionRow> rows, List<TaskSums> orderedTasks)
+				throws SQLException {
+			Map<Long, Integer> taskRanks = new HashMap<Long, Integer>();
+			for (int i = 0; i < orderedTasks.size(); i++) {
+				taskRanks.put(orderedTasks.get(i).getTask().getId(), i);
+			}
+			Map<Long, Integer> contributorRanks = new HashMap<Long, Integer>();
+			Map<Long, Collaborator> contributors = new HashMap<Long, Collaborator>();
+			if (byContributor) {
+				try (PreparedStatement pStmt = tx().prepareStatement(
+						"select clb_id from COLLABORATOR order by " + clbOrderBy)) {
+					ResultSet rs = pStmt.executeQuery();
+					while (rs.next()) {
+						contributorRanks.put(rs.getLong(1), contributorRanks.size());
+					}
+				}
+				// The slices share the contributors
+				for (ContributionRow row : rows) {
+					Collaborator contributor = contributors.putIfAbsent(
+							row.contributor.getId(), row.contributor);
+					if (contributor != null) {
+						row.contributor = contributor;
 					}
 				}
 			}
-
-			// Fermeture du ResultSet
-			pStmt.close();
-			pStmt = null;
-			
-			return report;
-
-		} catch (SQLException e) {
-			log.info("Unexpected SQL error", e); //$NON-NLS-1$
-			throw new DAOException(
-					Strings.getString("Unexpected SQL error"), e); //$NON-NLS-1$
-		} finally {
-			lastAttemptToClose(pStmt);
+			Comparator<ContributionRow> byTask = Comparator
+					.comparingInt(row -> taskRanks.get(row.contributedTask.getTask().getId()));
+			Comparator<ContributionRow> byClb = Comparator
+					.comparingInt(row -> contributorRanks.get(row.contributor.getId()));
+			if (byContributor && byActivity) {
+				rows.sort(contributorCentricMode ? byClb.thenComparing(byTask)
+						: byTask.thenComparing(byClb));
+			} else if (byContributor) {
+				rows.sort(byClb);
+			} else if (byActivity) {
+				rows.sort(byTask);
+			}
 		}
-	}
 
-	private void appendOrderByTaskPathFragment(StringWriter request,
-			String alias, int taskDepth) {
-		request.append("concat(").append(alias).append(".tsk_path, ").append(alias).append(".tsk_number, '");
-		for (int i=0; i<taskDepth; i++) {
-			request.append("00");
-		}
-		request.append("')");
 	}
 
-	private Task[] buildTasksList(String rootPath,
-			Map<String, TaskSums> tasksByFullPathCache, String fullpath) {
-		int depth = (fullpath.length() - rootPath.length()) / 2;
-		Task[] tasks = null;
-		if (depth > 0) {
-			tasks = new Task[depth - 1];
-			for (int i = 0; i < depth - 1; i++) {
-				tasks[i] = tasksByFullPathCache.get(
-						fullpath.substring(0, (i + 1) * 2 + rootPath.length()))
-						.getTask();
-			}
-		} else {
-			tasks = new Task[0];
-		}
-		return tasks;
+	/**
+	 * Contributions sum of an item and an interval.
+	 */
+	private static final class ContributionRow {
+
+		private TaskSums contributedTask;
+
+		private Collaborator contributor;
+
+		private int intervalIdx;
+
+		private long duration;
+
 	}
 
 }
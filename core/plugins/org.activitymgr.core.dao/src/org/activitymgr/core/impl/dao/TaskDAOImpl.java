@@ -3,6 +3,7 @@ package org.activitymgr.core.impl.dao;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -14,15 +15,24 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.activitymgr.core.dao.AbstractORMDAOImpl;
+import org.activitymgr.core.dao.ContributionCube;
 import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.ITaskDAO;
+import org.activitymgr.core.dao.IntervalRequestHelper;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.TaskDAOCache;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSearchFilter;
 import org.activitymgr.core.dto.misc.TaskSums;
+import org.activitymgr.core.orm.CompiledQuery;
+import org.activitymgr.core.orm.query.LikeStatement;
 import org.activitymgr.core.util.StringHelper;
 import org.apache.log4j.Logger;
 
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
 /**
  * @author jbrazeau
  *
@@ -31,6 +41,68 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 
 	/** Logger */
 	private static Logger log = Logger.getLogger(TaskDAOImpl.class);
+
+	/** Task by path and number query (compiled on first use) */
+	private CompiledQuery<Task> taskByPathAndNumberQuery;
+
+	/** Task by path and code query (compiled on first use) */
+	private CompiledQuery<Task> taskByPathAndCodeQuery;
+
+	/** Tasks cache (provided lazily as it depends on this DAO) */
+	@Inject
+	private Provider<TaskDAOCache> taskCache;
+
+	/** Reports cache */
+	@Inject
+	private ReportCache reportCache;
+
+	/** Contributions cube */
+	@Inject
+	private ContributionCube cube;
+
+	@Override
+	protected void beforeWrite(Task task) {
+		super.beforeWrite(task);
+		if (task != null) {
+			taskCache.get().invalidate(task);
+		} else {
+			taskCache.get().invalidateAll();
+		}
+		tasksChanged();
+	}
+
+	/**
+	 * Notifies the caches that tasks are about to be written, and increments
+	 * the tasks version so that the other application instances drop their
+	 * cached tasks.
+	 * 
+	 * @throws DAOException
+	 *             thrown if a technical error occurs.
+	 */
+	private void tasksChanged() throws DAOException {
+		reportCache.dataChanged();
+		cube.tasksChanged();
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"update TASK_VERSION set tkv_version=tkv_version+1")) { //$NON-NLS-1$
+			pStmt.executeUpdate();
+		} catch (SQLException e) {
+			critical(e, "TASK_VERSION_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public long getTasksVersion() throws DAOException {
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"select tkv_version from TASK_VERSION"); //$NON-NLS-1$
+				ResultSet rs = pStmt.executeQuery()) {
+			if (!rs.next()) {
+				return critical(null, "TASK_VERSION_FAILURE"); //$NON-NLS-1$
+			}
+			return rs.getLong(1);
+		} catch (SQLException e) {
+			return critical(e, "TASK_VERSION_FAILURE"); //$NON-NLS-1$
+		}
+	}
 	
 	@Override
 	public int getSubTasksCount(long parentTaskId) throws DAOException {
@@ -52,27 +124,8 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 
 	@Override
 	public Task[] getSubTasks(String parentTaskPath, String filter) {
-		String query = "select distinct " + getColumnNamesRequestFragment("subtask")  //$NON-NLS-1$  //$NON-NLS-2$
-			+ " from TASK as subtask" //$NON-NLS-1$
-			+ "   inner join TASK filteredTask on (" //$NON-NLS-1$
-			+ "     left(concat(filteredTask.tsk_path, filteredTask.tsk_number), length(subtask.tsk_path) + 2) " //$NON-NLS-1$
-			+ "        = concat(subtask.tsk_path, subtask.tsk_number)" //$NON-NLS-1$
-			+ "     or left(concat(subtask.tsk_path, subtask.tsk_number), length(filteredTask.tsk_path) + 2) " //$NON-NLS-1$
-			+ "        = concat(filteredTask.tsk_path, filteredTask.tsk_number)" //$NON-NLS-1$
-			+ " )" //$NON-NLS-1$
-			+ " where" //$NON-NLS-1$
-			+ "   subtask.tsk_path=?" //$NON-NLS-1$
-			+ "   and (filteredTask.tsk_name like ? or filteredTask.tsk_code like ?)" //$NON-NLS-1$
-			+ " order by subtask.tsk_number"; //$NON-NLS-1$
-
-		try(PreparedStatement pStmt = tx().prepareStatement(query)) {
-			
-			// Request preparation
-			pStmt.setString(1, parentTaskPath);
-			String sqlFilter = "%" + filter + "%";
-			pStmt.setString(2, sqlFilter);
-			pStmt.setString(3, sqlFilter);
-
+		String query = buildFilteredSubTasksRequest(getColumnNamesRequestFragment("subtask")); //$NON-NLS-1$
+		try(PreparedStatement pStmt = prepareFilteredSubTasksRequest(query, parentTaskPath, filter)) {
 			// Exécution de la requête
 			ResultSet rs = pStmt.executeQuery();
 
@@ -89,6 +142,78 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 		}
 	}
 
+	@Override
+	public long[] getSubTaskIds(String parentTaskPath, String filter) {
+		// The number is selected as it is used to sort the tasks
+		String query = buildFilteredSubTasksRequest(
+				getProjection("id", "number").getColumnNamesRequestFragment("subtask")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try(PreparedStatement pStmt = prepareFilteredSubTasksRequest(query, parentTaskPath, filter)) {
+			ResultSet rs = pStmt.executeQuery();
+			List<Long> list = new ArrayList<Long>();
+			while (rs.next()) {
+				list.add(rs.getLong(1));
+			}
+			return list.stream().mapToLong(Long::longValue).toArray();
+		} catch (SQLException e) {
+			return critical(e);
+		}
+	}
+
+	private static String buildFilteredSubTasksRequest(String selectedColumns) {
+		// A sub task is kept if one of its descendants (or itself) or one of
+		// its ancestors matches the filter
+		return "select " + selectedColumns  //$NON-NLS-1$
+			+ " from TASK as subtask" //$NON-NLS-1$
+			+ " where" //$NON-NLS-1$
+			+ "   subtask.tsk_path=?" //$NON-NLS-1$
+			+ "   and (exists (select 1 from TASK_TREE, TASK filteredTask" //$NON-NLS-1$
+			+ "       where ttr_ancestor=subtask.tsk_id and filteredTask.tsk_id=ttr_descendant" //$NON-NLS-1$
+			+ "       and (filteredTask.tsk_name like ? or filteredTask.tsk_code like ?))" //$NON-NLS-1$
+			+ "     or exists (select 1 from TASK_TREE, TASK filteredTask" //$NON-NLS-1$
+			+ "       where ttr_descendant=subtask.tsk_id and filteredTask.tsk_id=ttr_ancestor" //$NON-NLS-1$
+			+ "       and (filteredTask.tsk_name like ? or filteredTask.tsk_code like ?)))" //$NON-NLS-1$
+			+ " order by subtask.tsk_number"; //$NON-NLS-1$
+	}
+
+	private PreparedStatement prepareFilteredSubTasksRequest(String query,
+			String parentTaskPath, String filter) throws SQLException {
+		PreparedStatement pStmt = tx().prepareStatement(query);
+		try {
+			// Request preparation
+			pStmt.setString(1, parentTaskPath);
+			String sqlFilter = "%" + filter + "%";
+			for (int i = 2; i <= 5; i++) {
+				pStmt.setString(i, sqlFilter);
+			}
+			return pStmt;
+		} catch (SQLException e) {
+			lastAttemptToClose(pStmt);
+			throw e;
+		}
+	}
+
+	@Override
+	public Stream<Task> streamTasks(String pathPrefix) throws DAOException {
+		String query = "select " + getColumnNamesRequestFragment(null) //$NON-NLS-1$
+			+ " from TASK" //$NON-NLS-1$
+			+ (pathPrefix != null ? " where tsk_path like ?" : "") //$NON-NLS-1$ //$NON-NLS-2$
+			+ " order by concat(tsk_path, tsk_number)"; //$NON-NLS-1$
+		try {
+			PreparedStatement pStmt = prepareStreamingStatement(query);
+			try {
+				if (pathPrefix != null) {
+					pStmt.setString(1, pathPrefix + '%');
+				}
+			} catch (SQLException e) {
+				lastAttemptToClose(pStmt);
+				throw e;
+			}
+			return stream(pStmt, 1);
+		} catch (SQLException e) {
+			return critical(e);
+		}
+	}
+
 	@Override
 	public Task getFirstTaskMatching(String filter) {
 		// select  distinct st.TSK_ID, st.TSK_PATH, st.TSK_NUMBER, st.TSK_CODE from task st inner join TASK t on left(concat(t.tsk_path, t.tsk_number), length(concat(st.tsk_path, st.tsk_number))) = concat(st.tsk_path, st.tsk_number) where st.tsk_path='01090304' and t.tsk_name like concat('%', 'CCAP', '%') order by st.tsk_number; 
@@ -115,84 +240,47 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 	@Override
 	public long[] getTaskIds(TaskSearchFilter filter) throws DAOException {
 
-		// Préparation de la requête
-		
-		// Ajout du nom de champ
-		String field;
+		// Attribut sur lequel porte la recherche
+		String attribute;
 		switch (filter.getFieldIndex()) {
 		case TaskSearchFilter.TASK_NAME_FIELD_IDX:
-			field = "tsk_name"; //$NON-NLS-1$
+			attribute = "name"; //$NON-NLS-1$
 			break;
 		case TaskSearchFilter.TASK_CODE_FIELD_IDX:
-			field = "tsk_code"; //$NON-NLS-1$
+			attribute = "code"; //$NON-NLS-1$
 			break;
 		default:
 			return critical(null, "UNKNOWN_FIELD_INDEX", //$NON-NLS-1$
 					filter.getFieldIndex());
 		}
-		// Ajout du critère de comparaison
-		String compare;
+
+		// Critère de comparaison
+		String parameter;
+		boolean like = true;
 		switch (filter.getCriteriaIndex()) {
 		case TaskSearchFilter.IS_EQUAL_TO_CRITERIA_IDX:
-			compare = "="; //$NON-NLS-1$
+			parameter = filter.getFieldValue();
+			like = false;
 			break;
 		case TaskSearchFilter.STARTS_WITH_CRITERIA_IDX:
+			parameter = filter.getFieldValue() + "%"; //$NON-NLS-1$
+			break;
 		case TaskSearchFilter.ENDS_WITH_CRITERIA_IDX:
+			parameter = "%" + filter.getFieldValue(); //$NON-NLS-1$
+			break;
 		case TaskSearchFilter.CONTAINS_CRITERIA_IDX:
-			compare = "like"; //$NON-NLS-1$
+			parameter = "%" + filter.getFieldValue() + "%"; //$NON-NLS-1$ //$NON-NLS-2$
 			break;
 		default:
 			return critical(null, "UNKNOWN_CRITERIA_INDEX", //$NON-NLS-1$
 					filter.getCriteriaIndex());
 		}
-		
-		String query = "select tsk_id from TASK where "  //$NON-NLS-1$
-				+ field + " " + compare + " ?"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		
-		// Préparation de la requête
-		log.debug("Search request: " + query); //$NON-NLS-1$
-		
-		try(PreparedStatement pStmt = tx().prepareStatement(query)) {
-
-			String parameter = null;
-			switch (filter.getCriteriaIndex()) {
-			case TaskSearchFilter.IS_EQUAL_TO_CRITERIA_IDX:
-				parameter = filter.getFieldValue();
-				break;
-			case TaskSearchFilter.STARTS_WITH_CRITERIA_IDX:
-				parameter = filter.getFieldValue() + "%"; //$NON-NLS-1$
-				break;
-			case TaskSearchFilter.ENDS_WITH_CRITERIA_IDX:
-				parameter = "%" + filter.getFieldValue(); //$NON-NLS-1$
-				break;
-			case TaskSearchFilter.CONTAINS_CRITERIA_IDX:
-				parameter = "%" + filter.getFieldValue() + "%"; //$NON-NLS-1$ //$NON-NLS-2$
-				break;
-			default:
-				return critical(null, "UNKNOWN_CRITERIA_INDEX", //$NON-NLS-1$
-						filter.getCriteriaIndex());
-			}
-			log.debug("Search parameter: '" + parameter + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-			pStmt.setString(1, parameter);
-
-			// Exécution de la requête
-			ResultSet rs = pStmt.executeQuery();
-
-			// Recherche des sous-taches
-			ArrayList<Long> list = new ArrayList<Long>();
-			while (rs.next()) {
-				list.add(rs.getLong(1));
-			}
+		log.debug("Search parameter: '" + parameter + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 
-			// Préparation du résultat
-			long[] taskIds = new long[list.size()];
-			for (int i = 0; i < taskIds.length; i++) {
-				taskIds[i] = list.get(i);
-			}
-			return taskIds;
-		} catch (SQLException e) {
-			return critical(e, "TASKS_SELECTION_FAILURE");
-		}
+		// Only the identifiers are read
+		return selectLongs("id", new String[] { attribute }, //$NON-NLS-1$
+				new Object[] { like ? new LikeStatement(parameter) : parameter },
+				null, -1);
 	}
 
 	@Override
@@ -200,7 +288,8 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 			Calendar toDate) throws DAOException {
 		StringBuilder request = new StringBuilder(
 				"select distinct ctb_task, tsk_path, tsk_number" //$NON-NLS-1$
-				+ " from CONTRIBUTION, TASK where ctb_task=tsk_id");  //$NON-NLS-1$
+				+ " from " + IntervalRequestHelper.getContributionsTable(fromDate) //$NON-NLS-1$
+				+ ", TASK where ctb_task=tsk_id");  //$NON-NLS-1$
 
 		try(PreparedStatement pStmt = buildIntervalRequest(
 				request, contributor, null /* no task */,
@@ -229,7 +318,7 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 
 
 	@Override
-	public byte newTaskNumber(String path) throws DAOException {
+	public int newTaskNumber(String path) throws DAOException {
 
 		// Recherche du max
 		try(PreparedStatement pStmt = tx().prepareStatement(
@@ -237,16 +326,85 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 			
 			pStmt.setString(1, path);
 			String maxStr = executeRequired(pStmt).getString(1);
-			byte max = maxStr != null ? StringHelper.toByte(maxStr) : 0;
+			int max = maxStr != null ? StringHelper.fromBase32(maxStr) : 0;
 			log.debug("  => max= : " + max); //$NON-NLS-1$
 
 			// Retour du résultat
-			return (byte) (max + 1);
+			return max + 1;
 		} catch (SQLException e) {
 			return critical(e, "TASK_NUMBER_COMPUTATION_FAILURE"); //$NON-NLS-1$
 		}
 	}
 
+	@Override
+	public void lockSubTasks(String parentTaskPath) throws DAOException {
+		boolean root = parentTaskPath.length() == 0;
+		String request = root
+				? "select tsk_id from TASK where tsk_path='' for update" //$NON-NLS-1$
+				: "select tsk_id from TASK where tsk_path=? and tsk_number=? for update"; //$NON-NLS-1$
+		try (PreparedStatement pStmt = tx().prepareStatement(request)) {
+			if (!root) {
+				int pathLength = parentTaskPath.length() - 2;
+				pStmt.setString(1, parentTaskPath.substring(0, pathLength));
+				pStmt.setString(2, parentTaskPath.substring(pathLength));
+			}
+			try (ResultSet rs = pStmt.executeQuery()) {
+				while (rs.next()) {
+					// Rows are locked as they are read
+				}
+			}
+		} catch (SQLException e) {
+			critical(e, "TASK_LOCK_FAILURE", parentTaskPath); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public int changeSubTasksPath(String oldParentTaskPath,
+			String newParentTaskPath) throws DAOException {
+		invalidateIdentityMap();
+		taskCache.get().invalidateSubTree(oldParentTaskPath);
+		tasksChanged();
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"update TASK set tsk_path=concat(?, substring(tsk_path, ?)) where tsk_path like ?")) { //$NON-NLS-1$
+			pStmt.setString(1, newParentTaskPath);
+			pStmt.setInt(2, oldParentTaskPath.length() + 1);
+			pStmt.setString(3, oldParentTaskPath + '%');
+			return pStmt.executeUpdate();
+		} catch (SQLException e) {
+			return critical(e, "TASK_PATH_UPDATE_FAILURE", oldParentTaskPath); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public Task getTask(String path, int number) throws DAOException {
+		// Compiled queries are immutable, a concurrent compilation is harmless
+		if (taskByPathAndNumberQuery == null) {
+			taskByPathAndNumberQuery = compile(
+					new String[] { "path", "number" }, //$NON-NLS-1$ //$NON-NLS-2$
+					new Object[] { CompiledQuery.PARAMETER, CompiledQuery.PARAMETER },
+					null, -1);
+		}
+		return uniqueTask(select(taskByPathAndNumberQuery, path, number));
+	}
+
+	@Override
+	public Task getTask(String path, String code) throws DAOException {
+		if (taskByPathAndCodeQuery == null) {
+			taskByPathAndCodeQuery = compile(
+					new String[] { "path", "code" }, //$NON-NLS-1$ //$NON-NLS-2$
+					new Object[] { CompiledQuery.PARAMETER, CompiledQuery.PARAMETER },
+					null, -1);
+		}
+		return uniqueTask(select(taskByPathAndCodeQuery, path, code));
+	}
+
+	private static Task uniqueTask(Task[] tasks) {
+		if (tasks.length > 1) {
+			throw new IllegalStateException("More than one task returned");
+		}
+		return tasks.length > 0 ? tasks[0] : null;
+	}
+
 	@Override
 	public List<TaskSums> getTasksSums(Long taskId, String tasksPath) throws DAOException {
 		if (taskId != null && tasksPath != null) {
@@ -261,7 +419,9 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 				.append(" sum(leaftask.tsk_todo),")
 				.append(" count(leaftask.tsk_id), ")
 				.append(getColumnNamesRequestFragment("maintask"))
-				.append(" from TASK maintask, TASK leaftask ")
+				.append(" from TASK maintask")
+				.append(" join TASK_TREE on ttr_ancestor=maintask.tsk_id")
+				.append(" join TASK leaftask on leaftask.tsk_id=ttr_descendant ")
 				.append("where ");
 		
 		if (taskId != null) { // Task id case
@@ -270,9 +430,7 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 			request.append("maintask.tsk_path=?");
 		}
 		
-		// XXX should be left join
-		request.append(" and (maintask.tsk_id=leaftask.tsk_id or leaftask.tsk_path like concat(maintask.tsk_path, maintask.tsk_number, '%'))")
-			.append(" group by maintask.tsk_id ")
+		request.append(" group by maintask.tsk_id ")
 			.append(" order by maintask.tsk_number");
 		
 		try(PreparedStatement pStmt = tx().prepareStatement(request.toString())) {
@@ -319,6 +477,168 @@ public class TaskDAOImpl extends AbstractORMDAOImpl<Task> implements ITaskDAO {
 	}
 	
 	
+	@Override
+	public void insertIntoHierarchy(Long parentTaskId, long taskId)
+			throws DAOException {
+		try {
+			// Link to the task itself
+			try (PreparedStatement pStmt = tx().prepareStatement(
+					"insert into TASK_TREE (ttr_ancestor, ttr_descendant, ttr_depth) values (?, ?, 0)")) { //$NON-NLS-1$
+				pStmt.setLong(1, taskId);
+				pStmt.setLong(2, taskId);
+				pStmt.executeUpdate();
+			}
+			// Links to the parent task ancestors
+			if (parentTaskId != null) {
+				try (PreparedStatement pStmt = tx().prepareStatement(
+						"insert into TASK_TREE (ttr_ancestor, ttr_descendant, ttr_depth)" //$NON-NLS-1$
+						+ " select ttr_ancestor, ?, ttr_depth + 1 from TASK_TREE where ttr_descendant=?")) { //$NON-NLS-1$
+					pStmt.setLong(1, taskId);
+					pStmt.setLong(2, parentTaskId);
+					pStmt.executeUpdate();
+				}
+			}
+		} catch (SQLException e) {
+			critical(e, "TASK_HIERARCHY_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void moveInHierarchy(Task task, Task destParentTask)
+			throws DAOException {
+		// The sub tree is selected through the task paths (which are not
+		// updated yet) as MySQL does not allow to select in the table that
+		// is being updated
+		String subTree = "select tsk_id from TASK where tsk_id=? or tsk_path like ?"; //$NON-NLS-1$
+		try {
+			// Unlink the sub tree from its former ancestors
+			try (PreparedStatement pStmt = tx().prepareStatement(
+					"delete from TASK_TREE where ttr_descendant in (" + subTree //$NON-NLS-1$
+					+ ") and ttr_ancestor not in (" + subTree + ")")) { //$NON-NLS-1$ //$NON-NLS-2$
+				pStmt.setLong(1, task.getId());
+				pStmt.setString(2, task.getFullPath() + '%');
+				pStmt.setLong(3, task.getId());
+				pStmt.setString(4, task.getFullPath() + '%');
+				pStmt.executeUpdate();
+			}
+			// Link it to its new ancestors
+			if (destParentTask != null) {
+				try (PreparedStatement pStmt = tx().prepareStatement(
+						"insert into TASK_TREE (ttr_ancestor, ttr_descendant, ttr_depth)" //$NON-NLS-1$
+						+ " select a.ttr_ancestor, d.ttr_descendant, a.ttr_depth + d.ttr_depth + 1" //$NON-NLS-1$
+						+ " from TASK_TREE a, TASK_TREE d" //$NON-NLS-1$
+						+ " where a.ttr_descendant=? and d.ttr_ancestor=?")) { //$NON-NLS-1$
+					pStmt.setLong(1, destParentTask.getId());
+					pStmt.setLong(2, task.getId());
+					pStmt.executeUpdate();
+				}
+			}
+		} catch (SQLException e) {
+			critical(e, "TASK_HIERARCHY_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void removeFromHierarchy(Task task) throws DAOException {
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"delete from TASK_TREE where ttr_descendant in" //$NON-NLS-1$
+				+ " (select tsk_id from TASK where tsk_id=? or tsk_path like ?)")) { //$NON-NLS-1$
+			pStmt.setLong(1, task.getId());
+			pStmt.setString(2, task.getFullPath() + '%');
+			pStmt.executeUpdate();
+		} catch (SQLException e) {
+			critical(e, "TASK_HIERARCHY_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void rebuildHierarchy() throws DAOException {
+		try (Statement stmt = tx().createStatement()) {
+			stmt.executeUpdate("delete from TASK_TREE"); //$NON-NLS-1$
+			// Each task is linked to itself and to its sub tasks
+			stmt.executeUpdate("insert into TASK_TREE (ttr_ancestor, ttr_descendant, ttr_depth)" //$NON-NLS-1$
+					+ " select a.tsk_id, d.tsk_id, (length(d.tsk_path) - length(a.tsk_path)) / 2" //$NON-NLS-1$
+					+ " from TASK a, TASK d" //$NON-NLS-1$
+					+ " where d.tsk_id=a.tsk_id or d.tsk_path like concat(a.tsk_path, a.tsk_number, '%')"); //$NON-NLS-1$
+		} catch (SQLException e) {
+			critical(e, "TASK_HIERARCHY_UPDATE_FAILURE"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public int convertHexNumbersToBase32() throws DAOException {
+		// All the tasks may change (the loaded instances keep their former
+		// path and number otherwise)
+		invalidateIdentityMap();
+		taskCache.get().invalidateAll();
+		tasksChanged();
+
+		// Load the tasks paths and numbers
+		List<String[]> tasks = new ArrayList<String[]>();
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"select tsk_id, tsk_path, tsk_number from TASK"); //$NON-NLS-1$
+				ResultSet rs = pStmt.executeQuery()) {
+			while (rs.next()) {
+				tasks.add(new String[] { rs.getString(1), rs.getString(2), rs.getString(3) });
+			}
+		} catch (SQLException e) {
+			return critical(e, "TASK_NUMBERS_CONVERSION_FAILURE"); //$NON-NLS-1$
+		}
+
+		// A converted (path, number) may be the former one of another task
+		// (hex '10' = 16 and base 32 '10' = 32), but that task always comes
+		// first in the (depth, path, number) order : updating the tasks in
+		// that order never breaks the (path, number) unique index
+		Collections.sort(tasks, (t1, t2) -> {
+			int result = t1[1].length() - t2[1].length();
+			if (result == 0) {
+				result = t1[1].compareTo(t2[1]);
+			}
+			return result != 0 ? result : t1[2].compareTo(t2[2]);
+		});
+		int count = 0;
+		try (PreparedStatement pStmt = tx().prepareStatement(
+				"update TASK set tsk_path=?, tsk_number=? where tsk_id=?")) { //$NON-NLS-1$
+			for (String[] task : tasks) {
+				String path = hexToBase32(task[1]);
+				String number = hexToBase32(task[2]);
+				if (!path.equals(task[1]) || !number.equals(task[2])) {
+					pStmt.setString(1, path);
+					pStmt.setString(2, number);
+					pStmt.setLong(3, Long.parseLong(task[0]));
+					pStmt.addBatch();
+					if (++count % 1000 == 0) {
+						pStmt.executeBatch();
+					}
+				}
+			}
+			if (count % 1000 != 0) {
+				pStmt.executeBatch();
+			}
+		} catch (SQLException e) {
+			return critical(e, "TASK_NUMBERS_CONVERSION_FAILURE"); //$NON-NLS-1$
+		}
+		log.info(count + " task(s) converted to base 32 numbers"); //$NON-NLS-1$
+		return count;
+	}
+
+	/**
+	 * Converts a path (or a number) encoded in hexadecimal into base 32.
+	 * 
+	 * @param path
+	 *            the path.
+	 * @return the converted path.
+	 */
+	private static String hexToBase32(String path) {
+		StringBuilder buf = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i += 2) {
+			// Former numbers were signed bytes ('80' to 'FF' for 128 to 255)
+			buf.append(StringHelper.toBase32(StringHelper.toByte(path
+					.substring(i, i + 2)) & 0xFF));
+		}
+		return buf.toString();
+	}
+
 	protected static String[] getAllPaths(String path) {
 		String[] result = new String[path.length()/2];
 		for (int i = 0; i < result.length; i++) {
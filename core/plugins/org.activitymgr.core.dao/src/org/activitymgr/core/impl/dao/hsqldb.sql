@@ -1,5 +1,11 @@
+drop table if exists TASK_VERSION;
+drop table if exists SCHEMA_VERSION;
 drop table if exists REPORT_CONFIG;
+drop view if exists CONTRIBUTION_ALL;
 drop table if exists CONTRIBUTION;
+drop table if exists CONTRIBUTION_MONTH;
+drop table if exists CONTRIBUTION_TOTAL;
+drop table if exists TASK_TREE;
 drop table if exists DURATION;
 drop table if exists TASK;
 drop table if exists COLLABORATOR;
@@ -37,6 +43,19 @@ create index TSK_PATH_IDX on TASK (TSK_PATH);
 create unique index TSK_PATH_NUMBER_IDX on TASK (TSK_PATH, TSK_NUMBER);
 create unique index TSK_PATH_CODE_IDX on TASK (TSK_PATH, TSK_CODE);
 
+-- ------------------------------------------------------------
+-- Arborescence des taches (table de fermeture)
+-- ------------------------------------------------------------
+create table TASK_TREE (
+	TTR_ANCESTOR   integer not null,
+	TTR_DESCENDANT integer not null,
+	TTR_DEPTH      integer not null,
+    constraint TTR_PK primary key (TTR_ANCESTOR, TTR_DESCENDANT),
+    constraint TTR_ANCESTOR_FK foreign key (TTR_ANCESTOR) references TASK (TSK_ID),
+    constraint TTR_DESCENDANT_FK foreign key (TTR_DESCENDANT) references TASK (TSK_ID)
+);
+create index TTR_DESCENDANT_IDX on TASK_TREE (TTR_DESCENDANT, TTR_DEPTH);
+
 -- ------------------------------------------------------------
 -- Durees
 -- ------------------------------------------------------------
@@ -56,15 +75,42 @@ create table CONTRIBUTION (
 	CTB_CONTRIBUTOR   integer not null,
 	CTB_TASK          integer not null,
 	CTB_DURATION      integer not null,
+	CTB_DATE          integer not null,
     constraint CTB_PK primary key (CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK),
     constraint CTB_CONTRIBUTOR_FK foreign key (CTB_CONTRIBUTOR) references COLLABORATOR (CLB_ID),
     constraint CTB_TASK_FK foreign key (CTB_TASK) references TASK (TSK_ID),
     constraint CTB_DURATION_FK foreign key (CTB_DURATION) references DURATION (DUR_ID)
 );
-create index CTB_CONTRIBUTOR_IDX on CONTRIBUTION (CTB_CONTRIBUTOR);
-create index CTB_TASK_IDX on CONTRIBUTION (CTB_TASK);
+create index CTB_CONTRIBUTOR_DATE_IDX on CONTRIBUTION (CTB_CONTRIBUTOR, CTB_DATE);
+create index CTB_TASK_DATE_IDX on CONTRIBUTION (CTB_TASK, CTB_DATE);
+create index CTB_DATE_IDX on CONTRIBUTION (CTB_DATE);
 create index CTB_DURATION_IDX on CONTRIBUTION (CTB_DURATION);
 
+-- All the contributions (rebuilt when a year is archived, as the union of
+-- CONTRIBUTION and of the CONTRIBUTION_<year> archive tables)
+create view CONTRIBUTION_ALL as
+	select CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK, CTB_DURATION, CTB_DATE
+	from CONTRIBUTION;
+
+-- ------------------------------------------------------------
+-- Contributions rollups (maintained along with the contributions)
+-- ------------------------------------------------------------
+create table CONTRIBUTION_MONTH (
+	CTM_TASK          integer not null,
+	CTM_YEAR_MONTH    integer not null,
+	CTM_SUM           bigint not null,
+	CTM_COUNT         integer not null,
+    constraint CTM_PK primary key (CTM_TASK, CTM_YEAR_MONTH),
+    constraint CTM_TASK_FK foreign key (CTM_TASK) references TASK (TSK_ID)
+);
+create table CONTRIBUTION_TOTAL (
+	CTT_TASK          integer not null,
+	CTT_SUM           bigint not null,
+	CTT_COUNT         integer not null,
+    constraint CTT_PK primary key (CTT_TASK),
+    constraint CTT_TASK_FK foreign key (CTT_TASK) references TASK (TSK_ID)
+);
+
 -- ------------------------------------------------------------
 -- Report configurations
 -- ------------------------------------------------------------
@@ -78,3 +124,19 @@ create table REPORT_CONFIG (
     constraint REP_OWNER_FK foreign key (REP_OWNER) references COLLABORATOR (CLB_ID)
 );
 create index REP_OWNER_IDX on REPORT_CONFIG (REP_OWNER);
+
+-- ------------------------------------------------------------
+-- Schema version (see IModelMgr.upgradeDatabase())
+-- ------------------------------------------------------------
+create table SCHEMA_VERSION (
+	SCV_VERSION       varchar(  10) not null
+);
+insert into SCHEMA_VERSION (SCV_VERSION) values ('1.3.0');
+
+-- ------------------------------------------------------------
+-- Tasks version (incremented by each tasks write, see TaskDAOCache)
+-- ------------------------------------------------------------
+create table TASK_VERSION (
+	TKV_VERSION       bigint not null
+);
+insert into TASK_VERSION (TKV_VERSION) values (0);
@@ -1,5 +1,11 @@
+drop table if exists TASK_VERSION;
+drop table if exists SCHEMA_VERSION;
 drop table if exists REPORT_CONFIG;
+drop view if exists CONTRIBUTION_ALL;
 drop table if exists CONTRIBUTION;
+drop table if exists CONTRIBUTION_MONTH;
+drop table if exists CONTRIBUTION_TOTAL;
+drop table if exists TASK_TREE;
 drop table if exists DURATION;
 drop table if exists TASK;
 drop table if exists COLLABORATOR;
@@ -41,6 +47,19 @@ create table TASK (
     	unique (TSK_PATH, TSK_CODE) 
 ) engine=innodb;
 
+-- ------------------------------------------------------------
+-- Arborescence des taches (table de fermeture)
+-- ------------------------------------------------------------
+create table TASK_TREE (
+	TTR_ANCESTOR   integer(8) not null,
+	TTR_DESCENDANT integer(8) not null,
+	TTR_DEPTH      integer(3) not null,
+    index TTR_DESCENDANT_IDX (TTR_DESCENDANT, TTR_DEPTH),
+    constraint TTR_PK primary key (TTR_ANCESTOR, TTR_DESCENDANT),
+    constraint TTR_ANCESTOR_FK foreign key (TTR_ANCESTOR) references TASK (TSK_ID),
+    constraint TTR_DESCENDANT_FK foreign key (TTR_DESCENDANT) references TASK (TSK_ID)
+) engine=innodb;
+
 -- ------------------------------------------------------------
 -- Durees
 -- ------------------------------------------------------------
@@ -60,8 +79,10 @@ create table CONTRIBUTION (
 	CTB_CONTRIBUTOR   integer(3) not null,
 	CTB_TASK          integer(8) not null,
 	CTB_DURATION      integer(3) not null,
-    index CTB_CONTRIBUTOR_IDX (CTB_CONTRIBUTOR),
-    index CTB_TASK_IDX (CTB_TASK),
+	CTB_DATE          integer(8) not null,
+    index CTB_CONTRIBUTOR_DATE_IDX (CTB_CONTRIBUTOR, CTB_DATE),
+    index CTB_TASK_DATE_IDX (CTB_TASK, CTB_DATE),
+    index CTB_DATE_IDX (CTB_DATE),
     index CTB_DURATION_IDX (CTB_DURATION),
     constraint CTB_PK primary key (CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK),
     constraint CTB_CONTRIBUTOR_FK foreign key (CTB_CONTRIBUTOR) references COLLABORATOR (CLB_ID),
@@ -69,6 +90,31 @@ create table CONTRIBUTION (
     constraint CTB_DURATION_FK foreign key (CTB_DURATION) references DURATION (DUR_ID)
 ) engine=innodb;
 
+-- All the contributions (rebuilt when a year is archived, as the union of
+-- CONTRIBUTION and of the CONTRIBUTION_<year> archive tables)
+create view CONTRIBUTION_ALL as
+	select CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK, CTB_DURATION, CTB_DATE
+	from CONTRIBUTION;
+
+-- ------------------------------------------------------------
+-- Contributions rollups (maintained along with the contributions)
+-- ------------------------------------------------------------
+create table CONTRIBUTION_MONTH (
+	CTM_TASK          integer(8) not null,
+	CTM_YEAR_MONTH    integer(6) not null,
+	CTM_SUM           bigint(12) not null,
+	CTM_COUNT         integer(8) not null,
+    constraint CTM_PK primary key (CTM_TASK, CTM_YEAR_MONTH),
+    constraint CTM_TASK_FK foreign key (CTM_TASK) references TASK (TSK_ID)
+) engine=innodb;
+create table CONTRIBUTION_TOTAL (
+	CTT_TASK          integer(8) not null,
+	CTT_SUM           bigint(12) not null,
+	CTT_COUNT         integer(8) not null,
+    constraint CTT_PK primary key (CTT_TASK),
+    constraint CTT_TASK_FK foreign key (CTT_TASK) references TASK (TSK_ID)
+) engine=innodb;
+
 --------------------------------------------------------------
 -- Report configurations
 --------------------------------------------------------------
@@ -82,3 +128,19 @@ create table REPORT_CONFIG (
     constraint REP_PK primary key (REP_ID),
     constraint REP_CONTRIBUTOR_FK foreign key (REP_OWNER) references COLLABORATOR (CLB_ID)
 ) engine=innodb;
+
+--------------------------------------------------------------
+-- Schema version (see IModelMgr.upgradeDatabase())
+--------------------------------------------------------------
+create table SCHEMA_VERSION (
+	SCV_VERSION       varchar(  10) not null
+) engine=innodb;
+insert into SCHEMA_VERSION (SCV_VERSION) values ('1.3.0');
+
+--------------------------------------------------------------
+-- Tasks version (incremented by each tasks write, see TaskDAOCache)
+--------------------------------------------------------------
+create table TASK_VERSION (
+	TKV_VERSION       bigint not null
+) engine=innodb;
+insert into TASK_VERSION (TKV_VERSION) values (0);
@@ -38,6 +38,8 @@ import org.activitymgr.core.orm.annotation.Table;
 @ColumnNamePrefix("CLB_")
 public class Collaborator extends SimpleIdentityBean {
 
+	private static final long serialVersionUID = 1L;
+
 	/** Index de l'attribut 'id' */
 	public static final int ID_FIELD_IDX = 0;
 
@@ -67,6 +67,13 @@ public class Contribution {
 	/** Durée */
 	@Column("DURATION")
 	private long durationId;
+
+	/**
+	 * Date (<code>yyyymmdd</code>), redundant with the year, the month and the
+	 * day, used by the date range requests
+	 */
+	@Column("DATE")
+	private int yearMonthDay;
 	
 	/**
 	 * Default constructor.
@@ -148,6 +155,7 @@ public class Contribution {
 	 */
 	public void setDay(int day) {
 		this.day = day;
+		updateYearMonthDay();
 	}
 
 	/**
@@ -165,6 +173,7 @@ public class Contribution {
 	 */
 	public void setMonth(int month) {
 		this.month = month;
+		updateYearMonthDay();
 	}
 
 	/**
@@ -182,6 +191,48 @@ public class Contribution {
 	 */
 	public void setYear(int year) {
 		this.year = year;
+		updateYearMonthDay();
+	}
+
+	/**
+	 * @return la date de la contribution au format <code>yyyymmdd</code>.
+	 */
+	public int getYearMonthDay() {
+		return yearMonthDay;
+	}
+
+	/**
+	 * Updates the <code>yyyymmdd</code> date.
+	 */
+	private void updateYearMonthDay() {
+		yearMonthDay = toYearMonthDay(year, month, day);
+	}
+
+	/**
+	 * Converts a date to the <code>yyyymmdd</code> format.
+	 * 
+	 * @param year
+	 *            the year.
+	 * @param month
+	 *            the month (starting from 1).
+	 * @param day
+	 *            the day of month.
+	 * @return the <code>yyyymmdd</code> date.
+	 */
+	public static int toYearMonthDay(int year, int month, int day) {
+		return year * 10000 + month * 100 + day;
+	}
+
+	/**
+	 * Converts a date to the <code>yyyymmdd</code> format.
+	 * 
+	 * @param date
+	 *            the date.
+	 * @return the <code>yyyymmdd</code> date.
+	 */
+	public static int toYearMonthDay(Calendar date) {
+		return toYearMonthDay(date.get(Calendar.YEAR),
+				date.get(Calendar.MONTH) + 1, date.get(Calendar.DAY_OF_MONTH));
 	}
 
 	/**
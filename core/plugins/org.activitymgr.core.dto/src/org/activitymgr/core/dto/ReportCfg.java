@@ -8,6 +8,8 @@ import org.activitymgr.core.orm.annotation.Table;
 @ColumnNamePrefix("REP_")
 public class ReportCfg extends SimpleIdentityBean {
 
+	private static final long serialVersionUID = 1L;
+
 	/** Category. */
 	private String category;
 
@@ -27,6 +27,8 @@
  */
 package org.activitymgr.core.dto;
 
+import java.io.Serializable;
+
 import org.activitymgr.core.orm.annotation.AutoGenerated;
 import org.activitymgr.core.orm.annotation.PrimaryKey;
 
@@ -34,7 +36,9 @@ import org.activitymgr.core.orm.annotation.PrimaryKey;
  * Classe mère des bean persistants dont la clé primaire est un identifiant de
  * type long.
  */
-public abstract class SimpleIdentityBean {
+public abstract class SimpleIdentityBean implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** Identifiant */
 	@AutoGenerated
@@ -41,12 +41,20 @@ import org.activitymgr.core.util.StringHelper;
 @ColumnNamePrefix("TSK_")
 public class Task extends SimpleIdentityBean {
 
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Plus grand numéro de tache (nombre maximum de sous-taches d'une tache),
+	 * les numéros étant encodés en base 32 sur 2 caractères
+	 */
+	public static final int MAX_NUMBER = 1023;
+
 	/** Chemin de la tache */
 	private String path;
 
 	/** Numéro de la tâche */
 	@Converter(TaskNumberConverter.class)
-	private byte number;
+	private int number;
 
 	/** Code de la tache */
 	private String code;
@@ -114,15 +122,15 @@ public class Task extends SimpleIdentityBean {
 	/**
 	 * @return le numéro de la tache.
 	 */
-	public byte getNumber() {
+	public int getNumber() {
 		return number;
 	}
 
 	/**
-	 * @return le numéro de la tache.
+	 * @return le numéro de la tache, tel qu'il apparaît dans les chemins.
 	 */
-	public String getNumberAsHex() {
-		return StringHelper.toHex(number);
+	public String getNumberAsBase32() {
+		return StringHelper.toBase32(number);
 	}
 
 	/**
@@ -185,7 +193,7 @@ public class Task extends SimpleIdentityBean {
 	 * @param number
 	 *            le nouveau numéro.
 	 */
-	public void setNumber(byte number) {
+	public void setNumber(int number) {
 		this.number = number;
 	}
 
@@ -215,7 +223,7 @@ public class Task extends SimpleIdentityBean {
 	 * @return le chemin complet de la tâche.
 	 */
 	public String getFullPath() {
-		return (path != null ? path : "") + getNumberAsHex(); //$NON-NLS-1$
+		return (path != null ? path : "") + getNumberAsBase32(); //$NON-NLS-1$
 	}
 
 	/**
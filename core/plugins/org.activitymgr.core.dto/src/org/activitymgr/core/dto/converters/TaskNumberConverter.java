@@ -5,20 +5,32 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
-import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IIntColumnConverter;
 import org.activitymgr.core.util.StringHelper;
 
-public class TaskNumberConverter implements IConverter<Byte> {
+public class TaskNumberConverter implements IIntColumnConverter {
 
 	@Override
-	public void bind(PreparedStatement stmt, int index, Byte value)
+	public void bind(PreparedStatement stmt, int index, Integer value)
 			throws SQLException {
-		stmt.setString(index, StringHelper.toHex(value));
+		bindInt(stmt, index, value);
 	}
 
 	@Override
-	public Byte readValue(ResultSet rs, int index) throws SQLException {
-		return StringHelper.toByte(rs.getString(index));
+	public void bindInt(PreparedStatement stmt, int index, int value)
+			throws SQLException {
+		stmt.setString(index, StringHelper.toBase32(value));
+	}
+
+	@Override
+	public Integer readValue(ResultSet rs, int index) throws SQLException {
+		return readInt(rs, index);
+	}
+
+	@Override
+	public int readInt(ResultSet rs, int index) throws SQLException {
+		String value = rs.getString(index);
+		return value != null ? StringHelper.fromBase32(value) : 0;
 	}
 
 	@Override
@@ -27,11 +27,14 @@
  */
 package org.activitymgr.core.dto.misc;
 
+import java.io.Serializable;
 
 /**
  * Sommes associées à une tache et ses sous-taches.
  */
-public class TaskContributionsSums {
+public class TaskContributionsSums implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 	
 	/** The task identifier */
 	private long taskId;
@@ -42,6 +45,12 @@ public class TaskContributionsSums {
 	/** Nombre de contributions */
 	private long contributionsNb;
 
+	/** Somme des consommés antérieurs à l'intervalle */
+	private long consumedBeforeSum;
+
+	/** Somme des consommés postérieurs à l'intervalle */
+	private long consumedAfterSum;
+
 	/**
 	 * @return the task identifier.
 	 */
@@ -93,4 +102,38 @@ public class TaskContributionsSums {
 		this.contributionsNb = contributionsNb;
 	}
 
+	/**
+	 * @return la somme des consommés antérieurs à l'intervalle.
+	 */
+	public long getConsumedBeforeSum() {
+		return consumedBeforeSum;
+	}
+
+	/**
+	 * Définit la somme des consommés antérieurs à l'intervalle.
+	 * 
+	 * @param consumedBeforeSum
+	 *            la nouvelle somme.
+	 */
+	public void setConsumedBeforeSum(long consumedBeforeSum) {
+		this.consumedBeforeSum = consumedBeforeSum;
+	}
+
+	/**
+	 * @return la somme des consommés postérieurs à l'intervalle.
+	 */
+	public long getConsumedAfterSum() {
+		return consumedAfterSum;
+	}
+
+	/**
+	 * Définit la somme des consommés postérieurs à l'intervalle.
+	 * 
+	 * @param consumedAfterSum
+	 *            la nouvelle somme.
+	 */
+	public void setConsumedAfterSum(long consumedAfterSum) {
+		this.consumedAfterSum = consumedAfterSum;
+	}
+
 }
@@ -27,12 +27,16 @@
  */
 package org.activitymgr.core.dto.misc;
 
+import java.io.Serializable;
+
 import org.activitymgr.core.dto.Task;
 
 /**
  * Sommes associées à une tache et ses sous-taches.
  */
-public class TaskSums {
+public class TaskSums implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 	
 	/** The task */
 	private Task task;
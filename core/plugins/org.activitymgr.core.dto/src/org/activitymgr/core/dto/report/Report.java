@@ -1,5 +1,6 @@
 package org.activitymgr.core.dto.report;
 
+import java.io.Serializable;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -12,7 +13,9 @@ import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSums;
 import org.activitymgr.core.util.StringHelper;
 
-public class Report {
+public class Report implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 	
 	private static final String NON_REPEATED_AMOUNT = "-.--";
 
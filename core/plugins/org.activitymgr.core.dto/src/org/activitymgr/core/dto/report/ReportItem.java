@@ -1,5 +1,6 @@
 package org.activitymgr.core.dto.report;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -8,7 +9,9 @@ import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSums;
 
-public class ReportItem {
+public class ReportItem implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 	
 	private final Collaborator contributor;
 	
@@ -163,6 +163,60 @@ public interface IModelMgr {
 	 */
 	void createTables();
 
+	/**
+	 * Rebuilds the task hierarchy index from the task paths (to be used after
+	 * a migration or when tasks have been created outside of the model
+	 * manager).
+	 */
+	void rebuildTaskHierarchy();
+
+	/**
+	 * Rebuilds the contributions rollups (sums per task and month, and per
+	 * task) from the contributions (to be used after a migration or when
+	 * contributions have been written outside of the model manager).
+	 */
+	void rebuildContributionRollups();
+
+	/**
+	 * Upgrades the data of a database whose tables have been updated with the
+	 * update scripts, according to its schema version (to be called each time
+	 * the database is opened).
+	 * 
+	 * <p>
+	 * A '1.2.0' database has its task numbers and paths converted from
+	 * hexadecimal (up to 255 sub tasks per task) to base 32 (up to 1023 sub
+	 * tasks per task) ; nothing is done on an up to date database.
+	 * </p>
+	 * 
+	 * @throws ModelException
+	 *             thrown if the database has no schema version (its tables
+	 *             have not been updated) or an unknown one.
+	 */
+	void upgradeDatabase() throws ModelException;
+
+	/**
+	 * Archives the contributions of the closed years, up to a given year.
+	 * 
+	 * <p>
+	 * Each year is moved into its own table, that is only read by the
+	 * requests that go back before the current year. The archived
+	 * contributions may no longer be modified.
+	 * </p>
+	 * 
+	 * <p>
+	 * The archiving of a year is not atomic (the tables creations commit
+	 * implicitly on MySQL), but it may be run again : the years whose
+	 * archiving has been interrupted are completed by the next call.
+	 * </p>
+	 * 
+	 * @param lastYear
+	 *            the last year to archive (must be before the current year).
+	 * @return the count of archived contributions.
+	 * @throws ModelException
+	 *             thrown if the year is not closed.
+	 */
+	int archiveContributions(int lastYear) throws ModelException;
+
 	/**
 	 * Crée une nouvelle tache.
 	 * 
@@ -424,6 +478,19 @@ public interface IModelMgr {
 	 */
 	Task[] getSubTasks(Long parentTaskId, String filter);
 
+	/**
+	 * Returns the identifiers of the sub tasks of a given task filtered by a
+	 * given string (the tasks are not loaded).
+	 * 
+	 * @param parentTaskId
+	 *            the parent task identifier.
+	 * @param filter
+	 *            a string that filters sub tasks.
+	 * @return the sub task identifiers.
+	 * @see #getSubTasks(Long, String)
+	 */
+	long[] getSubTaskIds(Long parentTaskId, String filter);
+
 	/**
 	 * Returns the first task matching the given filter.
 	 * @param filter
@@ -841,7 +908,9 @@ public interface IModelMgr {
 	 *            contributors and then by tasks or the inverse. If
 	 *            <code>(byContributor == false) || (taskDepth <= 0)</code>, it
 	 *            has no effect.
-	 * @return the report.
+	 * @return the report (reports are cached until the data changes : it may
+	 *         be shared with the other callers, and must thus not be
+	 *         modified).
 	 * @throws ModelException
 	 *             if start date is not specified and no contribution exist in
 	 *             the database.
@@ -982,6 +1051,34 @@ public interface IModelMgr {
 			String[] columnIds, boolean includeTotals, boolean dryRun)
 			throws ModelException;
 
+	/**
+	 * Builds a report and converts it in Excel format, either XLS or XLSX.
+	 * 
+	 * <p>
+	 * An XLSX report is built as a streaming workbook : it is not limited to
+	 * 256 columns, and only its last rows are kept in memory (they cannot be
+	 * read back). It must be written with
+	 * {@link org.activitymgr.core.util.WorkbookBuilder#write(Workbook, OutputStream)}
+	 * so that its temporary files are deleted.
+	 * </p>
+	 * 
+	 * @param xlsx
+	 *            <code>true</code> to build an XLSX report, <code>false</code>
+	 *            to build an Excel 97 (XLS) report.
+	 * @return the report.
+	 * @throws ModelException
+	 *             if start date is not specified and no contribution exist in
+	 *             the database.
+	 * @see #buildReport(Calendar, ReportIntervalType, Integer, Long, int,
+	 *      boolean, boolean, boolean, long[], String[], boolean, boolean)
+	 */
+	Workbook buildReport(Calendar start, ReportIntervalType intervalType,
+			Integer intervalCount, Long rootTaskId, int taskDepth,
+			boolean onlyKeepTasksWithContributions, boolean byContributor,
+			boolean contributorCentricMode, long[] contributorIds,
+			String[] columnIds, boolean includeTotals, boolean dryRun,
+			boolean xlsx) throws ModelException;
+
 	/**
 	 * Builds a report and converts it in Excel format.
 	 * 
@@ -1041,6 +1138,28 @@ public interface IModelMgr {
 			boolean includeTotals, boolean dryRun)
 			throws ModelException;
 
+	/**
+	 * Builds a report and converts it in Excel format, either XLS or XLSX.
+	 * 
+	 * @param xlsx
+	 *            <code>true</code> to build an XLSX (streaming) report,
+	 *            <code>false</code> to build an Excel 97 (XLS) report.
+	 * @return the report.
+	 * @throws ModelException
+	 *             if start date is not specified and no contribution exist in
+	 *             the database.
+	 * @see #buildReport(Calendar, ReportIntervalType, Integer, Long, int,
+	 *      boolean, boolean, boolean, long[], String[], boolean, boolean,
+	 *      boolean)
+	 */
+	Workbook buildReport(Calendar start, ReportIntervalType intervalType,
+			Integer intervalCount, Long rootTaskId, int taskDepth,
+			boolean onlyKeepTasksWithContributions, boolean byContributor,
+			boolean contributorCentricMode, long[] contributorIds,
+			IReportColumnComputer[] columns, String[] orderContributorsBy,
+			boolean includeTotals, boolean dryRun, boolean xlsx)
+			throws ModelException;
+
 
 	/**
 	 * Returns the max task tree depth under a given task.
@@ -44,7 +44,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -58,6 +61,7 @@ import org.activitymgr.core.dao.IDurationDAO;
 import org.activitymgr.core.dao.IReportCfgDAO;
 import org.activitymgr.core.dao.IReportDAO;
 import org.activitymgr.core.dao.ITaskDAO;
+import org.activitymgr.core.dao.ReportCache;
 import org.activitymgr.core.dao.TaskDAOCache;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
@@ -95,6 +99,7 @@ import org.apache.commons.beanutils.BeanUtilsBean2;
 import org.apache.log4j.Logger;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor.HSSFColorPredefined;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -145,6 +150,14 @@ public class ModelMgrImpl implements IModelMgr {
 	/** Logger */
 	private static Logger log = Logger.getLogger(ModelMgrImpl.class);
 
+	/** Database schema versions */
+	private static final String HEX_TASK_NUMBERS_SCHEMA_VERSION = "1.2.0"; //$NON-NLS-1$
+	private static final String SCHEMA_VERSION = "1.3.0"; //$NON-NLS-1$
+
+	/** Task attributes updated alone (partial updates) */
+	private static final String NUMBER_ATTRIBUTE = "number"; //$NON-NLS-1$
+	private static final String TODO_ATTRIBUTE = "todo"; //$NON-NLS-1$
+
 	/** DAO */
 	@Inject
 	private ICoreDAO dao;
@@ -157,6 +170,14 @@ public class ModelMgrImpl implements IModelMgr {
 	@Inject
 	private ITaskDAO taskDAO;
 
+	/** Tasks cache */
+	@Inject
+	private TaskDAOCache taskCache;
+
+	/** Reports cache */
+	@Inject
+	private ReportCache reportCache;
+
 	/** Durations DAO */
 	@Inject
 	private IDurationDAO durationDAO;
@@ -207,45 +228,47 @@ public class ModelMgrImpl implements IModelMgr {
 		dao.createTables();
 	}
 
-	/**
-	 * Substitue une partie du chemin d'un groupe de tache et de leurs
-	 * sous-taches par un nouvelle valeur.
-	 * <p>
-	 * Cette méthode est utilisée pour déplacer les sous-taches d'une tache qui
-	 * vient d'être déplacée.
-	 * </p>
-	 * 
-	 * @param tx
-	 *            le contexte de transaction.
-	 * @param tasks
-	 *            les taches dont on veut changer le chemin.
-	 * @param oldPathLength
-	 *            la taille de la portion de chemin à changer.
-	 * @param newPath
-	 *            le nouveau chemin.
-	 */
-	private void changeTasksPaths(Task[] tasks, int oldPathLength,
-			String newPath) {
-		// Récupération de la liste des taches
-		Iterator<Task> it = Arrays.asList(tasks).iterator();
-		int newPathLength = newPath.length();
-		StringBuffer buf = new StringBuffer(newPath);
-		while (it.hasNext()) {
-			Task task = it.next();
-			log.debug("Updating path of task '" + task.getName() + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-			// Mise à jour des taches filles
-			Task[] subTasks = getSubTasks(task);
-			if (subTasks.length > 0)
-				changeTasksPaths(subTasks, oldPathLength, newPath);
-			// Puis mise à jour de la tache elle-même
-			buf.setLength(newPathLength);
-			buf.append(task.getPath().substring(oldPathLength));
-			log.debug(" - old path : '" + task.getPath() + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-			task.setPath(buf.toString());
-			log.debug(" - new path : '" + task.getPath() + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-			// Mise à jour
-			taskDAO.update(task);
+	@Override
+	public void rebuildTaskHierarchy() {
+		taskDAO.rebuildHierarchy();
+	}
+
+	@Override
+	public void rebuildContributionRollups() {
+		contributionDAO.rebuildRollups();
+	}
+
+	@Override
+	public void upgradeDatabase() throws ModelException {
+		String version = dao.getSchemaVersion();
+		if (HEX_TASK_NUMBERS_SCHEMA_VERSION.equals(version)) {
+			log.info("Upgrading the database schema version " + version); //$NON-NLS-1$
+			taskDAO.convertHexNumbersToBase32();
+			dao.setSchemaVersion(SCHEMA_VERSION);
+			version = SCHEMA_VERSION;
+		}
+		verify("UNSUPPORTED_SCHEMA_VERSION", SCHEMA_VERSION.equals(version)); //$NON-NLS-1$
+	}
+
+	@Override
+	public int archiveContributions(int lastYear) throws ModelException {
+		log.info("archiveContributions(" + lastYear + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+		verify("CONTRIBUTIONS_YEAR_NOT_CLOSED", //$NON-NLS-1$
+				lastYear < Calendar.getInstance().get(Calendar.YEAR));
+		// The archived years are archived again, so that a year whose
+		// archiving has been interrupted is repaired
+		SortedSet<Integer> years = new TreeSet<Integer>(
+				contributionDAO.getArchivedContributionYears());
+		for (int year : contributionDAO.getContributionYears()) {
+			if (year <= lastYear) {
+				years.add(year);
+			}
+		}
+		int count = 0;
+		for (int year : years) {
+			count += contributionDAO.archiveContributions(year);
 		}
+		return count;
 	}
 
 	private void verify(String errorCode, boolean predicate) throws ModelException {
@@ -270,7 +293,7 @@ public class ModelMgrImpl implements IModelMgr {
 			return;
 		}
 		// Rafraichissement des attributs de la tache
-		task = getTask(task.getId());
+		task = taskDAO.selectByPK(task.getId());
 		// Une tâche qui admet déja des sous-taches peut en admettre d'autres.
 		// La suite des verification n'est donc exécutée que si la tache
 		// n'admet pas de sous-tâches
@@ -308,7 +331,7 @@ public class ModelMgrImpl implements IModelMgr {
 		boolean noErrorOccured = false;
 		Task _task = null;
 		try {
-			_task = getTask(task.getId());
+			_task = taskDAO.selectByPK(task.getId());
 			verify("UNKNOWN_TASK", _task != null, task.getId()); //$NON-NLS-1$
 			verify("TASK_PATH_UPDATE_DETECTED", _task.getPath().equals(task.getPath())); //$NON-NLS-1$
 			verify("TASK_NUMBER_UPDATE_DETECTED", _task.getNumber() == task.getNumber()); //$NON-NLS-1$
@@ -370,19 +393,20 @@ public class ModelMgrImpl implements IModelMgr {
 		// si elle n'admet aucune sous-tache
 		verify("TASK_WITH_AT_LEAST_ONE_SUBTASK_CANNOT_ACCEPT_CONTRIBUTIONS", //$NON-NLS-1$ 
 				getSubTasksCount(contribution.getTaskId()) == 0);
-		Task task = getTask(contribution.getTaskId());
+		Task task = taskDAO.selectByPK(contribution.getTaskId());
 
 		verifyExistingDuration(contribution);
 
 		// Contribution creation
 		contribution = contributionDAO.insert(contribution);
+		contributionDAO.updateRollups(Collections.singleton(contribution));
 
 		// Faut-il mettre à jour automatiquement le RAF de la tache ?
 		if (updateEtc) {
 			// Mise à jour du RAF de la tache
 			long newEtc = task.getTodo() - contribution.getDurationId();
 			task.setTodo(newEtc > 0 ? newEtc : 0);
-			taskDAO.update(task);
+			taskDAO.update(task, TODO_ATTRIBUTE);
 		}
 
 		// Retour du résultat
@@ -427,8 +451,9 @@ public class ModelMgrImpl implements IModelMgr {
 	}
 
 	@Override
-	public synchronized Task createNewTask(Task parentTask) throws 
+	public Task createNewTask(Task parentTask) throws 
 			ModelException {
+		lockSubTasks(parentTask != null ? parentTask.getFullPath() : ""); //$NON-NLS-1$
 		// Le code doit être unique => il faut vérifier si
 		// celui-ci n'a pas déja été attribué
 		int idx = 0;
@@ -458,8 +483,9 @@ public class ModelMgrImpl implements IModelMgr {
 	}
 	
 	@Override
-	public synchronized Task createTask(Task parentTask, Task task)
+	public Task createTask(Task parentTask, Task task)
 			throws ModelException {
+		lockSubTasks(parentTask != null ? parentTask.getFullPath() : ""); //$NON-NLS-1$
 		log.info("createTask(" + parentTask + ", " + task + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		// Une tache ne peut admettre une sous-tache que si elle
 		// n'est pas déja associée à un consommé
@@ -474,11 +500,14 @@ public class ModelMgrImpl implements IModelMgr {
 		task.setPath(parentPath);
 
 		// Génération du numéro de la tâche
-		byte taskNumber = taskDAO.newTaskNumber(parentPath);
+		int taskNumber = taskDAO.newTaskNumber(parentPath);
+		verify("TASK_HAS_TOO_MANY_SUBTASKS", taskNumber <= Task.MAX_NUMBER, Task.MAX_NUMBER); //$NON-NLS-1$
 		task.setNumber(taskNumber);
 
 		// Création de la tache
-		return taskDAO.insert(task);
+		task = taskDAO.insert(task);
+		taskDAO.insertIntoHierarchy(parentTask != null ? parentTask.getId() : null, task.getId());
+		return task;
 	}
 
 	@Override
@@ -661,13 +690,16 @@ public class ModelMgrImpl implements IModelMgr {
 		// Exportation des taches
 		Map<Long, String> tasksCodePathMap = new HashMap<Long, String>();
 		exportSubTasksToXML(out, INDENT, null, "", tasksCodePathMap); //$NON-NLS-1$
-		// Exportation des contributions
-		Contribution[] contributions = contributionDAO.getContributions(null, null, null,
-				null);
-		if (contributions.length > 0) {
-			XmlHelper.startXmlNode(out, "  ", XmlHelper.CONTRIBUTIONS_NODE); //$NON-NLS-1$
-			for (int i = 0; i < contributions.length; i++) {
-				Contribution contribution = contributions[i];
+		// Exportation des contributions (lues au fil de l'eau)
+		try (Stream<Contribution> contributions = contributionDAO
+				.streamContributions(null, null, null, null)) {
+			boolean first = true;
+			for (Iterator<Contribution> it = contributions.iterator(); it.hasNext();) {
+				Contribution contribution = it.next();
+				if (first) {
+					XmlHelper.startXmlNode(out, "  ", XmlHelper.CONTRIBUTIONS_NODE); //$NON-NLS-1$
+					first = false;
+				}
 				XmlHelper.print(out, "    <"); //$NON-NLS-1$
 				XmlHelper.print(out, XmlHelper.CONTRIBUTION_NODE);
 				XmlHelper.printTextAttribute(out, XmlHelper.YEAR_ATTRIBUTE,
@@ -688,7 +720,9 @@ public class ModelMgrImpl implements IModelMgr {
 								.getTaskId()));
 				XmlHelper.endXmlNode(out, "    ", XmlHelper.CONTRIBUTION_NODE); //$NON-NLS-1$
 			}
-			XmlHelper.endXmlNode(out, "  ", XmlHelper.CONTRIBUTIONS_NODE); //$NON-NLS-1$
+			if (!first) {
+				XmlHelper.endXmlNode(out, "  ", XmlHelper.CONTRIBUTIONS_NODE); //$NON-NLS-1$
+			}
 		}
 		XmlHelper.endXmlNode(out, "", "model"); //$NON-NLS-1$ //$NON-NLS-2$
 		out.flush();
@@ -1011,16 +1045,8 @@ public class ModelMgrImpl implements IModelMgr {
 			return null;
 		}
 
-		// Extraction du chemin et du numéro de la tache recherchée
 		log.debug("Fullpath='" + parentTaskFullPath + "'"); //$NON-NLS-1$ //$NON-NLS-2$
-		String path = parentTaskFullPath.substring(0,
-				parentTaskFullPath.length() - 2);
-		byte number = StringHelper.toByte(parentTaskFullPath
-				.substring(parentTaskFullPath.length() - 2));
-		log.debug(" => path=" + path); //$NON-NLS-1$
-		log.debug(" => number=" + number); //$NON-NLS-1$
-
-		return getTask(path, number);
+		return taskCache.getByFullPath(parentTaskFullPath);
 
 	}
 
@@ -1035,6 +1061,17 @@ public class ModelMgrImpl implements IModelMgr {
 		return taskDAO.getSubTasks(fullpath, filter);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.model.IModelMgr#getSubTaskIds(java.lang.Long, java.lang.String)
+	 */
+	@Override
+	public long[] getSubTaskIds(Long parentTaskId, String filter) {
+		Task parentTask = parentTaskId != null ? getTask(parentTaskId)
+				: null;
+		String fullpath = parentTask == null ? "" : parentTask.getFullPath(); //$NON-NLS-1$
+		return taskDAO.getSubTaskIds(fullpath, filter);
+	}
+
 	/* (non-Javadoc)
 	 * @see org.activitymgr.core.model.IModelMgr#getFirstTaskMatching(java.lang.String)
 	 */
@@ -1076,7 +1113,7 @@ public class ModelMgrImpl implements IModelMgr {
 	 * @see org.activitymgr.core.IModelMgr#getTask(long)
 	 */
 	public Task getTask(long taskId) {
-		return taskDAO.selectByPK(new Object[] { taskId });
+		return taskCache.getById(taskId);
 	}
 
 	/*
@@ -1102,11 +1139,7 @@ public class ModelMgrImpl implements IModelMgr {
 
 	@Override
 	public Task getTask(String taskPath, String taskCode) {
-		Task[] tasks = taskDAO.select(
-				new String[] { PATH_ATTRIBUTE, CODE_ATTRIBUTE }, 
-				new Object[] { taskPath, taskCode }, 
-				null, -1);
-		return tasks.length > 0 ? tasks[0] : null;
+		return taskDAO.getTask(taskPath, taskCode);
 	}
 
 	@Override
@@ -1118,12 +1151,13 @@ public class ModelMgrImpl implements IModelMgr {
 		String subpath = codePath.trim().substring(1);
 		log.debug("Processing task path '" + subpath + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 		Task task = null;
+		StringBuilder taskCodePath = new StringBuilder();
 		while (subpath.length() > 0) {
 			int idx = subpath.indexOf('/');
 			String taskCode = idx >= 0 ? subpath.substring(0, idx) : subpath;
-			String taskPath = task != null ? task.getFullPath() : ""; //$NON-NLS-1$
+			taskCodePath.append('/').append(taskCode);
 			subpath = idx >= 0 ? subpath.substring(idx + 1) : ""; //$NON-NLS-1$
-			task = getTask(taskPath, taskCode);
+			task = taskCache.getByCodePath(taskCodePath.toString());
 			verify("UNKNOWN_TASK_CODE_PATH", task != null, codePath);  //$NON-NLS-1$
 		}
 		log.debug("Found " + task); //$NON-NLS-1$
@@ -1182,36 +1216,19 @@ public class ModelMgrImpl implements IModelMgr {
 		// Compute sums
 		List<TaskSums> tasksSums = taskDAO.getTasksSums(taskId, tasksPath);
 
-		// Add contributions
+		// Add contributions (the sums before and after the interval are
+		// computed in the same pass)
 		Map<Long, TaskContributionsSums> contributionSums = contributionDAO.getTasksSums(taskId, tasksPath, fromDate, toDate);
 		for (TaskSums taskSums : tasksSums) {
-			long theTaskId = taskSums.getTask().getId();
-			taskSums.setContributionsSums(contributionSums.get(theTaskId));
-		}
-		
-		// If a start date has been specified, initially consumed must be fixed by adding past contributions
-		if (fromDate != null) {
-			Calendar date = (Calendar) fromDate.clone();
-			date.add(Calendar.DATE, -1);
-			Map<Long, TaskContributionsSums> pastContributionsSums = contributionDAO.getTasksSums(taskId, tasksPath, null, date);
-			for (TaskSums taskSums : tasksSums) {
-				long theTaskId = taskSums.getTask().getId();
-				taskSums.setInitiallyConsumedSum(taskSums.getInitiallyConsumedSum() + pastContributionsSums.get(theTaskId).getConsumedSum());
+			TaskContributionsSums theContributionSums = contributionSums.get(taskSums.getTask().getId());
+			taskSums.setContributionsSums(theContributionSums);
+			// If a start date has been specified, initially consumed must be fixed by adding past contributions
+			if (fromDate != null) {
+				taskSums.setInitiallyConsumedSum(taskSums.getInitiallyConsumedSum() + theContributionSums.getConsumedBeforeSum());
 			}
-		}
-		
-		// If an end date has been specified, estimated time to complete must be fixed by adding future contributions
-		if (toDate != null) {
-			Calendar date = (Calendar) toDate.clone();
-			date.add(Calendar.DATE, +1);
-			Map<Long, TaskContributionsSums> futureContributionsSums = contributionDAO.getTasksSums(taskId, tasksPath, date, null);
-			for (TaskSums taskSums : tasksSums) {
-				long theTaskId = taskSums.getTask().getId();
-				try {
-					taskSums.setTodoSum(taskSums.getTodoSum() + futureContributionsSums.get(theTaskId).getConsumedSum());
-				} catch (NullPointerException e) {
-					throw e;
-				}
+			// If an end date has been specified, estimated time to complete must be fixed by adding future contributions
+			if (toDate != null) {
+				taskSums.setTodoSum(taskSums.getTodoSum() + theContributionSums.getConsumedAfterSum());
 			}
 		}
 		
@@ -1259,6 +1276,7 @@ public class ModelMgrImpl implements IModelMgr {
 	 */
 	@Override
 	public void moveDownTask(Task task) throws ModelException {
+		lockSubTasks(task.getPath());
 		// Le chemin de la tache et son numéro ne doivent pas avoir changés
 		// pour pouvoir invoquer cette méthode (la modification des
 		// attributs
@@ -1267,7 +1285,7 @@ public class ModelMgrImpl implements IModelMgr {
 		verifyTaskPath(task);
 
 		// Recherche de la tache à descendre (incrémentation du numéro)
-		byte taskToMoveUpNumber = (byte) (task.getNumber() + 1);
+		int taskToMoveUpNumber = task.getNumber() + 1;
 		Task taskToMoveUp = getTask(task.getPath(), taskToMoveUpNumber);
 		verify("TASK_CANNOT_BE_MOVED_DOWN", taskToMoveUp != null); //$NON-NLS-1$
 
@@ -1285,6 +1303,7 @@ public class ModelMgrImpl implements IModelMgr {
 	@Override
 	public void moveTaskUpOrDown(Task task, int newTaskNumber)
 			throws ModelException {
+		lockSubTasks(task.getPath());
 		// Le chemin de la tache et son numéro ne doivent pas avoir changés
 		// pour pouvoir invoquer cette méthode
 		verifyTaskPath(task);
@@ -1297,7 +1316,7 @@ public class ModelMgrImpl implements IModelMgr {
 
 		// Récupération de la tache parent, et contrôle du modèle
 		// (le numéro de destination ne peut être hors interval)
-		Task parentTask = getParentTask(task);
+		Task parentTask = selectParentTask(task);
 		int subTasksCount = parentTask != null 
 				? getSubTasksCount(parentTask.getId())
 				: getRootTasksCount();
@@ -1308,9 +1327,9 @@ public class ModelMgrImpl implements IModelMgr {
 		// Définition du sens de déplacement
 		int stepSign = task.getNumber() > newTaskNumber ? -1 : 1;
 		for (int i = task.getNumber() + stepSign; i != newTaskNumber + stepSign; i+=stepSign) {
-			Task taskToToggle = getTask(task.getPath(), (byte) i);
+			Task taskToToggle = getTask(task.getPath(), i);
 			toggleTasks(task, taskToToggle);
-			task.setNumber((byte) i);
+			task.setNumber(i);
 		}
 	}
 
@@ -1322,8 +1341,10 @@ public class ModelMgrImpl implements IModelMgr {
 	 * org.activitymgr.core.beans.Task)
 	 */
 	@Override
-	public synchronized void moveTask(Task task, Task destParentTask)
+	public void moveTask(Task task, Task destParentTask)
 			throws ModelException {
+		lockSubTasks(task.getPath(),
+				destParentTask != null ? destParentTask.getFullPath() : ""); //$NON-NLS-1$
 		/**
 		 * Controles d'intégrité.
 		 */
@@ -1342,7 +1363,7 @@ public class ModelMgrImpl implements IModelMgr {
 		Task cursor = destParentTask;
 		while (cursor != null) {
 			verify("TASK_CANNOT_BE_MOVED_UNDER_ITSELF", !cursor.equals(task)); //$NON-NLS-1$
-			cursor = getParentTask(cursor);
+			cursor = selectParentTask(cursor);
 		}
 
 		// Une tache ne peut admettre une sous-tache que si elle
@@ -1365,21 +1386,21 @@ public class ModelMgrImpl implements IModelMgr {
 		 * Déplacement de la tache.
 		 */
 
-		// Récupération de la tache parent et des sous-taches
-		// avant modification de son numéro et de son chemin
+		// Récupération de la tache parent avant modification de
+		// son numéro et de son chemin
 		String initialTaskFullPath = task.getFullPath();
-		Task srcParentTask = getParentTask(task);
-		Task[] subTasksToMove = getSubTasks(task);
+		Task srcParentTask = selectParentTask(task);
 
 		// Déplacement de la tache
-		byte number = taskDAO.newTaskNumber(destPath);
+		taskDAO.moveInHierarchy(task, destParentTask);
+		int number = taskDAO.newTaskNumber(destPath);
+		verify("TASK_HAS_TOO_MANY_SUBTASKS", number <= Task.MAX_NUMBER, Task.MAX_NUMBER); //$NON-NLS-1$
 		task.setPath(destPath);
 		task.setNumber(number);
-		taskDAO.update(task);
+		taskDAO.update(task, PATH_ATTRIBUTE, NUMBER_ATTRIBUTE);
 
-		// Déplacement des sous-taches
-		changeTasksPaths(subTasksToMove, initialTaskFullPath.length(),
-				task.getFullPath());
+		// Déplacement des sous-taches (en une seule requête)
+		taskDAO.changeSubTasksPath(initialTaskFullPath, task.getFullPath());
 
 		// Reconstruction des numéros de tâches d'où la tâche provenait
 		// et qui a laissé un 'trou' en étant déplacée
@@ -1395,6 +1416,7 @@ public class ModelMgrImpl implements IModelMgr {
 	 */
 	@Override
 	public void moveUpTask(Task task) throws ModelException {
+		lockSubTasks(task.getPath());
 		// Le chemin de la tache et son numéro ne doivent pas avoir changés
 		// pour pouvoir invoquer cette méthode (la modification des
 		// attributs
@@ -1403,7 +1425,7 @@ public class ModelMgrImpl implements IModelMgr {
 		verifyTaskPath(task);
 
 		// Recherche de la tache à monter (décrémentation du numéro)
-		byte taskToMoveDownNumber = (byte) (task.getNumber() - 1);
+		int taskToMoveDownNumber = task.getNumber() - 1;
 		Task taskToMoveDown = getTask(task.getPath(), taskToMoveDownNumber);
 		verify("TASK_CANNOT_BE_MOVED_UP", taskToMoveDown != null); //$NON-NLS-1$
 
@@ -1411,6 +1433,28 @@ public class ModelMgrImpl implements IModelMgr {
 		toggleTasks(task, taskToMoveDown);
 	}
 
+	/**
+	 * Locks the sub tasks lists of the given parent tasks in database, until
+	 * the end of the transaction.
+	 * 
+	 * <p>
+	 * Only database locks are taken : they are held until the commit, and the
+	 * database detects the dead locks between them (which it could not do
+	 * with locks held in this JVM).
+	 * </p>
+	 * 
+	 * @param parentTaskPaths
+	 *            the parent tasks full paths (empty for the root).
+	 */
+	private void lockSubTasks(String... parentTaskPaths) {
+		// Locks are taken in the same order by all the transactions
+		String[] sortedPaths = parentTaskPaths.clone();
+		Arrays.sort(sortedPaths);
+		for (String parentTaskPath : sortedPaths) {
+			taskDAO.lockSubTasks(parentTaskPath);
+		}
+	}
+
 	/**
 	 * Reconstruit les numéros de taches pour un chemin donné (chemin complet de
 	 * la tache parent considérée).
@@ -1421,16 +1465,26 @@ public class ModelMgrImpl implements IModelMgr {
 	private void rebuildSubtasksNumbers(Task parentTask) {
 		// Récupération des sous-taches
 		Task[] tasks = getSubTasks(parentTask);
+		List<Task> renumberedTasks = new ArrayList<Task>();
+		List<String> initialFullPaths = new ArrayList<String>();
 		for (int i = 0; i < tasks.length; i++) {
 			Task task = tasks[i];
-			byte taskNumber = task.getNumber();
-			byte expectedNumber = (byte) (i + 1);
+			int taskNumber = task.getNumber();
+			int expectedNumber = i + 1;
 			if (taskNumber != expectedNumber) {
-				Task[] subTasks = getSubTasks(task);
+				initialFullPaths.add(task.getFullPath());
 				task.setNumber(expectedNumber);
-				String fullPath = task.getFullPath();
-				changeTasksPaths(subTasks, fullPath.length(), fullPath);
-				taskDAO.update(task);
+				renumberedTasks.add(task);
+			}
+		}
+		if (!renumberedTasks.isEmpty()) {
+			// Les numéros sont mis à jour en un seul lot, dans l'ordre
+			// croissant (chaque tache prend un numéro déja libéré)
+			taskDAO.updateAll(renumberedTasks);
+			// Puis les sous-taches de chaque tache renumérotée
+			for (int i = 0; i < renumberedTasks.size(); i++) {
+				taskDAO.changeSubTasksPath(initialFullPaths.get(i),
+						renumberedTasks.get(i).getFullPath());
 			}
 		}
 	}
@@ -1470,11 +1524,12 @@ public class ModelMgrImpl implements IModelMgr {
 		if (!updateEstimatedTimeToComlete) {
 			// Suppression de la contribution
 			contributionDAO.delete(contribution);
+			contributionDAO.updateRollups(Collections.singleton(contribution));
 		} else {
 			// Récupération des éléments de la contribution
 			Collaborator contributor = getCollaborator(contribution
 					.getContributorId());
-			Task task = getTask(contribution.getTaskId());
+			Task task = taskDAO.selectByPK(contribution.getTaskId());
 			// Récupération de la contribution correspondante en base
 			Contribution[] contributions = contributionDAO.getContributions(contributor,
 					task, contribution.getDate(), contribution.getDate());
@@ -1493,10 +1548,11 @@ public class ModelMgrImpl implements IModelMgr {
 
 				// Suppression de la contribution
 				contributionDAO.delete(contribution);
+				contributionDAO.updateRollups(Collections.singleton(contribution));
 
 				// Mise à jour du RAF de la tache
 				task.setTodo(task.getTodo() + contribution.getDurationId());
-				taskDAO.update(task);
+				taskDAO.update(task, TODO_ATTRIBUTE);
 			}
 		}
 	}
@@ -1510,9 +1566,10 @@ public class ModelMgrImpl implements IModelMgr {
 	 */
 	@Override
 	public void removeContributions(Contribution[] contributions) {
-		// Suppression de la contribution
-		for (int i = 0; i < contributions.length; i++)
-			contributionDAO.delete(contributions[i]);
+		// Suppression des contributions
+		List<Contribution> contributionsList = Arrays.asList(contributions);
+		contributionDAO.deleteAll(contributionsList);
+		contributionDAO.updateRollups(contributionsList);
 	}
 
 	/*
@@ -1536,7 +1593,8 @@ public class ModelMgrImpl implements IModelMgr {
 	}
 
 	@Override
-	public synchronized void removeTask(Task task) throws ModelException {
+	public void removeTask(Task task) throws ModelException {
+		lockSubTasks(task.getPath());
 		// Vérification de l'adéquation des attributs de la tache avec les
 		// données en base
 		verifyTaskPath(task);
@@ -1547,9 +1605,10 @@ public class ModelMgrImpl implements IModelMgr {
 
 		// Récupération de la tâche parent pour reconstruction des
 		// numéros de taches
-		Task parentTask = getParentTask(task);
+		Task parentTask = selectParentTask(task);
 
 		// Delete sub tasks
+		taskDAO.removeFromHierarchy(task);
 		taskDAO.delete(new String[] { PATH_ATTRIBUTE }, new Object[] { new LikeStatement(task.getFullPath() + "%") });
 
 		// Delete the task
@@ -1557,7 +1616,6 @@ public class ModelMgrImpl implements IModelMgr {
 
 		// Reconstruction des numéros de taches
 		rebuildSubtasksNumbers(parentTask);
-
 	}
 
 	/**
@@ -1569,32 +1627,26 @@ public class ModelMgrImpl implements IModelMgr {
 	 *            la 2nde tache.
 	 */
 	private void toggleTasks(Task task1, Task task2) {
-		byte task1InitialNumber = task1.getNumber();
-		byte task2InitialNumber = task2.getNumber();
+		int task1InitialNumber = task1.getNumber();
+		int task2InitialNumber = task2.getNumber();
 		String task1InitialFullpath = task1.getFullPath();
 		String task2InitialFullpath = task2.getFullPath();
 
-		// Récupération des taches filles de ces 2 taches
-		Task[] task1subTasks = getSubTasks(task1);
-		Task[] task2subTasks = getSubTasks(task2);
-
 		// Changement des numéros de la tache 1 avec une valeur fictive
-		task1.setNumber((byte) 0);
-		taskDAO.update(task1);
-		changeTasksPaths(task1subTasks, task1InitialFullpath.length(),
-				task1.getFullPath());
+		task1.setNumber(0);
+		taskDAO.update(task1, NUMBER_ATTRIBUTE);
+		String task1TemporaryFullpath = task1.getFullPath();
+		taskDAO.changeSubTasksPath(task1InitialFullpath, task1TemporaryFullpath);
 
 		// Changement des numéros de la tache 2
 		task2.setNumber(task1InitialNumber);
-		taskDAO.update(task2);
-		changeTasksPaths(task2subTasks, task2InitialFullpath.length(),
-				task2.getFullPath());
+		taskDAO.update(task2, NUMBER_ATTRIBUTE);
+		taskDAO.changeSubTasksPath(task2InitialFullpath, task2.getFullPath());
 
 		// Changement des numéros de la tache 1
 		task1.setNumber(task2InitialNumber);
-		taskDAO.update(task1);
-		changeTasksPaths(task1subTasks, task1InitialFullpath.length(),
-				task1.getFullPath());
+		taskDAO.update(task1, NUMBER_ATTRIBUTE);
+		taskDAO.changeSubTasksPath(task1TemporaryFullpath, task1.getFullPath());
 	}
 
 	/*
@@ -1643,11 +1695,12 @@ public class ModelMgrImpl implements IModelMgr {
 		if (!updateEstimatedTimeToComlete) {
 			// Mise à jour des données
 			result = contributionDAO.update(contribution);
+			contributionDAO.updateRollups(Collections.singleton(result));
 		} else {
 			// Récupération des éléments de la contribution
 			Collaborator contributor = getCollaborator(contribution
 					.getContributorId());
-			Task task = getTask(contribution.getTaskId());
+			Task task = taskDAO.selectByPK(contribution.getTaskId());
 			// Récupération de la contribution correspondante en base
 			Contribution[] contributions = contributionDAO.getContributions(contributor,
 					task, contribution.getDate(), contribution.getDate());
@@ -1661,11 +1714,12 @@ public class ModelMgrImpl implements IModelMgr {
 
 			// Mise à jour de la contribution
 			result = contributionDAO.update(contribution);
+			contributionDAO.updateRollups(Collections.singleton(result));
 
 			// Mise à jour du RAF de la tache
 			long newEtc = task.getTodo() + oldDuration - newDuration;
 			task.setTodo(newEtc > 0 ? newEtc : 0);
-			taskDAO.update(task);
+			taskDAO.update(task, TODO_ATTRIBUTE);
 			
 		}
 
@@ -1688,13 +1742,16 @@ public class ModelMgrImpl implements IModelMgr {
 		verify("A_TASK_WITH_SUBTASKS_CANNOT_ACCEPT_CONTRIBUTIONS", //$NON-NLS-1$
 			getSubTasksCount(newContributionTask.getId()) == 0);
 
-		// Mise à jour des identifiants de tâche
-		for (int i = 0; i < contributions.length; i++) {
-			Contribution contribution = contributions[i];
-			contributionDAO.delete(contribution);
+		// Mise à jour des identifiants de tâche (la tâche faisant partie de
+		// la clé primaire, les contributions sont supprimées puis recréées)
+		List<Contribution> contributionsList = Arrays.asList(contributions);
+		contributionDAO.deleteAll(contributionsList);
+		contributionDAO.updateRollups(contributionsList);
+		for (Contribution contribution : contributions) {
 			contribution.setTaskId(newContributionTask.getId());
-			contributionDAO.insert(contribution);
 		}
+		contributionDAO.insertAll(contributionsList);
+		contributionDAO.updateRollups(contributionsList);
 
 		// Retour de la tache modifiée
 		return contributions;
@@ -1740,7 +1797,7 @@ public class ModelMgrImpl implements IModelMgr {
 		verifyTaskPath(task);
 
 		// Check sur l'unicité du code pour le chemin considéré
-		assertUniquePath(getParentTask(task), task);
+		assertUniquePath(selectParentTask(task), task);
 
 		// Mise à jour des données
 		task = taskDAO.update(task);
@@ -1749,12 +1806,27 @@ public class ModelMgrImpl implements IModelMgr {
 		return task;
 	}
 
-	private Task getTask(String taskPath, byte taskNumber) {
-		Task[] tasks = taskDAO.select(
-				new String[] { PATH_ATTRIBUTE, "number" }, 
-				new Object[] { taskPath, taskNumber }, 
-				null, -1);
-		return tasks.length > 0 ? tasks[0] : null;
+	private Task getTask(String taskPath, int taskNumber) {
+		return taskDAO.getTask(taskPath, taskNumber);
+	}
+
+	/**
+	 * Retourne la tache parent d'une tache, lue en base (les contrôles et les
+	 * mises à jour ne s'appuient pas sur le cache des taches, qui peut ne pas
+	 * refléter les écritures des autres instances de l'application).
+	 * 
+	 * @param task
+	 *            la tache.
+	 * @return la tache parent (<code>null</code> pour une tache racine).
+	 */
+	private Task selectParentTask(Task task) {
+		String parentTaskFullPath = task.getPath();
+		if (parentTaskFullPath == null || parentTaskFullPath.isEmpty()) {
+			return null;
+		}
+		int pathLength = parentTaskFullPath.length() - 2;
+		return getTask(parentTaskFullPath.substring(0, pathLength),
+				StringHelper.fromBase32(parentTaskFullPath.substring(pathLength)));
 	}
 
 	@Override
@@ -1782,16 +1854,6 @@ public class ModelMgrImpl implements IModelMgr {
 		return result.toArray(Task[]::new);
 	}
 
-	private static final Comparator<Task> SORTER_BY_PATH = (Task t1, Task t2) -> {
-		String path1 = t1.getFullPath();
-		String path2 = t2.getFullPath();
-		int len = Math.min(path1.length(), path2.length());
-		int c = path1.substring(0, len).compareTo(path2.substring(0, len));
-		return (c != 0) 
-				? c
-				: path1.length() - path2.length();
-	};
-	
 	
 	@Override
 	public byte[] exportToExcel(Long parentTaskId) throws IOException, ModelException {
@@ -1810,6 +1872,8 @@ public class ModelMgrImpl implements IModelMgr {
 			headerCellStyle.setBorderTop(headerCellStyle.getBorderBottom());
 			// Header
 			Row header = sheet.createRow(0);
+			// Column widths are computed from the longest values
+			int[] lengths = new int[7];
 			int idx = 0;
 			for (String columnName : new String[] { 
 					PATH_ATTRIBUTE, 
@@ -1819,23 +1883,13 @@ public class ModelMgrImpl implements IModelMgr {
 					"initiallyConsumed", 
 					"todo", 
 					"comment" }) {
+				lengths[idx] = columnName.length();
 				Cell cell = header.createCell(idx++);
 				cell.setCellStyle(headerCellStyle);
 				cell.setCellValue(columnName);
 			}
 			// Retrieve tasks
 			Task parentTask = parentTaskId != null ? getTask(parentTaskId) : null;
-			Task[] tasks = null;
-			if (parentTaskId == null) {
-				tasks = taskDAO.selectAll();
-			} else {
-				tasks = taskDAO.select(
-						new String[] { PATH_ATTRIBUTE }, 
-						new Object[] { new LikeStatement(parentTask.getFullPath() + "%") }, 
-						null, -1);
-			}
-			// Sort
-			Arrays.sort(tasks, SORTER_BY_PATH);
 			
 			// Output
 			CellStyle bodyCellStyle = wbk.createCellStyle();
@@ -1844,38 +1898,45 @@ public class ModelMgrImpl implements IModelMgr {
 			bodyCellStyle.setBorderRight(bodyCellStyle.getBorderBottom());
 			bodyCellStyle.setBorderTop(bodyCellStyle.getBorderBottom());
 			Map<String, String> pathToTaskCodePathMap = new HashMap<String, String>();
-			for (Task task : tasks) {
-				
-				// Compute task code path
-				String taskPath = task.getPath();
-				String parentTaskCodePath = pathToTaskCodePathMap.get(taskPath);
-				String taskCodePath = (parentTaskCodePath != null ? parentTaskCodePath + '/' : "") + task.getCode();
-				pathToTaskCodePathMap.put(task.getFullPath(), taskCodePath);
-				
-				// Append row
-				Row row = sheet.createRow(sheet.getLastRowNum() + 1);
-				idx = 0;
-				for (Object v : new Object[] {
-						(parentTaskCodePath != null ? parentTaskCodePath : ""),
-						task.getCode(), 
-						task.getName(), 
-						task.getBudget(),
-						task.getInitiallyConsumed(), 
-						task.getTodo(),
-						task.getComment() }) {
-					Cell cell = row.createCell(idx++);
-					if (v != null) {
-						if (v instanceof String) {
-							cell.setCellValue((String)v);
-						} else {
-							cell.setCellValue(((Long) v)/100d);
+			// Tasks are streamed sorted by path (parents first)
+			try (Stream<Task> tasks = taskDAO.streamTasks(
+					parentTask != null ? parentTask.getFullPath() : null)) {
+				for (Iterator<Task> it = tasks.iterator(); it.hasNext();) {
+					Task task = it.next();
+					
+					// Compute task code path
+					String taskPath = task.getPath();
+					String parentTaskCodePath = pathToTaskCodePathMap.get(taskPath);
+					String taskCodePath = (parentTaskCodePath != null ? parentTaskCodePath + '/' : "") + task.getCode();
+					pathToTaskCodePathMap.put(task.getFullPath(), taskCodePath);
+					
+					// Append row
+					Row row = sheet.createRow(sheet.getLastRowNum() + 1);
+					idx = 0;
+					for (Object v : new Object[] {
+							(parentTaskCodePath != null ? parentTaskCodePath : ""),
+							task.getCode(), 
+							task.getName(), 
+							task.getBudget(),
+							task.getInitiallyConsumed(), 
+							task.getTodo(),
+							task.getComment() }) {
+						Cell cell = row.createCell(idx++);
+						if (v != null) {
+							if (v instanceof String) {
+								cell.setCellValue((String)v);
+							} else {
+								v = ((Long) v)/100d;
+								cell.setCellValue((Double) v);
+							}
+							lengths[idx - 1] = Math.max(lengths[idx - 1], String.valueOf(v).length());
 						}
+						cell.setCellStyle(bodyCellStyle);
 					}
-					cell.setCellStyle(bodyCellStyle);
 				}
 			}
 			for (int colIdx = 0 ; colIdx <= 6; colIdx++) {
-				sheet.autoSizeColumn(colIdx);
+				sheet.setColumnWidth(colIdx, WorkbookBuilder.getColumnWidth(lengths[colIdx]));
 			}
 			// Save the resource
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -1903,7 +1964,6 @@ public class ModelMgrImpl implements IModelMgr {
 	@Override
 	public void importFromExcel(Long parentTaskId, InputStream xls) throws IOException, ModelException {
 		final List<String> numericFieldNames = Arrays.asList(BUDGET_ATTRIBUTE, "initiallyConsumed", "todo");
-		final TaskDAOCache taskCache = new TaskDAOCache(taskDAO);
 		final String parentTaskCodePath = parentTaskId == null ? "" : taskCache.getCodePath(parentTaskId);
 		XlsImportHelper.visit(xls, cells -> {
 				
@@ -1984,6 +2044,8 @@ public class ModelMgrImpl implements IModelMgr {
 			boolean contributorCentricMode, long[] contributorIds,
 			String[] orderContributorsBy, int maxIntervalCount, boolean dryRun)
 			throws ModelException {
+		// Reports built from the data of the transaction start may be cached
+		long dataVersion = reportCache.getVersion();
 		
 		// Fix task depth
 		if (taskDepth < 0) {
@@ -2049,10 +2111,28 @@ public class ModelMgrImpl implements IModelMgr {
 		if (dryRun) {
 			return null;
 		}
-		return reportDAO.buildReport(start, intervalType, intervalCount,
-				rootTask, taskDepth, onlyKeepTasksWithContributions,
-				byContributor, contributorCentricMode, contributorIds,
+		long[] sortedContributorIds = null;
+		if (contributorIds != null) {
+			sortedContributorIds = contributorIds.clone();
+			Arrays.sort(sortedContributorIds);
+		}
+		List<Object> cacheKey = ReportCache.key(
+				start.get(Calendar.YEAR) * 10000
+						+ (start.get(Calendar.MONTH) + 1) * 100
+						+ start.get(Calendar.DATE), intervalType,
+				intervalCount, rootTaskId, taskDepth,
+				onlyKeepTasksWithContributions, byContributor,
+				contributorCentricMode, sortedContributorIds,
 				orderContributorsBy);
+		Report report = reportCache.get(cacheKey);
+		if (report == null) {
+			report = reportDAO.buildReport(start, intervalType, intervalCount,
+					rootTask, taskDepth, onlyKeepTasksWithContributions,
+					byContributor, contributorCentricMode, contributorIds,
+					orderContributorsBy);
+			reportCache.put(cacheKey, dataVersion, report);
+		}
+		return report;
 	}
 
 	@Override
@@ -2064,6 +2144,21 @@ public class ModelMgrImpl implements IModelMgr {
 			String[] columnIds, 
 			boolean includeTotals, boolean dryRun)
 			throws ModelException {
+		return buildReport(start, intervalType, intervalCount, rootTaskId,
+				taskDepth, onlyKeepTasksWithContributions, byContributor,
+				contributorCentricMode, contributorIds, columnIds,
+				includeTotals, dryRun, false);
+	}
+
+	@Override
+	public Workbook buildReport(Calendar start,
+			ReportIntervalType intervalType, Integer intervalCount,
+			Long rootTaskId, int taskDepth,
+			boolean onlyKeepTasksWithContributions, boolean byContributor,
+			boolean contributorCentricMode, long[] contributorIds, 
+			String[] columnIds, 
+			boolean includeTotals, boolean dryRun, boolean xlsx)
+			throws ModelException {
 		Map<String, IReportColumnComputer> reportColumnComputers = new HashMap<String, IReportColumnComputer>(defaultReportColumnComputers); 
 		List<IReportColumnComputer> columns = new ArrayList<IReportColumnComputer>();
 		int taskFields = 0;
@@ -2105,7 +2200,7 @@ public class ModelMgrImpl implements IModelMgr {
 				contributorCentricMode, contributorIds,
 				columns.toArray(IReportColumnComputer[]::new),
 				collaboratorFields.toArray(String[]::new),
-				includeTotals, dryRun);
+				includeTotals, dryRun, xlsx);
 	}
 
 	@Override
@@ -2116,10 +2211,27 @@ public class ModelMgrImpl implements IModelMgr {
 			boolean contributorCentricMode, long[] contributorIds,
 			IReportColumnComputer[] columns, String[] orderContributorsBy,
 			boolean includeTotals, boolean dryRun) throws ModelException {
+		return buildReport(start, intervalType, intervalCount, rootTaskId,
+				taskDepth, onlyKeepTasksWithContributions, byContributor,
+				contributorCentricMode, contributorIds, columns,
+				orderContributorsBy, includeTotals, dryRun, false);
+	}
+
+	@Override
+	public Workbook buildReport(
+			Calendar start, ReportIntervalType intervalType, Integer intervalCount,
+			Long rootTaskId, int taskDepth,
+			boolean onlyKeepTasksWithContributions, boolean byContributor,
+			boolean contributorCentricMode, long[] contributorIds,
+			IReportColumnComputer[] columns, String[] orderContributorsBy,
+			boolean includeTotals, boolean dryRun, boolean xlsx) throws ModelException {
 
 		// In Excel 97 format, it is not possible to have more than 256
-		// columns
-		int maxIntervalCount = 256 - columns.length - 1;
+		// columns and 65536 rows (16384 columns and 1048576 rows in XLSX
+		// format)
+		SpreadsheetVersion version = xlsx ? SpreadsheetVersion.EXCEL2007
+				: SpreadsheetVersion.EXCEL97;
+		int maxIntervalCount = version.getMaxColumns() - columns.length - 1;
 		// Build raw report
 		Report report = doBuildReport(start, intervalType, intervalCount,
 				rootTaskId, taskDepth, onlyKeepTasksWithContributions,
@@ -2132,6 +2244,14 @@ public class ModelMgrImpl implements IModelMgr {
 			return null;
 		}
 
+		// Rows count computation (header, items and totals)
+		int rowCount = report.getItems().size() + (includeTotals ? 2 : 1);
+		if (rowCount > version.getMaxRows()) {
+			throw new ModelException("Too many generated rows :"
+					+ rowCount
+					+ " (Try to reduce your report task depth)");
+		}
+
 		// Convert report to XLS
 		String dateFormat = null;
 		switch (intervalType) {
@@ -2149,12 +2269,13 @@ public class ModelMgrImpl implements IModelMgr {
 			break;
 		}
 		SimpleDateFormat xlsSdf = new SimpleDateFormat(dateFormat);
-		WorkbookBuilder wb = new WorkbookBuilder();
+		WorkbookBuilder wb = new WorkbookBuilder(xlsx);
 		Workbook workbook = wb.getWorkbook();
 		Sheet sheet = workbook.createSheet("Report");
 		Row headerRow = sheet.createRow(sheet.getLastRowNum());
 		int colIdx = 0;
 		for (IReportColumnComputer column : columns) {
+			wb.trackColumnWidth(colIdx, column.getName());
 			wb.asHeaderCellStyl(headerRow.createCell(colIdx++))
 					.setCellValue(column.getName());
 		}
@@ -2191,6 +2312,7 @@ public class ModelMgrImpl implements IModelMgr {
 				
 				if (!ignoreCell) {
 					Object cellValue = column.compute(item);
+					wb.trackColumnWidth(colIdx - 1, cellValue);
 					if (cellValue instanceof String) {
 						cell.setCellValue((String) cellValue);
 					} else if (cellValue instanceof Double) {
@@ -2237,12 +2359,9 @@ public class ModelMgrImpl implements IModelMgr {
 				.setCellValue(globalSum / 100d);
 		}
 
-		// Autosize code & name columns
-		colIdx = 0;
-		for (@SuppressWarnings("unused")
-		IReportColumnComputer column : columns) {
-			sheet.autoSizeColumn(colIdx++);
-		}
+		// Size code & name columns
+		wb.applyColumnWidths(sheet);
+		colIdx = columns.length;
 		// Freeze
 		sheet.createFreezePane(colIdx, 1);
 		for (@SuppressWarnings("unused")
@@ -0,0 +1,127 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Immutable select request compiled once by a DAO and executed many times.
+ *
+ * <p>
+ * The where clause and the order by clause are resolved at compile time : the
+ * compiled query holds the SQL request and one binder (the attribute
+ * converter) per statement parameter. At execution time, only the parameter
+ * values are bound, in the order of the statement parameters.
+ * </p>
+ *
+ * <p>
+ * The where clause shape is described as for a regular select :
+ * <ul>
+ * <li>a <code>null</code> value produces an <code>is null</code> criteria
+ * (without parameter),</li>
+ * <li>a statement from the <code>query</code> package (<code>like</code>,
+ * <code>in</code>, <code>between</code>, ...) produces the same criteria as
+ * for a regular select (the values of the statement are ignored, except for
+ * the count of values of an <code>in</code> statement),</li>
+ * <li>any other value (for instance {@link #PARAMETER}) produces an equality
+ * criteria.</li>
+ * </ul>
+ * </p>
+ *
+ * @param <TYPE>
+ *            the mapped class.
+ * @see IDAO#compile(String[], Object[], Object[], int)
+ */
+public final class CompiledQuery<TYPE> {
+
+	/** Shape of an equality criteria */
+	public static final Object PARAMETER = new Object() {
+		@Override
+		public String toString() {
+			return "?";
+		}
+	};
+
+	/** DAO that compiled the query */
+	private final IDAO<TYPE> dao;
+
+	/** SQL request */
+	private final String sql;
+
+	/** Parameter binders */
+	private final IConverter<Object>[] binders;
+
+	/**
+	 * Default constructor (queries are built by the DAOs).
+	 *
+	 * @param dao
+	 *            the DAO that compiled the query.
+	 * @param sql
+	 *            the SQL request.
+	 * @param binders
+	 *            the parameter binders, in statement order.
+	 */
+	@SuppressWarnings("unchecked")
+	public CompiledQuery(IDAO<TYPE> dao, String sql, IConverter<?>[] binders) {
+		this.dao = dao;
+		this.sql = sql;
+		this.binders = (IConverter<Object>[]) binders.clone();
+	}
+
+	/**
+	 * @return the SQL request.
+	 */
+	public String getSQL() {
+		return sql;
+	}
+
+	/**
+	 * @return the count of parameters expected by the query.
+	 */
+	public int getParametersCount() {
+		return binders.length;
+	}
+
+	/**
+	 * @param dao
+	 *            a DAO.
+	 * @return <code>true</code> if the query has been compiled by the given
+	 *         DAO.
+	 */
+	public boolean isCompiledBy(IDAO<?> dao) {
+		return this.dao == dao;
+	}
+
+	/**
+	 * Binds the parameter values to a statement prepared with the query SQL.
+	 *
+	 * @param pStmt
+	 *            the statement.
+	 * @param parameters
+	 *            the parameter values, in statement order.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public void bind(PreparedStatement pStmt, Object... parameters)
+			throws SQLException {
+		if (parameters.length != binders.length) {
+			throw new IllegalArgumentException("Wrong parameters count : "
+					+ parameters.length + " (expected " + binders.length
+					+ ")");
+		}
+		for (int i = 0; i < binders.length; i++) {
+			IConverter<Object> binder = binders[i];
+			Object parameter = parameters[i];
+			if (parameter == null) {
+				pStmt.setNull(i + 1, binder.getSQLType());
+			} else {
+				binder.bind(pStmt, i + 1, parameter);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return sql;
+	}
+
+}
@@ -1,7 +1,8 @@
 package org.activitymgr.core.orm;
 
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.activitymgr.core.orm.impl.AnnotationBasedMappingConfiguration;
 import org.activitymgr.core.orm.impl.DAOImpl;
@@ -17,11 +18,17 @@ public class DAOFactory {
 	/** Logger */
 	//private static Logger log = Logger.getLogger(DbClassMapping.class);
 
-	/** Liste des mappers */
-	private HashMap<Class<?>, DAOImpl<?>> mappers = new HashMap<Class<?>, DAOImpl<?>>();
+	/**
+	 * Liste des mappers (read without lock, the DAOs being immutable once
+	 * built)
+	 */
+	private final Map<Class<?>, DAOImpl<?>> mappers = new ConcurrentHashMap<Class<?>, DAOImpl<?>>();
 		
 	/** Mapping configuration */
 	private IMappgingConfiguration mappingConfiguration;
+
+	/** Maximum count of rows sent in a single batch */
+	private volatile int batchSize = DAOImpl.DEFAULT_BATCH_SIZE;
 	
 	/**
 	 * Constructeur par d�faut.
@@ -41,17 +48,50 @@ public class DAOFactory {
 	
 	/**
 	 * Retourne l'instance singleton de mappeur de la classe.
+	 * <p>
+	 * Once the mapper of a class has been built, this method does not take any
+	 * lock.
+	 * </p>
 	 * @param theClass la classe mapp�e.
 	 * @return l'instance singleton de mappeur de la classe.
 	 */
 	@SuppressWarnings("unchecked")
-	public synchronized <TYPE> IDAO<TYPE> getDAO(Class<TYPE> theClass) {
+	public <TYPE> IDAO<TYPE> getDAO(Class<TYPE> theClass) {
+		DAOImpl<TYPE> mapper = (DAOImpl<TYPE>) mappers.get(theClass);
+		if (mapper==null) {
+			mapper = buildDAO(theClass);
+		}
+		return mapper;
+	}
+
+	/**
+	 * Builds and registers the mapper of a class (unless another thread has
+	 * done it meanwhile).
+	 * @param theClass the mapped class.
+	 * @return the mapper.
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized <TYPE> DAOImpl<TYPE> buildDAO(Class<TYPE> theClass) {
 		DAOImpl<TYPE> mapper = (DAOImpl<TYPE>) mappers.get(theClass);
 		if (mapper==null) {
 			mapper = new DAOImpl<TYPE>(mappingConfiguration, theClass);
+			mapper.setBatchSize(batchSize);
 			mappers.put(theClass, mapper);
 		}
 		return mapper;
 	}
 
+	/**
+	 * Sets the maximum count of rows sent in a single batch by the DAOs.
+	 * @param batchSize the batch size.
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		if (batchSize<1)
+			throw new IllegalArgumentException("Batch size must be positive");
+		for (DAOImpl<?> mapper : mappers.values()) {
+			mapper.setBatchSize(batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
 }
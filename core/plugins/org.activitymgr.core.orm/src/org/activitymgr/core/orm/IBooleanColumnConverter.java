@@ -0,0 +1,46 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter of <code>boolean</code> attributes.
+ *
+ * <p>
+ * A SQL <code>NULL</code> must be read as <code>false</code>.
+ * </p>
+ *
+ * @see ILongColumnConverter
+ */
+public interface IBooleanColumnConverter extends IConverter<Boolean> {
+
+	/**
+	 * Binds a <code>boolean</code> value.
+	 *
+	 * @param stmt
+	 *            the statement.
+	 * @param index
+	 *            the parameter index.
+	 * @param value
+	 *            the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void bindBoolean(PreparedStatement stmt, int index, boolean value)
+			throws SQLException;
+
+	/**
+	 * Reads a <code>boolean</code> value.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param index
+	 *            the column index.
+	 * @return the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	boolean readBoolean(ResultSet rs, int index) throws SQLException;
+
+}
@@ -0,0 +1,46 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter of <code>byte</code> attributes.
+ *
+ * <p>
+ * A SQL <code>NULL</code> must be read as <code>0</code>.
+ * </p>
+ *
+ * @see ILongColumnConverter
+ */
+public interface IByteColumnConverter extends IConverter<Byte> {
+
+	/**
+	 * Binds a <code>byte</code> value.
+	 *
+	 * @param stmt
+	 *            the statement.
+	 * @param index
+	 *            the parameter index.
+	 * @param value
+	 *            the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void bindByte(PreparedStatement stmt, int index, byte value)
+			throws SQLException;
+
+	/**
+	 * Reads a <code>byte</code> value.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param index
+	 *            the column index.
+	 * @return the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	byte readByte(ResultSet rs, int index) throws SQLException;
+
+}
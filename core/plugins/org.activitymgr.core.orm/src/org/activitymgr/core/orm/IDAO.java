@@ -4,6 +4,8 @@ import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 public interface IDAO<TYPE> {
 
@@ -30,10 +32,211 @@ public interface IDAO<TYPE> {
 			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
 			int maxRows) throws SQLException;
 
+	/**
+	 * Streams the rows matching a where clause instead of loading them all in
+	 * memory.
+	 * 
+	 * <p>
+	 * The returned stream holds an open statement : it must be closed (
+	 * <code>try</code>-with-resources) unless it is fully consumed. On MySQL,
+	 * the result set is streamed by the server and the connection cannot be
+	 * used for another request until the stream is closed.
+	 * </p>
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the stream.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 * @see ResultSetStreams
+	 */
+	public Stream<TYPE> stream(Connection con,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws SQLException;
+
+	/**
+	 * Compiles a select request once so that it can be executed many times
+	 * with different parameter values, without building the request again.
+	 * 
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseShapes
+	 *            the shape of the where clause criteria (see
+	 *            {@link CompiledQuery}).
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the compiled query.
+	 */
+	public CompiledQuery<TYPE> compile(String[] whereClauseAttributeNames,
+			Object[] whereClauseShapes, Object[] orderByClauseItems,
+			int maxRows);
+
+	/**
+	 * Executes a compiled select request.
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param query
+	 *            the query (compiled by this DAO).
+	 * @param parameters
+	 *            the parameter values, in statement order.
+	 * @return the selected instances.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public TYPE[] select(Connection con, CompiledQuery<TYPE> query,
+			Object... parameters) throws SQLException;
+
+	/**
+	 * Returns the projection built from a subset of the mapped class
+	 * attributes.
+	 * 
+	 * @param attributeNames
+	 *            the attribute names.
+	 * @return the projection.
+	 */
+	public IProjection<TYPE> getProjection(String... attributeNames);
+
+	/**
+	 * Selects partially hydrated instances : only the projection columns are
+	 * read.
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param projection
+	 *            the projection (built by this DAO).
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the selected instances.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public TYPE[] select(Connection con, IProjection<TYPE> projection,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws SQLException;
+
+	/**
+	 * Selects the values of a single numeric attribute (typically the
+	 * identifiers).
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param attributeName
+	 *            the selected attribute.
+	 * @param whereClauseAttributeNames
+	 *            the attributes of the where clause.
+	 * @param whereClauseAttributeValues
+	 *            the values of the where clause.
+	 * @param orderByClauseItems
+	 *            the order by clause items.
+	 * @param maxRows
+	 *            the maximum count of rows (ignored if not positive).
+	 * @return the selected values.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public long[] selectLongs(Connection con, String attributeName,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws SQLException;
+
 	public TYPE update(Connection con, TYPE value) throws SQLException;
 
+	/**
+	 * Updates only some columns of a row.
+	 * 
+	 * <p>
+	 * The update request only sets the columns of the changed attributes (one
+	 * request is built and cached per set of changed attributes). This
+	 * reduces the volume of data written by the database (logs, replication)
+	 * when only a few columns of a large row are modified.
+	 * </p>
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param value
+	 *            the instance to update.
+	 * @param changedAttributes
+	 *            the names of the changed attributes (primary key attributes
+	 *            excluded). Nothing is written if no attribute is given.
+	 * @return the instance.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public TYPE update(Connection con, TYPE value, String... changedAttributes)
+			throws SQLException;
+
 	public TYPE insert(Connection con, TYPE value) throws SQLException;
 
+	/**
+	 * Inserts several rows using JDBC batches.
+	 * 
+	 * <p>
+	 * This is the recommended write path when many rows must be written,
+	 * especially with embedded databases (HSQLDB, H2) where the cost of a
+	 * statement execution dominates. The generated keys are set back into the
+	 * auto generated attribute of each instance (H2 does not return them for
+	 * a batch, so the rows are inserted one at a time in that case).
+	 * </p>
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param values
+	 *            the instances to insert.
+	 * @return the count of inserted rows.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public int insertAll(Connection con, Collection<TYPE> values)
+			throws SQLException;
+
+	/**
+	 * Updates several rows using JDBC batches.
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param values
+	 *            the instances to update.
+	 * @return the count of updated rows.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public int updateAll(Connection con, Collection<TYPE> values)
+			throws SQLException;
+
+	/**
+	 * Deletes the rows of several instances (by primary key) using JDBC
+	 * batches.
+	 * 
+	 * @param con
+	 *            the connection.
+	 * @param values
+	 *            the instances to delete.
+	 * @return the count of deleted rows.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public int deleteAll(Connection con, Collection<TYPE> values)
+			throws SQLException;
+
 	public long countAll(Connection con) throws SQLException;
 
 	public long count(Connection con, String[] whereClauseAttributeNames,
@@ -47,5 +250,14 @@ public interface IDAO<TYPE> {
 
 	public TYPE newInstance();
 
+	/**
+	 * Builds a copy of an instance (all the mapped attributes are copied).
+	 * 
+	 * @param instance
+	 *            the instance to copy.
+	 * @return the copy.
+	 */
+	public TYPE copy(TYPE instance);
+
 }
 
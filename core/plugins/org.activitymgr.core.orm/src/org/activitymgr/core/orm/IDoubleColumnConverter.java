@@ -0,0 +1,46 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter of <code>double</code> attributes.
+ *
+ * <p>
+ * A SQL <code>NULL</code> must be read as <code>0</code>.
+ * </p>
+ *
+ * @see ILongColumnConverter
+ */
+public interface IDoubleColumnConverter extends IConverter<Double> {
+
+	/**
+	 * Binds a <code>double</code> value.
+	 *
+	 * @param stmt
+	 *            the statement.
+	 * @param index
+	 *            the parameter index.
+	 * @param value
+	 *            the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void bindDouble(PreparedStatement stmt, int index, double value)
+			throws SQLException;
+
+	/**
+	 * Reads a <code>double</code> value.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param index
+	 *            the column index.
+	 * @return the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	double readDouble(ResultSet rs, int index) throws SQLException;
+
+}
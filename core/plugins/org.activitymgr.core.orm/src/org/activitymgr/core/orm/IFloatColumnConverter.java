@@ -0,0 +1,46 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter of <code>float</code> attributes.
+ *
+ * <p>
+ * A SQL <code>NULL</code> must be read as <code>0</code>.
+ * </p>
+ *
+ * @see ILongColumnConverter
+ */
+public interface IFloatColumnConverter extends IConverter<Float> {
+
+	/**
+	 * Binds a <code>float</code> value.
+	 *
+	 * @param stmt
+	 *            the statement.
+	 * @param index
+	 *            the parameter index.
+	 * @param value
+	 *            the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void bindFloat(PreparedStatement stmt, int index, float value)
+			throws SQLException;
+
+	/**
+	 * Reads a <code>float</code> value.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param index
+	 *            the column index.
+	 * @return the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	float readFloat(ResultSet rs, int index) throws SQLException;
+
+}
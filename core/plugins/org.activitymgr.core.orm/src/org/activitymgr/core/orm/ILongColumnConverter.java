@@ -0,0 +1,46 @@
+package org.activitymgr.core.orm;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter of <code>long</code> attributes.
+ *
+ * <p>
+ * The DAOs use the primitive methods to read and bind the attributes of type
+ * <code>long</code>, without boxing the values. A SQL <code>NULL</code> must
+ * be read as <code>0</code>.
+ * </p>
+ */
+public interface ILongColumnConverter extends IConverter<Long> {
+
+	/**
+	 * Binds a <code>long</code> value.
+	 *
+	 * @param stmt
+	 *            the statement.
+	 * @param index
+	 *            the parameter index.
+	 * @param value
+	 *            the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void bindLong(PreparedStatement stmt, int index, long value)
+			throws SQLException;
+
+	/**
+	 * Reads a <code>long</code> value.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param index
+	 *            the column index.
+	 * @return the value.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	long readLong(ResultSet rs, int index) throws SQLException;
+
+}
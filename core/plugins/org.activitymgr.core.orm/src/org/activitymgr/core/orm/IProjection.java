@@ -0,0 +1,68 @@
+package org.activitymgr.core.orm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Subset of the attributes of a mapped class.
+ *
+ * <p>
+ * A projection is used to select only some columns of a table, either
+ * through the DAO projection selects or in custom SQL requests (the column
+ * names fragment and the readers follow the projection attributes order).
+ * The instances read through a projection are partially hydrated : the
+ * attributes that are not part of the projection keep their default value.
+ * </p>
+ *
+ * <p>
+ * Projections are immutable and may be shared between threads.
+ * </p>
+ *
+ * @param <TYPE>
+ *            the mapped class.
+ * @see IDAO#getProjection(String...)
+ */
+public interface IProjection<TYPE> {
+
+	/**
+	 * @return the projection attribute names.
+	 */
+	String[] getAttributeNames();
+
+	/**
+	 * Returns the column names of the projection, separated by commas, to be
+	 * used in a select clause.
+	 *
+	 * @param tableAliasToUse
+	 *            the table alias to use (may be <code>null</code>).
+	 * @return the column names request fragment.
+	 */
+	String getColumnNamesRequestFragment(String tableAliasToUse);
+
+	/**
+	 * Reads a partially hydrated instance from the current row.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param fromIndex
+	 *            the index of the first projection column.
+	 * @return the instance.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	TYPE read(ResultSet rs, int fromIndex) throws SQLException;
+
+	/**
+	 * Reads the projection attribute values from the current row.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param fromIndex
+	 *            the index of the first projection column.
+	 * @return the values, in projection order.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	Object[] readValues(ResultSet rs, int fromIndex) throws SQLException;
+
+}
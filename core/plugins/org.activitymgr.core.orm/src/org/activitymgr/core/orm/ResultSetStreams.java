@@ -0,0 +1,140 @@
+package org.activitymgr.core.orm;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Helpers used to stream the rows of a query instead of loading them all in
+ * memory.
+ *
+ * <p>
+ * The statements are prepared as forward only / read only statements with a
+ * fetch size. On MySQL, the fetch size is <code>Integer.MIN_VALUE</code>,
+ * which asks the driver for a server side streaming result set. With such a
+ * result set, no other request may be executed on the same connection until
+ * the stream is closed.
+ * </p>
+ *
+ * <p>
+ * The statement is closed when the stream is exhausted and when the stream is
+ * closed : streams should be consumed in a <code>try</code>-with-resources
+ * block.
+ * </p>
+ */
+public class ResultSetStreams {
+
+	/** Default fetch size */
+	public static final int DEFAULT_FETCH_SIZE = 500;
+
+	/**
+	 * Prepares a statement suited for streaming.
+	 *
+	 * @param con
+	 *            the connection.
+	 * @param sql
+	 *            the SQL request.
+	 * @return the statement.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	public static PreparedStatement prepareStatement(Connection con, String sql)
+			throws SQLException {
+		PreparedStatement pStmt = con.prepareStatement(sql,
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		try {
+			pStmt.setFetchSize(isMySQL(con) ? Integer.MIN_VALUE
+					: DEFAULT_FETCH_SIZE);
+		} catch (SQLException e) {
+			pStmt.close();
+			throw e;
+		}
+		return pStmt;
+	}
+
+	/**
+	 * Executes a statement and streams its rows.
+	 *
+	 * @param pStmt
+	 *            the statement to execute (its parameters must be bound).
+	 * @param reader
+	 *            the row reader.
+	 * @param exceptionTranslator
+	 *            translates the SQL exceptions raised while the stream is
+	 *            consumed.
+	 * @return the stream (that closes the statement when closed).
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs (the statement is closed in
+	 *             that case).
+	 */
+	public static <TYPE> Stream<TYPE> stream(final PreparedStatement pStmt,
+			final Function<ResultSet, TYPE> reader,
+			final Function<SQLException, RuntimeException> exceptionTranslator)
+			throws SQLException {
+		final ResultSet rs;
+		try {
+			rs = pStmt.executeQuery();
+		} catch (SQLException e) {
+			close(pStmt);
+			throw e;
+		}
+		final Runnable closer = new Runnable() {
+			@Override
+			public void run() {
+				close(pStmt);
+			}
+		};
+		Spliterator<TYPE> spliterator = new Spliterators.AbstractSpliterator<TYPE>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super TYPE> action) {
+				try {
+					if (!rs.next()) {
+						closer.run();
+						return false;
+					}
+					action.accept(reader.apply(rs));
+					return true;
+				} catch (SQLException e) {
+					closer.run();
+					throw exceptionTranslator.apply(e);
+				}
+			}
+		};
+		return StreamSupport.stream(spliterator, false).onClose(closer);
+	}
+
+	/**
+	 * Closes a statement, ignoring the errors.
+	 *
+	 * @param pStmt
+	 *            the statement.
+	 */
+	private static void close(PreparedStatement pStmt) {
+		try {
+			if (!pStmt.isClosed()) {
+				pStmt.close();
+			}
+		} catch (SQLException ignored) {
+		}
+	}
+
+	/**
+	 * @param con
+	 *            the connection.
+	 * @return <code>true</code> if the database is a MySQL database.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	private static boolean isMySQL(Connection con) throws SQLException {
+		return "MySQL".equals(con.getMetaData().getDatabaseProductName());
+	}
+
+}
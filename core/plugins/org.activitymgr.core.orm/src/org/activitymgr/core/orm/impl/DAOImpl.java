@@ -15,14 +15,20 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+import org.activitymgr.core.orm.CompiledQuery;
 import org.activitymgr.core.orm.IConverter;
 import org.activitymgr.core.orm.IDAO;
+import org.activitymgr.core.orm.IProjection;
+import org.activitymgr.core.orm.ResultSetStreams;
 import org.activitymgr.core.orm.impl.converters.BigDecimalConverter;
 import org.activitymgr.core.orm.impl.converters.BooleanConverter;
 import org.activitymgr.core.orm.impl.converters.ByteConverter;
@@ -59,6 +65,9 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	/** Logger */
 	private static Logger sqlLog = Logger.getLogger("dbClassMapper.logsqlrequests");
 
+	/** Default batch size */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
 	/** Default converters */
 	private static final Map<Class<?>, IConverter<?>> DEFAULT_CONVERTERS = new HashMap<Class<?>, IConverter<?>>();
 	
@@ -70,7 +79,7 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		DEFAULT_CONVERTERS.put(byte.class, new ByteConverter());
 		DEFAULT_CONVERTERS.put(Calendar.class, new CalendarConverter());
 		DEFAULT_CONVERTERS.put(Character.class, new CharacterConverter());
-		DEFAULT_CONVERTERS.put(char.class, new CalendarConverter());
+		DEFAULT_CONVERTERS.put(char.class, new CharacterConverter());
 		DEFAULT_CONVERTERS.put(Double.class, new DoubleConverter());
 		DEFAULT_CONVERTERS.put(double.class, new DoubleConverter());
 		DEFAULT_CONVERTERS.put(Float.class, new FloatConverter());
@@ -124,6 +133,24 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	/** Class constructor */
 	private Constructor<TYPE> constructor;
 
+	/** Row mappers (with and without the primary key columns) */
+	private RowMapper<TYPE> rowMapper;
+	private RowMapper<TYPE> noPKRowMapper;
+
+	/** Statement binders (insert, update and primary key parameters) */
+	private RowBinder<TYPE> insertBinder;
+	private RowBinder<TYPE> updateBinder;
+	private RowBinder<TYPE> pkBinder;
+
+	/** Partial update requests (by changed attribute names) */
+	private final Map<String, PartialUpdate<TYPE>> partialUpdates = new ConcurrentHashMap<String, PartialUpdate<TYPE>>();
+
+	/** Projections (by attribute names) */
+	private final Map<String, Projection<TYPE>> projections = new ConcurrentHashMap<String, Projection<TYPE>>();
+
+	/** Maximum count of rows sent in a single batch */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
 	/**
 	 * Constructeur priv�.
 	 * @param mapping mapping de la classe mapp�e.
@@ -196,6 +223,21 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 			}
 	
 		}
+
+		// Build the row mappers once for all
+		rowMapper = new RowMapper<TYPE>(constructor, attributes, converters);
+		List<Field> noPKAttributes = new ArrayList<Field>(attributes);
+		noPKAttributes.removeAll(pkAttributes);
+		noPKRowMapper = new RowMapper<TYPE>(constructor, noPKAttributes, converters);
+
+		// Build the statement binders once for all
+		List<Field> insertAttributes = new ArrayList<Field>(attributes);
+		insertAttributes.remove(autoGeneratedAttribute);
+		insertBinder = new RowBinder<TYPE>(insertAttributes, converters);
+		List<Field> updateAttributes = new ArrayList<Field>(noPKAttributes);
+		updateAttributes.remove(autoGeneratedAttribute);
+		updateBinder = new RowBinder<TYPE>(updateAttributes, converters);
+		pkBinder = new RowBinder<TYPE>(pkAttributes, converters);
 		
 		// Construction de la requ�te de s�lection de toute les valeurs
 		// d'un table
@@ -203,8 +245,8 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		appendColumnNames(buf, null, true, true, false);
 		buf.append(" from ").append(tableName);
 		selectAllRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("selectAllRequest='" + selectAllRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("selectAllRequest='" + selectAllRequest + "'");
 
 		// Construction de la requ�te de s�lection � partir de la cl� primaire
 		// (r�utilisation de la requ�te selectAllRequest)
@@ -214,23 +256,23 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		buf.append(" from ").append(tableName);
 		appendWherePK(buf);
 		selectWithPKRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("selectWithPKRequest='" + selectWithPKRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("selectWithPKRequest='" + selectWithPKRequest + "'");
 		
 		// Construction de la requ�te de suppression � partir de la cl� primaire
 		buf.setLength(0);
 		buf.append("delete from ").append(tableName);
 		deletAllRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("deletAllRequest='" + deletAllRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("deletAllRequest='" + deletAllRequest + "'");
 
 		// Construction de la requ�te de suppression � partir de la cl� primaire
 		buf.setLength(0);
 		buf.append(deletAllRequest);
 		appendWherePK(buf);
 		deletWithPKRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("deletWithPKRequest='" + deletWithPKRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("deletWithPKRequest='" + deletWithPKRequest + "'");
 
 		// Construction de la requ�te d'insertion
 		buf.setLength(0);
@@ -246,8 +288,8 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		}
 		buf.append(")");
 		insertRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("insertRequest='" + insertRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("insertRequest='" + insertRequest + "'");
 
 		// Construction de la requ�te de mise � jour
 		buf.setLength(0);
@@ -255,15 +297,15 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		appendColumnNames(buf, null, false, false, true);
 		appendWherePK(buf);
 		updateRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("updateRequest='" + updateRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("updateRequest='" + updateRequest + "'");
 		
 		// Construction de la requ�te de comptage de toutes les lignes
 		buf.setLength(0);
 		buf.append("select count(*) from ").append(tableName);
 		countAllRequest = buf.toString();
-		if (log.isInfoEnabled())
-			log.info("countAllRequest='" + countAllRequest + "'");
+		if (log.isDebugEnabled())
+			log.debug("countAllRequest='" + countAllRequest + "'");
 	}
 	
 	/* (non-Javadoc)
@@ -333,11 +375,7 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		PreparedStatement pStmt = null;
 		try {
 			pStmt = con.prepareStatement(deletWithPKRequest);
-			int parameterIdx = 1;
-			for (Field pkAttribute : pkAttributes) {
-				instanceAttributeToStatementColumn(instance, pkAttribute, pStmt, parameterIdx);
-				parameterIdx++;
-			}
+			pkAttributesToStatement(instance, pStmt, 1);
 			// Construction du r�sultat
 			boolean deleted = pStmt.executeUpdate()==1;
 
@@ -524,8 +562,25 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	private String builSelectRequest(String[] whereClauseAttributeNames, 
 			Object[] whereClauseAttributeValues, 
 			Object[] orderByClauseItems, int maxRows) throws SQLException {
-		StringBuffer buf = new StringBuffer(selectAllRequest);
+		return builSelectRequest(selectAllRequest, whereClauseAttributeNames, whereClauseAttributeValues, orderByClauseItems, maxRows);
+	}
+
+	private String builSelectRequest(String selectRequest, String[] whereClauseAttributeNames, 
+			Object[] whereClauseAttributeValues, 
+			Object[] orderByClauseItems, int maxRows) throws SQLException {
+		StringBuffer buf = new StringBuffer(selectRequest);
 		appendCustomWhereClause(buf, whereClauseAttributeNames, whereClauseAttributeValues);
+		appendOrderByClause(buf, orderByClauseItems);
+		// Ajout de la clause limit
+		if (maxRows>0)
+			buf.append(" limit ?");
+		String request = buf.toString();
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug("customSelectRequest=" + request);
+		return request;
+	}
+	
+	private void appendOrderByClause(StringBuffer buf, Object[] orderByClauseItems) {
 		// Ajout de la clause 'order by'
 		if (orderByClauseItems!=null && orderByClauseItems.length>0) {
 			buf.append(" order by ");
@@ -549,15 +604,8 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 				}
 			}
 		}
-		// Ajout de la clause limit
-		if (maxRows>0)
-			buf.append(" limit ?");
-		String request = buf.toString();
-		if (sqlLog.isDebugEnabled())
-			sqlLog.debug("customSelectRequest=" + request);
-		return request;
 	}
-	
+
 	/* (non-Javadoc)
 	 * @see org.activitymgr.core.orm.impl.IDbClassMapper#select(java.sql.Connection, java.lang.String[], java.lang.Object[], java.lang.Object[], int)
 	 */
@@ -606,9 +654,189 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#stream(java.sql.Connection, java.lang.String[], java.lang.Object[], java.lang.Object[], int)
+	 */
+	@Override
+	public Stream<TYPE> stream(Connection con, 
+			String[] whereClauseAttributeNames, 
+			Object[] whereClauseAttributeValues, 
+			Object[] orderByClauseItems, int maxRows) throws SQLException {
+		String request = builSelectRequest(whereClauseAttributeNames, whereClauseAttributeValues, orderByClauseItems, maxRows);
+		PreparedStatement pStmt = ResultSetStreams.prepareStatement(con, request);
+		try {
+			// Binding de la clause where
+			int parametersCount = bindAttributeValueToStatement(pStmt, whereClauseAttributeNames, whereClauseAttributeValues);
+			// Binding de la clause limit
+			if (maxRows>0)
+				pStmt.setInt(parametersCount, maxRows);
+		}
+		catch (SQLException | RuntimeException e) {
+			try { pStmt.close(); } catch (SQLException ignored) {}
+			throw e;
+		}
+		return ResultSetStreams.stream(pStmt, rs -> read(rs, 1), IllegalStateException::new);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#compile(java.lang.String[], java.lang.Object[], java.lang.Object[], int)
+	 */
+	@Override
+	public CompiledQuery<TYPE> compile(String[] whereClauseAttributeNames,
+			Object[] whereClauseShapes, Object[] orderByClauseItems,
+			int maxRows) {
+		StringBuffer buf = new StringBuffer(selectAllRequest);
+		appendCustomWhereClause(buf, whereClauseAttributeNames, whereClauseShapes);
+		appendOrderByClause(buf, orderByClauseItems);
+		// The limit is part of the compiled request
+		if (maxRows>0)
+			buf.append(" limit ").append(maxRows);
+		// Binders resolution (one per statement parameter)
+		List<IConverter<?>> binders = new ArrayList<IConverter<?>>();
+		if (whereClauseAttributeNames!=null) {
+			for (int i=0; i<whereClauseAttributeNames.length; i++) {
+				IConverter<?> converter = converters.get(getAttributeByName(whereClauseAttributeNames[i]));
+				Object shape = whereClauseShapes[i];
+				int parametersCount;
+				if (shape == null)
+					parametersCount = 0;
+				else if (shape instanceof InStatement)
+					parametersCount = ((InStatement) shape).getValues().length;
+				else if (shape instanceof BetweenStatement)
+					parametersCount = 2;
+				else
+					parametersCount = 1;
+				for (int j=0; j<parametersCount; j++)
+					binders.add(converter);
+			}
+		}
+		String request = buf.toString();
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug("compiledSelectRequest=" + request);
+		return new CompiledQuery<TYPE>(this, request, binders.toArray(new IConverter<?>[binders.size()]));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#select(java.sql.Connection, org.activitymgr.core.orm.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public TYPE[] select(Connection con, CompiledQuery<TYPE> query,
+			Object... parameters) throws SQLException {
+		if (!query.isCompiledBy(this))
+			throw new IllegalArgumentException("Query has not been compiled by this DAO : " + query);
+		try (PreparedStatement pStmt = con.prepareStatement(query.getSQL())) {
+			query.bind(pStmt, parameters);
+			ResultSet rs = pStmt.executeQuery();
+			List<Object> result = new ArrayList<Object>();
+			while (rs.next()) {
+				result.add(rowMapper.read(rs, 1));
+			}
+			return result.toArray((TYPE[]) Array.newInstance(mappedClass, result.size()));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#getProjection(java.lang.String[])
+	 */
+	@Override
+	public IProjection<TYPE> getProjection(String... attributeNames) {
+		String key = String.join(",", attributeNames);
+		Projection<TYPE> projection = projections.get(key);
+		if (projection == null) {
+			List<Field> projectionAttributes = new ArrayList<Field>();
+			String[] columnNames = new String[attributeNames.length];
+			IConverter<?>[] projectionConverters = new IConverter<?>[attributeNames.length];
+			for (int i=0; i<attributeNames.length; i++) {
+				Field attribute = getAttributeByName(attributeNames[i]);
+				projectionAttributes.add(attribute);
+				columnNames[i] = columnNamesDictionnary.get(attribute);
+				projectionConverters[i] = converters.get(attribute);
+			}
+			projection = new Projection<TYPE>(this, attributeNames.clone(), columnNames, projectionConverters,
+					new RowMapper<TYPE>(constructor, projectionAttributes, converters));
+			Projection<TYPE> concurrent = projections.putIfAbsent(key, projection);
+			if (concurrent != null)
+				projection = concurrent;
+		}
+		return projection;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#select(java.sql.Connection, org.activitymgr.core.orm.IProjection, java.lang.String[], java.lang.Object[], java.lang.Object[], int)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public TYPE[] select(Connection con, IProjection<TYPE> projection,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws SQLException {
+		if (!(projection instanceof Projection) || !((Projection<TYPE>) projection).isBuiltBy(this))
+			throw new IllegalArgumentException("Projection has not been built by this DAO : " + projection);
+		String request = builSelectRequest(
+				"select " + projection.getColumnNamesRequestFragment(null) + " from " + tableName,
+				whereClauseAttributeNames, whereClauseAttributeValues, orderByClauseItems, maxRows);
+		try (PreparedStatement pStmt = con.prepareStatement(request)) {
+			// Binding de la clause where
+			int parametersCount = bindAttributeValueToStatement(pStmt, whereClauseAttributeNames, whereClauseAttributeValues);
+			// Binding de la clause limit
+			if (maxRows>0)
+				pStmt.setInt(parametersCount, maxRows);
+			ResultSet rs = pStmt.executeQuery();
+			List<Object> result = new ArrayList<Object>();
+			while (rs.next()) {
+				result.add(projection.read(rs, 1));
+			}
+			return result.toArray((TYPE[]) Array.newInstance(mappedClass, result.size()));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#selectLongs(java.sql.Connection, java.lang.String, java.lang.String[], java.lang.Object[], java.lang.Object[], int)
+	 */
+	@Override
+	public long[] selectLongs(Connection con, String attributeName,
+			String[] whereClauseAttributeNames,
+			Object[] whereClauseAttributeValues, Object[] orderByClauseItems,
+			int maxRows) throws SQLException {
+		String request = builSelectRequest(
+				"select " + getColumnName(attributeName) + " from " + tableName,
+				whereClauseAttributeNames, whereClauseAttributeValues, orderByClauseItems, maxRows);
+		try (PreparedStatement pStmt = con.prepareStatement(request)) {
+			// Binding de la clause where
+			int parametersCount = bindAttributeValueToStatement(pStmt, whereClauseAttributeNames, whereClauseAttributeValues);
+			// Binding de la clause limit
+			if (maxRows>0)
+				pStmt.setInt(parametersCount, maxRows);
+			ResultSet rs = pStmt.executeQuery();
+			long[] result = new long[16];
+			int count = 0;
+			while (rs.next()) {
+				if (count == result.length)
+					result = Arrays.copyOf(result, count * 2);
+				result[count++] = rs.getLong(1);
+			}
+			return Arrays.copyOf(result, count);
+		}
+	}
+
 	@Override
 	public TYPE newInstance() {
-		return ReflectionHelper.newInstance(constructor);
+		return rowMapper.newInstance();
+	}
+
+	@Override
+	public TYPE copy(TYPE instance) {
+		TYPE copy = newInstance();
+		try {
+			for (Field attribute : attributes) {
+				attribute.set(copy, attribute.get(instance));
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(
+					"Error while copying instance attributes", e);
+		}
+		return copy;
 	}
 
 	/* (non-Javadoc)
@@ -622,11 +850,7 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		try {
 			pStmt = con.prepareStatement(updateRequest);
 			int mappedParametersNb = instanceAttributesToStatement(value, pStmt, false, false);
-			int parameterIdx = mappedParametersNb + 1;
-			for (Field pkAttribute : pkAttributes) {
-				instanceAttributeToStatementColumn(value, pkAttribute, pStmt, parameterIdx);
-				parameterIdx++;
-			}
+			pkAttributesToStatement(value, pStmt, mappedParametersNb + 1);
 			int updated = pStmt.executeUpdate();
 			if (updated!=1)
 				throw new IllegalStateException("Row update failed");
@@ -648,6 +872,66 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#update(java.sql.Connection, java.lang.Object, java.lang.String[])
+	 */
+	@Override
+	public TYPE update(Connection con, TYPE value, String... changedAttributes) throws SQLException {
+		if (changedAttributes.length == 0)
+			return value;
+		PartialUpdate<TYPE> partialUpdate = getPartialUpdate(changedAttributes);
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug(partialUpdate.request);
+		try (PreparedStatement pStmt = con.prepareStatement(partialUpdate.request)) {
+			int mappedParametersNb = partialUpdate.binder.bind(value, pStmt, 1);
+			pkAttributesToStatement(value, pStmt, mappedParametersNb + 1);
+			int updated = pStmt.executeUpdate();
+			if (updated!=1)
+				throw new IllegalStateException("Row update failed");
+			return value;
+		} catch (IllegalArgumentException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		} catch (IllegalAccessException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		}
+	}
+
+	/**
+	 * Returns the partial update request for a set of changed attributes
+	 * (built on first use).
+	 * @param changedAttributes the changed attributes.
+	 * @return the partial update request.
+	 */
+	private PartialUpdate<TYPE> getPartialUpdate(String[] changedAttributes) {
+		String key = String.join(",", changedAttributes);
+		PartialUpdate<TYPE> partialUpdate = partialUpdates.get(key);
+		if (partialUpdate == null) {
+			List<Field> changedFields = new ArrayList<Field>();
+			for (String changedAttribute : changedAttributes) {
+				Field attribute = getAttributeByName(changedAttribute);
+				if (pkAttributes.contains(attribute) || attribute.equals(autoGeneratedAttribute))
+					throw new IllegalArgumentException("Attribute '" + changedAttribute + "' cannot be updated");
+				if (!changedFields.contains(attribute))
+					changedFields.add(attribute);
+			}
+			StringBuffer buf = new StringBuffer("update ").append(tableName).append(" set ");
+			for (int i=0; i<changedFields.size(); i++) {
+				if (i!=0) buf.append(", ");
+				buf.append(columnNamesDictionnary.get(changedFields.get(i))).append("=?");
+			}
+			appendWherePK(buf);
+			if (log.isDebugEnabled())
+				log.debug("partialUpdateRequest='" + buf + "'");
+			partialUpdate = new PartialUpdate<TYPE>(buf.toString(), new RowBinder<TYPE>(changedFields, converters));
+			PartialUpdate<TYPE> concurrent = partialUpdates.putIfAbsent(key, partialUpdate);
+			if (concurrent != null)
+				partialUpdate = concurrent;
+		}
+		return partialUpdate;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.activitymgr.core.orm.impl.IDbClassMapper#insert(java.sql.Connection, TYPE)
 	 */
@@ -681,6 +965,198 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#insertAll(java.sql.Connection, java.util.Collection)
+	 */
+	@Override
+	public int insertAll(Connection con, Collection<TYPE> values) throws SQLException {
+		// H2 only returns the key generated for the last row of a batch ;
+		// rows are inserted one at a time in that case
+		boolean readKeys = autoGeneratedAttribute!=null;
+		if (readKeys && !supportsBatchGeneratedKeys(con)) {
+			for (TYPE value : values) {
+				insert(con, value);
+			}
+			return values.size();
+		}
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug("batch " + insertRequest);
+		PreparedStatement pStmt = null;
+		try {
+			pStmt = readKeys 
+					? con.prepareStatement(insertRequest, Statement.RETURN_GENERATED_KEYS)
+					: con.prepareStatement(insertRequest);
+			List<TYPE> pending = new ArrayList<TYPE>();
+			int inserted = 0;
+			for (TYPE value : values) {
+				instanceAttributesToStatement(value, pStmt, true, false);
+				pStmt.addBatch();
+				pending.add(value);
+				if (pending.size()==batchSize) {
+					inserted += executeBatch(pStmt, pending, readKeys, "Row insertion failed");
+				}
+			}
+			if (!pending.isEmpty()) {
+				inserted += executeBatch(pStmt, pending, readKeys, "Row insertion failed");
+			}
+			// Close the statement
+			pStmt.close();
+			pStmt = null;
+
+			// Return the result
+			return inserted;
+		} catch (IllegalArgumentException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		} catch (IllegalAccessException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		}
+		finally {
+			if (pStmt!=null) try { pStmt.close(); } catch (SQLException ignored) {}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#updateAll(java.sql.Connection, java.util.Collection)
+	 */
+	@Override
+	public int updateAll(Connection con, Collection<TYPE> values) throws SQLException {
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug("batch " + updateRequest);
+		PreparedStatement pStmt = null;
+		try {
+			pStmt = con.prepareStatement(updateRequest);
+			List<TYPE> pending = new ArrayList<TYPE>();
+			int updated = 0;
+			for (TYPE value : values) {
+				int parameterIdx = instanceAttributesToStatement(value, pStmt, false, false) + 1;
+				pkAttributesToStatement(value, pStmt, parameterIdx);
+				pStmt.addBatch();
+				pending.add(value);
+				if (pending.size()==batchSize) {
+					updated += executeBatch(pStmt, pending, false, "Row update failed");
+				}
+			}
+			if (!pending.isEmpty()) {
+				updated += executeBatch(pStmt, pending, false, "Row update failed");
+			}
+			// Close the statement
+			pStmt.close();
+			pStmt = null;
+
+			// Return the result
+			return updated;
+		} catch (IllegalArgumentException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		} catch (IllegalAccessException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		}
+		finally {
+			if (pStmt!=null) try { pStmt.close(); } catch (SQLException ignored) {}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.activitymgr.core.orm.IDAO#deleteAll(java.sql.Connection, java.util.Collection)
+	 */
+	@Override
+	public int deleteAll(Connection con, Collection<TYPE> values) throws SQLException {
+		if (sqlLog.isDebugEnabled())
+			sqlLog.debug("batch " + deletWithPKRequest);
+		PreparedStatement pStmt = null;
+		try {
+			pStmt = con.prepareStatement(deletWithPKRequest);
+			List<TYPE> pending = new ArrayList<TYPE>();
+			int deleted = 0;
+			for (TYPE value : values) {
+				pkAttributesToStatement(value, pStmt, 1);
+				pStmt.addBatch();
+				pending.add(value);
+				if (pending.size()==batchSize) {
+					deleted += executeBatch(pStmt, pending, false, null);
+				}
+			}
+			if (!pending.isEmpty()) {
+				deleted += executeBatch(pStmt, pending, false, null);
+			}
+			// Close the statement
+			pStmt.close();
+			pStmt = null;
+
+			// Return the result
+			return deleted;
+		} catch (IllegalArgumentException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		} catch (IllegalAccessException e) {
+			log.error("Error while accessing instance attribute", e);
+			throw new IllegalStateException("Error while accessing instance attribute", e); 
+		}
+		finally {
+			if (pStmt!=null) try { pStmt.close(); } catch (SQLException ignored) {}
+		}
+	}
+
+	/**
+	 * Executes the pending batch.
+	 * @param pStmt the statement.
+	 * @param pending the instances bound to the batch (cleared on return).
+	 * @param readKeys <code>true</code> if the generated keys must be 
+	 * 		read back into the instances.
+	 * @param failureMessage the message of the exception to raise if a row
+	 * 		is not affected (<code>null</code> if it is allowed).
+	 * @return the count of affected rows.
+	 * @throws SQLException thrown if a SQL exception occurs.
+	 * @throws IllegalAccessException 
+	 * @throws IllegalArgumentException 
+	 */
+	private int executeBatch(PreparedStatement pStmt, List<TYPE> pending, boolean readKeys, String failureMessage) throws SQLException, IllegalArgumentException, IllegalAccessException {
+		int[] counts = pStmt.executeBatch();
+		int total = 0;
+		for (int count : counts) {
+			// Some drivers only tell that the row succeeded
+			if (count==Statement.SUCCESS_NO_INFO)
+				count = 1;
+			if (count!=1 && failureMessage!=null)
+				throw new IllegalStateException(failureMessage);
+			total += count;
+		}
+		if (readKeys) {
+			ResultSet rs = pStmt.getGeneratedKeys();
+			try {
+				for (TYPE value : pending) {
+					if (!rs.next())
+						throw new IllegalStateException("Error while retrieving auto generated key");
+					resultSetColumnToInstanceAttribute(rs, 1, value, autoGeneratedAttribute);
+				}
+			}
+			finally {
+				rs.close();
+			}
+		}
+		pending.clear();
+		return total;
+	}
+
+	/**
+	 * @return the maximum count of rows sent in a single batch.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize the maximum count of rows sent in a single batch.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize<1)
+			throw new IllegalArgumentException("Batch size must be positive");
+		this.batchSize = batchSize;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.activitymgr.core.orm.impl.IDbClassMapper#countAll(java.sql.Connection)
 	 */
@@ -742,6 +1218,9 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	private int instanceAttributesToStatement(TYPE instance, PreparedStatement pStmt, boolean includePK, boolean includeAutoGenerated) throws SQLException, IllegalArgumentException, IllegalAccessException {
 		if (log.isDebugEnabled())
 			log.debug("instanceAttributesToStatement(" + instance + ", " + pStmt + ", " + includePK + ", " + includeAutoGenerated + ")");
+		// Pre-compiled binders (unless the attributes are logged)
+		if (!log.isDebugEnabled() && !includeAutoGenerated)
+			return (includePK ? insertBinder : updateBinder).bind(instance, pStmt, 1);
 		int parameterIdx = 1;
 		for (Field attribute : attributes) {
 			if ((includePK || !pkAttributes.contains(attribute)) 
@@ -753,6 +1232,20 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		return parameterIdx-1;
 	}
 
+	private void pkAttributesToStatement(TYPE instance, PreparedStatement pStmt, int fromIndex) throws SQLException, IllegalArgumentException, IllegalAccessException {
+		// Pre-compiled binder (unless the attributes are logged)
+		if (!log.isDebugEnabled()) {
+			pkBinder.bind(instance, pStmt, fromIndex);
+		}
+		else {
+			int parameterIdx = fromIndex;
+			for (Field pkAttribute : pkAttributes) {
+				instanceAttributeToStatementColumn(instance, pkAttribute, pStmt, parameterIdx);
+				parameterIdx++;
+			}
+		}
+	}
+
 	private void instanceAttributeToStatementColumn(TYPE instance, Field attribute, PreparedStatement pStmt, int parameterIdx) throws SQLException, IllegalArgumentException, IllegalAccessException {
 		Object attributeValue = attribute.get(instance);
 		attributeValueToStatementColumn(attribute, attributeValue, pStmt, parameterIdx);
@@ -826,7 +1319,7 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	@Override
 	public TYPE read(ResultSet rs, int fromIndex) {
 		try {
-			TYPE instance = ReflectionHelper.newInstance(constructor);
+			TYPE instance = newInstance();
 			resultSetToInstanceAttributes(rs, fromIndex, instance, true);
 			return instance;
 		} catch (IllegalArgumentException e) {
@@ -843,6 +1336,11 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 	}
 
 	private void resultSetToInstanceAttributes(ResultSet rs, int fromIndex, TYPE instance, boolean includePK) throws SQLException, IllegalArgumentException, IllegalAccessException {
+		// Use the pre-built row mapper, unless the attribute values must be traced
+		if (!log.isDebugEnabled()) {
+			(includePK ? rowMapper : noPKRowMapper).read(rs, fromIndex, instance);
+			return;
+		}
 		int parameterIdx = fromIndex;
 		for (Field attribute : attributes) {
 			if (includePK || !pkAttributes.contains(attribute)) {
@@ -1050,6 +1548,31 @@ public class DAOImpl<TYPE> implements IDAO<TYPE> {
 		return "HSQL Database Engine".equals(dbName);
 	}
 
+	/**
+	 * Tells whether the database returns the keys generated for every row
+	 * of a batch (H2 only returns the last one).
+	 * @param con the SQL connection.
+	 * @return <code>true</code> if the keys of a batch are available.
+	 * @throws SQLException thrown if a SQL exception occurs.
+	 */
+	private static boolean supportsBatchGeneratedKeys(Connection con) throws SQLException {
+		return !"H2".equals(con.getMetaData().getDatabaseProductName());
+	}
 
+	/**
+	 * Partial update request and its binder.
+	 */
+	private static class PartialUpdate<TYPE> {
+		
+		private final String request;
+		
+		private final RowBinder<TYPE> binder;
+
+		private PartialUpdate(String request, RowBinder<TYPE> binder) {
+			this.request = request;
+			this.binder = binder;
+		}
+
+	}
 
 }
@@ -0,0 +1,105 @@
+package org.activitymgr.core.orm.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IProjection;
+
+/**
+ * Projection built by a DAO.
+ *
+ * @param <TYPE>
+ *            the mapped class.
+ */
+class Projection<TYPE> implements IProjection<TYPE> {
+
+	/** DAO that built the projection */
+	private final DAOImpl<TYPE> dao;
+
+	/** Attribute names */
+	private final String[] attributeNames;
+
+	/** Column names */
+	private final String[] columnNames;
+
+	/** Attribute converters */
+	private final IConverter<?>[] converters;
+
+	/** Row mapper (partial hydration) */
+	private final RowMapper<TYPE> rowMapper;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param dao
+	 *            the DAO that built the projection.
+	 * @param attributeNames
+	 *            the attribute names.
+	 * @param columnNames
+	 *            the column names.
+	 * @param converters
+	 *            the attribute converters.
+	 * @param rowMapper
+	 *            the row mapper reading the projection attributes.
+	 */
+	Projection(DAOImpl<TYPE> dao, String[] attributeNames,
+			String[] columnNames, IConverter<?>[] converters,
+			RowMapper<TYPE> rowMapper) {
+		this.dao = dao;
+		this.attributeNames = attributeNames;
+		this.columnNames = columnNames;
+		this.converters = converters;
+		this.rowMapper = rowMapper;
+	}
+
+	/**
+	 * @param dao
+	 *            a DAO.
+	 * @return <code>true</code> if the projection has been built by the given
+	 *         DAO.
+	 */
+	boolean isBuiltBy(DAOImpl<?> dao) {
+		return this.dao == dao;
+	}
+
+	@Override
+	public String[] getAttributeNames() {
+		return attributeNames.clone();
+	}
+
+	@Override
+	public String getColumnNamesRequestFragment(String tableAliasToUse) {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < columnNames.length; i++) {
+			if (i != 0)
+				buf.append(", ");
+			if (tableAliasToUse != null)
+				buf.append(tableAliasToUse).append('.');
+			buf.append(columnNames[i]);
+		}
+		return buf.toString();
+	}
+
+	@Override
+	public TYPE read(ResultSet rs, int fromIndex) throws SQLException {
+		return rowMapper.read(rs, fromIndex);
+	}
+
+	@Override
+	public Object[] readValues(ResultSet rs, int fromIndex)
+			throws SQLException {
+		Object[] values = new Object[converters.length];
+		for (int i = 0; i < values.length; i++) {
+			Object value = converters[i].readValue(rs, fromIndex + i);
+			values[i] = rs.wasNull() ? null : value;
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return getColumnNamesRequestFragment(null);
+	}
+
+}
@@ -0,0 +1,291 @@
+package org.activitymgr.core.orm.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.activitymgr.core.orm.IBooleanColumnConverter;
+import org.activitymgr.core.orm.IByteColumnConverter;
+import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IDoubleColumnConverter;
+import org.activitymgr.core.orm.IFloatColumnConverter;
+import org.activitymgr.core.orm.IIntColumnConverter;
+import org.activitymgr.core.orm.ILongColumnConverter;
+import org.activitymgr.core.orm.IShortColumnConverter;
+import org.apache.log4j.Logger;
+
+/**
+ * Statement binder built once per mapped class and parameter layout.
+ *
+ * <p>
+ * This is the write side counterpart of {@link RowMapper} : one column
+ * writer is resolved ahead of time per attribute, in statement parameter
+ * order. Attributes of a primitive type whose converter is a primitive column
+ * converter are read through a typed method handle and bound as primitives
+ * (no boxing).
+ * </p>
+ *
+ * @param <TYPE>
+ *            the mapped class.
+ */
+class RowBinder<TYPE> {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(RowBinder.class);
+
+	/** Lookup used to build the handles (fields are made accessible by the DAO) */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/** Column writers, in statement parameter order */
+	private final ColumnWriter[] writers;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param attributes
+	 *            the attributes to bind, in statement parameter order.
+	 * @param converters
+	 *            the attribute converters.
+	 */
+	RowBinder(List<Field> attributes, Map<Field, IConverter<?>> converters) {
+		writers = new ColumnWriter[attributes.size()];
+		for (int i = 0; i < writers.length; i++) {
+			Field attribute = attributes.get(i);
+			writers[i] = newColumnWriter(attribute, converters.get(attribute));
+		}
+	}
+
+	/**
+	 * Builds the writer of a given attribute.
+	 *
+	 * @param attribute
+	 *            the attribute.
+	 * @param converter
+	 *            the attribute converter.
+	 * @return the column writer.
+	 */
+	@SuppressWarnings("unchecked")
+	private static ColumnWriter newColumnWriter(Field attribute,
+			IConverter<?> converter) {
+		Class<?> type = attribute.getType();
+		try {
+			MethodHandle getter = LOOKUP.unreflectGetter(attribute);
+			if (type.isPrimitive()) {
+				MethodHandle primitiveGetter = getter.asType(MethodType
+						.methodType(type, Object.class));
+				if (type == long.class && converter instanceof ILongColumnConverter) {
+					return new LongColumnWriter(primitiveGetter, (ILongColumnConverter) converter);
+				} else if (type == int.class && converter instanceof IIntColumnConverter) {
+					return new IntColumnWriter(primitiveGetter, (IIntColumnConverter) converter);
+				} else if (type == short.class && converter instanceof IShortColumnConverter) {
+					return new ShortColumnWriter(primitiveGetter, (IShortColumnConverter) converter);
+				} else if (type == byte.class && converter instanceof IByteColumnConverter) {
+					return new ByteColumnWriter(primitiveGetter, (IByteColumnConverter) converter);
+				} else if (type == double.class && converter instanceof IDoubleColumnConverter) {
+					return new DoubleColumnWriter(primitiveGetter, (IDoubleColumnConverter) converter);
+				} else if (type == float.class && converter instanceof IFloatColumnConverter) {
+					return new FloatColumnWriter(primitiveGetter, (IFloatColumnConverter) converter);
+				} else if (type == boolean.class && converter instanceof IBooleanColumnConverter) {
+					return new BooleanColumnWriter(primitiveGetter, (IBooleanColumnConverter) converter);
+				}
+			}
+			return new ConverterColumnWriter(getter.asType(MethodType
+					.methodType(Object.class, Object.class)),
+					(IConverter<Object>) converter);
+		} catch (IllegalAccessException e) {
+			log.warn("Unable to build a getter handle for " + attribute
+					+ ", falling back to reflection", e);
+			return new ReflectiveColumnWriter(attribute,
+					(IConverter<Object>) converter);
+		}
+	}
+
+	/**
+	 * Binds the attributes of an instance.
+	 *
+	 * @param instance
+	 *            the instance.
+	 * @param pStmt
+	 *            the statement.
+	 * @param fromIndex
+	 *            the index of the first parameter to bind.
+	 * @return the count of bound parameters.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	int bind(TYPE instance, PreparedStatement pStmt, int fromIndex)
+			throws SQLException {
+		try {
+			for (int i = 0; i < writers.length; i++) {
+				writers[i].write(instance, pStmt, fromIndex + i);
+			}
+			return writers.length;
+		} catch (SQLException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(
+					"Error while accessing instance attribute", e);
+		}
+	}
+
+	/**
+	 * Reads one attribute and binds it.
+	 */
+	private static abstract class ColumnWriter {
+
+		abstract void write(Object instance, PreparedStatement pStmt, int idx)
+				throws Throwable;
+
+	}
+
+	private static final class LongColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final ILongColumnConverter converter;
+
+		LongColumnWriter(MethodHandle getter, ILongColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindLong(pStmt, idx, (long) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class IntColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IIntColumnConverter converter;
+
+		IntColumnWriter(MethodHandle getter, IIntColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindInt(pStmt, idx, (int) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class ShortColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IShortColumnConverter converter;
+
+		ShortColumnWriter(MethodHandle getter, IShortColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindShort(pStmt, idx, (short) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class ByteColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IByteColumnConverter converter;
+
+		ByteColumnWriter(MethodHandle getter, IByteColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindByte(pStmt, idx, (byte) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class DoubleColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IDoubleColumnConverter converter;
+
+		DoubleColumnWriter(MethodHandle getter, IDoubleColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindDouble(pStmt, idx, (double) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class FloatColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IFloatColumnConverter converter;
+
+		FloatColumnWriter(MethodHandle getter, IFloatColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindFloat(pStmt, idx, (float) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class BooleanColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IBooleanColumnConverter converter;
+
+		BooleanColumnWriter(MethodHandle getter, IBooleanColumnConverter converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			converter.bindBoolean(pStmt, idx, (boolean) getter.invokeExact(instance));
+		}
+	}
+
+	private static final class ConverterColumnWriter extends ColumnWriter {
+		private final MethodHandle getter;
+		private final IConverter<Object> converter;
+
+		ConverterColumnWriter(MethodHandle getter, IConverter<Object> converter) {
+			this.getter = getter;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			Object value = (Object) getter.invokeExact(instance);
+			if (value == null) {
+				pStmt.setNull(idx, converter.getSQLType());
+			} else {
+				converter.bind(pStmt, idx, value);
+			}
+		}
+	}
+
+	private static final class ReflectiveColumnWriter extends ColumnWriter {
+		private final Field attribute;
+		private final IConverter<Object> converter;
+
+		ReflectiveColumnWriter(Field attribute, IConverter<Object> converter) {
+			this.attribute = attribute;
+			this.converter = converter;
+		}
+
+		@Override
+		void write(Object instance, PreparedStatement pStmt, int idx) throws Throwable {
+			Object value = attribute.get(instance);
+			if (value == null) {
+				pStmt.setNull(idx, converter.getSQLType());
+			} else {
+				converter.bind(pStmt, idx, value);
+			}
+		}
+	}
+
+}
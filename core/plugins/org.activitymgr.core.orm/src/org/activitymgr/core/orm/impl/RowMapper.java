@@ -0,0 +1,371 @@
+package org.activitymgr.core.orm.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.activitymgr.core.orm.IBooleanColumnConverter;
+import org.activitymgr.core.orm.IByteColumnConverter;
+import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IDoubleColumnConverter;
+import org.activitymgr.core.orm.IFloatColumnConverter;
+import org.activitymgr.core.orm.IIntColumnConverter;
+import org.activitymgr.core.orm.ILongColumnConverter;
+import org.activitymgr.core.orm.IShortColumnConverter;
+import org.apache.log4j.Logger;
+
+/**
+ * Row mapper built once per mapped class and column layout.
+ *
+ * <p>
+ * Instead of looking up the converter and calling {@link Field#set(Object, Object)}
+ * for each column of each row, the mapper resolves ahead of time one column
+ * reader per selected attribute, in result set order. Attributes of a
+ * primitive type whose converter is a primitive column converter (see
+ * {@link ILongColumnConverter}) are read as primitives and stored through a
+ * typed method handle (no boxing). Other attributes go through the boxed
+ * value of their converter.
+ * </p>
+ *
+ * <p>
+ * If a method handle cannot be built for an attribute, the mapper falls back
+ * to the reflective path for that attribute.
+ * </p>
+ *
+ * @param <TYPE>
+ *            the mapped class.
+ */
+class RowMapper<TYPE> {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(RowMapper.class);
+
+	/** Lookup used to build the handles (fields are made accessible by the DAO) */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/** Constructor handle, typed as <code>()Object</code> */
+	private final MethodHandle constructor;
+
+	/** Reflective constructor (fallback) */
+	private final Constructor<TYPE> reflectiveConstructor;
+
+	/** Column readers, in result set order */
+	private final ColumnReader[] readers;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param constructor
+	 *            the mapped class constructor (must be accessible).
+	 * @param attributes
+	 *            the attributes to read, in result set order.
+	 * @param converters
+	 *            the attribute converters.
+	 */
+	RowMapper(Constructor<TYPE> constructor, List<Field> attributes,
+			Map<Field, IConverter<?>> converters) {
+		this.reflectiveConstructor = constructor;
+		MethodHandle ctor = null;
+		try {
+			ctor = LOOKUP.unreflectConstructor(constructor).asType(
+					MethodType.methodType(Object.class));
+		} catch (IllegalAccessException e) {
+			log.warn("Unable to build a constructor handle for "
+					+ constructor.getDeclaringClass().getName()
+					+ ", falling back to reflection", e);
+		}
+		this.constructor = ctor;
+		readers = new ColumnReader[attributes.size()];
+		for (int i = 0; i < readers.length; i++) {
+			Field attribute = attributes.get(i);
+			readers[i] = newColumnReader(attribute, converters.get(attribute));
+		}
+	}
+
+	/**
+	 * Builds the reader of a given attribute.
+	 *
+	 * @param attribute
+	 *            the attribute.
+	 * @param converter
+	 *            the attribute converter.
+	 * @return the column reader.
+	 */
+	@SuppressWarnings("unchecked")
+	private static ColumnReader newColumnReader(Field attribute,
+			IConverter<?> converter) {
+		Class<?> type = attribute.getType();
+		try {
+			MethodHandle setter = LOOKUP.unreflectSetter(attribute);
+			if (type.isPrimitive()) {
+				MethodHandle primitiveSetter = setter.asType(MethodType
+						.methodType(void.class, Object.class, type));
+				if (type == long.class && converter instanceof ILongColumnConverter) {
+					return new LongColumnReader(primitiveSetter, (ILongColumnConverter) converter);
+				} else if (type == int.class && converter instanceof IIntColumnConverter) {
+					return new IntColumnReader(primitiveSetter, (IIntColumnConverter) converter);
+				} else if (type == short.class && converter instanceof IShortColumnConverter) {
+					return new ShortColumnReader(primitiveSetter, (IShortColumnConverter) converter);
+				} else if (type == byte.class && converter instanceof IByteColumnConverter) {
+					return new ByteColumnReader(primitiveSetter, (IByteColumnConverter) converter);
+				} else if (type == double.class && converter instanceof IDoubleColumnConverter) {
+					return new DoubleColumnReader(primitiveSetter, (IDoubleColumnConverter) converter);
+				} else if (type == float.class && converter instanceof IFloatColumnConverter) {
+					return new FloatColumnReader(primitiveSetter, (IFloatColumnConverter) converter);
+				} else if (type == boolean.class && converter instanceof IBooleanColumnConverter) {
+					return new BooleanColumnReader(primitiveSetter, (IBooleanColumnConverter) converter);
+				}
+				// char or generic converter : handled through the boxed value
+			}
+			return new ConverterColumnReader(setter.asType(MethodType
+					.methodType(void.class, Object.class, Object.class)),
+					(IConverter<Object>) converter, defaultValue(type));
+		} catch (IllegalAccessException e) {
+			log.warn("Unable to build a setter handle for " + attribute
+					+ ", falling back to reflection", e);
+			return new ReflectiveColumnReader(attribute,
+					(IConverter<Object>) converter, defaultValue(type));
+		}
+	}
+
+	/**
+	 * Returns the value to use when the column is <code>null</code>.
+	 *
+	 * @param type
+	 *            the attribute type.
+	 * @return the default value (<code>null</code> for non primitive types,
+	 *         the boxed zero value otherwise).
+	 */
+	private static Object defaultValue(Class<?> type) {
+		return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0)
+				: null;
+	}
+
+	/**
+	 * Creates a new instance of the mapped class.
+	 *
+	 * @return the new instance.
+	 */
+	@SuppressWarnings("unchecked")
+	TYPE newInstance() {
+		if (constructor == null) {
+			return ReflectionHelper.newInstance(reflectiveConstructor);
+		}
+		try {
+			return (TYPE) (Object) constructor.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a new instance and reads its attributes from the current row.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param fromIndex
+	 *            the index of the first column to read.
+	 * @return the new instance.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	TYPE read(ResultSet rs, int fromIndex) throws SQLException {
+		TYPE instance = newInstance();
+		read(rs, fromIndex, instance);
+		return instance;
+	}
+
+	/**
+	 * Reads the attributes of an instance from the current row.
+	 *
+	 * @param rs
+	 *            the result set.
+	 * @param fromIndex
+	 *            the index of the first column to read.
+	 * @param instance
+	 *            the instance to populate.
+	 * @throws SQLException
+	 *             thrown if a SQL exception occurs.
+	 */
+	void read(ResultSet rs, int fromIndex, TYPE instance) throws SQLException {
+		try {
+			for (int i = 0; i < readers.length; i++) {
+				readers[i].read(rs, fromIndex + i, instance);
+			}
+		} catch (SQLException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(
+					"Error while accessing instance attribute", e);
+		}
+	}
+
+	/**
+	 * Reads one column and stores it in the instance.
+	 */
+	private static abstract class ColumnReader {
+
+		abstract void read(ResultSet rs, int idx, Object instance)
+				throws Throwable;
+
+	}
+
+	private static final class LongColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final ILongColumnConverter converter;
+
+		LongColumnReader(MethodHandle setter, ILongColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readLong(rs, idx));
+		}
+	}
+
+	private static final class IntColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IIntColumnConverter converter;
+
+		IntColumnReader(MethodHandle setter, IIntColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readInt(rs, idx));
+		}
+	}
+
+	private static final class ShortColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IShortColumnConverter converter;
+
+		ShortColumnReader(MethodHandle setter, IShortColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readShort(rs, idx));
+		}
+	}
+
+	private static final class ByteColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IByteColumnConverter converter;
+
+		ByteColumnReader(MethodHandle setter, IByteColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readByte(rs, idx));
+		}
+	}
+
+	private static final class DoubleColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IDoubleColumnConverter converter;
+
+		DoubleColumnReader(MethodHandle setter, IDoubleColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readDouble(rs, idx));
+		}
+	}
+
+	private static final class FloatColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IFloatColumnConverter converter;
+
+		FloatColumnReader(MethodHandle setter, IFloatColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readFloat(rs, idx));
+		}
+	}
+
+	private static final class BooleanColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IBooleanColumnConverter converter;
+
+		BooleanColumnReader(MethodHandle setter, IBooleanColumnConverter converter) {
+			this.setter = setter;
+			this.converter = converter;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			setter.invokeExact(instance, converter.readBoolean(rs, idx));
+		}
+	}
+
+	private static final class ConverterColumnReader extends ColumnReader {
+		private final MethodHandle setter;
+		private final IConverter<Object> converter;
+		private final Object defaultValue;
+
+		ConverterColumnReader(MethodHandle setter,
+				IConverter<Object> converter, Object defaultValue) {
+			this.setter = setter;
+			this.converter = converter;
+			this.defaultValue = defaultValue;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			Object value = converter.readValue(rs, idx);
+			if (value == null || rs.wasNull()) {
+				value = defaultValue;
+			}
+			setter.invokeExact(instance, value);
+		}
+	}
+
+	private static final class ReflectiveColumnReader extends ColumnReader {
+		private final Field attribute;
+		private final IConverter<Object> converter;
+		private final Object defaultValue;
+
+		ReflectiveColumnReader(Field attribute, IConverter<Object> converter,
+				Object defaultValue) {
+			this.attribute = attribute;
+			this.converter = converter;
+			this.defaultValue = defaultValue;
+		}
+
+		@Override
+		void read(ResultSet rs, int idx, Object instance) throws Throwable {
+			Object value = converter.readValue(rs, idx);
+			if (value == null || rs.wasNull()) {
+				value = defaultValue;
+			}
+			attribute.set(instance, value);
+		}
+	}
+
+}
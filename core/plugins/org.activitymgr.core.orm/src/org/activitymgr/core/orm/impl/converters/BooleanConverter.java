@@ -5,17 +5,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
-import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IBooleanColumnConverter;
 
-public class BooleanConverter implements IConverter<Boolean> {
+public class BooleanConverter implements IBooleanColumnConverter {
 
 	@Override
 	public void bind(PreparedStatement stmt, int index, Boolean value) throws SQLException {
+		bindBoolean(stmt, index, value);
+	}
+
+	@Override
+	public void bindBoolean(PreparedStatement stmt, int index, boolean value) throws SQLException {
 		stmt.setBoolean(index, value);
 	}
 
 	@Override
 	public Boolean readValue(ResultSet rs, int index) throws SQLException {
+		return readBoolean(rs, index);
+	}
+
+	@Override
+	public boolean readBoolean(ResultSet rs, int index) throws SQLException {
 		return rs.getBoolean(index);
 	}
 	
@@ -5,17 +5,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
-import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IFloatColumnConverter;
 
-public class FloatConverter implements IConverter<Float> {
+public class FloatConverter implements IFloatColumnConverter {
 
 	@Override
 	public void bind(PreparedStatement stmt, int index, Float value) throws SQLException {
+		bindFloat(stmt, index, value);
+	}
+
+	@Override
+	public void bindFloat(PreparedStatement stmt, int index, float value) throws SQLException {
 		stmt.setFloat(index, value);
 	}
 
 	@Override
 	public Float readValue(ResultSet rs, int index) throws SQLException {
+		return readFloat(rs, index);
+	}
+
+	@Override
+	public float readFloat(ResultSet rs, int index) throws SQLException {
 		return rs.getFloat(index);
 	}
 	
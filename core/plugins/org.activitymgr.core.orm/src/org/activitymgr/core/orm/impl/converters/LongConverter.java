@@ -5,17 +5,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
-import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.ILongColumnConverter;
 
-public class LongConverter implements IConverter<Long> {
+public class LongConverter implements ILongColumnConverter {
 
 	@Override
 	public void bind(PreparedStatement stmt, int index, Long value) throws SQLException {
+		bindLong(stmt, index, value);
+	}
+
+	@Override
+	public void bindLong(PreparedStatement stmt, int index, long value) throws SQLException {
 		stmt.setLong(index, value);
 	}
 
 	@Override
 	public Long readValue(ResultSet rs, int index) throws SQLException {
+		return readLong(rs, index);
+	}
+
+	@Override
+	public long readLong(ResultSet rs, int index) throws SQLException {
 		return rs.getLong(index);
 	}
 	
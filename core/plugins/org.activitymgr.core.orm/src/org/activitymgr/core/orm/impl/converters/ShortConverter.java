@@ -5,17 +5,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
-import org.activitymgr.core.orm.IConverter;
+import org.activitymgr.core.orm.IShortColumnConverter;
 
-public class ShortConverter implements IConverter<Short> {
+public class ShortConverter implements IShortColumnConverter {
 
 	@Override
 	public void bind(PreparedStatement stmt, int index, Short value) throws SQLException {
+		bindShort(stmt, index, value);
+	}
+
+	@Override
+	public void bindShort(PreparedStatement stmt, int index, short value) throws SQLException {
 		stmt.setShort(index, value);
 	}
 
 	@Override
 	public Short readValue(ResultSet rs, int index) throws SQLException {
+		return readShort(rs, index);
+	}
+
+	@Override
+	public short readShort(ResultSet rs, int index) throws SQLException {
 		return rs.getShort(index);
 	}
 	
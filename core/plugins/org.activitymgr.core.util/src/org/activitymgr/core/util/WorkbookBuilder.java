@@ -27,6 +27,11 @@
  */
 package org.activitymgr.core.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor.HSSFColorPredefined;
 import org.apache.poi.ss.usermodel.BorderStyle;
@@ -34,17 +39,45 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 public class WorkbookBuilder {
 	
-	private Workbook workbook = new HSSFWorkbook();
+	/** Rows kept in memory by the streaming workbooks (the other ones are flushed to disk) */
+	public static final int STREAMING_ROW_WINDOW = 100;
+
+	/** Maximum column width (in characters) */
+	private static final int MAX_COLUMN_WIDTH = 255;
+
+	private Workbook workbook;
 	private CellStyle headerCellStyle;
 	private CellStyle bodyCellStyle;
 	private CellStyle bodyRightAlignmentCellStyle;
 	private CellStyle footerCellStyle;
+	private Map<Integer, Integer> columnLengths = new HashMap<Integer, Integer>();
 	
 	public WorkbookBuilder() {
+		this(false);
+	}
+
+	/**
+	 * @param streaming
+	 *            <code>true</code> to build a streaming XLSX workbook (only
+	 *            the last rows are kept in memory, so the rows cannot be read
+	 *            back), <code>false</code> to build an Excel 97 (XLS)
+	 *            workbook.
+	 */
+	public WorkbookBuilder(boolean streaming) {
+		if (streaming) {
+			SXSSFWorkbook sxssfWorkbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+			sxssfWorkbook.setCompressTempFiles(true);
+			workbook = sxssfWorkbook;
+		} else {
+			workbook = new HSSFWorkbook();
+		}
+
 		// Création du style des cellules
 		bodyCellStyle = workbook.createCellStyle();
 		bodyCellStyle.setBorderBottom(BorderStyle.THIN);
@@ -102,4 +135,68 @@ public class WorkbookBuilder {
 		cell.setCellStyle(footerCellStyle);
 		return cell;
 	}
+
+	/**
+	 * Records the length of a cell value, to compute the column width without
+	 * rescanning the rows (which is slow, and impossible for the flushed rows
+	 * of a streaming workbook).
+	 * 
+	 * @param column
+	 *            the column index.
+	 * @param value
+	 *            the cell value.
+	 */
+	public void trackColumnWidth(int column, Object value) {
+		if (value != null) {
+			int length = String.valueOf(value).length();
+			Integer maxLength = columnLengths.get(column);
+			if (maxLength == null || length > maxLength) {
+				columnLengths.put(column, length);
+			}
+		}
+	}
+
+	/**
+	 * Sizes the tracked columns of a sheet.
+	 * 
+	 * @param sheet
+	 *            the sheet.
+	 * @see #trackColumnWidth(int, Object)
+	 */
+	public void applyColumnWidths(Sheet sheet) {
+		for (Map.Entry<Integer, Integer> entry : columnLengths.entrySet()) {
+			sheet.setColumnWidth(entry.getKey(), getColumnWidth(entry.getValue()));
+		}
+	}
+
+	/**
+	 * @param length
+	 *            the longest value length of a column.
+	 * @return the column width (in 1/256th of a character).
+	 */
+	public static int getColumnWidth(int length) {
+		return Math.min(length + 2, MAX_COLUMN_WIDTH) * 256;
+	}
+
+	/**
+	 * Writes a workbook and releases it (the temporary files of the streaming
+	 * workbooks are deleted).
+	 * 
+	 * @param workbook
+	 *            the workbook.
+	 * @param out
+	 *            the output stream.
+	 * @throws IOException
+	 *             thrown if an I/O error occurs.
+	 */
+	public static void write(Workbook workbook, OutputStream out) throws IOException {
+		try {
+			workbook.write(out);
+		} finally {
+			if (workbook instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) workbook).dispose();
+			}
+			workbook.close();
+		}
+	}
 }
@@ -11,6 +11,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 
+import javax.sql.DataSource;
+
+import org.activitymgr.core.dao.ContributionCube;
+import org.activitymgr.core.dao.IdentityMap;
+import org.activitymgr.core.dao.PreparedStatementCache;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.TaskDAOCache;
 import org.activitymgr.core.dto.IDTOFactory;
 import org.activitymgr.core.model.CoreModelModule;
 import org.activitymgr.core.model.IModelMgr;
@@ -91,6 +98,7 @@ public abstract class AbstractModelTestCase extends TestCase implements
 	 */
 	protected void setUp() throws Exception {
 		tx = datasource.getConnection();
+		PreparedStatementCache.open(tx);
 
 		// Create Guice injector
 		List<Module> modules = getGuiceModules();
@@ -98,17 +106,37 @@ public abstract class AbstractModelTestCase extends TestCase implements
 
 		// Retrieve model manager instance
 		final IModelMgr modelMgr = injector.getInstance(IModelMgr.class);
+		final TaskDAOCache taskCache = injector.getInstance(TaskDAOCache.class);
+		final ReportCache reportCache = injector.getInstance(ReportCache.class);
+		final ContributionCube cube = injector.getInstance(ContributionCube.class);
 		this.modelMgr = (IModelMgr) Proxy.newProxyInstance(
 				AbstractModelTestCase.class.getClassLoader(),
 				new Class<?>[] { IModelMgr.class }, 
 				(proxy, method, args) -> {
+					// Each call runs in a transaction of its own, with its
+					// identity map, as in the applications (unless the test
+					// has opened one around its calls)
+					boolean ownIdentityMap = IdentityMap.current(tx) == null;
+					if (ownIdentityMap) {
+						IdentityMap.open(tx);
+					}
+					reportCache.transactionStarted();
 					try {
 						Object result = method.invoke(modelMgr, args);
 						tx.commit();
 						return result;
 					} catch (InvocationTargetException t) {
 						tx.rollback();
+						// The identity map may hold rolled back rows
+						IdentityMap.clearCurrent();
 						throw t.getCause();
+					} finally {
+						if (ownIdentityMap) {
+							IdentityMap.close();
+						}
+						taskCache.transactionEnded();
+						reportCache.transactionEnded();
+						cube.transactionEnded();
 					}
 				});
 
@@ -136,6 +164,7 @@ public abstract class AbstractModelTestCase extends TestCase implements
 			@Override
 			protected void configure() {
 				bind(Connection.class).toProvider(AbstractModelTestCase.this);
+				bind(DataSource.class).toInstance(datasource);
 			}
 		});
 		return modules;
@@ -155,6 +184,7 @@ public abstract class AbstractModelTestCase extends TestCase implements
 
 
 	protected void tearDown() throws Exception {
+		PreparedStatementCache.close();
 		tx.close();
 	}
 
@@ -0,0 +1,79 @@
+package org.activitymgr.core;
+
+import org.activitymgr.core.dao.ICollaboratorDAO;
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.model.ModelException;
+import org.activitymgr.core.orm.CompiledQuery;
+import org.activitymgr.core.orm.query.AscendantOrderByClause;
+import org.activitymgr.core.orm.query.InStatement;
+import org.activitymgr.core.orm.query.LikeStatement;
+
+import com.google.inject.Inject;
+
+public class CompiledQueryTest extends AbstractModelTestCase {
+
+	@Inject
+	private ICollaboratorDAO collaboratorDAO;
+
+	private Collaborator createCollaborator(String login, boolean active) throws ModelException {
+		Collaborator collaborator = getFactory().newCollaborator();
+		collaborator.setFirstName("First " + login);
+		collaborator.setLastName("Last " + login);
+		collaborator.setLogin(login);
+		collaborator.setIsActive(active);
+		return getModelMgr().createCollaborator(collaborator);
+	}
+
+	public void testCompiledQuery() throws Exception {
+		Collaborator c1 = createCollaborator("cq1", true);
+		Collaborator c2 = createCollaborator("cq2", false);
+		Collaborator c3 = createCollaborator("cq3", true);
+		try {
+			// Equality
+			CompiledQuery<Collaborator> byLogin = collaboratorDAO.compile(
+					new String[] { "login" },
+					new Object[] { CompiledQuery.PARAMETER }, null, -1);
+			assertEquals(1, byLogin.getParametersCount());
+			for (Collaborator c : new Collaborator[] { c1, c2, c3 }) {
+				Collaborator[] result = collaboratorDAO.select(byLogin, c.getLogin());
+				assertEquals(1, result.length);
+				assertEquals(c.getId(), result[0].getId());
+				assertEquals(c.getFirstName(), result[0].getFirstName());
+			}
+			assertEquals(0, collaboratorDAO.select(byLogin, "unknown").length);
+
+			// Like, equality and order by
+			CompiledQuery<Collaborator> activeByLogin = collaboratorDAO.compile(
+					new String[] { "login", "isActive" },
+					new Object[] { new LikeStatement(null), CompiledQuery.PARAMETER },
+					new Object[] { new AscendantOrderByClause("login") }, -1);
+			Collaborator[] result = collaboratorDAO.select(activeByLogin, "cq%", true);
+			assertEquals(2, result.length);
+			assertEquals(c1.getId(), result[0].getId());
+			assertEquals(c3.getId(), result[1].getId());
+
+			// In statement and limit
+			CompiledQuery<Collaborator> inLogins = collaboratorDAO.compile(
+					new String[] { "login" },
+					new Object[] { new InStatement(new Object[3]) },
+					new Object[] { "login" }, 2);
+			assertEquals(3, inLogins.getParametersCount());
+			result = collaboratorDAO.select(inLogins, "cq3", "cq2", "cq1");
+			assertEquals(2, result.length);
+			assertEquals(c1.getId(), result[0].getId());
+			assertEquals(c2.getId(), result[1].getId());
+
+			// Wrong parameters count
+			try {
+				collaboratorDAO.select(inLogins, "cq1");
+				fail("Wrong parameters count must be rejected");
+			} catch (IllegalArgumentException expected) {
+			}
+		} finally {
+			getModelMgr().removeCollaborator(c1);
+			getModelMgr().removeCollaborator(c2);
+			getModelMgr().removeCollaborator(c3);
+		}
+	}
+
+}
@@ -1,17 +1,23 @@
 package org.activitymgr.core;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.TimeZone;
 
+import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
 import org.activitymgr.core.dto.Duration;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.IntervalContributions;
 import org.activitymgr.core.dto.misc.TaskContributions;
+import org.activitymgr.core.dto.misc.TaskSums;
 import org.activitymgr.core.model.ModelException;
 
 public class ContributionTest extends AbstractModelTestCase {
@@ -384,6 +390,278 @@ public class ContributionTest extends AbstractModelTestCase {
 		removeSampleObjects();
 	}
 
+	public void testGetContributionsInterval() throws ModelException {
+		// Création des taches de test
+		createSampleObjects(true);
+
+		// Date redondante
+		assertEquals(c1.getYear() * 10000 + c1.getMonth() * 100 + c1.getDay(),
+				c1.getYearMonthDay());
+		assertEquals(c3.getYearMonthDay(),
+				Contribution.toYearMonthDay(c3.getDate()));
+
+		// Intervalle global
+		Calendar[] interval = getModelMgr().getContributionsInterval(null);
+		assertNotNull(interval);
+		assertEquals(c1.getYearMonthDay(),
+				Contribution.toYearMonthDay(interval[0]));
+		assertEquals(c3.getYearMonthDay(),
+				Contribution.toYearMonthDay(interval[1]));
+
+		// Intervalle d'une tache
+		interval = getModelMgr().getContributionsInterval(task112.getId());
+		assertNotNull(interval);
+		assertEquals(c2.getYearMonthDay(),
+				Contribution.toYearMonthDay(interval[0]));
+		assertEquals(c2.getYearMonthDay(),
+				Contribution.toYearMonthDay(interval[1]));
+
+		// Suppression des taches de test
+		removeSampleObjects();
+	}
+
+	public void testContributionRollups() throws Exception {
+		// Création des taches de test
+		createSampleObjects(true);
+
+		// Sommes sur des mois complets, partiels et sans bornes
+		Calendar monthStart = new GregorianCalendar(c1.getYear(),
+				c1.getMonth() - 1, 1);
+		Calendar monthEnd = (Calendar) monthStart.clone();
+		monthEnd.set(Calendar.DATE,
+				monthEnd.getActualMaximum(Calendar.DAY_OF_MONTH));
+		Calendar c2Date = c2.getDate();
+		Calendar c3Date = c3.getDate();
+		Calendar[][] intervals = new Calendar[][] { { null, null },
+				{ monthStart, monthEnd }, { monthStart, null },
+				{ null, monthEnd }, { c2Date, c3Date }, { c2Date, c2Date },
+				{ c1.getDate(), c3Date }, { null, c2Date } };
+		assertRollupsSums(intervals);
+
+		// Mise à jour, suppression et changement de tache
+		c1.setDurationId(duration2.getId());
+		getModelMgr().updateContribution(c1, false);
+		assertRollupsSums(intervals);
+		getModelMgr().changeContributionTask(new Contribution[] { c2 },
+				task111);
+		assertRollupsSums(intervals);
+		getModelMgr().removeContribution(c3, false);
+		assertRollupsSums(intervals);
+
+		// Reconstruction des cumuls
+		Statement stmt = get().createStatement();
+		stmt.executeUpdate("delete from CONTRIBUTION_TOTAL");
+		stmt.close();
+		assertEquals(0, getModelMgr().getTaskSums(rootTask.getId(), null, null)
+				.getContributionsSums().getConsumedSum());
+		getModelMgr().rebuildContributionRollups();
+		assertRollupsSums(intervals);
+
+		// Suppression des taches de test
+		removeSampleObjects();
+	}
+
+	private void assertRollupsSums(Calendar[][] intervals)
+			throws ModelException {
+		for (Calendar[] interval : intervals) {
+			for (Task task : new Task[] { rootTask, task111, task112 }) {
+				TaskSums sums = getModelMgr().getTaskSums(task.getId(),
+						interval[0], interval[1]);
+				assertEquals(getModelMgr().getContributionsSum(null, task,
+						interval[0], interval[1]), sums.getContributionsSums()
+						.getConsumedSum());
+				assertEquals(getModelMgr().getContributionsCount(null, task,
+						interval[0], interval[1]), sums.getContributionsSums()
+						.getContributionsNb());
+				// Sommes avant et après l'intervalle
+				long before = 0;
+				if (interval[0] != null) {
+					Calendar date = (Calendar) interval[0].clone();
+					date.add(Calendar.DATE, -1);
+					before = getModelMgr().getContributionsSum(null, task,
+							null, date);
+				}
+				assertEquals(before, sums.getContributionsSums()
+						.getConsumedBeforeSum());
+				long after = 0;
+				if (interval[1] != null) {
+					Calendar date = (Calendar) interval[1].clone();
+					date.add(Calendar.DATE, 1);
+					after = getModelMgr().getContributionsSum(null, task,
+							date, null);
+				}
+				assertEquals(after, sums.getContributionsSums()
+						.getConsumedAfterSum());
+			}
+		}
+	}
+
+	public void testArchiveContributions() throws Exception {
+		createSampleObjects(false);
+
+		// Contributions over two closed years and the current one
+		int year = Calendar.getInstance().get(Calendar.YEAR);
+		c1 = newContribution(cal(year - 2, 3, 15), col1, task111);
+		c2 = newContribution(cal(year - 1, 12, 31), col2, task112);
+		c3 = newContribution(cal(year, 1, 2), col2, task111);
+		Calendar[][] intervals = new Calendar[][] { { null, null },
+				{ cal(year - 2, 1, 1), cal(year - 1, 12, 31) },
+				{ cal(year - 1, 12, 15), cal(year, 1, 15) },
+				{ cal(year, 1, 1), null }, { null, cal(year - 1, 6, 30) } };
+		Collection<Integer> years = getModelMgr().getContributionYears();
+		Calendar[] contributionsInterval = getModelMgr()
+				.getContributionsInterval(rootTask.getId());
+		long[][] sums = new long[intervals.length][];
+		for (int i = 0; i < intervals.length; i++) {
+			sums[i] = contributionsSums(intervals[i]);
+		}
+
+		// Only the closed years can be archived
+		try {
+			getModelMgr().archiveContributions(year);
+			fail("The current year should not be archived");
+		} catch (ModelException expected) {
+		}
+		assertEquals(2, getModelMgr().archiveContributions(year - 1));
+		assertEquals(0, getModelMgr().archiveContributions(year - 1));
+
+		// The archived contributions are still read
+		assertEquals(years, getModelMgr().getContributionYears());
+		Calendar[] interval = getModelMgr().getContributionsInterval(
+				rootTask.getId());
+		assertEquals(contributionsInterval[0], interval[0]);
+		assertEquals(contributionsInterval[1], interval[1]);
+		for (int i = 0; i < intervals.length; i++) {
+			long[] intervalSums = contributionsSums(intervals[i]);
+			for (int j = 0; j < sums[i].length; j++) {
+				assertEquals(sums[i][j], intervalSums[j]);
+			}
+		}
+		assertEquals(c2.getTaskId(), getModelMgr().getContributions(col2,
+				null, cal(year - 1, 1, 1), cal(year - 1, 12, 31))[0]
+				.getTaskId());
+		assertRollupsSums(intervals);
+		getModelMgr().rebuildContributionRollups();
+		assertRollupsSums(intervals);
+
+		// But they can no longer be modified
+		try {
+			newContribution(cal(year - 1, 12, 30), col1, task111);
+			fail("An archived year should not be modified");
+		} catch (DAOException expected) {
+		}
+		c3.setDurationId(duration2.getId());
+		getModelMgr().updateContribution(c3, false);
+	}
+
+	public void testArchiveContributionsRepair() throws Exception {
+		createSampleObjects(false);
+
+		int year = Calendar.getInstance().get(Calendar.YEAR);
+		c1 = newContribution(cal(year - 2, 3, 15), col1, task111);
+		c2 = newContribution(cal(year - 1, 12, 31), col2, task112);
+		c3 = newContribution(cal(year, 1, 2), col2, task111);
+		Calendar[][] intervals = new Calendar[][] { { null, null },
+				{ cal(year - 2, 1, 1), cal(year - 1, 12, 31) },
+				{ cal(year - 1, 12, 15), cal(year, 1, 15) },
+				{ null, cal(year - 1, 6, 30) } };
+		long[][] sums = new long[intervals.length][];
+		for (int i = 0; i < intervals.length; i++) {
+			sums[i] = contributionsSums(intervals[i]);
+		}
+		String columns = "CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK, CTB_DURATION, CTB_DATE";
+
+		// Failure after the creation of an archive table (the contributions
+		// are not copied yet, and the indexes are missing)
+		Statement stmt = get().createStatement();
+		stmt.executeUpdate("create table CONTRIBUTION_" + (year - 2)
+				+ " as select " + columns + " from CONTRIBUTION where 1=0");
+		stmt.close();
+		get().commit();
+		assertContributionsSums(intervals, sums);
+
+		// The next call completes the interrupted year
+		assertEquals(2, getModelMgr().archiveContributions(year - 1));
+		assertContributionsSums(intervals, sums);
+		assertEquals(0, countContributions("CONTRIBUTION", year - 2));
+		assertEquals(1, countContributions("CONTRIBUTION_" + (year - 2), year - 2));
+		ResultSet rs = get().getMetaData().getIndexInfo(null, null,
+				"CONTRIBUTION_" + (year - 2), false, false);
+		Collection<String> indexes = new ArrayList<String>();
+		while (rs.next()) {
+			indexes.add(rs.getString("INDEX_NAME"));
+		}
+		rs.close();
+		assertTrue(indexes.contains("CTB_" + (year - 2) + "_TASK_DATE_IDX"));
+		assertTrue(indexes.contains("CTB_" + (year - 2) + "_CONTRIBUTOR_DATE_IDX"));
+
+		// Failure before the deletion of the archived contributions (they
+		// are not read twice meanwhile)
+		stmt = get().createStatement();
+		stmt.executeUpdate("insert into CONTRIBUTION (" + columns
+				+ ") select " + columns + " from CONTRIBUTION_" + (year - 1));
+		stmt.close();
+		get().commit();
+		assertEquals(1, countContributions("CONTRIBUTION", year - 1));
+		assertContributionsSums(intervals, sums);
+
+		// The next call deletes them
+		assertEquals(1, getModelMgr().archiveContributions(year - 1));
+		assertEquals(0, countContributions("CONTRIBUTION", year - 1));
+		assertEquals(1, countContributions("CONTRIBUTION_" + (year - 1), year - 1));
+		assertContributionsSums(intervals, sums);
+		assertEquals(0, getModelMgr().archiveContributions(year - 1));
+	}
+
+	private void assertContributionsSums(Calendar[][] intervals, long[][] sums)
+			throws ModelException {
+		for (int i = 0; i < intervals.length; i++) {
+			long[] intervalSums = contributionsSums(intervals[i]);
+			for (int j = 0; j < sums[i].length; j++) {
+				assertEquals(sums[i][j], intervalSums[j]);
+			}
+		}
+	}
+
+	private long countContributions(String table, int year)
+			throws SQLException {
+		Statement stmt = get().createStatement();
+		ResultSet rs = stmt.executeQuery("select count(*) from " + table
+				+ " where CTB_YEAR=" + year);
+		rs.next();
+		long count = rs.getLong(1);
+		stmt.close();
+		return count;
+	}
+
+	private Contribution newContribution(Calendar date,
+			Collaborator contributor, Task task) throws ModelException {
+		Contribution contribution = getFactory().newContribution();
+		contribution.setDate(date);
+		contribution.setContributorId(contributor.getId());
+		contribution.setDurationId(duration1.getId());
+		contribution.setTaskId(task.getId());
+		return getModelMgr().createContribution(contribution, false);
+	}
+
+	private long[] contributionsSums(Calendar[] interval)
+			throws ModelException {
+		TaskSums taskSums = getModelMgr().getTaskSums(rootTask.getId(),
+				interval[0], interval[1]);
+		return new long[] {
+				getModelMgr().getContributionsSum(null, rootTask, interval[0],
+						interval[1]),
+				getModelMgr().getContributionsCount(null, task111,
+						interval[0], interval[1]),
+				taskSums.getContributionsSums().getConsumedSum(),
+				taskSums.getContributionsSums().getConsumedBeforeSum(),
+				taskSums.getContributionsSums().getConsumedAfterSum(),
+				getModelMgr().getContributors(task112, interval[0],
+						interval[1]).length,
+				getModelMgr().getContributedTasks(col2, interval[0],
+						interval[1]).length };
+	}
+
 	public void testChangeContributionsTask() throws ModelException {
 		// Création des taches de test
 		createSampleObjects(true);
@@ -406,6 +684,19 @@ public class ContributionTest extends AbstractModelTestCase {
 		removeSampleObjects();
 	}
 
+	public void testRemoveContributions() throws ModelException {
+		// Création des taches de test
+		createSampleObjects(true);
+		assertEquals(3, getModelMgr().getContributionsCount(null, null, null, null));
+
+		// Suppression groupée
+		getModelMgr().removeContributions(new Contribution[] { c1, c2, c3 });
+		assertEquals(0, getModelMgr().getContributionsCount(null, null, null, null));
+
+		// Suppression des taches de test
+		removeSampleObjects();
+	}
+
 	public void testCountDaysWhenYearHasMoreThan365Days() throws ModelException {
 		// Création des taches de test
 		createSampleObjects(true);
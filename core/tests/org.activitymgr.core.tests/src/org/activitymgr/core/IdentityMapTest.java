@@ -0,0 +1,68 @@
+package org.activitymgr.core;
+
+import org.activitymgr.core.dao.ICollaboratorDAO;
+import org.activitymgr.core.dao.IdentityMap;
+import org.activitymgr.core.dao.PreparedStatementCache;
+import org.activitymgr.core.dto.Collaborator;
+
+import com.google.inject.Inject;
+
+public class IdentityMapTest extends AbstractModelTestCase {
+
+	@Inject
+	private ICollaboratorDAO collaboratorDAO;
+
+	public void testIdentityMap() throws Exception {
+		Collaborator collaborator = getFactory().newCollaborator();
+		collaborator.setFirstName("First name");
+		collaborator.setLastName("Last name");
+		collaborator.setLogin("idmap");
+		collaborator.setIsActive(true);
+		long clbId = getModelMgr().createCollaborator(collaborator).getId();
+
+		// Without identity map, the DAO always queries the database
+		assertNull(IdentityMap.current(get()));
+
+		IdentityMap identityMap = IdentityMap.open(get());
+		try {
+			assertSame(identityMap, IdentityMap.current(get()));
+
+			// First load issues a statement
+			Collaborator c1 = collaboratorDAO.selectByPK(clbId);
+			assertEquals("idmap", c1.getLogin());
+			assertEquals(0, identityMap.getSavedStatements());
+			assertEquals(1, identityMap.getIssuedStatements());
+
+			// Second load is served from memory, as a copy
+			PreparedStatementCache cache = PreparedStatementCache.current();
+			long statements = cache.getHits() + cache.getMisses();
+			c1.setFirstName("Modified without update");
+			Collaborator c2 = getModelMgr().getCollaborator(clbId);
+			assertNotSame(c1, c2);
+			assertEquals("First name", c2.getFirstName());
+			assertEquals(statements, cache.getHits() + cache.getMisses());
+			assertEquals(1, identityMap.getSavedStatements());
+
+			// Unknown primary keys are remembered too
+			assertNull(collaboratorDAO.selectByPK(-1l));
+			assertNull(collaboratorDAO.selectByPK(-1l));
+			assertEquals(2, identityMap.getSavedStatements());
+
+			// A write invalidates the DAO entries
+			c2.setFirstName("Updated");
+			collaboratorDAO.update(c2, "firstName");
+			assertEquals("Updated", collaboratorDAO.selectByPK(clbId).getFirstName());
+			assertEquals(2, identityMap.getSavedStatements());
+			assertEquals(3, identityMap.getIssuedStatements());
+
+			// Rolled back rows are forgotten
+			get().rollback();
+			IdentityMap.clearCurrent();
+			assertEquals("First name", collaboratorDAO.selectByPK(clbId).getFirstName());
+		} finally {
+			assertSame(identityMap, IdentityMap.close());
+		}
+		assertNull(IdentityMap.current(get()));
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.activitymgr.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.activitymgr.core.dao.PreparedStatementCache;
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.model.ModelException;
+
+public class StatementCacheTest extends AbstractModelTestCase {
+
+	public void testStatementsAreReused() throws ModelException {
+		Collaborator collaborator = getFactory().newCollaborator();
+		collaborator.setFirstName("First name");
+		collaborator.setLastName("Last name");
+		collaborator.setLogin("login");
+		collaborator.setIsActive(true);
+		long clbId = getModelMgr().createCollaborator(collaborator).getId();
+
+		// First read
+		assertNotNull(getModelMgr().getCollaborator(clbId));
+		PreparedStatementCache cache = PreparedStatementCache.current();
+		assertNotNull(cache);
+		long hits = cache.getHits();
+		long misses = cache.getMisses();
+		
+		// Second read : the statement must come from the cache
+		assertNotNull(getModelMgr().getCollaborator(clbId));
+		assertSame(cache, PreparedStatementCache.current());
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(misses, cache.getMisses());
+	}
+
+	public void testBusyStatementIsNotShared() throws Exception {
+		// Prepare the same request twice while the first one is still open
+		Connection con = PreparedStatementCache.wrap(get());
+		PreparedStatement stmt1 = con.prepareStatement("select count(*) from COLLABORATOR");
+		PreparedStatement stmt2 = con.prepareStatement("select count(*) from COLLABORATOR");
+		assertNotSame(stmt1, stmt2);
+		stmt1.executeQuery().close();
+		stmt2.executeQuery().close();
+		stmt2.close();
+		stmt1.close();
+		assertTrue(stmt1.isClosed());
+
+		// Once released, the statement is reused
+		PreparedStatement stmt3 = con.prepareStatement("select count(*) from COLLABORATOR");
+		assertSame(stmt1, stmt3);
+		stmt3.close();
+	}
+
+	public void testCacheIsClosedWithTheTransaction() throws Exception {
+		Connection con = PreparedStatementCache.wrap(get());
+		assertNotSame(get(), con);
+		PreparedStatement stmt = con.prepareStatement("select count(*) from COLLABORATOR");
+		stmt.close();
+
+		// Once closed, the cache does not retain any statement nor connection
+		PreparedStatementCache cache = PreparedStatementCache.close();
+		assertNotNull(cache);
+		assertEquals(0, cache.size());
+		assertNull(PreparedStatementCache.current());
+		assertSame(get(), PreparedStatementCache.wrap(get()));
+	}
+
+}
@@ -1,6 +1,12 @@
 package org.activitymgr.core;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.activitymgr.core.dao.DAOCaches;
 import org.activitymgr.core.dao.ITaskDAO;
+import org.activitymgr.core.dao.ReportCache;
 import org.activitymgr.core.dao.TaskDAOCache;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.model.ModelException;
@@ -12,6 +18,15 @@ public class TaskCacheTest extends AbstractModelTestCase {
 	@Inject
 	private ITaskDAO taskDAO;
 
+	@Inject
+	private TaskDAOCache sharedCache;
+
+	@Inject
+	private ReportCache reportCache;
+
+	@Inject
+	private DAOCaches caches;
+
 	/** Taches de test */
 	private Task rootTask;
 	private Task task1;
@@ -55,6 +70,141 @@ public class TaskCacheTest extends AbstractModelTestCase {
 		}
 	}
 	
+	public void testSharedCache() throws ModelException {
+		createSampleTasks();
+		try {
+			// Second load is served by the cache, as a copy
+			sharedCache.resetCounters();
+			Task t1 = getModelMgr().getTask(task112.getId());
+			Task t2 = getModelMgr().getTask(task112.getId());
+			assertNotSame(t1, t2);
+			assertEquals(task112.getName(), t2.getName());
+			assertTrue(sharedCache.getHits() >= 1);
+			assertTrue(sharedCache.getHitRate() > 0);
+
+			// An update is seen by the next transactions
+			t1.setName("Task 112 updated");
+			getModelMgr().updateTask(t1);
+			assertEquals("Task 112 updated", getModelMgr().getTask(task112.getId()).getName());
+			assertEquals(task112.getId(), getModelMgr().getTaskByCodePath("/RT/T1/T11/T112").getId());
+
+			// So is a move (the former paths are invalidated)
+			getModelMgr().moveTask(getModelMgr().getTask(task112.getId()), task1);
+			assertEquals(task112.getId(), getModelMgr().getTaskByCodePath("/RT/T1/T112").getId());
+			try {
+				getModelMgr().getTaskByCodePath("/RT/T1/T11/T112");
+				fail("The task should have moved");
+			}
+			catch (ModelException expected) {
+			}
+			Task moved = getModelMgr().getTask(task112.getId());
+			assertEquals(task1.getFullPath(), moved.getPath());
+			assertEquals(task1.getId(), getModelMgr().getParentTask(moved).getId());
+		}
+		finally {
+			removeSampleTasks();
+		}
+	}
+
+	public void testEviction() throws ModelException {
+		createSampleTasks();
+		try {
+			TaskDAOCache cache = new TaskDAOCache(taskDAO, 4);
+			Task[] tasks = new Task[] { rootTask, task1, task11, task111, task112, task2 };
+			for (Task task : tasks) {
+				assertEquals(task.getId(), cache.getById(task.getId()).getId());
+			}
+			assertTrue(cache.size() <= 4);
+			assertTrue(cache.getEvictions() > 0);
+
+			// The most recently used task is still cached
+			long hits = cache.getHits();
+			assertEquals(task2.getId(), cache.getById(task2.getId()).getId());
+			assertEquals(hits + 1, cache.getHits());
+
+			// Evicted tasks are loaded again
+			assertEquals(rootTask.getId(), cache.getById(rootTask.getId()).getId());
+			assertEquals(hits + 1, cache.getHits());
+		}
+		finally {
+			removeSampleTasks();
+		}
+	}
+
+	public void testStaleReads() throws ModelException {
+		createSampleTasks();
+		try {
+			TaskDAOCache cache = new TaskDAOCache(taskDAO);
+			assertEquals(task1.getId(), cache.getById(task1.getId()).getId());
+
+			// Stale reads are served by the cache, but not cached
+			cache.staleReadsStarted();
+			long hits = cache.getHits();
+			assertEquals(task1.getId(), cache.getById(task1.getId()).getId());
+			assertEquals(hits + 1, cache.getHits());
+			assertEquals(task2.getId(), cache.getByFullPath(task2.getFullPath()).getId());
+			assertNull(cache.getByCodePath("/Unknown/Path"));
+			assertEquals(1, cache.size());
+
+			// The next transaction populates the cache again
+			cache.transactionEnded();
+			assertEquals(task2.getId(), cache.getById(task2.getId()).getId());
+			assertEquals(2, cache.size());
+		}
+		finally {
+			removeSampleTasks();
+		}
+	}
+
+	public void testInvalidateAll() throws ModelException, SQLException {
+		createSampleTasks();
+		try {
+			assertEquals("Task 112", getModelMgr().getTask(task112.getId()).getName());
+
+			// Simulates a switch to another database, that the cache ignores
+			PreparedStatement pStmt = get().prepareStatement(
+					"update TASK set TSK_NAME=? where TSK_ID=?");
+			pStmt.setString(1, "Other database task");
+			pStmt.setLong(2, task112.getId());
+			assertEquals(1, pStmt.executeUpdate());
+			pStmt.close();
+			get().commit();
+			assertEquals("Task 112", getModelMgr().getTask(task112.getId()).getName());
+
+			// Once the caches are invalidated, the new database is read
+			long reportVersion = reportCache.getVersion();
+			caches.invalidateAll();
+			assertEquals(0, sharedCache.size());
+			assertTrue(reportCache.getVersion() > reportVersion);
+			assertEquals("Other database task", getModelMgr().getTask(task112.getId()).getName());
+		}
+		finally {
+			removeSampleTasks();
+		}
+	}
+
+	public void testOtherInstanceWrite() throws ModelException, SQLException {
+		createSampleTasks();
+		try {
+			assertEquals("Task 112", getModelMgr().getTask(task112.getId()).getName());
+
+			// Simulates a write of another application instance, that
+			// increments the tasks version
+			Statement stmt = get().createStatement();
+			assertEquals(1, stmt.executeUpdate("update TASK set TSK_NAME='Other instance task' where TSK_ID=" + task112.getId()));
+			assertEquals(1, stmt.executeUpdate("update TASK_VERSION set TKV_VERSION=TKV_VERSION+1"));
+			stmt.close();
+			get().commit();
+
+			// The next transaction reads the new version and drops the cache
+			assertEquals("Other instance task", getModelMgr().getTask(task112.getId()).getName());
+			assertEquals("Other instance task", getModelMgr().getTaskByCodePath("/RT/T1/T11/T112").getName());
+		}
+		finally {
+			removeSampleTasks();
+		}
+	}
+
 	private void createSampleTasks() throws ModelException {
 		// Création des tâches de test
 		rootTask = getModelMgr().createNewTask(null);
@@ -1,9 +1,17 @@
 package org.activitymgr.core;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.activitymgr.core.dao.ITaskDAO;
+import org.activitymgr.core.dao.IdentityMap;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
 import org.activitymgr.core.dto.Duration;
@@ -11,10 +19,16 @@ import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSearchFilter;
 import org.activitymgr.core.dto.misc.TaskSums;
 import org.activitymgr.core.model.ModelException;
+import org.activitymgr.core.orm.IProjection;
 import org.activitymgr.core.util.StringHelper;
 
+import com.google.inject.Inject;
+
 public class TaskTest extends AbstractModelTestCase {
 
+	@Inject
+	private ITaskDAO taskDAO;
+
 	/** Taches de test */
 	private Task rootTask;
 	private Task task1;
@@ -143,7 +157,7 @@ public class TaskTest extends AbstractModelTestCase {
 		// Création des taches de test
 		withSampleTasks(() -> {
 			// Vérification des chemins
-			String expectedPath = StringHelper.toHex(rootTask.getNumber()); 
+			String expectedPath = StringHelper.toBase32(rootTask.getNumber()); 
 			assertEquals(expectedPath, task1.getPath());
 			assertEquals(expectedPath, task1.getPath());
 			assertEquals(expectedPath + "01", task11.getPath());
@@ -214,6 +228,55 @@ public class TaskTest extends AbstractModelTestCase {
 		});
 	}
 
+	public void testStreamTasks() throws Exception {
+		withSampleTasks(() -> {
+			// Toutes les taches, dans l'ordre de l'arborescence
+			try (Stream<Task> tasks = taskDAO.streamTasks(null)) {
+				assertEquals(
+						Arrays.asList(rootTask, task1, task11, task111, task112, task2),
+						tasks.collect(Collectors.toList()));
+			}
+			// Sous-arborescence de la tache 1
+			try (Stream<Task> tasks = taskDAO.streamTasks(task1.getFullPath())) {
+				assertEquals(Arrays.asList(task11, task111, task112),
+						tasks.collect(Collectors.toList()));
+			}
+		});
+	}
+
+	public void testGetSubTaskIds() throws Exception {
+		withSampleTasks(() -> {
+			// Le filtre s'applique aux taches filles et à leurs descendants
+			assertTrue(Arrays.equals(new long[] { task1.getId() },
+					getModelMgr().getSubTaskIds(rootTask.getId(), "112")));
+			assertTrue(Arrays.equals(new long[] { task1.getId(), task2.getId() },
+					getModelMgr().getSubTaskIds(rootTask.getId(), "Task")));
+			assertEquals(0, getModelMgr().getSubTaskIds(task11.getId(), "Task 2").length);
+		});
+	}
+
+	public void testProjection() throws Exception {
+		withSampleTasks(() -> {
+			// Identifiants seuls
+			long[] ids = taskDAO.selectLongs("id", new String[] { "path" },
+					new Object[] { task11.getFullPath() }, new Object[] { "number" }, -1);
+			assertTrue(Arrays.equals(new long[] { task111.getId(), task112.getId() }, ids));
+
+			// Hydratation partielle
+			IProjection<Task> projection = taskDAO.getProjection("id", "code");
+			assertSame(projection, taskDAO.getProjection("id", "code"));
+			assertEquals("t.TSK_ID, t.TSK_CODE", projection.getColumnNamesRequestFragment("t"));
+			Task[] tasks = taskDAO.select(projection, new String[] { "path" },
+					new Object[] { task11.getFullPath() }, new Object[] { "number" }, -1);
+			assertEquals(2, tasks.length);
+			assertEquals(task111.getId(), tasks[0].getId());
+			assertEquals("T111", tasks[0].getCode());
+			assertNull(tasks[0].getName());
+			assertEquals(0, tasks[0].getBudget());
+			assertEquals("T112", tasks[1].getCode());
+		});
+	}
+
 	public void testUpdate() throws Exception {
 		// Création des taches de test
 		withSampleTasks(() -> {
@@ -227,6 +290,27 @@ public class TaskTest extends AbstractModelTestCase {
 		});
 	}
 
+	public void testPartialUpdate() throws Exception {
+		withSampleTasks(() -> {
+			String name = task111.getName();
+			task111.setName("Not saved");
+			task111.setTodo(12);
+			taskDAO.update(task111, "todo");
+
+			// Seul le RAF a été mis à jour
+			Task _task111 = getModelMgr().getTask(task111.getId());
+			assertEquals(12, _task111.getTodo());
+			assertEquals(name, _task111.getName());
+
+			// La clé primaire ne peut être mise à jour
+			try {
+				taskDAO.update(task111, "id");
+				fail("Primary key update must be rejected");
+			} catch (IllegalArgumentException expected) {
+			}
+		});
+	}
+
 	public void testMoveDown() throws Exception {
 		// Création des taches de test
 		withSampleTasks(() -> {
@@ -300,6 +384,164 @@ public class TaskTest extends AbstractModelTestCase {
 		});
 	}
 
+	public void testMoveSubTree() throws Exception {
+		withSampleTasks(() -> {
+			// The sub tasks follow the moved task
+			getModelMgr().moveTask(task11, rootTask);
+			task11 = getModelMgr().getTask(task11.getId());
+			assertEquals(rootTask.getFullPath(), task11.getPath());
+			assertEquals((byte) 3, task11.getNumber());
+			assertEquals(task11.getFullPath(), getModelMgr().getTask(task111.getId()).getPath());
+			assertEquals(task11.getFullPath(), getModelMgr().getTask(task112.getId()).getPath());
+			assertEquals(0, getModelMgr().getSubTasksCount(task1.getId()));
+
+			// And the toggled tasks
+			getModelMgr().moveTaskUpOrDown(task11, 1);
+			task11 = getModelMgr().getTask(task11.getId());
+			assertEquals((byte) 1, task11.getNumber());
+			assertEquals((byte) 2, getModelMgr().getTask(task1.getId()).getNumber());
+			assertEquals((byte) 3, getModelMgr().getTask(task2.getId()).getNumber());
+			Task[] subTasks = getModelMgr().getSubTasks(task11.getId());
+			assertEquals(2, subTasks.length);
+			assertEquals(task111.getId(), subTasks[0].getId());
+			assertEquals(task112.getId(), subTasks[1].getId());
+			assertEquals(task11.getFullPath(), subTasks[1].getPath());
+
+			// Removing a task renumbers its following siblings and their sub tasks
+			getModelMgr().removeTask(getModelMgr().getTask(task111.getId()));
+			task112 = getModelMgr().getTask(task112.getId());
+			assertEquals((byte) 1, task112.getNumber());
+			assertEquals(task112.getId(), getModelMgr().getTaskByCodePath("/RT/T11/T112").getId());
+		});
+	}
+
+	public void testManySubTasks() throws Exception {
+		Task parentTask = getModelMgr().createNewTask(null);
+		Task lastTask = null;
+		for (int i = 0; i < 300; i++) {
+			lastTask = getModelMgr().createNewTask(parentTask);
+		}
+		assertEquals(300, lastTask.getNumber());
+		assertEquals(parentTask.getFullPath() + StringHelper.toBase32(300), lastTask.getFullPath());
+		assertEquals(300, getModelMgr().getSubTasksCount(parentTask.getId()));
+
+		// Sub tasks are still sorted by number
+		Task[] subTasks = getModelMgr().getSubTasks(parentTask.getId());
+		for (int i = 0; i < subTasks.length; i++) {
+			assertEquals(i + 1, subTasks[i].getNumber());
+		}
+		Task subTask = getModelMgr().createNewTask(lastTask);
+		assertEquals(lastTask.getId(), getModelMgr().getParentTask(subTask).getId());
+	}
+
+	public void testUpgradeTaskNumbersToBase32() throws Exception {
+		// Tasks written by a former version (hexadecimal numbers) : a root
+		// task with 40 sub tasks, the 20th ('14') having a sub task
+		try (Statement stmt = get().createStatement()) {
+			stmt.executeUpdate("update SCHEMA_VERSION set scv_version='1.2.0'");
+			stmt.executeUpdate("insert into TASK (tsk_id, tsk_path, tsk_number, tsk_code, tsk_name, tsk_budget, tsk_initial_cons, tsk_todo, tsk_closed)"
+					+ " values (1, '', '01', 'RT', 'Root task', 0, 0, 0, false)");
+			for (int i = 1; i <= 40; i++) {
+				stmt.executeUpdate("insert into TASK (tsk_id, tsk_path, tsk_number, tsk_code, tsk_name, tsk_budget, tsk_initial_cons, tsk_todo, tsk_closed)"
+						+ " values (" + (i + 1) + ", '01', '" + StringHelper.toHex((byte) i) + "', 'T" + i + "', 'Task " + i + "', 0, 0, 0, false)");
+			}
+			stmt.executeUpdate("insert into TASK (tsk_id, tsk_path, tsk_number, tsk_code, tsk_name, tsk_budget, tsk_initial_cons, tsk_todo, tsk_closed)"
+					+ " values (100, '0114', '01', 'T201', 'Task 20.1', 0, 0, 0, false)");
+		}
+		get().commit();
+
+		// Numbers from 16 ('10' to '28') are converted, along with the path
+		// of the sub task of the 20th task ; the upgrade is done once
+		getModelMgr().upgradeDatabase();
+		getModelMgr().upgradeDatabase();
+		getModelMgr().rebuildTaskHierarchy();
+
+		Task[] subTasks = getModelMgr().getSubTasks(1l);
+		assertEquals(40, subTasks.length);
+		for (int i = 0; i < subTasks.length; i++) {
+			assertEquals(i + 1, subTasks[i].getNumber());
+			assertEquals("T" + (i + 1), subTasks[i].getCode());
+		}
+		Task task201 = getModelMgr().getTaskByCodePath("/RT/T20/T201");
+		assertEquals(100, task201.getId());
+		assertEquals("010K", task201.getPath());
+	}
+
+	public void testConvertHexNumbersWithIdentityMap() throws Exception {
+		// Task written by a former version, whose number ('10' = 16) is
+		// misread before the conversion
+		try (Statement stmt = get().createStatement()) {
+			stmt.executeUpdate("insert into TASK (tsk_id, tsk_path, tsk_number, tsk_code, tsk_name, tsk_budget, tsk_initial_cons, tsk_todo, tsk_closed)"
+					+ " values (1, '', '10', 'RT', 'Root task', 0, 0, 0, false)");
+		}
+		get().commit();
+		IdentityMap.open(get());
+		try {
+			assertEquals(32, taskDAO.selectByPK(1l).getNumber());
+			taskDAO.convertHexNumbersToBase32();
+			assertEquals(16, taskDAO.selectByPK(1l).getNumber());
+		} finally {
+			IdentityMap.close();
+		}
+	}
+
+	public void testUpgradeUnknownSchemaVersion() throws Exception {
+		// Up to date database
+		getModelMgr().upgradeDatabase();
+
+		// Database whose tables have not been updated
+		try (Statement stmt = get().createStatement()) {
+			stmt.executeUpdate("drop table SCHEMA_VERSION");
+		}
+		get().commit();
+		try {
+			getModelMgr().upgradeDatabase();
+			fail("A database without schema version must not be opened");
+		} catch (ModelException expected) {
+		}
+	}
+
+	private List<String> readTaskHierarchy() throws Exception {
+		List<String> links = new ArrayList<String>();
+		try (Statement stmt = get().createStatement();
+				ResultSet rs = stmt.executeQuery("select ttr_ancestor, ttr_descendant, ttr_depth from TASK_TREE order by 1, 2")) {
+			while (rs.next()) {
+				links.add(rs.getLong(1) + ">" + rs.getLong(2) + ":" + rs.getInt(3));
+			}
+		}
+		return links;
+	}
+
+	public void testTaskHierarchy() throws Exception {
+		withSampleTasks(() -> {
+			// Links to the ancestors and to the task itself
+			List<String> links = readTaskHierarchy();
+			assertTrue(links.contains(rootTask.getId() + ">" + task111.getId() + ":3"));
+			assertTrue(links.contains(task11.getId() + ">" + task111.getId() + ":1"));
+			assertTrue(links.contains(task111.getId() + ">" + task111.getId() + ":0"));
+			assertFalse(links.contains(task2.getId() + ">" + task111.getId() + ":1"));
+
+			// Move a sub tree
+			getModelMgr().moveTask(task11, rootTask);
+			links = readTaskHierarchy();
+			assertTrue(links.contains(rootTask.getId() + ">" + task111.getId() + ":2"));
+			assertTrue(links.contains(task11.getId() + ">" + task111.getId() + ":1"));
+			assertFalse(links.contains(task1.getId() + ">" + task111.getId() + ":2"));
+
+			// Incremental maintenance matches a full rebuild
+			getModelMgr().rebuildTaskHierarchy();
+			assertEquals(links, readTaskHierarchy());
+
+			// Remove a sub tree
+			task11 = getModelMgr().getTask(task11.getId());
+			getModelMgr().removeTask(task11);
+			links = readTaskHierarchy();
+			assertFalse(links.contains(rootTask.getId() + ">" + task111.getId() + ":2"));
+			getModelMgr().rebuildTaskHierarchy();
+			assertEquals(links, readTaskHierarchy());
+		});
+	}
+
 	public void testSubTasksSum() throws Exception {
 		// Création des taches de test
 		withSampleTasks(() -> {
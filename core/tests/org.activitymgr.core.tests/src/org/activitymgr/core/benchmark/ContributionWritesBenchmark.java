@@ -0,0 +1,108 @@
+package org.activitymgr.core.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.activitymgr.core.AbstractModelTestCase;
+import org.activitymgr.core.dao.IContributionDAO;
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.dto.Contribution;
+import org.activitymgr.core.dto.Duration;
+import org.activitymgr.core.dto.Task;
+import org.activitymgr.core.model.ModelException;
+
+import com.google.inject.Inject;
+
+/**
+ * Compares row at a time writes with batched writes of contributions.
+ * 
+ * <p>
+ * This class is not matched by the test suite naming pattern and must be run
+ * explicitly (as a JUnit test). The count of contributions may be set with the
+ * <code>benchmark.contributions</code> system property (defaults to 100 000).
+ * </p>
+ */
+public class ContributionWritesBenchmark extends AbstractModelTestCase {
+
+	/** Count of contributions to write */
+	private static final int CONTRIBUTIONS_COUNT = Integer.getInteger(
+			"benchmark.contributions", 100000);
+
+	/** Count of tasks receiving the contributions */
+	private static final int TASKS_COUNT = 10;
+
+	@Inject
+	private IContributionDAO contributionDAO;
+
+	public void testRowAtATimeVersusBatch() throws Exception {
+		List<Contribution> contributions = createContributions();
+
+		// Row at a time
+		long start = System.currentTimeMillis();
+		for (Contribution contribution : contributions) {
+			contributionDAO.insert(contribution);
+		}
+		get().commit();
+		long rowInsert = System.currentTimeMillis() - start;
+		assertEquals(contributions.size(), contributionDAO.countAll());
+
+		start = System.currentTimeMillis();
+		for (Contribution contribution : contributions) {
+			contributionDAO.delete(contribution);
+		}
+		get().commit();
+		long rowDelete = System.currentTimeMillis() - start;
+		assertEquals(0, contributionDAO.countAll());
+
+		// Batched
+		start = System.currentTimeMillis();
+		contributionDAO.insertAll(contributions);
+		get().commit();
+		long batchInsert = System.currentTimeMillis() - start;
+		assertEquals(contributions.size(), contributionDAO.countAll());
+
+		start = System.currentTimeMillis();
+		contributionDAO.deleteAll(contributions);
+		get().commit();
+		long batchDelete = System.currentTimeMillis() - start;
+		assertEquals(0, contributionDAO.countAll());
+
+		System.out.println(contributions.size() + " contributions");
+		System.out.println("  insert : row at a time " + rowInsert
+				+ " ms, batch " + batchInsert + " ms");
+		System.out.println("  delete : row at a time " + rowDelete
+				+ " ms, batch " + batchDelete + " ms");
+	}
+
+	private List<Contribution> createContributions() throws ModelException {
+		Collaborator contributor = getModelMgr().createNewCollaborator();
+		Duration duration = getFactory().newDuration();
+		duration.setId(100);
+		duration = getModelMgr().createDuration(duration);
+		Task rootTask = getModelMgr().createNewTask(null);
+		Task[] tasks = new Task[TASKS_COUNT];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = getModelMgr().createNewTask(rootTask);
+		}
+
+		List<Contribution> contributions = new ArrayList<Contribution>(
+				CONTRIBUTIONS_COUNT);
+		Calendar date = new GregorianCalendar(2000, 0, 1);
+		while (contributions.size() < CONTRIBUTIONS_COUNT) {
+			for (int i = 0; i < tasks.length
+					&& contributions.size() < CONTRIBUTIONS_COUNT; i++) {
+				Contribution contribution = getFactory().newContribution();
+				contribution.setDate(date);
+				contribution.setContributorId(contributor.getId());
+				contribution.setTaskId(tasks[i].getId());
+				contribution.setDurationId(duration.getId());
+				contributions.add(contribution);
+			}
+			date.add(Calendar.DATE, 1);
+		}
+		return contributions;
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.activitymgr.core.benchmark;
+
+import org.activitymgr.core.AbstractModelTestCase;
+import org.activitymgr.core.dao.PreparedStatementCache;
+import org.activitymgr.core.dto.Task;
+import org.activitymgr.core.model.ModelException;
+
+/**
+ * Measures the moves and renumbering of large task sub trees.
+ *
+ * <p>
+ * This class is not matched by the test suite naming pattern and must be run
+ * explicitly (as a JUnit test). The count of tasks of the moved sub tree may
+ * be set with the <code>benchmark.tasks</code> system property (defaults to
+ * 2 000).
+ * </p>
+ */
+public class TaskMovesBenchmark extends AbstractModelTestCase {
+
+	/** Count of tasks of the moved sub tree */
+	private static final int TASKS_COUNT = Integer.getInteger(
+			"benchmark.tasks", 2000);
+
+	/** Count of sub tasks per task */
+	private static final int SUB_TASKS_COUNT = 50;
+
+	public void testSubTreeMoves() throws Exception {
+		Task project = getModelMgr().createNewTask(null);
+		Task otherProject = getModelMgr().createNewTask(null);
+		int created = createSubTasks(project, TASKS_COUNT);
+		Task[] lots = getModelMgr().getSubTasks(project.getId());
+		Task lastLot = lots[lots.length - 1];
+
+		// Whole project moved under another root task
+		long start = startMeasure();
+		getModelMgr().moveTask(project, otherProject);
+		report("move " + created + " tasks", start);
+
+		// Move back (the other project is renumbered)
+		project = getModelMgr().getTask(project.getId());
+		start = startMeasure();
+		getModelMgr().moveTask(project, null);
+		report("move back " + created + " tasks", start);
+
+		// Last lot moved up to the first place (sub trees toggled)
+		lastLot = getModelMgr().getTask(lastLot.getId());
+		start = startMeasure();
+		getModelMgr().moveTaskUpOrDown(lastLot, 1);
+		report("move up a lot over " + (lots.length - 1) + " lots", start);
+
+		// First lot removed (following lots renumbered)
+		Task firstLot = getModelMgr().getSubTasks(
+				getModelMgr().getTask(project.getId()).getId())[1];
+		start = startMeasure();
+		getModelMgr().removeTask(firstLot);
+		report("remove a lot and renumber the following ones", start);
+
+		assertEquals(lots.length - 1,
+				getModelMgr().getSubTasksCount(project.getId()));
+	}
+
+	private int createSubTasks(Task parentTask, int count)
+			throws ModelException {
+		// One level of lots, and one level of leaf tasks
+		int created = 0;
+		while (created < count) {
+			Task lot = getModelMgr().createNewTask(parentTask);
+			created++;
+			for (int i = 0; i < SUB_TASKS_COUNT && created < count; i++) {
+				getModelMgr().createNewTask(lot);
+				created++;
+			}
+		}
+		return created;
+	}
+
+	private static long startMeasure() {
+		PreparedStatementCache.resetCounters();
+		return System.currentTimeMillis();
+	}
+
+	private static void report(String operation, long start) {
+		long duration = System.currentTimeMillis() - start;
+		long statements = PreparedStatementCache.getHitCount()
+				+ PreparedStatementCache.getMissCount();
+		System.out.println(operation + " : " + duration + " ms, "
+				+ statements + " statement(s)");
+	}
+
+}
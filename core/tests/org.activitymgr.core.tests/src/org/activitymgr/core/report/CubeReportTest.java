@@ -0,0 +1,86 @@
+package org.activitymgr.core.report;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.activitymgr.core.dao.ContributionCube;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.dto.Contribution;
+import org.activitymgr.core.dto.report.ReportIntervalType;
+import org.activitymgr.core.model.ModelException;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+
+/**
+ * Runs the report tests with the sums computed by the contributions cube (the
+ * expected reports are the same).
+ */
+public class CubeReportTest extends ReportTest {
+
+	@Override
+	protected List<Module> getGuiceModules() {
+		List<Module> modules = new ArrayList<Module>();
+		modules.add(Modules.override(super.getGuiceModules()).with(
+				new AbstractModule() {
+					@Override
+					protected void configure() {
+						bind(ContributionCube.class).toInstance(
+								new ContributionCube(true, 3600));
+					}
+				}));
+		return modules;
+	}
+
+	public void testCubeUpdates() throws ModelException {
+		ContributionCube cube = getInjector().getInstance(ContributionCube.class);
+		String report = buildReport();
+		assertEquals(1, cube.getLoads());
+		assertEquals(1, cube.getReads());
+		int size = cube.size();
+
+		// A new contribution is read again on its own
+		Collaborator jdoe = getModelMgr().getCollaborator("jdoe");
+		Contribution ctb = getFactory().newContribution();
+		ctb.setDate(cal(2016, 12, 9));
+		ctb.setContributorId(jdoe.getId());
+		ctb.setDurationId(25);
+		ctb.setTaskId(getModelMgr().getTaskByCodePath("/PR/PA/TST").getId());
+		getModelMgr().createContribution(ctb, false);
+		String updated = buildReport();
+		assertFalse(report.equals(updated));
+		assertEquals(1, cube.getLoads());
+		assertEquals(2, cube.getReads());
+		assertEquals(size + 1, cube.size());
+
+		// The updated cube matches a reloaded one
+		cube.invalidateAll();
+		cube.transactionEnded();
+		ReportCache reportCache = getInjector().getInstance(ReportCache.class);
+		reportCache.dataChanged();
+		reportCache.transactionEnded();
+		assertEquals(updated, buildReport());
+		assertEquals(2, cube.getLoads());
+
+		// A removed contribution is read again on its own
+		getModelMgr().removeContribution(ctb, false);
+		assertEquals(report, buildReport());
+		assertEquals(2, cube.getLoads());
+		assertEquals(size, cube.size());
+
+		// A task move is seen
+		getModelMgr().moveUpTask(getModelMgr().getTaskByCodePath("/PR/PB"));
+		assertEquals(2, cube.getLoads());
+		assertFalse(report.equals(buildReport()));
+	}
+
+	private String buildReport() throws ModelException {
+		Calendar start = cal(2016, 12, 5);
+		return getModelMgr().buildReport(start, ReportIntervalType.WEEK, 2,
+				null, 3, false, true, false, null).toString();
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.activitymgr.core.report;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,13 +19,17 @@ import java.util.Properties;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.activitymgr.core.AbstractModelTestCase;
+import org.activitymgr.core.dao.DAOException;
 import org.activitymgr.core.dao.IContributionDAO;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.StatementCanceller;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Contribution;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.report.Report;
 import org.activitymgr.core.dto.report.ReportIntervalType;
 import org.activitymgr.core.dto.report.ReportItem;
+import org.activitymgr.core.model.IModelMgr;
 import org.activitymgr.core.model.ModelException;
 import org.xml.sax.SAXException;
 
@@ -106,6 +111,153 @@ public class ReportTest extends AbstractModelTestCase {
 		}
 	}
 	
+	public void testReportCache() throws ModelException {
+		ReportCache reportCache = getInjector().getInstance(ReportCache.class);
+		reportCache.resetCounters();
+		Report report = doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK,
+				2, null, 2, false, true,
+				new long[] { jdoe.getId(), wsmith.getId() }, true);
+		assertEquals(1, reportCache.getMisses());
+
+		// Same report (the contributors order does not matter)
+		Report cached = doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK,
+				2, null, 2, false, true,
+				new long[] { wsmith.getId(), jdoe.getId() }, true);
+		assertSame(report, cached);
+		assertEquals(1, reportCache.getHits());
+
+		// Another report
+		assertNotSame(report, doBuildReport(cal(2016, 12, 5),
+				ReportIntervalType.WEEK, 3, null, 2, false, true, null, true));
+		assertEquals(2, reportCache.getMisses());
+
+		// A contribution makes the report to be built again
+		Contribution ctb = getFactory().newContribution();
+		Calendar c = (Calendar) sampleDataStart.clone();
+		c.add(Calendar.DATE, 5);
+		ctb.setDate(c);
+		ctb.setContributorId(jdoe.getId());
+		ctb.setDurationId(25);
+		ctb.setTaskId(getModelMgr().getTaskByCodePath("/PR/PA/TST").getId());
+		getModelMgr().createContribution(ctb, false);
+		Report rebuilt = doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK,
+				2, null, 2, false, true,
+				new long[] { jdoe.getId(), wsmith.getId() }, true);
+		assertNotSame(report, rebuilt);
+		assertFalse(report.toString().equals(rebuilt.toString()));
+		assertEquals(3, reportCache.getMisses());
+		assertEquals(0.25, reportCache.getHitRate());
+	}
+
+	public void testReportCacheConcurrentCommit() throws Exception {
+		ReportCache reportCache = getInjector().getInstance(ReportCache.class);
+		IModelMgr unwrappedModelMgr = getInjector().getInstance(IModelMgr.class);
+
+		// A transaction starts (its snapshot may be taken from now on)
+		reportCache.transactionStarted();
+		try {
+			// Another transaction commits a contribution before the report
+			// is built
+			Thread writer = new Thread(() -> {
+				try {
+					Contribution ctb = getFactory().newContribution();
+					Calendar c = (Calendar) sampleDataStart.clone();
+					c.add(Calendar.DATE, 5);
+					ctb.setDate(c);
+					ctb.setContributorId(jdoe.getId());
+					ctb.setDurationId(25);
+					ctb.setTaskId(getModelMgr().getTaskByCodePath("/PR/PA/TST").getId());
+					getModelMgr().createContribution(ctb, false);
+				} catch (ModelException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			writer.start();
+			writer.join();
+
+			// The report built afterwards in the first transaction is not
+			// cached (its snapshot may miss the contribution)
+			assertNotNull(unwrappedModelMgr.buildReport(cal(2016, 12, 5),
+					ReportIntervalType.WEEK, 2, null, 2, false, true, true,
+					null));
+			assertEquals(0, reportCache.size());
+		}
+		finally {
+			reportCache.transactionEnded();
+		}
+
+		// The next transaction caches it
+		doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK, 2, null, 2,
+				false, true, null, true);
+		assertEquals(1, reportCache.size());
+	}
+
+	public void testReportCacheSpill() throws IOException, ModelException {
+		Report report = doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK,
+				2, null, 2, false, true, null, true);
+		List<Object> key1 = ReportCache.key("report", 1);
+		List<Object> key2 = ReportCache.key("report", 2);
+		ReportCache unbounded = new ReportCache(Long.MAX_VALUE, null);
+		unbounded.put(key1, unbounded.getVersion(), report);
+		long reportWeight = unbounded.getWeight();
+
+		File spillDir = File.createTempFile("reports", "");
+		spillDir.delete();
+		try {
+			// Room for a single report
+			ReportCache cache = new ReportCache(reportWeight, spillDir);
+			cache.put(key1, cache.getVersion(), report);
+			cache.put(key2, cache.getVersion(), report);
+			assertEquals(1, cache.size());
+			assertEquals(1, cache.getEvictions());
+			assertEquals(1, cache.getSpills());
+
+			// The most recently used report is kept in memory
+			assertSame(report, cache.get(key2));
+			assertEquals(0, cache.getDiskHits());
+
+			// The evicted report is read from the spill directory
+			Report spilled = cache.get(key1);
+			assertNotSame(report, spilled);
+			assertEquals(report.toString(), spilled.toString());
+			assertEquals(1, cache.getDiskHits());
+			assertEquals(2, cache.getHits());
+
+			// A data change drops the reports, including the spilled ones
+			cache.dataChanged();
+			assertNull(cache.get(key2));
+			cache.transactionEnded();
+			assertNull(cache.get(key1));
+			assertNull(cache.get(key2));
+			assertEquals(0, cache.size());
+			assertEquals(0, spillDir.listFiles().length);
+		}
+		finally {
+			for (File file : spillDir.listFiles()) {
+				file.delete();
+			}
+			spillDir.delete();
+		}
+	}
+
+	public void testReportCancellation() throws ModelException {
+		StatementCanceller canceller = new StatementCanceller();
+		canceller.cancel();
+		StatementCanceller.setCurrent(canceller);
+		try {
+			doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK, 2, null,
+					2, false, true, null, true);
+			fail("A cancelled report must not be built");
+		}
+		catch (DAOException expected) {
+		}
+		finally {
+			StatementCanceller.setCurrent(null);
+		}
+		assertNotNull(doBuildReport(cal(2016, 12, 5), ReportIntervalType.WEEK,
+				2, null, 2, false, true, null, true));
+	}
+
 	public void testReportFilteredByCollaborator() throws IOException, ModelException {
 		doTestReport();
 	}
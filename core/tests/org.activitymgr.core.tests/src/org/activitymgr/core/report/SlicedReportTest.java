@@ -0,0 +1,159 @@
+package org.activitymgr.core.report;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.activitymgr.core.dao.IContributionDAO;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.ReportPlanner;
+import org.activitymgr.core.dto.report.ReportIntervalType;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+
+/**
+ * Runs the report tests with reports split into slices of a week (the
+ * expected reports are the same).
+ */
+public class SlicedReportTest extends ReportTest {
+
+	@Override
+	protected List<Module> getGuiceModules() {
+		List<Module> modules = new ArrayList<Module>();
+		modules.add(Modules.override(super.getGuiceModules()).with(
+				new AbstractModule() {
+					@Override
+					protected void configure() {
+						bind(ReportPlanner.class).toInstance(
+								new ReportPlanner(3, 7));
+					}
+				}));
+		return modules;
+	}
+
+	public void testPlan() {
+		ReportPlanner planner = getInjector().getInstance(ReportPlanner.class);
+		// Too short
+		assertEquals(1, planner.plan(cal(2016, 12, 5), ReportIntervalType.DAY, 13).size());
+
+		// Three slices of whole intervals
+		List<int[]> slices = planner.plan(cal(2016, 12, 5), ReportIntervalType.DAY, 31);
+		assertEquals(3, slices.size());
+		assertEquals(0, slices.get(0)[0]);
+		assertEquals(slices.get(0)[1], slices.get(1)[0]);
+		assertEquals(slices.get(1)[1], slices.get(2)[0]);
+		assertEquals(31, slices.get(2)[1]);
+		assertEquals(3, planner.plan(cal(2016, 12, 5), ReportIntervalType.MONTH, 3).size());
+		assertEquals(2, planner.plan(cal(2016, 12, 5), ReportIntervalType.YEAR, 2).size());
+
+		// A transaction that has written is not split (the slices would not
+		// see its data)
+		IContributionDAO cDAO = getInjector().getInstance(IContributionDAO.class);
+		cDAO.delete(null, null);
+		assertEquals(1, planner.plan(cal(2016, 12, 5), ReportIntervalType.DAY, 31).size());
+	}
+
+	public void testSliceConnections() throws Exception {
+		// A single slice connection : the second slice holds it until the
+		// first one is read, so that the third one is read by the calling
+		// thread too
+		ReportPlanner planner = new ReportPlanner(2, 7);
+		getInjector().injectMembers(planner);
+		CountDownLatch firstSliceRead = new CountDownLatch(1);
+		List<ReportPlanner.SliceQuery<Connection>> queries = Arrays.asList(
+				con -> {
+					firstSliceRead.countDown();
+					return con;
+				},
+				con -> {
+					await(firstSliceRead);
+					return con;
+				},
+				con -> con);
+		List<Connection> connections = planner.run(queries, get());
+		assertSame(get(), connections.get(0));
+		assertNotSame(get(), connections.get(1));
+		assertSame(get(), connections.get(2));
+	}
+
+	public void testSlicesReadAgainAfterConcurrentCommit() throws Exception {
+		ReportPlanner planner = new ReportPlanner(2, 7);
+		getInjector().injectMembers(planner);
+		ReportCache reportCache = getInjector().getInstance(ReportCache.class);
+		// Another transaction writes and commits while the second slice is
+		// read on a connection of its own : it is read again by the calling
+		// thread
+		List<ReportPlanner.SliceQuery<Connection>> queries = Arrays.asList(
+				con -> con,
+				con -> {
+					if (con != get()) {
+						Thread writer = new Thread(() -> {
+							reportCache.dataChanged();
+							reportCache.transactionEnded();
+						});
+						writer.start();
+						try {
+							writer.join();
+						} catch (InterruptedException e) {
+							throw new SQLException(e);
+						}
+					}
+					return con;
+				});
+		List<Connection> connections = planner.run(queries, get());
+		assertSame(get(), connections.get(0));
+		assertSame(get(), connections.get(1));
+
+		// Without any write, the second slice is read on another connection
+		connections = planner.run(Arrays.asList(queries.get(0), con -> con), get());
+		assertNotSame(get(), connections.get(1));
+	}
+
+	public void testNoSlicesWhileWriting() throws Exception {
+		ReportPlanner planner = new ReportPlanner(2, 7);
+		getInjector().injectMembers(planner);
+		ReportCache reportCache = getInjector().getInstance(ReportCache.class);
+		// Another transaction has written but is not committed yet : the
+		// slices could read data before and after its commit
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch reportRead = new CountDownLatch(1);
+		Thread writer = new Thread(() -> {
+			reportCache.dataChanged();
+			written.countDown();
+			try {
+				reportRead.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException ignored) {
+				// Ends the transaction
+			} finally {
+				reportCache.transactionEnded();
+			}
+		});
+		writer.start();
+		try {
+			await(written);
+			List<Connection> connections = planner.run(
+					Arrays.<ReportPlanner.SliceQuery<Connection>> asList(
+							con -> con, con -> con), get());
+			assertSame(get(), connections.get(0));
+			assertSame(get(), connections.get(1));
+		} finally {
+			reportRead.countDown();
+			writer.join();
+		}
+	}
+
+	private static void await(CountDownLatch latch) throws SQLException {
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new SQLException(e);
+		}
+	}
+
+}
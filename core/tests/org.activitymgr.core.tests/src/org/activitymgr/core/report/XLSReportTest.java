@@ -44,4 +44,22 @@ public class XLSReportTest extends AbstractModelTestCase {
 		}
 	}
 
+	public void testXLSXHasNoOverflow() throws ModelException {
+		Calendar start = cal(2017, 1, 1);
+		// 366 intervals do not fit in XLS, but fit in XLSX
+		getModelMgr().buildReport(start, ReportIntervalType.DAY, 366, null,
+				1, false, false, false, null, new String[] { "task.path" },
+				true, true, true);
+		try {
+			// Overflow (16384 columns)
+			getModelMgr().buildReport(start, ReportIntervalType.DAY, 16383,
+					null, 1, false, false, false, null,
+					new String[] { "task.path" }, true, true, true);
+			fail("An overflow should have occured");
+		}
+		catch (ModelException e){
+			
+		}
+	}
+
 }
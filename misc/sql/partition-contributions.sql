@@ -0,0 +1,24 @@
+-- ------------------------------------------------------------
+-- Optional (MySQL) : partitions the contributions table by year
+-- ------------------------------------------------------------
+-- The requests filter the contributions on CTB_YEAR, so that MySQL only
+-- reads the partitions of the requested years. The closed years may also
+-- be moved out of CONTRIBUTION with IModelMgr.archiveContributions(int).
+--
+-- InnoDB does not support foreign keys on partitioned tables : they must be
+-- dropped first (the references are then only checked by the application).
+-- Adapt the partitions to the contribution years, and add the partition of
+-- the next year before it starts :
+--   alter table CONTRIBUTION reorganize partition P_NEXT into (
+--     partition P2027 values less than (2028),
+--     partition P_NEXT values less than maxvalue);
+alter table CONTRIBUTION drop foreign key CTB_CONTRIBUTOR_FK;
+alter table CONTRIBUTION drop foreign key CTB_TASK_FK;
+alter table CONTRIBUTION drop foreign key CTB_DURATION_FK;
+alter table CONTRIBUTION partition by range (CTB_YEAR) (
+	partition P_OLD values less than (2024),
+	partition P2024 values less than (2025),
+	partition P2025 values less than (2026),
+	partition P2026 values less than (2027),
+	partition P_NEXT values less than maxvalue
+);
@@ -0,0 +1,67 @@
+-- Task hierarchy (closure table)
+create table TASK_TREE (
+	TTR_ANCESTOR   integer(8) not null,
+	TTR_DESCENDANT integer(8) not null,
+	TTR_DEPTH      integer(3) not null,
+    index TTR_DESCENDANT_IDX (TTR_DESCENDANT, TTR_DEPTH),
+    constraint TTR_PK primary key (TTR_ANCESTOR, TTR_DESCENDANT),
+    constraint TTR_ANCESTOR_FK foreign key (TTR_ANCESTOR) references TASK (TSK_ID),
+    constraint TTR_DESCENDANT_FK foreign key (TTR_DESCENDANT) references TASK (TSK_ID)
+) engine=innodb;
+-- Same as IModelMgr.rebuildTaskHierarchy() (usable on HSQLDB / H2 databases)
+insert into TASK_TREE (TTR_ANCESTOR, TTR_DESCENDANT, TTR_DEPTH)
+	select a.TSK_ID, d.TSK_ID, (length(d.TSK_PATH) - length(a.TSK_PATH)) / 2
+	from TASK a, TASK d
+	where d.TSK_ID = a.TSK_ID or d.TSK_PATH like concat(a.TSK_PATH, a.TSK_NUMBER, '%');
+-- Contribution date (yyyymmdd), used by the date range requests
+alter table CONTRIBUTION add CTB_DATE integer(8) not null; -- Set 0 to existing values
+update CONTRIBUTION set CTB_DATE = CTB_YEAR * 10000 + CTB_MONTH * 100 + CTB_DAY;
+create index CTB_CONTRIBUTOR_DATE_IDX on CONTRIBUTION (CTB_CONTRIBUTOR, CTB_DATE);
+create index CTB_TASK_DATE_IDX on CONTRIBUTION (CTB_TASK, CTB_DATE);
+create index CTB_DATE_IDX on CONTRIBUTION (CTB_DATE);
+-- On HSQLDB / H2 databases, the indexes must be dropped with 'drop index <name>'
+alter table CONTRIBUTION drop index CTB_CONTRIBUTOR_IDX;
+alter table CONTRIBUTION drop index CTB_TASK_IDX;
+-- Contributions rollups
+create table CONTRIBUTION_MONTH (
+	CTM_TASK          integer(8) not null,
+	CTM_YEAR_MONTH    integer(6) not null,
+	CTM_SUM           bigint(12) not null,
+	CTM_COUNT         integer(8) not null,
+    constraint CTM_PK primary key (CTM_TASK, CTM_YEAR_MONTH),
+    constraint CTM_TASK_FK foreign key (CTM_TASK) references TASK (TSK_ID)
+) engine=innodb;
+create table CONTRIBUTION_TOTAL (
+	CTT_TASK          integer(8) not null,
+	CTT_SUM           bigint(12) not null,
+	CTT_COUNT         integer(8) not null,
+    constraint CTT_PK primary key (CTT_TASK),
+    constraint CTT_TASK_FK foreign key (CTT_TASK) references TASK (TSK_ID)
+) engine=innodb;
+-- Same as IModelMgr.rebuildContributionRollups()
+insert into CONTRIBUTION_MONTH (CTM_TASK, CTM_YEAR_MONTH, CTM_SUM, CTM_COUNT)
+	select CTB_TASK, CTB_YEAR * 100 + CTB_MONTH, sum(CTB_DURATION), count(CTB_DURATION)
+	from CONTRIBUTION group by CTB_TASK, CTB_YEAR, CTB_MONTH;
+insert into CONTRIBUTION_TOTAL (CTT_TASK, CTT_SUM, CTT_COUNT)
+	select CTM_TASK, sum(CTM_SUM), sum(CTM_COUNT)
+	from CONTRIBUTION_MONTH group by CTM_TASK;
+-- Schema version : task numbers are now encoded in base 32 (up to 1023 sub
+-- tasks per task instead of 255). '1.2.0' tells that the existing tasks still
+-- have hexadecimal numbers : the application converts them and sets '1.3.0'
+-- the next time it opens the database (IModelMgr.upgradeDatabase()).
+create table SCHEMA_VERSION (
+	SCV_VERSION       varchar(  10) not null
+) engine=innodb;
+insert into SCHEMA_VERSION (SCV_VERSION) values ('1.2.0');
+-- Tasks version : incremented by each tasks write, so that the tasks cached
+-- by an application instance are dropped when another one writes tasks
+create table TASK_VERSION (
+	TKV_VERSION       bigint not null
+) engine=innodb;
+insert into TASK_VERSION (TKV_VERSION) values (0);
+-- All the contributions (CONTRIBUTION and the CONTRIBUTION_<year> archive
+-- tables created by IModelMgr.archiveContributions(int))
+create view CONTRIBUTION_ALL as
+	select CTB_YEAR, CTB_MONTH, CTB_DAY, CTB_CONTRIBUTOR, CTB_TASK, CTB_DURATION, CTB_DATE
+	from CONTRIBUTION;
+-- SEE /org.activitymgr.core.dao/src/org/activitymgr/core/impl/dao/mysqldb.sql
@@ -35,11 +35,13 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Iterator;
 import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.activitymgr.core.dao.DAOCaches;
 import org.activitymgr.core.dto.Duration;
 import org.activitymgr.core.dto.IDTOFactory;
 import org.activitymgr.core.model.IModelMgr;
@@ -50,11 +52,13 @@ import org.activitymgr.ui.rcp.util.SafeRunner;
 import org.activitymgr.ui.rcp.util.UITechException;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.log4j.Logger;
+import org.eclipse.jface.dialogs.InputDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.FileFieldEditor;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
@@ -109,6 +113,9 @@ public class DatabaseUI implements ModifyListener {
 	/** Model manager */
 	private IModelMgr modelMgr;
 	
+	/** Caches shared by the transactions */
+	private DAOCaches caches;
+
 	/** Datasource */
 	private BasicDataSource datasource;
 
@@ -152,6 +159,8 @@ public class DatabaseUI implements ModifyListener {
 	private FileFieldEditor xmlFileText;
 	private Button xmlExportButton;
 	private Button xmlImportButton;
+	private Button rebuildRollupsButton;
+	private Button archiveContributionsButton;
 
 	/** Bean factory */
 	private IDTOFactory factory;
@@ -163,9 +172,13 @@ public class DatabaseUI implements ModifyListener {
 	 *            item parent.
 	 * @param modelMgr
 	 *            the model manager instance.
+	 * @param factory
+	 *            bean factory.
+	 * @param caches
+	 *            the caches shared by the transactions.
 	 */
-	public DatabaseUI(TabItem tabItem, IModelMgr modelMgr, IDTOFactory factory) {
-		this(tabItem.getParent(), modelMgr, factory);
+	public DatabaseUI(TabItem tabItem, IModelMgr modelMgr, IDTOFactory factory, DAOCaches caches) {
+		this(tabItem.getParent(), modelMgr, factory, caches);
 		tabItem.setControl(parent);
 	}
 
@@ -178,10 +191,13 @@ public class DatabaseUI implements ModifyListener {
 	 *            the model manager instance.
 	 * @param factory
 	 *            bean factory.
+	 * @param caches
+	 *            the caches shared by the transactions.
 	 */
-	public DatabaseUI(Composite parentComposite, IModelMgr modelMgr, IDTOFactory factory) {
+	public DatabaseUI(Composite parentComposite, IModelMgr modelMgr, IDTOFactory factory, DAOCaches caches) {
 		this.modelMgr = modelMgr;
 		this.factory = factory;
+		this.caches = caches;
 
 		// Création du composite parent
 		parent = new Composite(parentComposite, SWT.NONE);
@@ -454,6 +470,56 @@ public class DatabaseUI implements ModifyListener {
 		// Désactivation du bouton
 		disableField(xmlImportButton);
 
+		// Groupe et panneau contenant les boutons de maintenance
+		Group maintenanceGroup = new Group(centeredPanel, SWT.NONE);
+		maintenanceGroup.setLayoutData(new GridData(SWT.FILL, SWT.NONE, false, false));
+		maintenanceGroup.setText(Strings.getString("DatabaseUI.labels.MAINTENANCE")); //$NON-NLS-1$
+		maintenanceGroup.setLayout(fillLayout);
+		Composite maintenancePanel = new Composite(maintenanceGroup, SWT.NONE);
+		maintenancePanel.setLayout(new GridLayout(2, false));
+
+		// Bouton de recalcul des cumuls des contributions
+		rebuildRollupsButton = new Button(maintenancePanel, SWT.NONE);
+		rebuildRollupsButton.setText(Strings
+				.getString("DatabaseUI.buttons.REBUILD_CONTRIBUTION_ROLLUPS")); //$NON-NLS-1$
+		gridData = new GridData(SWT.CENTER, SWT.CENTER, false, false);
+		rebuildRollupsButton.setLayoutData(gridData);
+		rebuildRollupsButton.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				SafeRunner runner = new SafeRunner() {
+					public Object runUnsafe() throws Exception {
+						rebuildContributionRollups();
+						return null;
+					}
+				};
+				// Exécution du traitement
+				runner.run(parent.getShell());
+			}
+		});
+		// Désactivation du bouton
+		rebuildRollupsButton.setEnabled(false);
+
+		// Bouton d'archivage des contributions des années closes
+		archiveContributionsButton = new Button(maintenancePanel, SWT.NONE);
+		archiveContributionsButton.setText(Strings
+				.getString("DatabaseUI.buttons.ARCHIVE_CONTRIBUTIONS")); //$NON-NLS-1$
+		gridData = new GridData(SWT.CENTER, SWT.CENTER, false, false);
+		archiveContributionsButton.setLayoutData(gridData);
+		archiveContributionsButton.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				SafeRunner runner = new SafeRunner() {
+					public Object runUnsafe() throws Exception {
+						archiveContributions();
+						return null;
+					}
+				};
+				// Exécution du traitement
+				runner.run(parent.getShell());
+			}
+		});
+		// Désactivation du bouton
+		archiveContributionsButton.setEnabled(false);
+
 	}
 
 	/**
@@ -733,6 +799,11 @@ public class DatabaseUI implements ModifyListener {
 		datasource.setUsername(jdbcUser);
 		datasource.setPassword(jdbcPassword);
 		datasource.setDefaultAutoCommit(false);
+		// Les requêtes préparées sont réutilisées d'une transaction à l'autre
+		datasource.setPoolPreparedStatements(true);
+
+		// Les caches ne doivent pas servir les données d'une autre base
+		caches.invalidateAll();
 
 		// Test de l'existence du modèle en base
 		boolean dbModelOk = modelMgr.tablesExist();
@@ -754,6 +825,18 @@ public class DatabaseUI implements ModifyListener {
 								Strings.getString("DatabaseUI.errors.DATABASE_NOT_INSTALLED")); //$NON-NLS-1$
 			}
 		}
+		// Sinon, mise à jour des données selon la version du schéma (les
+		// tables ont été mises à jour par les scripts de mise à jour)
+		else {
+			try {
+				modelMgr.upgradeDatabase();
+			} catch (ModelException e) {
+				MessageDialog.openError(parent.getShell(),
+						Strings.getString("DatabaseUI.labels.ERROR"), //$NON-NLS-1$
+						e.getMessage());
+				dbModelOk = false;
+			}
+		}
 
 		// Si le modèle de données est bien installé
 		if (dbModelOk) {
@@ -782,6 +865,8 @@ public class DatabaseUI implements ModifyListener {
 			enabledField(xmlFileText, xmlPanel, "", false); //$NON-NLS-1$
 			xmlExportButton.setEnabled(true);
 			xmlImportButton.setEnabled(true);
+			rebuildRollupsButton.setEnabled(true);
+			archiveContributionsButton.setEnabled(true);
 
 			// Notification de changement de statut de la connexion
 			Iterator<IDbStatusListener> it = listeners.iterator();
@@ -810,6 +895,9 @@ public class DatabaseUI implements ModifyListener {
 			}
 		} catch (SQLException e) {
 			throw new UITechException("Unexpected error while closing the database",e); // TODO internationalize
+		} finally {
+			// Les caches ne doivent pas survivre à la base
+			caches.invalidateAll();
 		}
 
 		// Activation/désactivation des boutons et des champs
@@ -821,6 +909,8 @@ public class DatabaseUI implements ModifyListener {
 		disableField(xmlFileText, xmlPanel);
 		xmlExportButton.setEnabled(false);
 		xmlImportButton.setEnabled(false);
+		rebuildRollupsButton.setEnabled(false);
+		archiveContributionsButton.setEnabled(false);
 		dbTypeChanged();
 
 		// Notification de changement de statut de la connexion
@@ -889,6 +979,54 @@ public class DatabaseUI implements ModifyListener {
 		}
 	}
 
+	/**
+	 * Recalcule les cumuls des contributions (par tâche et par mois, et par
+	 * tâche) à partir des contributions, après une migration ou une écriture
+	 * des contributions en dehors de l'application.
+	 */
+	private void rebuildContributionRollups() {
+		if (MessageDialog.openConfirm(parent.getShell(),
+				Strings.getString("DatabaseUI.labels.CONFIRMATION"), //$NON-NLS-1$
+				Strings.getString("DatabaseUI.questions.REBUILD_CONTRIBUTION_ROLLUPS"))) { //$NON-NLS-1$
+			modelMgr.rebuildContributionRollups();
+			// Popup d'info de fin de traitement
+			MessageDialog.openInformation(parent.getShell(),
+					Strings.getString("DatabaseUI.labels.INFORMATION"), //$NON-NLS-1$
+					Strings.getString("DatabaseUI.informations.CONTRIBUTION_ROLLUPS_REBUILT")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Archive les contributions des années closes, jusqu'à une année saisie
+	 * par l'utilisateur.
+	 * 
+	 * @throws ModelException
+	 *             levé si l'année saisie n'est pas close.
+	 */
+	private void archiveContributions() throws ModelException {
+		InputDialog dialog = new InputDialog(
+				parent.getShell(),
+				Strings.getString("DatabaseUI.labels.CONFIRMATION"), //$NON-NLS-1$
+				Strings.getString("DatabaseUI.questions.ARCHIVE_CONTRIBUTIONS"), //$NON-NLS-1$
+				String.valueOf(Calendar.getInstance().get(Calendar.YEAR) - 1),
+				newText -> {
+					try {
+						Integer.parseInt(newText.trim());
+						return null;
+					} catch (NumberFormatException e) {
+						return Strings.getString("DatabaseUI.errors.INVALID_YEAR"); //$NON-NLS-1$
+					}
+				});
+		if (dialog.open() == Window.OK) {
+			int count = modelMgr.archiveContributions(Integer.parseInt(dialog
+					.getValue().trim()));
+			// Popup d'info de fin de traitement
+			MessageDialog.openInformation(parent.getShell(),
+					Strings.getString("DatabaseUI.labels.INFORMATION"), //$NON-NLS-1$
+					Strings.getString("DatabaseUI.informations.CONTRIBUTIONS_ARCHIVED", count)); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Exporte le contenu de la BDD vers un fichier XML.
 	 * 
@@ -33,6 +33,9 @@ import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+import org.activitymgr.core.dao.DAOCaches;
+import org.activitymgr.core.dao.IdentityMap;
+import org.activitymgr.core.dao.PreparedStatementCache;
 import org.activitymgr.core.dto.IDTOFactory;
 import org.activitymgr.core.model.CoreModelModule;
 import org.activitymgr.core.model.IModelMgr;
@@ -83,6 +86,9 @@ public class MainView extends ViewPart {
 	/** Factory */
 	private IDTOFactory factory;
 
+	/** Caches shared by the transactions */
+	private DAOCaches caches;
+
 	/**
 	 * This is a callback that will allow us to create the viewer and initialize
 	 * it.
@@ -100,7 +106,7 @@ public class MainView extends ViewPart {
 		// Database access configuration tab
 		databaseTab = new TabItem(tabFolder, SWT.NONE);
 		databaseTab.setText(Strings.getString("Main.tabs.DATABASE")); //$NON-NLS-1$
-		databaseUI = new DatabaseUI(databaseTab, modelMgr, factory);
+		databaseUI = new DatabaseUI(databaseTab, modelMgr, factory, caches);
 
 		// Durations tab creation
 		durationsTab = new TabItem(tabFolder, SWT.NONE);
@@ -196,6 +202,9 @@ public class MainView extends ViewPart {
 						}
 						tx = datasource.getConnection();
 						dbTxs.set(tx);
+						IdentityMap.open(tx);
+						PreparedStatementCache.open(tx);
+						caches.transactionStarted();
 						// Call the real model manager
 						IModelMgr wrappedModelMgr = injector.getInstance(IModelMgr.class);
 						Object result = method.invoke(wrappedModelMgr, args);
@@ -212,6 +221,9 @@ public class MainView extends ViewPart {
 						throw t.getCause();
 					} finally {
 						// Release the transaction
+						IdentityMap.close();
+						PreparedStatementCache.close();
+						caches.transactionEnded();
 						dbTxs.remove();
 						if (tx != null) {
 							tx.close();
@@ -219,6 +231,7 @@ public class MainView extends ViewPart {
 					}
 				});
 		factory = injector.getInstance(IDTOFactory.class);
+		caches = injector.getInstance(DAOCaches.class);
 	}
 
 	/**
@@ -13,6 +13,9 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Stack;
 
+import javax.sql.DataSource;
+
+import org.activitymgr.core.dao.ReportPlanner;
 import org.activitymgr.core.dto.Collaborator;
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.model.CoreModelModule;
@@ -24,8 +27,11 @@ import org.activitymgr.ui.web.logic.impl.TasksCellLogicFatory;
 import org.activitymgr.ui.web.logic.impl.internal.CollaboratorsTabLogicImpl;
 import org.activitymgr.ui.web.logic.impl.internal.ConfigurationImpl;
 import org.activitymgr.ui.web.logic.impl.internal.ContributionsTabLogicImpl;
+import org.activitymgr.ui.web.logic.impl.internal.DatabaseUpgrader;
 import org.activitymgr.ui.web.logic.impl.internal.DefaultConstraintsValidator;
 import org.activitymgr.ui.web.logic.impl.internal.NewContributionTaskButtonLogic;
+import org.activitymgr.ui.web.logic.impl.internal.ReadReplica;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJobManager;
 import org.activitymgr.ui.web.logic.impl.internal.ReportsTabLogicImpl;
 import org.activitymgr.ui.web.logic.impl.internal.TasksTabLogicImpl;
 import org.activitymgr.ui.web.logic.impl.internal.ThreadLocalizedDbTransactionProviderImpl;
@@ -90,14 +96,60 @@ public class LogicModule extends AbstractModule {
 		datasource.setPassword(jdbcCfg
 				.get("password", "taskmgr"));
 		datasource.setDefaultAutoCommit(false);
-		final ThreadLocalizedDbTransactionProviderImpl dbTxProvider = new ThreadLocalizedDbTransactionProviderImpl(datasource);
+		// The statements are reused across the transactions by the pool (the
+		// core statement cache only lasts one transaction)
+		datasource.setPoolPreparedStatements(jdbcCfg.getBoolean(
+				"poolPreparedStatements", true));
+		datasource.setMaxOpenPreparedStatements(jdbcCfg.getInt(
+				"maxOpenPreparedStatements", 64));
+
+		// Create the read replica datasource, if any (the read-only calls
+		// run on it)
+		ReadReplica replica = null;
+		IConfiguration replicaCfg = jdbcCfg.getScoped("replica", null);
+		if (replicaCfg.get("url") != null) {
+			BasicDataSource replicaDatasource = new BasicDataSource();
+			replicaDatasource.setDriverClassName(replicaCfg.get("driver",
+					datasource.getDriverClassName()));
+			replicaDatasource.setUrl(replicaCfg.get("url"));
+			replicaDatasource.setUsername(replicaCfg.get("user",
+					datasource.getUsername()));
+			replicaDatasource.setPassword(replicaCfg.get("password",
+					datasource.getPassword()));
+			replicaDatasource.setDefaultAutoCommit(false);
+			replicaDatasource.setDefaultReadOnly(true);
+			replica = new ReadReplica(replicaDatasource, replicaCfg);
+		}
+		final ThreadLocalizedDbTransactionProviderImpl dbTxProvider = new ThreadLocalizedDbTransactionProviderImpl(datasource, replica);
 		bind(ThreadLocalizedDbTransactionProviderImpl.class).toInstance(dbTxProvider);
+
+		// The report slices run on a bounded pool of their own (the threads
+		// that build the reports keep their connection while the slices are
+		// read) ; a slice that does not get a connection in time is read by
+		// the thread that builds the report. The contributions cube is
+		// loaded on that pool too (outside of the callers snapshots)
+		IConfiguration slicesCfg = jdbcCfg.getScoped("reportSlices", null);
+		BasicDataSource slicesDatasource = new BasicDataSource();
+		slicesDatasource.setDriverClassName(datasource.getDriverClassName());
+		slicesDatasource.setUrl(datasource.getUrl());
+		slicesDatasource.setUsername(datasource.getUsername());
+		slicesDatasource.setPassword(datasource.getPassword());
+		slicesDatasource.setDefaultAutoCommit(false);
+		slicesDatasource.setDefaultReadOnly(true);
+		int slicesConnections = slicesCfg.getInt("maxActive",
+				ReportPlanner.DEFAULT_THREADS);
+		slicesDatasource.setMaxActive(slicesConnections);
+		slicesDatasource.setMaxIdle(slicesConnections);
+		slicesDatasource.setMaxWait(slicesCfg.getInt("maxWait", 1000));
+		bind(DataSource.class).toInstance(slicesDatasource);
 		bind(Connection.class).toProvider(new Provider<Connection>() {
 			@Override
 			public Connection get() {
 				return dbTxProvider.get().getTx();
 			}
 		});
+		// Upgrade the database data when the application starts
+		bind(DatabaseUpgrader.class).asEagerSingleton();
 		
 		// Default SPI implementations
 		bind(IFeatureAccessManager.class).toInstance(new DefaultFeatureAccessManager());
@@ -107,6 +159,10 @@ public class LogicModule extends AbstractModule {
 		bind(IContributionsCellLogicFactory.class).toInstance(new ContributionsCellLogicFatory());
 		bind(ITasksCellLogicFactory.class).toInstance(new TasksCellLogicFatory());
 		
+		// Report jobs (built in background)
+		bind(ReportJobManager.class).toInstance(
+				new ReportJobManager(cfg.getScoped("activitymgr.reportJobs", null)));
+
 		// Install REST services
 		install(new RESTServicesModule());
 
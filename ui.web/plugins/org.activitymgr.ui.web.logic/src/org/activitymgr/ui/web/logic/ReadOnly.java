@@ -0,0 +1,35 @@
+package org.activitymgr.ui.web.logic;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the logic methods (or whole logic classes) and the REST services that
+ * do not write in the database.
+ *
+ * <p>
+ * When a read replica is configured (<code>activitymgr.jdbc.replica.*</code>
+ * properties), the transactions opened for these calls run on it, as long as
+ * it is not too stale. The data they read may thus lag behind the last
+ * commits, and a write attempt fails. Nested calls join the transaction of
+ * the outermost call, so a read-only call must not call logic methods that
+ * write.
+ * </p>
+ *
+ * <p>
+ * As the replica may not hold the writes of the same session yet, only the
+ * calls that tolerate a lag (the reports) should be marked, not those that
+ * back editable views.
+ * </p>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface ReadOnly {
+
+}
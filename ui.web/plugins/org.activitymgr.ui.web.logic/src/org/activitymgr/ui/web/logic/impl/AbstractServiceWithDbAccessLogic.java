@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.sql.Connection;
 
 import org.activitymgr.core.model.ModelException;
+import org.activitymgr.ui.web.logic.ReadOnly;
 import org.activitymgr.ui.web.logic.impl.internal.DbTransactionContext;
 import org.activitymgr.ui.web.logic.impl.internal.ThreadLocalizedDbTransactionProviderImpl;
 import org.activitymgr.ui.web.logic.spi.IRESTServiceLogic;
@@ -38,8 +39,9 @@ public abstract class AbstractServiceWithDbAccessLogic implements IRESTServiceLo
 			throws IOException {
 		boolean ctxReleased = true;
 		try {
-			// Init tx
-			DbTransactionContext ctx = dbTxProvider.newCtx();
+			// Init tx (read-only services may run on the replica)
+			DbTransactionContext ctx = dbTxProvider.newCtx(getClass()
+					.isAnnotationPresent(ReadOnly.class));
 			ctxReleased = false;
 			Connection tx = ctx.getTx();
 
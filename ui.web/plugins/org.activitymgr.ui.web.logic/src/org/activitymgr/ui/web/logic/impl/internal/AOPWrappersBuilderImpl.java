@@ -8,6 +8,7 @@ import java.lang.reflect.Proxy;
 import java.sql.Savepoint;
 import java.util.Stack;
 
+import org.activitymgr.core.dao.IdentityMap;
 import org.activitymgr.ui.web.logic.IAOPWrappersBuilder;
 import org.activitymgr.ui.web.logic.ILogic.IView;
 import org.activitymgr.ui.web.logic.IRootLogic;
@@ -76,12 +77,29 @@ final class AOPWrappersBuilderImpl implements IAOPWrappersBuilder {
 				}
 			
 				DbTransactionContext txCtx = dbTxProvider.get();
+				boolean readOnly = ThreadLocalizedDbTransactionProviderImpl
+						.isReadOnly(wrapped.getClass(), method);
+				// If notifications are disabled, drop all calls
+				// to logic void methods which corresponds to
+				// notification methods (ex :
+				// logic.onTextFieldChange())
+				boolean dropped = method.getReturnType().equals(void.class)
+						&& Boolean.TRUE.equals(viewNotificationsDisabled.get());
+				// A transaction opened on the replica cannot write (the
+				// caller is rolled back)
+				if (txCtx != null && txCtx.isOnReplica() && !readOnly && !dropped) {
+					throw new IllegalStateException(method.getName()
+							+ "() is not read-only, it cannot be called by "
+							+ txCtx.getCalls().firstElement().getName()
+							+ "() (read-only transaction opened on the read replica)");
+				}
 				Savepoint sp = null;
 				try {
 					// Open the transaction if required and push a savepoint
 					if (txCtx == null) {
-						// Bind TX provider
-						txCtx = dbTxProvider.newCtx();
+						// Bind TX provider (read-only calls may run on the
+						// replica)
+						txCtx = dbTxProvider.newCtx(readOnly);
 					} else {
 						sp = txCtx.getTx().setSavepoint();
 					}
@@ -89,13 +107,7 @@ final class AOPWrappersBuilderImpl implements IAOPWrappersBuilder {
 
 					// Prepare the call
 					Object result = null;
-					Boolean notificationsDisabled = viewNotificationsDisabled.get();
-					// If notifications are disabled, drop all calls
-					// to logic void methods which corresponds to
-					// notification methods (ex :
-					// logic.onTextFieldChange())
-					if (method.getReturnType().equals(void.class)
-							&& Boolean.TRUE.equals(notificationsDisabled)) {
+					if (dropped) {
 						// Don't invoke the method and return
 						result = null;
 					} else {
@@ -124,6 +136,8 @@ final class AOPWrappersBuilderImpl implements IAOPWrappersBuilder {
 					} else {
 						txCtx.getTx().rollback();
 					}
+					// The identity map may hold rolled back rows
+					IdentityMap.clearCurrent();
 					Throwable exception = t.getTargetException();
 					LOGGER.warn("Transaction failure", exception);
 					
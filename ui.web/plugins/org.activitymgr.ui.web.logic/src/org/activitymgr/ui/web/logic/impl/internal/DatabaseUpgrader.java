@@ -0,0 +1,41 @@
+package org.activitymgr.ui.web.logic.impl.internal;
+
+import java.sql.SQLException;
+
+import org.activitymgr.core.model.IModelMgr;
+import org.activitymgr.core.model.ModelException;
+import org.apache.log4j.Logger;
+
+import com.google.inject.Inject;
+
+/**
+ * Upgrades the database data according to its schema version when the
+ * application starts (see {@link IModelMgr#upgradeDatabase()}).
+ *
+ * <p>
+ * The application does not start if the database cannot be upgraded, as it
+ * would misread the data.
+ * </p>
+ */
+public class DatabaseUpgrader {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(DatabaseUpgrader.class);
+
+	@Inject
+	public DatabaseUpgrader(ThreadLocalizedDbTransactionProviderImpl dbTxProvider,
+			IModelMgr modelMgr) throws SQLException, ModelException {
+		DbTransactionContext ctx = dbTxProvider.newCtx(false);
+		try {
+			modelMgr.upgradeDatabase();
+			ctx.getTx().commit();
+		} catch (SQLException | ModelException | RuntimeException e) {
+			log.error("Database upgrade failure", e);
+			ctx.getTx().rollback();
+			throw e;
+		} finally {
+			dbTxProvider.release();
+		}
+	}
+
+}
@@ -8,15 +8,26 @@ public class DbTransactionContext {
 	
 	private Connection tx;
 	
+	private boolean onReplica;
+	
 	private Stack<Method> calls = new Stack<Method>();
 	
 	public DbTransactionContext(Connection con) {
+		this(con, false);
+	}
+
+	public DbTransactionContext(Connection con, boolean onReplica) {
 		tx = con;
+		this.onReplica = onReplica;
 	}
 	
 	public Connection getTx() {
 		return tx;
 	}
+
+	public boolean isOnReplica() {
+		return onReplica;
+	}
 	
 	public Stack<Method> getCalls() {
 		return calls;
@@ -0,0 +1,187 @@
+package org.activitymgr.ui.web.logic.impl.internal;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.activitymgr.ui.web.logic.IConfiguration;
+import org.apache.log4j.Logger;
+
+/**
+ * Read-only copy of the database, used by the read-only transactions.
+ *
+ * <p>
+ * If a lag query is configured, the replica is only used while its lag is
+ * below the staleness tolerance. The lag is checked periodically, and the
+ * replica is also put aside for a check interval when a connection cannot be
+ * opened. In both cases, the read-only transactions fall back to the primary
+ * database.
+ * </p>
+ *
+ * <p>
+ * The lag query must return the lag in seconds in its first column, or in a
+ * <code>Seconds_Behind_Master</code> (or <code>Seconds_Behind_Source</code>)
+ * column, so that MySQL's <code>show slave status</code> may be used. A
+ * <code>null</code> lag (replication stopped) means that the replica is
+ * stale.
+ * </p>
+ */
+public class ReadReplica {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(ReadReplica.class);
+
+	/** Lag columns of the MySQL replication status */
+	private static final String[] LAG_COLUMNS = new String[] {
+			"Seconds_Behind_Master", "Seconds_Behind_Source" };
+
+	/** Replica datasource */
+	private final DataSource ds;
+
+	/** Staleness tolerance (in milliseconds) */
+	private final long maxStaleness;
+
+	/** Lag query (optional) */
+	private final String lagQuery;
+
+	/** Interval between two lag checks (in milliseconds) */
+	private final long checkInterval;
+
+	/** Time of the next check */
+	private volatile long nextCheck;
+
+	/** Tells whether the replica may be used until the next check */
+	private volatile boolean usable;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param ds
+	 *            the replica datasource.
+	 * @param cfg
+	 *            the replica configuration (<code>maxStaleness</code> and
+	 *            <code>lagCheckInterval</code> in seconds, and
+	 *            <code>lagQuery</code>).
+	 */
+	public ReadReplica(DataSource ds, IConfiguration cfg) {
+		this(ds, cfg.getInt("maxStaleness", 30) * 1000l, cfg.get("lagQuery"),
+				cfg.getInt("lagCheckInterval", 10) * 1000l);
+	}
+
+	/**
+	 * Builds a replica.
+	 *
+	 * @param ds
+	 *            the replica datasource.
+	 * @param maxStaleness
+	 *            the staleness tolerance (in milliseconds).
+	 * @param lagQuery
+	 *            the lag query (<code>null</code> if the lag is not
+	 *            checked).
+	 * @param checkInterval
+	 *            the interval between two lag checks (in milliseconds).
+	 */
+	public ReadReplica(DataSource ds, long maxStaleness, String lagQuery,
+			long checkInterval) {
+		this.ds = ds;
+		this.maxStaleness = maxStaleness;
+		this.lagQuery = lagQuery != null && !"".equals(lagQuery.trim()) ? lagQuery
+				: null;
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Opens a connection to the replica, if it is available and fresh enough.
+	 *
+	 * @return the connection, or <code>null</code> if the primary database
+	 *         must be used.
+	 */
+	public Connection getConnection() {
+		long now = System.currentTimeMillis();
+		if (now >= nextCheck) {
+			synchronized (this) {
+				if (now >= nextCheck) {
+					usable = checkLag();
+					nextCheck = now + checkInterval;
+				}
+			}
+		}
+		if (!usable) {
+			return null;
+		}
+		try {
+			return ds.getConnection();
+		} catch (SQLException e) {
+			log.warn("Read replica unavailable, falling back to the primary database", e);
+			putAside(now);
+			return null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the replica lag is below the staleness
+	 *         tolerance.
+	 */
+	private boolean checkLag() {
+		if (lagQuery == null) {
+			return true;
+		}
+		Connection con = null;
+		try {
+			con = ds.getConnection();
+			Statement stmt = con.createStatement();
+			ResultSet rs = stmt.executeQuery(lagQuery);
+			Number lag = rs.next() ? readLag(rs) : null;
+			stmt.close();
+			if (lag == null || lag.doubleValue() * 1000 > maxStaleness) {
+				log.info("Read replica too stale (lag : " + lag
+						+ "s), falling back to the primary database");
+				return false;
+			}
+			return true;
+		} catch (SQLException e) {
+			log.warn("Read replica lag check failure, falling back to the primary database", e);
+			return false;
+		} finally {
+			if (con != null) {
+				try {
+					con.close();
+				} catch (SQLException ignored) {
+				}
+			}
+		}
+	}
+
+	private static Number readLag(ResultSet rs) throws SQLException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		int column = 1;
+		for (int i = 1; i <= metaData.getColumnCount(); i++) {
+			for (String lagColumn : LAG_COLUMNS) {
+				if (lagColumn.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+					column = i;
+				}
+			}
+		}
+		Object lag = rs.getObject(column);
+		if (lag == null || lag instanceof Number) {
+			return (Number) lag;
+		}
+		return Double.valueOf(lag.toString());
+	}
+
+	/**
+	 * Puts the replica aside until the next check.
+	 *
+	 * @param now
+	 *            the current time.
+	 */
+	private synchronized void putAside(long now) {
+		usable = false;
+		nextCheck = now + checkInterval;
+	}
+
+}
@@ -0,0 +1,231 @@
+package org.activitymgr.ui.web.logic.impl.internal;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import org.activitymgr.core.dao.StatementCanceller;
+import org.activitymgr.core.model.IModelMgr;
+import org.activitymgr.core.model.ModelException;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.DecimalSeparator;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Report built in background (see {@link ReportJobManager}).
+ */
+public class ReportJob {
+
+	public static enum Status {
+
+		QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+		/**
+		 * @return <code>true</code> if the job is over.
+		 */
+		public boolean isFinished() {
+			return this != QUEUED && this != RUNNING;
+		}
+
+	}
+
+	public static enum Phase {
+		WAITING, BUILDING, WRITING, FINISHED;
+	}
+
+	/**
+	 * Build of the job report.
+	 */
+	public interface Build {
+
+		/**
+		 * Builds the report (the database transaction is opened by the job).
+		 *
+		 * @param modelMgr
+		 *            the model manager.
+		 * @param streaming
+		 *            <code>true</code> if the report must be built as a
+		 *            streaming XLSX workbook.
+		 * @return the report.
+		 * @throws ModelException
+		 *             thrown if the report parameters are invalid.
+		 */
+		Workbook build(IModelMgr modelMgr, boolean streaming)
+				throws ModelException;
+
+	}
+
+	private final String id;
+
+	private final long ownerId;
+
+	private final Format format;
+
+	private final DecimalSeparator decimalSeparator;
+
+	private final long submitted;
+
+	private volatile Status status = Status.QUEUED;
+
+	private volatile Phase phase = Phase.WAITING;
+
+	private volatile int rowsProcessed;
+
+	private volatile int rowsTotal;
+
+	private volatile String error;
+
+	private volatile long finished;
+
+	/** Report build (only known by the server that received the job) */
+	Build build;
+
+	/** Queries canceller */
+	final StatementCanceller canceller = new StatementCanceller();
+
+	/** Worker task */
+	Future<?> future;
+
+	ReportJob(String id, long ownerId, Format format,
+			DecimalSeparator decimalSeparator, long submitted) {
+		this.id = id;
+		this.ownerId = ownerId;
+		this.format = format;
+		this.decimalSeparator = decimalSeparator;
+		this.submitted = submitted;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public long getOwnerId() {
+		return ownerId;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	public DecimalSeparator getDecimalSeparator() {
+		return decimalSeparator;
+	}
+
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Phase getPhase() {
+		return phase;
+	}
+
+	void setPhase(Phase phase) {
+		this.phase = phase;
+	}
+
+	/**
+	 * @return the count of report rows written so far.
+	 */
+	public int getRowsProcessed() {
+		return rowsProcessed;
+	}
+
+	/**
+	 * @return the count of report rows (<code>0</code> until the report is
+	 *         built).
+	 */
+	public int getRowsTotal() {
+		return rowsTotal;
+	}
+
+	void setRows(int rowsProcessed, int rowsTotal) {
+		this.rowsProcessed = rowsProcessed;
+		this.rowsTotal = rowsTotal;
+	}
+
+	/**
+	 * @return the failure message, if the job has failed.
+	 */
+	public String getError() {
+		return error;
+	}
+
+	void setError(String error) {
+		this.error = error;
+	}
+
+	/**
+	 * @return the end time of the job (<code>0</code> if it is not over).
+	 */
+	public long getFinished() {
+		return finished;
+	}
+
+	void setFinished(long finished) {
+		this.finished = finished;
+	}
+
+	/**
+	 * @return the name of the report file.
+	 */
+	public String getFileName() {
+		return "am-report-"
+				+ new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(
+						submitted)) + "." + format.getExtension();
+	}
+
+	/**
+	 * @return the persistent job status.
+	 */
+	Properties toProperties() {
+		Properties props = new Properties();
+		props.setProperty("id", id);
+		props.setProperty("owner", String.valueOf(ownerId));
+		props.setProperty("format", format.name());
+		if (decimalSeparator != null) {
+			props.setProperty("decimalSeparator", decimalSeparator.name());
+		}
+		props.setProperty("submitted", String.valueOf(submitted));
+		props.setProperty("status", status.name());
+		props.setProperty("phase", phase.name());
+		props.setProperty("rowsProcessed", String.valueOf(rowsProcessed));
+		props.setProperty("rowsTotal", String.valueOf(rowsTotal));
+		if (error != null) {
+			props.setProperty("error", error);
+		}
+		props.setProperty("finished", String.valueOf(finished));
+		return props;
+	}
+
+	/**
+	 * @param props
+	 *            a persistent job status.
+	 * @return the job.
+	 */
+	static ReportJob fromProperties(Properties props) {
+		String decimalSeparator = props.getProperty("decimalSeparator");
+		ReportJob job = new ReportJob(props.getProperty("id"),
+				Long.parseLong(props.getProperty("owner")),
+				Format.valueOf(props.getProperty("format")),
+				decimalSeparator != null ? DecimalSeparator
+						.valueOf(decimalSeparator) : null,
+				Long.parseLong(props.getProperty("submitted")));
+		job.status = Status.valueOf(props.getProperty("status"));
+		job.phase = Phase.valueOf(props.getProperty("phase"));
+		job.rowsProcessed = Integer.parseInt(props.getProperty("rowsProcessed"));
+		job.rowsTotal = Integer.parseInt(props.getProperty("rowsTotal"));
+		job.error = props.getProperty("error");
+		job.finished = Long.parseLong(props.getProperty("finished"));
+		return job;
+	}
+
+}
@@ -0,0 +1,346 @@
+package org.activitymgr.ui.web.logic.impl.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activitymgr.core.dao.StatementCanceller;
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.model.IModelMgr;
+import org.activitymgr.core.model.ModelException;
+import org.activitymgr.ui.web.logic.IConfiguration;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJob.Phase;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJob.Status;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.DecimalSeparator;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
+import org.apache.log4j.Logger;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import com.google.inject.Inject;
+
+/**
+ * Builds the reports in background, so that neither the UI nor the REST
+ * services hold a connection and a HTTP thread while a report is built.
+ *
+ * <p>
+ * The jobs are run by a bounded pool of threads, each one in its own
+ * read-only transaction, and are polled by their owner through their
+ * identifier. A running job may be cancelled : its running queries are then
+ * cancelled too (see {@link StatementCanceller}).
+ * </p>
+ *
+ * <p>
+ * The status of the jobs is kept on disk along with the reports files, which
+ * are removed once the retention delay is over. The jobs that were running
+ * when the server stopped are failed on restart.
+ * </p>
+ *
+ * <p>
+ * The threads count, the queue size, the jobs directory and the retention
+ * delay (in seconds) are given by the <code>threads</code>,
+ * <code>queueSize</code>, <code>dir</code> and <code>retention</code> keys of
+ * the <code>activitymgr.reportJobs</code> configuration scope.
+ * </p>
+ */
+public class ReportJobManager {
+
+	/** Logger */
+	private static Logger log = Logger.getLogger(ReportJobManager.class);
+
+	/** Job status file suffix */
+	private static final String STATUS_SUFFIX = ".job";
+
+	/** Suffix of the report files being written */
+	private static final String PART_SUFFIX = ".part";
+
+	@Inject
+	private ThreadLocalizedDbTransactionProviderImpl dbTxProvider;
+
+	@Inject
+	private IModelMgr modelMgr;
+
+	/** Jobs directory */
+	private final File dir;
+
+	/** Retention delay of the finished jobs (in milliseconds) */
+	private final long retention;
+
+	/** Jobs threads */
+	private final ThreadPoolExecutor executor;
+
+	/** Jobs, by identifier */
+	private final Map<String, ReportJob> jobs = new ConcurrentHashMap<String, ReportJob>();
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param cfg
+	 *            the jobs configuration.
+	 */
+	public ReportJobManager(IConfiguration cfg) {
+		this(cfg.getInt("threads", 2), cfg.getInt("queueSize", 20), new File(
+				cfg.get("dir", new File(System.getProperty("java.io.tmpdir"),
+						"activitymgr-report-jobs").getAbsolutePath())), cfg
+				.getInt("retention", 3600) * 1000l);
+	}
+
+	/**
+	 * Builds a jobs manager.
+	 *
+	 * @param threads
+	 *            the count of jobs run concurrently.
+	 * @param queueSize
+	 *            the count of jobs that may wait for a thread.
+	 * @param dir
+	 *            the jobs directory.
+	 * @param retention
+	 *            the retention delay of the finished jobs (in milliseconds).
+	 */
+	public ReportJobManager(int threads, int queueSize, File dir,
+			long retention) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Invalid threads count " + threads);
+		}
+		this.dir = dir;
+		this.retention = retention;
+		final AtomicInteger threadsCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 60,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+						Math.max(1, queueSize)), r -> {
+					Thread thread = new Thread(r, "Report job " //$NON-NLS-1$
+							+ threadsCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IllegalStateException("Cannot create the report jobs directory " + dir);
+		}
+		load();
+	}
+
+	/**
+	 * Submits a report job.
+	 *
+	 * @param owner
+	 *            the collaborator who submits the job.
+	 * @param format
+	 *            the report format.
+	 * @param decimalSeparator
+	 *            the decimal separator of the HTML and CSV formats (optional).
+	 * @param build
+	 *            the report build.
+	 * @return the job.
+	 * @throws ModelException
+	 *             thrown if too many jobs are waiting.
+	 */
+	public ReportJob submit(Collaborator owner, Format format,
+			DecimalSeparator decimalSeparator, ReportJob.Build build)
+			throws ModelException {
+		purge();
+		ReportJob job = new ReportJob(UUID.randomUUID().toString(),
+				owner.getId(), format, decimalSeparator,
+				System.currentTimeMillis());
+		job.build = build;
+		jobs.put(job.getId(), job);
+		save(job);
+		try {
+			job.future = executor.submit(() -> run(job));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			delete(job);
+			throw new ModelException("Too many reports are being built, please retry later");
+		}
+		log.debug("Report job submitted : " + job.getId());
+		return job;
+	}
+
+	/**
+	 * @param owner
+	 *            the connected collaborator.
+	 * @param id
+	 *            the job identifier.
+	 * @return the job, or <code>null</code> if it is unknown, expired, or
+	 *         submitted by another collaborator.
+	 */
+	public ReportJob getJob(Collaborator owner, String id) {
+		purge();
+		ReportJob job = id != null ? jobs.get(id) : null;
+		return job != null && job.getOwnerId() == owner.getId() ? job : null;
+	}
+
+	/**
+	 * Cancels a job (a running job stops as soon as possible).
+	 *
+	 * @param job
+	 *            the job.
+	 */
+	public void cancel(ReportJob job) {
+		synchronized (job) {
+			if (job.getStatus() == Status.QUEUED) {
+				if (job.future != null) {
+					job.future.cancel(false);
+				}
+				finish(job, Status.CANCELLED, null);
+			} else if (job.getStatus() == Status.RUNNING) {
+				job.canceller.cancel();
+			}
+		}
+	}
+
+	/**
+	 * @param job
+	 *            the job.
+	 * @return the report file, or <code>null</code> if the job is not done.
+	 */
+	public File getReportFile(ReportJob job) {
+		File file = getReportFile(job, "");
+		return job.getStatus() == Status.DONE && file.exists() ? file : null;
+	}
+
+	private void run(ReportJob job) {
+		synchronized (job) {
+			if (job.getStatus() != Status.QUEUED) {
+				return;
+			}
+			job.setStatus(Status.RUNNING);
+			job.setPhase(Phase.BUILDING);
+		}
+		save(job);
+		File part = getReportFile(job, PART_SUFFIX);
+		try {
+			// Report build
+			Workbook report;
+			StatementCanceller.setCurrent(job.canceller);
+			try {
+				DbTransactionContext ctx = dbTxProvider.newCtx(true);
+				try {
+					report = job.build.build(modelMgr, job.getFormat()
+							.isStreaming());
+					ctx.getTx().commit();
+				} finally {
+					dbTxProvider.release();
+				}
+			} finally {
+				StatementCanceller.setCurrent(null);
+			}
+			checkNotCancelled(job);
+
+			// Report file writing
+			job.setPhase(Phase.WRITING);
+			job.setRows(0, report.getSheetAt(0).getLastRowNum() + 1);
+			save(job);
+			try (OutputStream out = new FileOutputStream(part)) {
+				ReportRenderer.write(report, job.getFormat(),
+						job.getDecimalSeparator(), out, (written, total) -> {
+							checkNotCancelled(job);
+							job.setRows(written, total);
+						});
+			}
+			if (!part.renameTo(getReportFile(job, ""))) {
+				throw new IOException("Cannot rename " + part);
+			}
+			finish(job, Status.DONE, null);
+		} catch (Throwable t) {
+			part.delete();
+			if (job.canceller.isCancelled()) {
+				finish(job, Status.CANCELLED, null);
+			} else {
+				log.error("Report job failure", t);
+				finish(job, Status.FAILED, t.getMessage() != null ? t.getMessage() : t.toString());
+			}
+		} finally {
+			job.build = null;
+		}
+	}
+
+	private static void checkNotCancelled(ReportJob job) {
+		if (job.canceller.isCancelled()) {
+			throw new CancellationException();
+		}
+	}
+
+	private void finish(ReportJob job, Status status, String error) {
+		job.setStatus(status);
+		job.setPhase(Phase.FINISHED);
+		job.setError(error);
+		job.setFinished(System.currentTimeMillis());
+		save(job);
+		log.debug("Report job " + job.getId() + " : " + status);
+	}
+
+	/**
+	 * Loads the jobs status (the jobs that were not over have been
+	 * interrupted).
+	 */
+	private void load() {
+		File[] files = dir.listFiles();
+		for (File file : files != null ? files : new File[0]) {
+			if (file.getName().endsWith(PART_SUFFIX)) {
+				file.delete();
+			} else if (file.getName().endsWith(STATUS_SUFFIX)) {
+				try (InputStream in = new FileInputStream(file)) {
+					Properties props = new Properties();
+					props.load(in);
+					ReportJob job = ReportJob.fromProperties(props);
+					if (!job.getStatus().isFinished()) {
+						finish(job, Status.FAILED, "Interrupted by a server restart");
+					}
+					jobs.put(job.getId(), job);
+				} catch (IOException | RuntimeException e) {
+					log.warn("Invalid report job status " + file, e);
+					file.delete();
+				}
+			}
+		}
+		purge();
+	}
+
+	/**
+	 * Removes the jobs whose retention delay is over.
+	 */
+	private void purge() {
+		long now = System.currentTimeMillis();
+		for (ReportJob job : jobs.values()) {
+			if (job.getStatus().isFinished()
+					&& now - job.getFinished() > retention) {
+				jobs.remove(job.getId());
+				delete(job);
+			}
+		}
+	}
+
+	private void save(ReportJob job) {
+		try (OutputStream out = new FileOutputStream(new File(dir, job.getId()
+				+ STATUS_SUFFIX))) {
+			job.toProperties().store(out, null);
+		} catch (IOException e) {
+			log.warn("Report job status cannot be saved", e);
+		}
+	}
+
+	private void delete(ReportJob job) {
+		new File(dir, job.getId() + STATUS_SUFFIX).delete();
+		getReportFile(job, "").delete();
+	}
+
+	private File getReportFile(ReportJob job, String suffix) {
+		return new File(dir, job.getId() + "."
+				+ job.getFormat().getExtension() + suffix);
+	}
+
+}
@@ -2,7 +2,6 @@ package org.activitymgr.ui.web.logic.impl.internal;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -18,7 +17,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
 import java.util.stream.Stream;
 
 import org.activitymgr.core.dto.Collaborator;
@@ -28,18 +26,17 @@ import org.activitymgr.core.dto.report.ReportIntervalType;
 import org.activitymgr.core.model.ModelException;
 import org.activitymgr.core.util.DateHelper;
 import org.activitymgr.core.util.StringHelper;
-import org.activitymgr.ui.web.logic.IDownloadButtonLogic;
 import org.activitymgr.ui.web.logic.IReportsLogic;
 import org.activitymgr.ui.web.logic.IStandardButtonLogic;
 import org.activitymgr.ui.web.logic.impl.AbstractLogicImpl;
-import org.activitymgr.ui.web.logic.impl.AbstractSafeDownloadButtonLogicImpl;
 import org.activitymgr.ui.web.logic.impl.AbstractSafeStandardButtonLogicImpl;
 import org.activitymgr.ui.web.logic.impl.AbstractSafeTwinSelectFieldLogic;
 import org.activitymgr.ui.web.logic.impl.AbstractSafeTwinSelectFieldLogic.IDTOInfosProvider;
 import org.activitymgr.ui.web.logic.impl.ExternalContentDialogLogicImpl;
 import org.activitymgr.ui.web.logic.impl.internal.services.AbstractReportServiceLogic;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportJobServiceLogic;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
 import org.apache.commons.beanutils.BeanUtils;
-import org.apache.poi.ss.usermodel.Workbook;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -125,6 +122,9 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 	@Inject
 	private IDTOFactory dtoFactory;
 
+	@Inject
+	private ReportJobManager jobManager;
+
 	private ReportIntervalType intervalType = ReportIntervalType.MONTH;
 
 	private ReportIntervalBoundsMode intervalBoundsMode = ReportIntervalBoundsMode.AUTOMATIC;
@@ -149,7 +149,9 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 	
 	private boolean onlyKeepTaskWithContributions;
 
-	private IDownloadButtonLogic download;
+	private IStandardButtonLogic download;
+
+	private IStandardButtonLogic xlsxDownload;
 
 	private boolean advancedMode;
 
@@ -239,12 +241,17 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 		dialogPreview = createReportButton("Preview (dialog)", 
 				() -> showPreview(false));
 		
-		download = createFileReportButton("Build report",
-				out -> buildReport(false).write(out),
-				() -> "am-report-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".xls");
+		// The reports are built in background, and their progress page is
+		// opened
+		download = createReportButton("Build report",
+				() -> submitReportJob(Format.XLS));
+		// XLSX reports are streamed, and are not limited to 256 columns
+		xlsxDownload = createReportButton("Build report (XLSX)",
+				() -> submitReportJob(Format.XLSX));
 		
 		Stream.of(
 			download, 
+			xlsxDownload, 
 			dialogPreview, 
 			fullPreview, 
 			reset)
@@ -265,20 +272,12 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 		};
 	}
 	
-	private IDownloadButtonLogic createFileReportButton(String label, ContextExec<OutputStream> task, Callable<String> filename) {
-		return new AbstractSafeDownloadButtonLogicImpl(
-				this, label, null, null) {
-			@Override
-			protected byte[] unsafeGetContent() throws Exception {
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				task.accept(out);
-				return out.toByteArray();
-			}
-			@Override
-			protected String unsafeGetFileName() throws Exception {
-				return filename.call();
-			}
-		};
+	private void submitReportJob(Format format) throws ModelException {
+		ReportJob job = jobManager.submit(getContext()
+				.getConnectedCollaborator(), format, null,
+				prepareReportBuild(false));
+		getRoot().getView().openExternalUrl(
+				ReportJobServiceLogic.getURL(job, "0", null));
 	}
 
 	
@@ -456,6 +455,10 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 			appendUrlParam(sw, true, "service", SERVICE_REPORT_HTML_URI);
 			ReportParameters reportParameters = prepareReportParameters();
 			appendUrlParam(sw, "v-uiId", "0");
+			// The preview is built in background
+			appendUrlParam(sw, AbstractReportServiceLogic.ASYNC_PARAMETER, true);
+			appendUrlParam(sw, ReportJobServiceLogic.VIEW_PARAMETER,
+					ReportJobServiceLogic.HTML_VIEW);
 			appendUrlParam(sw,
 					AbstractReportServiceLogic.INTERVAL_TYPE_PARAMETER,
 					reportParameters.getIntervalType().toString());
@@ -676,8 +679,17 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 
 			getView().setOnlyKeepTaskWithContributions(
 					onlyKeepTaskWithContributions);
-			buildReport(true);
+			// Each format is checked against its own limits (the XLS
+			// report has less columns than the XLSX one)
+			ReportJob.Build dryRun = prepareReportBuild(true);
+			dryRun.build(getModelMgr(), true);
 			setReportButtonsEnabled(true);
+			try {
+				dryRun.build(getModelMgr(), false);
+			} catch (ModelException e) {
+				download.getView().setEnabled(false);
+				getView().setErrorMessage("XLS report unavailable : " + e.getMessage());
+			}
 			// Notify
 			onReportConfigurationChanged(toJson());
 		} catch (ModelException e) {
@@ -697,14 +709,16 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 
 	private void setReportButtonsEnabled(boolean enabled) {
 		download.getView().setEnabled(enabled);
+		xlsxDownload.getView().setEnabled(enabled);
 		dialogPreview.getView().setEnabled(enabled);
 		fullPreview.getView().setEnabled(enabled);
 	}
 
-	private Workbook buildReport(boolean dryRun) throws ModelException {
+	private ReportJob.Build prepareReportBuild(boolean dryRun) throws ModelException {
 		ReportParameters params = prepareReportParameters();
-		Workbook report = getModelMgr().buildReport(
-			start, // Start date
+		Calendar reportStart = (Calendar) start.clone();
+		return (modelMgr, streaming) -> modelMgr.buildReport(
+			reportStart, // Start date
 			params.getIntervalType(), // Interval type
 			params.getIntervalCount(), // Interval count
 			params.getRootTaskId(), // Root task id
@@ -718,8 +732,7 @@ public class ReportsLogicImpl extends AbstractLogicImpl<IReportsLogic.View>
 			params.getContributorIds(), // Contributor ids
 			// Column ids
 			params.getColumnIds().toArray(String[]::new), 
-			true, dryRun);
-		return report;
+			true, dryRun, streaming);
 	}
 
 	private ReportParameters prepareReportParameters() throws ModelException {
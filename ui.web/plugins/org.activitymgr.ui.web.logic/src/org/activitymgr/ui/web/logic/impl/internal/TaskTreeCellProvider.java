@@ -5,9 +5,10 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.LongStream;
 
 import org.activitymgr.core.dto.Task;
 import org.activitymgr.core.dto.misc.TaskSums;
@@ -109,10 +110,10 @@ class TaskTreeCellProvider
 		}
 		
 		if (filter != null && !subTasksSums.isEmpty()) {
-			List<Long> childrenIds = Stream.of(modelMgr.getSubTasks(parentTaskId, filter))
-				.filter(it -> !onlyOpened || !it.isClosed())
-				.map(it -> it.getId())
-				.collect(Collectors.toList());
+			// Closed tasks have already been removed, ids are enough
+			Set<Long> childrenIds = LongStream.of(modelMgr.getSubTaskIds(parentTaskId, filter))
+				.boxed()
+				.collect(Collectors.toSet());
 			subTasksSums.removeIf(it -> !childrenIds.contains(it.getTask().getId()));
 		}
 		
@@ -1,32 +1,99 @@
 package org.activitymgr.ui.web.logic.impl.internal;
 
+import java.lang.reflect.Method;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
+import org.activitymgr.core.dao.ContributionCube;
+import org.activitymgr.core.dao.IdentityMap;
+import org.activitymgr.core.dao.PreparedStatementCache;
+import org.activitymgr.core.dao.ReportCache;
+import org.activitymgr.core.dao.TaskDAOCache;
+import org.activitymgr.ui.web.logic.ReadOnly;
+
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 public class ThreadLocalizedDbTransactionProviderImpl implements Provider<DbTransactionContext> {
 	
 	private DataSource ds;
 
+	private ReadReplica replica;
+
+	@Inject
+	private TaskDAOCache taskCache;
+
+	@Inject
+	private ReportCache reportCache;
+
+	@Inject
+	private ContributionCube cube;
+
 	private ThreadLocal<DbTransactionContext> transactions = new ThreadLocal<DbTransactionContext>();
 
+	/** Read-only markers, by target class and method */
+	private static final ConcurrentMap<List<Object>, Boolean> readOnlyMethods = new ConcurrentHashMap<List<Object>, Boolean>();
+
 	public ThreadLocalizedDbTransactionProviderImpl(DataSource ds) {
+		this(ds, null);
+	}
+
+	public ThreadLocalizedDbTransactionProviderImpl(DataSource ds, ReadReplica replica) {
 		this.ds = ds;
+		this.replica = replica;
 	}
 
 	public DbTransactionContext newCtx() throws SQLException {
+		return newCtx(false);
+	}
+
+	/**
+	 * Opens the transaction of the current thread.
+	 *
+	 * @param readOnly
+	 *            <code>true</code> if the transaction does not write, in which
+	 *            case it runs on the read replica, if any and fresh enough.
+	 * @return the transaction context.
+	 * @throws SQLException
+	 *             thrown if no connection can be opened.
+	 */
+	public DbTransactionContext newCtx(boolean readOnly) throws SQLException {
 		DbTransactionContext dbTransactionContext = transactions.get();
 		if (dbTransactionContext != null) {
 			throw new IllegalStateException("Previous database context not released for the current thread");
 		}
-		dbTransactionContext = new DbTransactionContext(ds.getConnection());
+		Connection con = readOnly && replica != null ? replica.getConnection() : null;
+		boolean onReplica = con != null;
+		if (!onReplica) {
+			con = ds.getConnection();
+		}
+		dbTransactionContext = new DbTransactionContext(con, onReplica);
 		transactions.set(dbTransactionContext);
+		IdentityMap.open(dbTransactionContext.getTx());
+		PreparedStatementCache.open(dbTransactionContext.getTx());
+		reportCache.transactionStarted();
+		if (onReplica) {
+			// Replica rows must not be shared with the primary transactions
+			taskCache.staleReadsStarted();
+			reportCache.staleReadsStarted();
+		}
 		return dbTransactionContext;
 	}
 	
 	public void release() throws SQLException {
+		IdentityMap.close();
+		// The statements must be closed before the connection goes back to
+		// the pool
+		PreparedStatementCache.close();
+		taskCache.transactionEnded();
+		reportCache.transactionEnded();
+		cube.transactionEnded();
 		transactions.get().getTx().close();
 		transactions.remove();
 	}
@@ -36,4 +103,31 @@ public class ThreadLocalizedDbTransactionProviderImpl implements Provider<DbTran
 		return transactions.get();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * @param targetClass
+	 *            the class of the called object.
+	 * @param method
+	 *            the called method (possibly declared by an interface).
+	 * @return <code>true</code> if the class or the method is marked
+	 *         {@link ReadOnly}.
+	 */
+	public static boolean isReadOnly(Class<?> targetClass, Method method) {
+		List<Object> key = Arrays.<Object> asList(targetClass, method);
+		Boolean readOnly = readOnlyMethods.get(key);
+		if (readOnly == null) {
+			readOnly = targetClass.isAnnotationPresent(ReadOnly.class)
+					|| method.isAnnotationPresent(ReadOnly.class);
+			if (!readOnly) {
+				try {
+					readOnly = targetClass.getMethod(method.getName(),
+							method.getParameterTypes()).isAnnotationPresent(
+							ReadOnly.class);
+				} catch (NoSuchMethodException ignored) {
+				}
+			}
+			readOnlyMethods.put(key, readOnly);
+		}
+		return readOnly;
+	}
+
+}
@@ -11,12 +11,18 @@ import org.activitymgr.core.dto.report.ReportIntervalType;
 import org.activitymgr.core.model.IModelMgr;
 import org.activitymgr.core.model.ModelException;
 import org.activitymgr.ui.web.logic.IReportsTabLogic;
+import org.activitymgr.ui.web.logic.ReadOnly;
 import org.activitymgr.ui.web.logic.impl.AbstractServiceWithAuthenticationLogic;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJob;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJobManager;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.DecimalSeparator;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
 import org.activitymgr.ui.web.logic.spi.IFeatureAccessManager;
 import org.apache.poi.ss.usermodel.Workbook;
 
 import com.google.inject.Inject;
 
+@ReadOnly
 public abstract class AbstractReportServiceLogic extends
 		AbstractServiceWithAuthenticationLogic {
 
@@ -31,6 +37,9 @@ public abstract class AbstractReportServiceLogic extends
 	public static final String INTERVAL_TYPE_PARAMETER = "intervalType";
 	public static final String START_PARAMETER = "start";
 	public static final String OMIT_TOTALS_PARAMETER = "omitTotals";
+	public static final String FORMAT_PARAMETER = "format";
+	public static final String XLSX_FORMAT = "xlsx";
+	public static final String ASYNC_PARAMETER = "async";
 
 	@Inject
 	private IModelMgr modelMgr;
@@ -38,6 +47,9 @@ public abstract class AbstractReportServiceLogic extends
 	@Inject
 	private IFeatureAccessManager featureAccessManager;
 
+	@Inject
+	private ReportJobManager jobManager;
+
 	@Override
 	protected final void doService(Collaborator connected, Request parameters,
 			Response response)
@@ -138,11 +150,51 @@ public abstract class AbstractReportServiceLogic extends
 		boolean includeTotals = (omitTotalsParameter == null)
 				|| (!"true".equals(omitTotalsParameter));
 
-		Workbook xls = modelMgr.buildReport(start, intervalType, intervalCount,
-				rootTaskId, taskDepth, onlyKeepTasksWithContributions,
-				byContributor, contributorCentricMode, contributorIds,
-				columnIds, includeTotals, false);
-		doService(connected, parameters, response, xls);
+		ReportJob.Build build = reportBuild(start, intervalType,
+				intervalCount, rootTaskId, taskDepth,
+				onlyKeepTasksWithContributions, byContributor,
+				contributorCentricMode, contributorIds, columnIds,
+				includeTotals);
+		Format format = getFormat(parameters);
+		if ("true".equals(parameters.getParameter(ASYNC_PARAMETER))) {
+			// The report is built by a job, which the client then polls
+			ReportJob job = jobManager.submit(connected, format,
+					getDecimalSeparator(parameters), build);
+			ReportJobServiceLogic.writeStatus(job, parameters, response);
+		} else {
+			Workbook xls = build.build(modelMgr, format.isStreaming());
+			doService(connected, parameters, response, xls);
+		}
+	}
+
+	private static ReportJob.Build reportBuild(Calendar start,
+			ReportIntervalType intervalType, Integer intervalCount,
+			Long rootTaskId, int taskDepth,
+			boolean onlyKeepTasksWithContributions, boolean byContributor,
+			boolean contributorCentricMode, long[] contributorIds,
+			String[] columnIds, boolean includeTotals) {
+		return (modelMgr, streaming) -> modelMgr.buildReport(start,
+				intervalType, intervalCount, rootTaskId, taskDepth,
+				onlyKeepTasksWithContributions, byContributor,
+				contributorCentricMode, contributorIds, columnIds,
+				includeTotals, false, streaming);
+	}
+
+	/**
+	 * @param request
+	 *            the request.
+	 * @return the report format.
+	 */
+	protected abstract Format getFormat(Request request);
+
+	/**
+	 * @param request
+	 *            the request.
+	 * @return the decimal separator of the HTML and CSV formats
+	 *         (<code>null</code> for the default one).
+	 */
+	protected DecimalSeparator getDecimalSeparator(Request request) {
+		return null;
 	}
 
 	protected abstract void doService(Collaborator connected, Request request,
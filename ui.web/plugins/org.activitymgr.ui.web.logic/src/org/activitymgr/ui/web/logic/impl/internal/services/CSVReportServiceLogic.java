@@ -0,0 +1,43 @@
+package org.activitymgr.ui.web.logic.impl.internal.services;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.DecimalSeparator;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
+import org.apache.poi.ss.usermodel.Workbook;
+
+public class CSVReportServiceLogic extends AbstractReportServiceLogic {
+
+	@Override
+	public String getPath() {
+		return "/report/csv";
+	}
+
+	@Override
+	protected Format getFormat(Request request) {
+		return Format.CSV;
+	}
+
+	@Override
+	protected DecimalSeparator getDecimalSeparator(Request request) {
+		String decimalSeparatorParam = request
+				.getParameter(HTMLReportServiceLogic.DECIMAL_SEPARATOR_PARAMETER);
+		return decimalSeparatorParam != null ? DecimalSeparator
+				.valueOf(decimalSeparatorParam.trim().toUpperCase()) : null;
+	}
+
+	@Override
+	protected void doService(Collaborator connected, Request request,
+			Response response, Workbook report) throws IOException {
+		response.setContentType(Format.CSV.getContentType());
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS");
+		String name = "am-report-" + sdf.format(new Date()) + ".csv";
+		response.addHeader("Content-Disposition", "attachment; filename="
+				+ name);
+		ReportRenderer.write(report, Format.CSV,
+				getDecimalSeparator(request), response.getOutputStream(), null);
+	}
+}
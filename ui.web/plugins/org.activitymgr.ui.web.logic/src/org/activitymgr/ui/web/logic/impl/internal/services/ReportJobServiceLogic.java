@@ -0,0 +1,215 @@
+package org.activitymgr.ui.web.logic.impl.internal.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.model.ModelException;
+import org.activitymgr.core.util.StringHelper;
+import org.activitymgr.ui.web.logic.ReadOnly;
+import org.activitymgr.ui.web.logic.impl.AbstractServiceWithAuthenticationLogic;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJob;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJob.Status;
+import org.activitymgr.ui.web.logic.impl.internal.ReportJobManager;
+
+import com.google.gson.JsonObject;
+import com.google.inject.Inject;
+
+/**
+ * Report jobs polling service.
+ *
+ * <p>
+ * Gives the status of a job (as JSON, or as a HTML page that refreshes itself
+ * until the report is ready, and then downloads it), cancels it, or downloads
+ * its report.
+ * </p>
+ */
+@ReadOnly
+public class ReportJobServiceLogic extends AbstractServiceWithAuthenticationLogic {
+
+	public static final String PATH = "/report/job";
+	public static final String URL = "/service" + PATH;
+	public static final String ID_PARAMETER = "id";
+	public static final String ACTION_PARAMETER = "action";
+	public static final String CANCEL_ACTION = "cancel";
+	public static final String DOWNLOAD_ACTION = "download";
+	public static final String VIEW_PARAMETER = "view";
+	public static final String HTML_VIEW = "html";
+	public static final String UI_ID_PARAMETER = "v-uiId";
+
+	/** Status page refresh delay (in seconds) */
+	private static final int REFRESH_DELAY = 1;
+
+	@Inject
+	private ReportJobManager jobManager;
+
+	@Override
+	public String getPath() {
+		return PATH;
+	}
+
+	@Override
+	protected void doService(Collaborator connected, Request request,
+			Response response) throws ModelException, IOException {
+		ReportJob job = jobManager.getJob(connected,
+				request.getParameter(ID_PARAMETER));
+		if (job == null) {
+			response.sendError(404, "Unknown report job");
+			return;
+		}
+		String action = request.getParameter(ACTION_PARAMETER);
+		if (DOWNLOAD_ACTION.equals(action)) {
+			File file = jobManager.getReportFile(job);
+			if (file == null) {
+				response.sendError(409, "Report not ready");
+				return;
+			}
+			response.setContentType(job.getFormat().getContentType());
+			if (job.getFormat() == ReportRenderer.Format.HTML) {
+				response.addHeader("Cache-Control", "max-age=0");
+			} else {
+				response.addHeader("Content-Disposition",
+						"attachment; filename=" + job.getFileName());
+			}
+			Files.copy(file.toPath(), response.getOutputStream());
+		} else {
+			if (CANCEL_ACTION.equals(action)) {
+				jobManager.cancel(job);
+			}
+			writeStatus(job, request, response);
+		}
+	}
+
+	/**
+	 * Writes the status of a job.
+	 *
+	 * @param job
+	 *            the job.
+	 * @param request
+	 *            the request (whose <code>view</code> parameter tells
+	 *            whether the status is rendered as HTML).
+	 * @param response
+	 *            the response.
+	 * @throws IOException
+	 *             thrown if an I/O error occurs.
+	 */
+	public static void writeStatus(ReportJob job, Request request,
+			Response response) throws IOException {
+		response.addHeader("Cache-Control", "max-age=0");
+		String uiId = request.getParameter(UI_ID_PARAMETER);
+		if (HTML_VIEW.equals(request.getParameter(VIEW_PARAMETER))) {
+			response.setContentType("text/html");
+			PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+					response.getOutputStream(), "UTF-8"));
+			pw.println("<html>");
+			pw.println("<head>");
+			pw.println("<title>Activity Manager Report</title>");
+			pw.println("<meta charset='UTF-8'>");
+			Status status = job.getStatus();
+			if (status == Status.DONE) {
+				pw.println("<meta http-equiv=\"refresh\" content=\"0;URL='"
+						+ getURL(job, uiId, DOWNLOAD_ACTION) + "'\">");
+			} else if (!status.isFinished()) {
+				pw.println("<meta http-equiv=\"refresh\" content=\""
+						+ REFRESH_DELAY + ";URL='" + getURL(job, uiId, null)
+						+ "'\">");
+				pw.println("<style>");
+				pw.println("html {");
+				pw.println("   width:100%;");
+				pw.println("   height:100%;");
+				pw.println("   background:url(/VAADIN/themes/activitymgr/icons/loading.gif) center center no-repeat;");
+				pw.println("}");
+				pw.println("</style>");
+			}
+			pw.println("</head>");
+			pw.println("<body>");
+			switch (status) {
+			case QUEUED:
+				pw.println("<p>The report is waiting to be built.</p>");
+				break;
+			case RUNNING:
+				pw.print("<p>The report is being built (" + StringHelper
+						.toUpperFirst(job.getPhase().name().toLowerCase()));
+				if (job.getRowsTotal() > 0) {
+					pw.print(", " + job.getRowsProcessed() + " / "
+							+ job.getRowsTotal() + " rows");
+				}
+				pw.println(").</p>");
+				break;
+			case DONE:
+				pw.println("<p>The report is ready : <a href=\""
+						+ getURL(job, uiId, DOWNLOAD_ACTION) + "\">"
+						+ job.getFileName() + "</a></p>");
+				break;
+			case FAILED:
+				pw.println("<p>The report could not be built : "
+						+ escape(job.getError()) + "</p>");
+				break;
+			case CANCELLED:
+				pw.println("<p>The report has been cancelled.</p>");
+			}
+			if (!status.isFinished()) {
+				pw.println("<p><a href=\"" + getURL(job, uiId, CANCEL_ACTION)
+						+ "\">Cancel</a></p>");
+			}
+			pw.println("</body>");
+			pw.println("</html>");
+			pw.flush();
+		} else {
+			response.setContentType("application/json");
+			JsonObject json = new JsonObject();
+			json.addProperty("id", job.getId());
+			json.addProperty("status", job.getStatus().name());
+			json.addProperty("phase", job.getPhase().name());
+			json.addProperty("rowsProcessed", job.getRowsProcessed());
+			json.addProperty("rowsTotal", job.getRowsTotal());
+			json.addProperty("format", job.getFormat().name());
+			json.addProperty("fileName", job.getFileName());
+			json.addProperty("submitted", job.getSubmitted());
+			if (job.getStatus().isFinished()) {
+				json.addProperty("finished", job.getFinished());
+			}
+			if (job.getError() != null) {
+				json.addProperty("error", job.getError());
+			}
+			if (job.getStatus() == Status.DONE) {
+				json.addProperty("download", getURL(job, uiId, DOWNLOAD_ACTION));
+			}
+			response.getOutputStream().write(json.toString().getBytes("UTF-8"));
+		}
+	}
+
+	/**
+	 * @param job
+	 *            the job.
+	 * @param uiId
+	 *            the UI identifier, if the job is polled from the UI.
+	 * @param action
+	 *            the action (<code>null</code> for the HTML status page).
+	 * @return the URL of the job service.
+	 */
+	public static String getURL(ReportJob job, String uiId, String action) {
+		StringBuilder sb = new StringBuilder(URL).append('?')
+				.append(ID_PARAMETER).append('=').append(job.getId());
+		if (uiId != null) {
+			sb.append('&').append(UI_ID_PARAMETER).append('=')
+					.append(StringHelper.urlEncodeAmpersand(uiId));
+		}
+		if (action != null) {
+			sb.append('&').append(ACTION_PARAMETER).append('=').append(action);
+		}
+		if (!DOWNLOAD_ACTION.equals(action)) {
+			sb.append('&').append(VIEW_PARAMETER).append('=').append(HTML_VIEW);
+		}
+		return sb.toString();
+	}
+
+	private static String escape(String str) {
+		return str == null ? "" : str.replace("&", "&amp;")
+				.replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+}
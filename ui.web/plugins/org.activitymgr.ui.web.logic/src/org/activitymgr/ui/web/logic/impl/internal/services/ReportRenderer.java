@@ -0,0 +1,290 @@
+package org.activitymgr.ui.web.logic.impl.internal.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+
+import org.activitymgr.core.util.WorkbookBuilder;
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Color;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Writes the reports in the formats served to the users.
+ */
+public class ReportRenderer {
+
+	public static enum Format {
+
+		XLS("application/vnd.ms-excel", "xls", false),
+		XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", true),
+		HTML("text/html", "html", false),
+		CSV("text/csv", "csv", false);
+
+		private final String contentType;
+
+		private final String extension;
+
+		private final boolean streaming;
+
+		private Format(String contentType, String extension, boolean streaming) {
+			this.contentType = contentType;
+			this.extension = extension;
+			this.streaming = streaming;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * @return <code>true</code> if the report must be built as a
+		 *         streaming XLSX workbook (whose rows cannot be read back).
+		 */
+		public boolean isStreaming() {
+			return streaming;
+		}
+
+	}
+
+	public static enum DecimalSeparator {
+		COMMA, DOT;
+	}
+
+	/**
+	 * Listener of the report rows writing.
+	 */
+	public interface RowsListener {
+
+		/**
+		 * Notifies that rows have been written.
+		 *
+		 * @param written
+		 *            the count of written rows.
+		 * @param total
+		 *            the count of rows of the report.
+		 */
+		void rowsWritten(int written, int total);
+
+	}
+
+	/** Count of rows between two listener notifications */
+	private static final int NOTIFICATION_ROWS = 100;
+
+	/**
+	 * Writes a report (the workbook is closed).
+	 *
+	 * @param report
+	 *            the report.
+	 * @param format
+	 *            the format.
+	 * @param decimalSeparator
+	 *            the decimal separator of the HTML and CSV formats
+	 *            (<code>null</code> for the default one).
+	 * @param out
+	 *            the output stream.
+	 * @param listener
+	 *            the rows listener (optional).
+	 * @throws IOException
+	 *             thrown if an I/O error occurs.
+	 */
+	public static void write(Workbook report, Format format,
+			DecimalSeparator decimalSeparator, OutputStream out,
+			RowsListener listener) throws IOException {
+		int total = report.getSheetAt(0).getLastRowNum() + 1;
+		switch (format) {
+		case XLS:
+		case XLSX:
+			WorkbookBuilder.write(report, out);
+			if (listener != null) {
+				listener.rowsWritten(total, total);
+			}
+			break;
+		case HTML:
+			writeHTML(report, decimalSeparator, out, listener);
+			break;
+		case CSV:
+			writeCSV(report, decimalSeparator, out, listener);
+		}
+	}
+
+	private static void writeHTML(Workbook report,
+			DecimalSeparator decimalSeparator, OutputStream out,
+			RowsListener listener) throws IOException {
+		PrintWriter pw = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+		pw.println("<html>");
+		pw.println("<head>");
+		pw.println("<title>Activity Manager Report</title>");
+		/*
+		 * Prevents EXCEL from caching the page see
+		 * https://blogs.technet.microsoft
+		 * .com/the_microsoft_excel_support_team_blog
+		 * /2011/11/15/cannot-download-
+		 * the-information-you-requested-executing-web-query-from-excel/
+		 */
+		pw.println("<http-equiv=\"PRAGMA\" content=\"NO-CACHE\">");
+		pw.println("<meta charset='UTF-8'>");
+		pw.println("</head>");
+		pw.println("<body>");
+		pw.println("<table border='1' cellspacing='0' cellpadding='0'>");
+		Sheet sheet = report.getSheetAt(0);
+		int total = sheet.getLastRowNum() + 1;
+		for (int r = 0; r < total; r++) {
+			Row row = sheet.getRow(r);
+			pw.println("<tr>");
+			for (int c = 0; c < row.getLastCellNum(); c++) {
+				Cell cell = row.getCell(c);
+				if (cell == null) {
+					pw.println("  <td></td>");
+				} else {
+					CellStyle style = cell.getCellStyle();
+					pw.print("  <td");
+					Color bgColor = style.getFillForegroundColorColor();
+
+					if (bgColor instanceof HSSFColor
+							&& HSSFColor.HSSFColorPredefined.AUTOMATIC.getIndex()
+								!= style.getFillForegroundColor()) {
+						pw.print(" bgcolor='#");
+						pw.print(((HSSFColor) bgColor).getHexString());
+						pw.print("'");
+					}
+					pw.print(" align='");
+					switch (style.getAlignment()) {
+					case CENTER:
+						pw.print("center");
+						break;
+					case RIGHT:
+						pw.print("right");
+						break;
+					default:
+						pw.print("left");
+					}
+					pw.print("'");
+					pw.print(">");
+					CellType cellType = cell.getCellType();
+					if (cellType == CellType.FORMULA) {
+						cellType = cell.getCachedFormulaResultType();
+					}
+					switch (cellType) {
+					case BLANK:
+						break;
+					case BOOLEAN:
+						pw.print(cell.getBooleanCellValue());
+						break;
+					case ERROR:
+						pw.print("#ERROR");
+						break;
+					case NUMERIC:
+						String formatted = NumberFormat.getNumberInstance()
+								.format(cell.getNumericCellValue());
+						if (decimalSeparator != null) {
+							switch (decimalSeparator) {
+							case COMMA:
+								formatted = formatted.replace('.', ',');
+								break;
+							case DOT:
+								formatted = formatted.replace(',', '.');
+								break;
+							}
+						}
+						pw.print(formatted);
+						break;
+					case STRING:
+						String str = cell.getStringCellValue();
+						if (str != null) {
+							str = str.replaceAll("<", "&lt;");
+							str = str.replaceAll(">", "&gt;");
+						}
+						pw.print(str);
+					}
+					pw.println("</td>");
+				}
+			}
+			pw.println("</tr>");
+			notify(listener, r + 1, total);
+		}
+		pw.println("</table>");
+		pw.println("</body>");
+		pw.println("</html>");
+		pw.flush();
+		report.close();
+	}
+
+	private static void writeCSV(Workbook report,
+			DecimalSeparator decimalSeparator, OutputStream out,
+			RowsListener listener) throws IOException {
+		// The values are separated by semicolons when the decimal separator
+		// is a comma
+		boolean comma = decimalSeparator == DecimalSeparator.COMMA;
+		char separator = comma ? ';' : ',';
+		PrintWriter pw = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+		Sheet sheet = report.getSheetAt(0);
+		int total = sheet.getLastRowNum() + 1;
+		for (int r = 0; r < total; r++) {
+			Row row = sheet.getRow(r);
+			for (int c = 0; c < row.getLastCellNum(); c++) {
+				if (c > 0) {
+					pw.print(separator);
+				}
+				Cell cell = row.getCell(c);
+				if (cell != null) {
+					CellType cellType = cell.getCellType();
+					if (cellType == CellType.FORMULA) {
+						cellType = cell.getCachedFormulaResultType();
+					}
+					switch (cellType) {
+					case BOOLEAN:
+						pw.print(cell.getBooleanCellValue());
+						break;
+					case ERROR:
+						pw.print("#ERROR");
+						break;
+					case NUMERIC:
+						String formatted = BigDecimal
+								.valueOf(cell.getNumericCellValue())
+								.stripTrailingZeros().toPlainString();
+						pw.print(comma ? formatted.replace('.', ',') : formatted);
+						break;
+					case STRING:
+						String str = cell.getStringCellValue();
+						if (str != null) {
+							if (str.indexOf(separator) >= 0
+									|| str.indexOf('"') >= 0
+									|| str.indexOf('\n') >= 0
+									|| str.indexOf('\r') >= 0) {
+								str = '"' + str.replace("\"", "\"\"") + '"';
+							}
+							pw.print(str);
+						}
+						break;
+					default:
+					}
+				}
+			}
+			pw.print("\r\n");
+			notify(listener, r + 1, total);
+		}
+		pw.flush();
+		report.close();
+	}
+
+	private static void notify(RowsListener listener, int written, int total) {
+		if (listener != null
+				&& (written % NOTIFICATION_ROWS == 0 || written == total)) {
+			listener.rowsWritten(written, total);
+		}
+	}
+
+}
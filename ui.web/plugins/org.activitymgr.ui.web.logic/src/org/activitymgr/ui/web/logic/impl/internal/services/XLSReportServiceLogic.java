@@ -5,6 +5,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.activitymgr.core.dto.Collaborator;
+import org.activitymgr.core.util.WorkbookBuilder;
+import org.activitymgr.ui.web.logic.impl.internal.services.ReportRenderer.Format;
 import org.apache.poi.ss.usermodel.Workbook;
 
 public class XLSReportServiceLogic extends AbstractReportServiceLogic {
@@ -14,14 +16,21 @@ public class XLSReportServiceLogic extends AbstractReportServiceLogic {
 		return "/report/xls";
 	}
 
+	@Override
+	protected Format getFormat(Request request) {
+		return XLSX_FORMAT.equals(request.getParameter(FORMAT_PARAMETER)) ? Format.XLSX
+				: Format.XLS;
+	}
+
 	@Override
 	protected void doService(Collaborator connected, Request request,
 			Response response, Workbook report) throws IOException {
-		response.setContentType("application/vnd.ms-excel");
+		Format format = getFormat(request);
+		response.setContentType(format.getContentType());
 		SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS");
-		String name = "am-report-" + sdf.format(new Date()) + ".xls";
+		String name = "am-report-" + sdf.format(new Date()) + "." + format.getExtension();
 		response.addHeader("Content-Disposition", "attachment; filename="
 				+ name);
-		report.write(response.getOutputStream());
+		WorkbookBuilder.write(report, response.getOutputStream());
 	}
 }